@@ -0,0 +1,85 @@
+package com.example.benchmarks;
+
+import com.example.config.JacksonConfig;
+import com.example.model.VehicleData;
+import com.example.serialization.TelemetryCodec;
+import com.example.serialization.TelemetryFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoded size and decode time of the readings of {@code data/vehicle-data-dev.json} as they are, in
+ * JSON and in Smile. {@code decode} reports the time per message and, through its {@code bytes}
+ * counter, the encoded size of the messages it decoded (divide by the operation count for bytes per
+ * message).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DevDatasetCodecBenchmark {
+
+    private static final String DATASET = "data/vehicle-data-dev.json";
+
+    @Param({"JSON", "SMILE"})
+    public TelemetryFormat format;
+
+    private TelemetryCodec codec;
+    private byte[][] payloads;
+    private int next;
+
+    /** Encoded bytes of the decoded messages, reported next to the timing. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+        codec = new TelemetryCodec(objectMapper);
+        VehicleData[] readings;
+        try (InputStream is = DevDatasetCodecBenchmark.class.getClassLoader().getResourceAsStream(DATASET)) {
+            if (is == null) {
+                throw new IllegalStateException(DATASET + " not found on the classpath");
+            }
+            readings = objectMapper.readValue(is, VehicleData[].class);
+        }
+        payloads = new byte[readings.length][];
+        for (int i = 0; i < readings.length; i++) {
+            payloads[i] = codec.encode(readings[i], format);
+        }
+    }
+
+    @Benchmark
+    public VehicleData decode(EncodedSize size) throws IOException {
+        byte[] payload = payloads[next];
+        next = next + 1 == payloads.length ? 0 : next + 1;
+        size.bytes += payload.length;
+        return codec.decode(payload, 0, payload.length, format);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.benchmarks;
+
+import com.example.config.JacksonConfig;
+import com.example.model.Sensor;
+import com.example.model.VehicleData;
+import com.example.service.TelemetryDownsampler;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server time of a time-range response: JSON serialization of every reading ({@code raw}) against
+ * {@link TelemetryDownsampler} to {@code maxPoints} followed by serialization of the sampled readings.
+ * The response size of each variant is printed once per trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DownsamplingBenchmark {
+
+    /** One day and one week at 1 Hz. */
+    @Param({"86400", "604800"})
+    public int readings;
+
+    @Param({"1000"})
+    public int maxPoints;
+
+    private List<VehicleData> range;
+    private ObjectWriter writer;
+    private Instant from;
+    private TelemetryDownsampler.Spec average;
+    private TelemetryDownsampler.Spec lttb;
+
+    @Setup
+    public void setUp() {
+        range = TelemetryGenerator.generate(TelemetryGenerator.Profile.MIXED, readings, 42);
+        writer = new JacksonConfig().objectMapper().writerFor(VehicleData.class);
+        from = range.get(0).getTimestamp();
+        Instant to = range.get(range.size() - 1).getTimestamp().plusSeconds(1);
+        average = TelemetryDownsampler.Spec.of(TelemetryDownsampler.Method.AVERAGE, maxPoints, null, Sensor.SPEED, from, to);
+        lttb = TelemetryDownsampler.Spec.of(TelemetryDownsampler.Method.LTTB, maxPoints, null, Sensor.SPEED, from, to);
+        System.out.printf("%n%d readings: raw %d KB, AVERAGE %d KB, LTTB %d KB%n", readings,
+            raw() >> 10, average() >> 10, lttb() >> 10);
+    }
+
+    @Benchmark
+    public long raw() {
+        return serialize(Flux.fromIterable(range));
+    }
+
+    @Benchmark
+    public long average() {
+        return serialize(TelemetryDownsampler.downsample(Flux.fromIterable(range), average, from));
+    }
+
+    @Benchmark
+    public long lttb() {
+        return serialize(TelemetryDownsampler.downsample(Flux.fromIterable(range), lttb, from));
+    }
+
+    /** Bytes of the JSON response body. */
+    private long serialize(Flux<VehicleData> response) {
+        return response
+            .map(data -> {
+                try {
+                    return (long) writer.writeValueAsBytes(data).length;
+                } catch (JsonProcessingException e) {
+                    throw new IllegalStateException(e);
+                }
+            })
+            .reduce(0L, Long::sum)
+            .block();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.benchmarks;
+
+import com.example.config.JacksonConfig;
+import com.example.model.VehicleData;
+import com.example.serialization.TelemetryCodec;
+import com.example.serialization.TelemetryFormat;
+import com.example.serialization.VehicleDataDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kafka record decoding: the {@link VehicleDataDeserializer}, reading the record bytes directly,
+ * against the former path (StringDeserializer, then {@code ObjectMapper.readValue(String)}). Compare
+ * {@code gc.alloc.rate.norm} for the bytes allocated per message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KafkaDeserializationBenchmark {
+
+    private static final String TOPIC = "vehicle-data";
+
+    @Param({"MIXED"})
+    public TelemetryGenerator.Profile profile;
+
+    private ObjectMapper objectMapper;
+    private VehicleDataDeserializer deserializer;
+    private byte[][] payloads;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = new JacksonConfig().objectMapper();
+        TelemetryCodec codec = new TelemetryCodec(objectMapper);
+        deserializer = new VehicleDataDeserializer(codec);
+        List<VehicleData> generated = TelemetryGenerator.generate(profile, 4_096, 42);
+        payloads = new byte[generated.size()][];
+        for (int i = 0; i < payloads.length; i++) {
+            payloads[i] = codec.encode(generated.get(i), TelemetryFormat.JSON);
+        }
+    }
+
+    @Benchmark
+    public VehicleData recordBytes() {
+        return deserializer.deserialize(TOPIC, nextPayload());
+    }
+
+    @Benchmark
+    public VehicleData stringThenBinding() throws IOException {
+        return objectMapper.readValue(new String(nextPayload(), StandardCharsets.UTF_8), VehicleData.class);
+    }
+
+    private byte[] nextPayload() {
+        byte[] payload = payloads[next];
+        next = (next + 1) & (payloads.length - 1);
+        return payload;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.benchmarks;
+
+import com.example.model.VehicleData;
+import com.example.repository.VehicleDataRepository;
+import com.example.service.LatestVehicleDataCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code /latest} lookups served from {@link LatestVehicleDataCache} with {@code vehicles} polled
+ * vehicles already ingested, so no lookup reaches the repository. Sampled, so JMH reports the p50,
+ * p99 and p99.9 latencies.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LatestCacheBenchmark {
+
+    private static final Instant NOW = Instant.parse("2025-02-23T10:00:00Z");
+
+    @Param({"100000"})
+    public int vehicles;
+
+    private LatestVehicleDataCache cache;
+    private String[] vehicleIds;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        cache = new LatestVehicleDataCache(ReactiveStubs.repository(VehicleDataRepository.class, Map.of()),
+            new SimpleMeterRegistry(), 1_000_000, 60_000, 5_000);
+        vehicleIds = new String[vehicles];
+        for (int i = 0; i < vehicles; i++) {
+            VehicleData data = new VehicleData();
+            data.setVehicleId("VEH-" + i);
+            data.setContractId("CONTRACT-" + i);
+            data.setTimestamp(NOW);
+            cache.record(data);
+            vehicleIds[i] = data.getVehicleId();
+        }
+    }
+
+    @Benchmark
+    public VehicleData latest() {
+        // Stride through the vehicles rather than in insertion order
+        next = (int) ((next + 7_919L) % vehicles);
+        return cache.get(vehicleIds[next]).block();
+    }
+}
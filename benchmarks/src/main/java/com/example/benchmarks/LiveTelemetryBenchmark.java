@@ -0,0 +1,66 @@
+package com.example.benchmarks;
+
+import com.example.model.VehicleData;
+import com.example.service.LiveTelemetryHub;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost on the ingest path of {@link LiveTelemetryHub#publish} when every vehicle and contract has
+ * subscribers that never read: their buffers are full and each reading is conflated or dropped.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LiveTelemetryBenchmark {
+
+    @Param({"0", "100"})
+    public int stalledSubscribersPerScope;
+
+    private LiveTelemetryHub hub;
+    private VehicleData[] readings;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        hub = new LiveTelemetryHub(new SimpleMeterRegistry(), 256);
+        List<VehicleData> generated = TelemetryGenerator.generate(TelemetryGenerator.Profile.MIXED, 4_096, 42);
+        readings = generated.toArray(new VehicleData[0]);
+        for (int i = 0; i < stalledSubscribersPerScope; i++) {
+            hub.vehicle(readings[i].getVehicleId()).subscribe(new StalledSubscriber());
+            hub.contract(readings[i].getContractId()).subscribe(new StalledSubscriber());
+        }
+    }
+
+    @Benchmark
+    public void publish() {
+        VehicleData reading = readings[next];
+        next = (next + 1) & (readings.length - 1);
+        hub.publish(reading);
+    }
+
+    /** Subscribes without ever requesting. */
+    private static final class StalledSubscriber extends BaseSubscriber<VehicleData> {
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+        }
+    }
+}
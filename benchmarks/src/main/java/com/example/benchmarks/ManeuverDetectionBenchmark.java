@@ -0,0 +1,76 @@
+package com.example.benchmarks;
+
+import com.example.model.RiskEvent;
+import com.example.model.Sensor;
+import com.example.model.SensorSnapshot;
+import com.example.model.VehicleData;
+import com.example.service.ManeuverDetector;
+import com.example.service.VehicleStateStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manoeuvre detection cost per reading with {@code vehicles} tracked vehicles in an in-memory
+ * {@link VehicleStateStore}, one thread. Readings go round the vehicles one second apart; the
+ * timestamp is set per operation so every reading is newer than the vehicle's last one and is
+ * actually evaluated.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ManeuverDetectionBenchmark {
+
+    private static final long START = Instant.parse("2025-02-23T10:00:00Z").toEpochMilli();
+
+    @Param({"50000"})
+    public int vehicles;
+
+    private ManeuverDetector detector;
+    private VehicleData[] readings;
+    private long sequence;
+
+    @Setup
+    public void setUp() {
+        VehicleStateStore store = new VehicleStateStore(new SimpleMeterRegistry(), "", 16, 2 * vehicles, 0, 0);
+        detector = new ManeuverDetector(new SimpleMeterRegistry(), store, 3_000, 10_000, 3.5, 400, 3.0, 60, 4.0);
+        Random random = new Random(42);
+        readings = new VehicleData[vehicles];
+        for (int i = 0; i < vehicles; i++) {
+            SensorSnapshot sensors = new SensorSnapshot();
+            sensors.set(Sensor.SPEED, 40 + random.nextDouble() * 60, "km/h");
+            sensors.set(Sensor.THROTTLE_POS, random.nextDouble() * 100, "%");
+            sensors.addExtra("HEADING", random.nextDouble() * 360, "deg");
+            VehicleData data = new VehicleData();
+            data.setVehicleId("VEH-" + i);
+            data.setContractId("CONTRACT-" + i);
+            data.setSensors(sensors);
+            readings[i] = data;
+        }
+    }
+
+    @Benchmark
+    public List<RiskEvent> detect() {
+        long n = sequence++;
+        VehicleData reading = readings[(int) (n % vehicles)];
+        reading.setTimestamp(Instant.ofEpochMilli(START + n / vehicles * 1_000));
+        return detector.detect(reading);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.benchmarks;
+
+import com.example.config.JacksonConfig;
+import com.example.model.VehicleData;
+import com.example.serialization.TelemetryCodec;
+import com.example.serialization.TelemetryFormat;
+import com.example.service.LiveTelemetryHub;
+import com.example.service.VehicleDataMqttConsumer;
+import com.example.service.VehicleDataService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end MQTT ingestion (publish, shared subscription, batch, processing, PUBACK) of
+ * {@link VehicleDataMqttConsumer} against a running broker given with {@code -p brokerUrl=...}
+ * (e.g. a local HiveMQ or Mosquitto). Processing only counts the readings, so this measures the MQTT
+ * path and not MongoDB. Single-shot: one operation publishes {@code messages} readings at QoS 1 and
+ * waits until all of them are processed; messages per second is {@code messages} over the score.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MqttIngestionBenchmark {
+
+    @Param({"tcp://localhost:1883"})
+    public String brokerUrl;
+
+    @Param({"20000"})
+    public int messages;
+
+    private VehicleDataMqttConsumer consumer;
+    private MqttAsyncClient publisher;
+    private String[] topics;
+    private byte[][] payloads;
+    private volatile CountDownLatch processed = new CountDownLatch(0);
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        TelemetryCodec codec = new TelemetryCodec(new JacksonConfig().objectMapper());
+        List<VehicleData> generated = TelemetryGenerator.generate(TelemetryGenerator.Profile.MIXED, messages, 42);
+        topics = new String[messages];
+        payloads = new byte[messages][];
+        for (int i = 0; i < messages; i++) {
+            topics[i] = "vehicles/" + generated.get(i).getVehicleId() + "/telemetry";
+            payloads[i] = codec.encode(generated.get(i), TelemetryFormat.JSON);
+        }
+
+        // Only processVehicleData is called by the consumer; its collaborators are never touched
+        VehicleDataService counting = new VehicleDataService(null, null, null, null, null, null, null, null, null) {
+            @Override
+            public Mono<VehicleData> processVehicleData(VehicleData data) {
+                processed.countDown();
+                return Mono.just(data);
+            }
+        };
+        MqttConnectOptions consumerOptions = new MqttConnectOptions();
+        consumerOptions.setCleanSession(false);
+        consumerOptions.setAutomaticReconnect(false);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        consumer = new VehicleDataMqttConsumer(counting, codec, new LiveTelemetryHub(registry, 256), registry,
+            consumerOptions, brokerUrl, "benchmark-consumer", "vehicles/+/telemetry", "benchmark",
+            1, 1_000, 500, 200, 16, 3);
+        consumer.start();
+
+        MqttConnectOptions publisherOptions = new MqttConnectOptions();
+        publisherOptions.setMaxInflight(1_000);
+        publisher = new MqttAsyncClient(brokerUrl, "benchmark-publisher", new MemoryPersistence());
+        publisher.connect(publisherOptions).waitForCompletion();
+        awaitSubscription();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws MqttException {
+        consumer.stop();
+        publisher.disconnect().waitForCompletion();
+        publisher.close();
+    }
+
+    @Benchmark
+    public long publishAndProcess() throws Exception {
+        processed = new CountDownLatch(messages);
+        for (int i = 0; i < messages; i++) {
+            publish(topics[i], payloads[i]);
+        }
+        if (!processed.await(120, TimeUnit.SECONDS)) {
+            throw new IllegalStateException(processed.getCount() + " message(s) not processed after 120 s");
+        }
+        return messages;
+    }
+
+    /** The consumer subscribes in the background: publishes until one message comes through. */
+    private void awaitSubscription() throws Exception {
+        processed = new CountDownLatch(1);
+        for (int attempt = 0; attempt < 100; attempt++) {
+            publish(topics[0], payloads[0]);
+            if (processed.await(100, TimeUnit.MILLISECONDS)) {
+                // Let the other attempts drain so they do not count towards the first operation
+                Thread.sleep(1_000);
+                return;
+            }
+        }
+        throw new IllegalStateException("MQTT consumer did not subscribe to " + brokerUrl);
+    }
+
+    /** QoS 1 publish; waits for broker acks when the publisher's in-flight window is full. */
+    private void publish(String topic, byte[] payload) throws Exception {
+        while (true) {
+            try {
+                publisher.publish(topic, payload, 1, false);
+                return;
+            } catch (MqttException e) {
+                if (e.getReasonCode() != MqttException.REASON_CODE_MAX_INFLIGHT) {
+                    throw e;
+                }
+                Thread.sleep(1);
+            }
+        }
+    }
+}
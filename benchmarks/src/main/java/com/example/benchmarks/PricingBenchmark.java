@@ -0,0 +1,83 @@
+package com.example.benchmarks;
+
+import com.example.model.InsuranceContract;
+import com.example.model.VehicleData;
+import com.example.repository.InsuranceContractRepository;
+import com.example.service.ContractRepricer;
+import com.example.service.InsuranceContractCache;
+import com.example.service.InsuranceContractService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link InsuranceContractService#updatePricing}: risk multiplier and adjusted premium
+ * ({@code riskMultiplier} / {@code adjustedPremium}) against an in-memory contract, and the per-reading
+ * cost of the {@link ContractRepricer} path that replaces it on ingest (in-memory aggregation only).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PricingBenchmark {
+
+    @Param({"CALM", "MIXED", "AGGRESSIVE"})
+    public TelemetryGenerator.Profile profile;
+
+    private InsuranceContractService insuranceContractService;
+    private ContractRepricer contractRepricer;
+    private VehicleData[] readings;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        InsuranceContract contract = new InsuranceContract();
+        contract.setId("GEN-CONTRACT-000");
+        contract.setVehicleId("GEN-VEH-000");
+        contract.setBasePremium(new BigDecimal("850.00"));
+        contract.setCurrentPremium(contract.getBasePremium());
+        contract.setStartDate(Instant.parse("2025-01-01T00:00:00Z"));
+        InsuranceContractRepository repository = ReactiveStubs.repository(InsuranceContractRepository.class, Map.of(
+            "findById", args -> Mono.just(contract),
+            "save", args -> Mono.just((InsuranceContract) args[0])));
+        insuranceContractService = new InsuranceContractService(repository,
+            new InsuranceContractCache(repository, null, new SimpleMeterRegistry(), 1_000, 300_000, 30_000, false));
+        contractRepricer = new ContractRepricer(repository, null, new SimpleMeterRegistry(), 900_000, 60_000, 0, 500);
+        List<VehicleData> generated = TelemetryGenerator.generate(profile, 4_096, 42);
+        readings = generated.toArray(new VehicleData[0]);
+    }
+
+    @Benchmark
+    public InsuranceContract updatePricing() {
+        return insuranceContractService.updatePricing("GEN-CONTRACT-000", nextReading()).block();
+    }
+
+    @Benchmark
+    public void recordForRepricing() {
+        contractRepricer.record(nextReading());
+    }
+
+    private VehicleData nextReading() {
+        VehicleData reading = readings[next];
+        next = (next + 1) & (readings.length - 1);
+        return reading;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.benchmarks;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-memory stand-ins for the reactive repositories, so the benchmarks measure the service code
+ * and not MongoDB. Methods without an explicit answer return an empty {@link Mono} or {@link Flux}.
+ */
+final class ReactiveStubs {
+
+    private ReactiveStubs() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) {
+                return answer.apply(args);
+            }
+            switch (method.getName()) {
+                case "toString":
+                    return type.getSimpleName() + " stub";
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    break;
+            }
+            if (Mono.class.isAssignableFrom(method.getReturnType())) {
+                return Mono.empty();
+            }
+            if (Flux.class.isAssignableFrom(method.getReturnType())) {
+                return Flux.empty();
+            }
+            throw new UnsupportedOperationException(method.toString());
+        });
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.benchmarks;
+
+import com.example.model.RiskAssessment;
+import com.example.model.RiskEvent;
+import com.example.model.VehicleData;
+import com.example.repository.InsuranceContractRepository;
+import com.example.repository.RiskEventRepository;
+import com.example.repository.RiskRuleRepository;
+import com.example.service.IdempotencyFilters;
+import com.example.service.ManeuverDetector;
+import com.example.service.InsuranceContractCache;
+import com.example.service.InsuranceContractService;
+import com.example.service.RiskAssessmentService;
+import com.example.service.RiskEpisodeTracker;
+import com.example.service.RiskRuleEngine;
+import com.example.service.VehicleStateStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RiskAssessmentService#assessRisk} end to end (rule evaluation, level, insurance impact and,
+ * for HIGH readings, the risk event path against a stub repository), and the rule evaluation alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RiskScoringBenchmark {
+
+    @Param({"CALM", "MIXED", "AGGRESSIVE"})
+    public TelemetryGenerator.Profile profile;
+
+    private RiskAssessmentService riskAssessmentService;
+    private RiskRuleEngine riskRuleEngine;
+    private VehicleData[] readings;
+    private int next;
+    private long passes;
+
+    @Setup
+    public void setUp() {
+        RiskEventRepository riskEventRepository = ReactiveStubs.repository(RiskEventRepository.class,
+            Map.of("insert", args -> Mono.just((RiskEvent) args[0])));
+        InsuranceContractRepository contractRepository = ReactiveStubs.repository(InsuranceContractRepository.class, Map.of());
+        riskRuleEngine = new RiskRuleEngine(ReactiveStubs.repository(RiskRuleRepository.class, Map.of()), 0);
+        riskAssessmentService = new RiskAssessmentService(
+            riskEventRepository,
+            new InsuranceContractService(contractRepository,
+                new InsuranceContractCache(contractRepository, null, new SimpleMeterRegistry(), 1_000, 300_000, 30_000, false)),
+            new IdempotencyFilters(new SimpleMeterRegistry(), 16 << 20, 600_000, 4, 0.01),
+            riskRuleEngine,
+            new ManeuverDetector(new SimpleMeterRegistry(),
+                new VehicleStateStore(new SimpleMeterRegistry(), "", 16, 500_000, 0, 0),
+                3_000, 10_000, 3.5, 400, 3.0, 60, 4.0),
+            new RiskEpisodeTracker(riskEventRepository, new SimpleMeterRegistry(), 30_000, 600_000, 60_000, 0, 500));
+        List<VehicleData> generated = TelemetryGenerator.generate(profile, 4_096, 42);
+        readings = generated.toArray(new VehicleData[0]);
+    }
+
+    @Benchmark
+    public VehicleData assessRisk() {
+        return riskAssessmentService.assessRisk(nextReading()).block();
+    }
+
+    @Benchmark
+    public RiskAssessment evaluateRules() {
+        RiskAssessment assessment = new RiskAssessment();
+        riskRuleEngine.evaluate(nextReading().getSensors(), assessment);
+        return assessment;
+    }
+
+    /**
+     * Cycles through the generated readings, moving them all forward by the span of one pass each time
+     * it wraps: every reading the service sees is new, never a replay the idempotency filters or the
+     * manoeuvre and episode state would treat as already seen.
+     */
+    private VehicleData nextReading() {
+        if (next == 0 && passes++ > 0) {
+            Duration span = Duration.between(readings[0].getTimestamp(), readings[readings.length - 1].getTimestamp())
+                .plusSeconds(1);
+            for (VehicleData data : readings) {
+                data.setTimestamp(data.getTimestamp().plus(span));
+                if (data.getSensors().getTimestamp() != null) {
+                    data.getSensors().setTimestamp(data.getSensors().getTimestamp().plus(span));
+                }
+            }
+        }
+        VehicleData reading = readings[next];
+        next = (next + 1) & (readings.length - 1);
+        return reading;
+    }
+}
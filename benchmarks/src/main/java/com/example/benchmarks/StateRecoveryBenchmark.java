@@ -0,0 +1,94 @@
+package com.example.benchmarks;
+
+import com.example.service.VehicleStateStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Restart cost of the {@link VehicleStateStore}: reopening a checkpointed store of {@code vehicles}
+ * records, and reopening it then reading every record back (first touch of every mapped page).
+ * Single-shot, since a restart happens once per process; the files stay in the page cache between
+ * iterations, so this measures a process restart rather than a cold machine boot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StateRecoveryBenchmark {
+
+    private static final long NOW = System.currentTimeMillis();
+
+    @Param({"1000000"})
+    public int vehicles;
+
+    private Path directory;
+    private String[] vehicleIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("vehicle-state");
+        vehicleIds = new String[vehicles];
+        VehicleStateStore store = open();
+        for (int i = 0; i < vehicles; i++) {
+            vehicleIds[i] = "VEH-" + i;
+            VehicleStateStore.Segment segment = store.segment(vehicleIds[i]);
+            synchronized (segment) {
+                segment.buffer().putLong(segment.find(vehicleIds[i], NOW), i);
+            }
+        }
+        store.recordConsumed(Map.of(new TopicPartition("vehicle-data", 0), (long) vehicles));
+        store.stop();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int reopen() {
+        return open().size();
+    }
+
+    @Benchmark
+    public long reopenAndReadAll() {
+        VehicleStateStore store = open();
+        long sum = 0;
+        for (String vehicleId : vehicleIds) {
+            VehicleStateStore.Segment segment = store.segment(vehicleId);
+            synchronized (segment) {
+                sum += segment.buffer().getLong(segment.find(vehicleId, NOW));
+            }
+        }
+        return sum;
+    }
+
+    private VehicleStateStore open() {
+        return new VehicleStateStore(new SimpleMeterRegistry(), directory.toString(), 16, vehicles, 0, 0);
+    }
+}
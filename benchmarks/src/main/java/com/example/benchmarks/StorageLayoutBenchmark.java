@@ -0,0 +1,115 @@
+package com.example.benchmarks;
+
+import com.example.model.VehicleData;
+import com.example.model.VehicleDataBucket;
+import com.example.repository.VehicleDataRepositoryImpl;
+import com.example.service.VehicleDataBulkWriter;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One-hour range queries of a vehicle in the {@code document} and {@code bucketed} storage layouts,
+ * against a running MongoDB given with {@code -p mongoUri=...}. Each trial drops and refills the
+ * {@code vehicledb_benchmark} database with {@code vehicles} vehicles x one day at one reading every
+ * 10 s, written by the {@link VehicleDataBulkWriter} with the application's indexes, and prints the
+ * collection's document count, data, storage and index sizes once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StorageLayoutBenchmark {
+
+    private static final Instant START = Instant.parse("2025-02-23T10:00:00Z");
+    private static final long SLOT_MS = 3_600_000;
+    private static final int READINGS_PER_VEHICLE = 8_640;
+
+    @Param({"mongodb://localhost:27017"})
+    public String mongoUri;
+
+    @Param({"document", "bucketed"})
+    public String layout;
+
+    @Param({"100"})
+    public int vehicles;
+
+    private MongoClient client;
+    private VehicleDataRepositoryImpl repository;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        client = MongoClients.create(mongoUri);
+        ReactiveMongoTemplate mongoTemplate = new ReactiveMongoTemplate(client, "vehicledb_benchmark");
+        Class<?> type = layout.equals("bucketed") ? VehicleDataBucket.class : VehicleData.class;
+        IndexResolver indexes = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+        mongoTemplate.dropCollection(type)
+            .thenMany(Flux.fromIterable(indexes.resolveIndexFor(type)))
+            .concatMap(index -> mongoTemplate.indexOps(type).ensureIndex(index))
+            .blockLast();
+
+        List<VehicleData> generated = TelemetryGenerator.generate(TelemetryGenerator.Profile.MIXED, vehicles, 42);
+        VehicleDataBulkWriter writer = new VehicleDataBulkWriter(mongoTemplate, 500, 20, 4, layout, SLOT_MS, 1_000);
+        try {
+            Flux.range(0, vehicles * READINGS_PER_VEHICLE)
+                .flatMap(i -> writer.write(reading(generated.get(i % vehicles), "VEH-" + (i % vehicles),
+                    START.plusSeconds(10L * (i / vehicles)))), 2_000)
+                .blockLast();
+        } finally {
+            writer.shutdown();
+        }
+
+        Document stats = mongoTemplate.executeCommand(new Document("collStats", mongoTemplate.getCollectionName(type))).block();
+        System.out.printf("%n%s layout: %d document(s), data %d KB, storage %d KB, indexes %d KB%n",
+            layout, ((Number) stats.get("count")).longValue(), ((Number) stats.get("size")).longValue() >> 10,
+            ((Number) stats.get("storageSize")).longValue() >> 10, ((Number) stats.get("totalIndexSize")).longValue() >> 10);
+
+        repository = new VehicleDataRepositoryImpl(mongoTemplate, layout, SLOT_MS);
+        random = new Random(42);
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public long oneHourRange() {
+        Instant from = START.plusSeconds(10L * random.nextInt(READINGS_PER_VEHICLE - 360));
+        return repository.findByVehicleIdAndTimestampBetween("VEH-" + random.nextInt(vehicles), from, from.plusSeconds(3_600))
+            .count()
+            .block();
+    }
+
+    private static VehicleData reading(VehicleData shape, String vehicleId, Instant timestamp) {
+        VehicleData data = new VehicleData();
+        data.setVehicleId(vehicleId);
+        data.setContractId("CONTRACT-" + vehicleId);
+        data.setTimestamp(timestamp);
+        data.setSensors(shape.getSensors());
+        return data;
+    }
+}
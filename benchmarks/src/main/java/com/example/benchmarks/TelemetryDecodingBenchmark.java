@@ -0,0 +1,77 @@
+package com.example.benchmarks;
+
+import com.example.config.JacksonConfig;
+import com.example.model.VehicleData;
+import com.example.serialization.TelemetryCodec;
+import com.example.serialization.TelemetryFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of {@link VehicleData} payloads as done by the Kafka deserializer ({@link TelemetryCodec},
+ * streaming into a sensor snapshot) against plain Jackson data binding of the boxed model.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TelemetryDecodingBenchmark {
+
+    @Param({"MIXED", "AGGRESSIVE"})
+    public TelemetryGenerator.Profile profile;
+
+    @Param({"JSON", "SMILE"})
+    public TelemetryFormat format;
+
+    private TelemetryCodec codec;
+    private ObjectReader boxedReader;
+    private byte[][] payloads;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+        codec = new TelemetryCodec(objectMapper);
+        ObjectMapper formatMapper = format == TelemetryFormat.SMILE ? codec.smileMapper() : objectMapper;
+        boxedReader = formatMapper.readerFor(VehicleData.class);
+        List<VehicleData> generated = TelemetryGenerator.generate(profile, 4_096, 42);
+        payloads = new byte[generated.size()][];
+        for (int i = 0; i < payloads.length; i++) {
+            payloads[i] = codec.encode(generated.get(i), format);
+        }
+    }
+
+    @Benchmark
+    public VehicleData codecDecode() throws IOException {
+        byte[] payload = nextPayload();
+        return codec.decode(payload, 0, payload.length, format);
+    }
+
+    @Benchmark
+    public VehicleData boxedBinding() throws IOException {
+        return boxedReader.readValue(nextPayload());
+    }
+
+    private byte[] nextPayload() {
+        byte[] payload = payloads[next];
+        next = (next + 1) & (payloads.length - 1);
+        return payload;
+    }
+}
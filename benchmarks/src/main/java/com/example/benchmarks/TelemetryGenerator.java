@@ -0,0 +1,118 @@
+package com.example.benchmarks;
+
+import com.example.config.JacksonConfig;
+import com.example.model.Sensor;
+import com.example.model.SensorSnapshot;
+import com.example.model.VehicleData;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates benchmark readings with the shape of {@code data/vehicle-data-dev.json} (read from the
+ * application jar): the same sensors and units, each present with its observed frequency, and
+ * values drawn around the observed range according to a driving {@link Profile}.
+ */
+public final class TelemetryGenerator {
+
+    public enum Profile {
+        /** Mostly below the observed range midpoint: few rules fire. */
+        CALM(-0.25, 0.5),
+        /** Across the observed range and slightly beyond: the usual mix of LOW/MEDIUM/HIGH. */
+        MIXED(-0.25, 1.25),
+        /** Upper half of the range and beyond: most rules fire, many HIGH readings. */
+        AGGRESSIVE(0.5, 1.5);
+
+        private final double from;
+        private final double to;
+
+        Profile(double from, double to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    private record SensorShape(Sensor sensor, double presence, double min, double max, String unit) {
+    }
+
+    private static final String DATASET = "data/vehicle-data-dev.json";
+    private static final int VEHICLES = 100;
+
+    private TelemetryGenerator() {
+    }
+
+    public static List<VehicleData> generate(Profile profile, int count, long seed) {
+        List<SensorShape> shapes = shapes(new JacksonConfig().objectMapper());
+        Random random = new Random(seed);
+        Instant start = Instant.parse("2025-02-23T10:00:00Z");
+        List<VehicleData> readings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int vehicle = i % VEHICLES;
+            Instant timestamp = start.plusSeconds(i);
+            SensorSnapshot sensors = new SensorSnapshot();
+            for (SensorShape shape : shapes) {
+                if (random.nextDouble() < shape.presence()) {
+                    double span = shape.max() - shape.min();
+                    double low = shape.min() + profile.from * span;
+                    double high = shape.min() + profile.to * span;
+                    double value = Math.max(0.0, low + random.nextDouble() * (high - low));
+                    sensors.set(shape.sensor(), Math.round(value * 10) / 10.0, shape.unit());
+                }
+            }
+            sensors.setTimestamp(timestamp);
+            VehicleData data = new VehicleData();
+            data.setVehicleId(String.format("GEN-VEH-%03d", vehicle));
+            data.setContractId(String.format("GEN-CONTRACT-%03d", vehicle));
+            data.setTimestamp(timestamp);
+            data.setSensors(sensors);
+            readings.add(data);
+        }
+        return readings;
+    }
+
+    private static List<SensorShape> shapes(ObjectMapper objectMapper) {
+        JsonNode dataset;
+        try (InputStream is = TelemetryGenerator.class.getClassLoader().getResourceAsStream(DATASET)) {
+            if (is == null) {
+                throw new IllegalStateException(DATASET + " not found on the classpath");
+            }
+            dataset = objectMapper.readTree(is);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Map<Sensor, double[]> stats = new LinkedHashMap<>();
+        Map<Sensor, String> units = new LinkedHashMap<>();
+        for (JsonNode reading : dataset) {
+            Iterator<Map.Entry<String, JsonNode>> fields = reading.path("data").fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                Sensor sensor = Sensor.fromJsonKey(field.getKey());
+                if (sensor == null) {
+                    continue;
+                }
+                double value = field.getValue().path("value").asDouble();
+                double[] s = stats.computeIfAbsent(sensor, k -> new double[] {0, Double.MAX_VALUE, -Double.MAX_VALUE});
+                s[0]++;
+                s[1] = Math.min(s[1], value);
+                s[2] = Math.max(s[2], value);
+                units.putIfAbsent(sensor, field.getValue().path("unit").asText(null));
+            }
+        }
+
+        List<SensorShape> shapes = new ArrayList<>();
+        stats.forEach((sensor, s) -> shapes.add(
+            new SensorShape(sensor, s[0] / dataset.size(), s[1], Math.max(s[2], s[1] + 1), units.get(sensor))));
+        return shapes;
+    }
+}
@@ -7,11 +7,14 @@ import com.example.repository.ClientRepository;
 import com.example.repository.ContratRepository;
 import com.example.repository.UserRepository;
 import com.example.repository.VehicleDataRepository;
+import com.example.serialization.TelemetryCodec;
+import com.example.serialization.TelemetryFormat;
 import com.example.service.UserService;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
@@ -23,7 +26,9 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -42,12 +47,17 @@ public class DevDataSeeder {
     private final UserRepository userRepository;
     private final UserService userService;
     private final VehicleDataRepository vehicleDataRepository;
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
     private final ObjectMapper objectMapper;
+    private final TelemetryCodec telemetryCodec;
 
     @Value("${kafka.topic.vehicle-data:vehicle-data}")
     private String vehicleDataTopic;
 
+    /** Encoding of the seeded messages: {@code json} or {@code smile}. */
+    @Value("${dev.seed.payload-format:json}")
+    private String payloadFormat;
+
     private static final String VEHICLE_DATA_FILE = "data/vehicle-data-dev.json";
 
     @Bean
@@ -115,14 +125,18 @@ public class DevDataSeeder {
                         log.warn("Dev data file not found: {}", VEHICLE_DATA_FILE);
                         return 0;
                     }
+                    TelemetryFormat format = TelemetryFormat.valueOf(payloadFormat.toUpperCase(Locale.ROOT));
                     try (InputStream is = resource.getInputStream()) {
                         List<VehicleData> list = mapper.readValue(is, new TypeReference<>() {});
                         for (VehicleData data : list) {
-                            String payload = mapper.writeValueAsString(data);
-                            kafkaTemplate.send(vehicleDataTopic, payload).get(10, TimeUnit.SECONDS);
+                            ProducerRecord<String, byte[]> record =
+                                    new ProducerRecord<>(vehicleDataTopic, telemetryCodec.encode(data, format));
+                            record.headers().add(TelemetryFormat.CONTENT_TYPE_HEADER,
+                                    format.mediaType().getBytes(StandardCharsets.US_ASCII));
+                            kafkaTemplate.send(record).get(10, TimeUnit.SECONDS);
                             log.debug("Sent vehicle data to Kafka: vehicleId={}", data.getVehicleId());
                         }
-                        log.info("Sent {} vehicle data record(s) from {} to Kafka (collection was empty)", list.size(), VEHICLE_DATA_FILE);
+                        log.info("Sent {} vehicle data record(s) from {} to Kafka as {} (collection was empty)", list.size(), VEHICLE_DATA_FILE, format);
                         return list.size();
                     }
                 }))
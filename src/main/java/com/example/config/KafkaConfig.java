@@ -1,22 +1,25 @@
 package com.example.config;
 
+import com.example.model.VehicleData;
+import com.example.serialization.TelemetryCodec;
+import com.example.serialization.VehicleDataDeserializer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
-import org.springframework.kafka.annotation.EnableKafka;
-import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
-import org.springframework.kafka.listener.ContainerProperties;
+import reactor.kafka.receiver.ReceiverOptions;
 
+import java.time.Duration;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
-@EnableKafka
 @Configuration
 @Profile("!test")
 public class KafkaConfig {
@@ -27,38 +30,50 @@ public class KafkaConfig {
     @Value("${kafka.consumer.group-id:insurance-group}")
     private String groupId;
 
+    @Value("${kafka.topic.vehicle-data:vehicle-data}")
+    private String vehicleDataTopic;
+
+    @Value("${kafka.consumer.batch-size:500}")
+    private int batchSize;
+
+    @Value("${kafka.consumer.commit-interval-ms:1000}")
+    private long commitIntervalMs;
+
+    /**
+     * Receiver used by {@code VehicleDataConsumer}. Auto-commit is off: offsets are only
+     * acknowledged and committed once a whole batch has been persisted. Values are parsed
+     * from the record bytes by {@link VehicleDataDeserializer}.
+     */
     @Bean
-    public ConsumerFactory<String, String> consumerFactory() {
+    public ReceiverOptions<String, VehicleData> vehicleDataReceiverOptions(TelemetryCodec telemetryCodec) {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
-        return new DefaultKafkaConsumerFactory<>(props);
-    }
-
-    @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory(
-            ConsumerFactory<String, String> consumerFactory) {
-        ConcurrentKafkaListenerContainerFactory<String, String> factory =
-            new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(consumerFactory);
-        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.RECORD);
-        return factory;
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchSize);
+        return ReceiverOptions.<String, VehicleData>create(props)
+            .withValueDeserializer(new VehicleDataDeserializer(telemetryCodec))
+            .commitInterval(Duration.ofMillis(commitIntervalMs))
+            .subscription(Collections.singleton(vehicleDataTopic));
     }
 
+    /**
+     * Values are raw bytes so producers can send either JSON or Smile, announced by the
+     * {@code content-type} record header.
+     */
     @Bean
-    public ProducerFactory<String, String> producerFactory() {
+    public ProducerFactory<String, byte[]> producerFactory() {
         Map<String, Object> props = new HashMap<>();
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
         return new DefaultKafkaProducerFactory<>(props);
     }
 
     @Bean
-    public KafkaTemplate<String, String> kafkaTemplate(ProducerFactory<String, String> producerFactory) {
+    public KafkaTemplate<String, byte[]> kafkaTemplate(ProducerFactory<String, byte[]> producerFactory) {
         return new KafkaTemplate<>(producerFactory);
     }
-} 
\ No newline at end of file
+}
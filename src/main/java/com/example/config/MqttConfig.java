@@ -0,0 +1,47 @@
+package com.example.config;
+
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * MQTT broker connection for the device ingestion channel ({@code VehicleDataMqttConsumer}).
+ * Only active with {@code mqtt.enabled=true}; Kafka stays the default ingestion path.
+ */
+@Configuration
+@ConditionalOnProperty(name = "mqtt.enabled", havingValue = "true")
+public class MqttConfig {
+
+    @Value("${mqtt.broker-url:tcp://localhost:1883}")
+    private String brokerUrl;
+
+    @Value("${mqtt.username:}")
+    private String username;
+
+    @Value("${mqtt.password:}")
+    private String password;
+
+    @Value("${mqtt.keep-alive-seconds:30}")
+    private int keepAliveSeconds;
+
+    /**
+     * Persistent session (clean session off): QoS 1/2 messages that were delivered but not yet
+     * acknowledged are redelivered by the broker when the consumer reconnects with the same client id.
+     * Reconnection is driven by the consumer, not by Paho, so it can resubscribe from a clean state.
+     */
+    @Bean
+    public MqttConnectOptions mqttConnectOptions() {
+        MqttConnectOptions options = new MqttConnectOptions();
+        options.setServerURIs(brokerUrl.split(","));
+        options.setCleanSession(false);
+        options.setAutomaticReconnect(false);
+        options.setKeepAliveInterval(keepAliveSeconds);
+        if (!username.isBlank()) {
+            options.setUserName(username);
+            options.setPassword(password.toCharArray());
+        }
+        return options;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.config;
+
+import com.example.serialization.TelemetryCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * Registers the Smile codecs with the same mapper configuration as JSON, so REST clients can send
+ * and receive {@code application/x-jackson-smile} through regular content negotiation.
+ */
+@Configuration
+public class WebFluxConfig implements WebFluxConfigurer {
+
+    private final ObjectMapper smileMapper;
+
+    public WebFluxConfig(ObjectMapper objectMapper) {
+        this.smileMapper = new TelemetryCodec(objectMapper).smileMapper();
+    }
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper));
+        configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper));
+    }
+}
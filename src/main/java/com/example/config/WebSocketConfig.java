@@ -0,0 +1,22 @@
+package com.example.config;
+
+import com.example.controller.LiveTelemetryWebSocketHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Maps the WebSocket endpoints. Ordered before the annotated controllers so the upgrade request
+ * is not handled as a regular GET.
+ */
+@Configuration
+public class WebSocketConfig {
+
+    @Bean
+    public HandlerMapping webSocketHandlerMapping(LiveTelemetryWebSocketHandler liveTelemetryWebSocketHandler) {
+        return new SimpleUrlHandlerMapping(Map.of(LiveTelemetryWebSocketHandler.PATH, liveTelemetryWebSocketHandler), -1);
+    }
+}
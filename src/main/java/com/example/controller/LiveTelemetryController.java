@@ -0,0 +1,57 @@
+package com.example.controller;
+
+import com.example.model.VehicleData;
+import com.example.service.LiveTelemetryHub;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+
+/**
+ * Server-Sent Events feed of live readings, per vehicle or per contract. Slow clients get conflated
+ * readings (see {@link LiveTelemetryHub}); a comment line is sent every {@code live.heartbeat-seconds}
+ * so idle connections survive proxies.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/live")
+public class LiveTelemetryController {
+
+    private final LiveTelemetryHub liveTelemetryHub;
+    private final Duration heartbeat;
+
+    public LiveTelemetryController(
+            LiveTelemetryHub liveTelemetryHub,
+            @Value("${live.heartbeat-seconds:15}") long heartbeatSeconds) {
+        this.liveTelemetryHub = liveTelemetryHub;
+        this.heartbeat = Duration.ofSeconds(heartbeatSeconds);
+    }
+
+    @GetMapping(value = "/vehicles/{vehicleId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<VehicleData>> streamVehicle(@PathVariable String vehicleId) {
+        log.info("Live telemetry subscription for vehicleId: {}", vehicleId);
+        return events(liveTelemetryHub.vehicle(vehicleId));
+    }
+
+    @GetMapping(value = "/contracts/{contractId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<VehicleData>> streamContract(@PathVariable String contractId) {
+        log.info("Live telemetry subscription for contractId: {}", contractId);
+        return events(liveTelemetryHub.contract(contractId));
+    }
+
+    private Flux<ServerSentEvent<VehicleData>> events(Flux<VehicleData> readings) {
+        Flux<ServerSentEvent<VehicleData>> heartbeats = Flux.interval(heartbeat, heartbeat)
+            .onBackpressureDrop()
+            .map(tick -> ServerSentEvent.<VehicleData>builder().comment("keep-alive").build());
+        return Flux.merge(
+            readings.map(data -> ServerSentEvent.builder(data).event("telemetry").build()),
+            heartbeats);
+    }
+}
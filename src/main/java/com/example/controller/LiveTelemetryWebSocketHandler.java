@@ -0,0 +1,61 @@
+package com.example.controller;
+
+import com.example.model.VehicleData;
+import com.example.service.LiveTelemetryHub;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebSocket feed of live readings on {@code /ws/live?vehicleId=...} or {@code /ws/live?contractId=...};
+ * each reading is sent as one JSON text frame. Frames are only produced as fast as the socket
+ * accepts them, the backlog is bounded and conflated by {@link LiveTelemetryHub}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LiveTelemetryWebSocketHandler implements WebSocketHandler {
+
+    public static final String PATH = "/ws/live";
+
+    private final LiveTelemetryHub liveTelemetryHub;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public Mono<Void> handle(WebSocketSession session) {
+        MultiValueMap<String, String> params = UriComponentsBuilder.fromUri(session.getHandshakeInfo().getUri())
+            .build()
+            .getQueryParams();
+        String vehicleId = params.getFirst("vehicleId");
+        String contractId = params.getFirst("contractId");
+        Flux<VehicleData> readings;
+        if (vehicleId != null) {
+            readings = liveTelemetryHub.vehicle(vehicleId);
+        } else if (contractId != null) {
+            readings = liveTelemetryHub.contract(contractId);
+        } else {
+            return session.close(CloseStatus.POLICY_VIOLATION.withReason("vehicleId or contractId is required"));
+        }
+        log.info("Live telemetry WebSocket {} for vehicleId: {}, contractId: {}", session.getId(), vehicleId, contractId);
+
+        Flux<WebSocketMessage> frames = readings.handle((data, sink) -> {
+            try {
+                sink.next(session.textMessage(objectMapper.writeValueAsString(data)));
+            } catch (JsonProcessingException e) {
+                log.warn("Could not serialize live reading for vehicleId: {}: {}", data.getVehicleId(), e.getMessage());
+            }
+        });
+        // Inbound frames are ignored; completing the receive side means the client went away.
+        return Mono.firstWithSignal(session.send(frames), session.receive().then());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.controller;
+
+import com.example.model.VehicleData;
+import com.example.service.VehicleDataBatchReader;
+import io.swagger.v3.oas.annotations.Parameter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Batch reads for fleet dashboards: one request for the latest readings or short histories of up to
+ * {@code batch.max-vehicles} vehicles, selected by vehicle id and/or contract id. Results are streamed
+ * as NDJSON, one vehicle per line, in no particular order.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/vehicle-data/batch")
+@RequiredArgsConstructor
+public class VehicleDataBatchController {
+
+    private static final int MAX_HISTORY = 100;
+
+    private final VehicleDataBatchReader batchReader;
+
+    @PostMapping(value = "/latest", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<Flux<VehicleData>>> getLatest(@RequestBody VehicleDataBatchReader.VehicleSelection selection) {
+        return stream(selection, batchReader::latest);
+    }
+
+    @PostMapping(value = "/history", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<Flux<VehicleDataBatchReader.VehicleHistory>>> getHistory(
+            @RequestBody VehicleDataBatchReader.VehicleSelection selection,
+            @Parameter(description = "Readings per vehicle, newest first", example = "10")
+            @RequestParam(defaultValue = "10") int limit,
+            @Parameter(description = "How far back to look (ISO-8601 duration)", example = "PT1H")
+            @RequestParam(defaultValue = "PT1H") String window) {
+        Instant since;
+        try {
+            since = Instant.now().minus(Duration.parse(window));
+        } catch (DateTimeParseException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        if (limit < 1 || limit > MAX_HISTORY) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return stream(selection, vehicleIds -> batchReader.history(vehicleIds, since, limit));
+    }
+
+    private <T> Mono<ResponseEntity<Flux<T>>> stream(VehicleDataBatchReader.VehicleSelection selection,
+                                                     Function<List<String>, Flux<T>> read) {
+        return batchReader.resolve(selection)
+            .map(vehicleIds -> {
+                log.debug("Batch read for {} vehicle(s)", vehicleIds.size());
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(read.apply(vehicleIds));
+            })
+            .onErrorResume(IllegalArgumentException.class, e -> {
+                log.warn("Invalid batch read: {}", e.getMessage());
+                return Mono.just(ResponseEntity.badRequest().build());
+            });
+    }
+}
@@ -1,6 +1,17 @@
 package com.example.controller;
 
+import com.example.model.ReadingCursor;
+import com.example.model.RollupResolution;
+import com.example.model.Sensor;
 import com.example.model.VehicleData;
+import com.example.model.VehicleDataFields;
+import com.example.model.VehicleDataSummary;
+import com.example.serialization.ProjectedVehicleData;
+import com.example.serialization.TelemetryFormat;
+import com.example.service.LiveTelemetryHub;
+import com.example.service.TelemetryDownsampler;
+import com.example.service.VehicleDataExporter;
+import com.example.service.VehicleDataRollupService;
 import com.example.service.VehicleDataService;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -8,12 +19,18 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.function.Supplier;
 
 @Slf4j
 @RestController
@@ -21,70 +38,224 @@ import java.time.Instant;
 @RequiredArgsConstructor
 public class VehicleDataController {
 
+    /** Header holding the cursor of the next history page. */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final VehicleDataService vehicleDataService;
+    private final LiveTelemetryHub liveTelemetryHub;
+    private final VehicleDataExporter vehicleDataExporter;
 
     @GetMapping("/test")
     public Mono<String> test() {
         return Mono.just("Controller is working!");
     }
 
+    /**
+     * Ingests one reading over HTTP, as JSON or Smile ({@code application/x-jackson-smile});
+     * the response uses the encoding negotiated from the Accept header.
+     */
+    @PostMapping(consumes = {MediaType.APPLICATION_JSON_VALUE, TelemetryFormat.SMILE_VALUE})
+    public Mono<ResponseEntity<VehicleData>> ingestVehicleData(@RequestBody VehicleData vehicleData) {
+        log.debug("Received vehicle data over HTTP for vehicleId: {}", vehicleData.getVehicleId());
+        return vehicleDataService.processVehicleData(vehicleData)
+            .doOnNext(liveTelemetryHub::publish)
+            .map(saved -> ResponseEntity.status(HttpStatus.CREATED).body(saved))
+            .doOnError(error -> log.error("Error ingesting vehicle data for vehicleId: {}", vehicleData.getVehicleId(), error));
+    }
+
+    /**
+     * History of a vehicle, newest first, {@code size} readings per page. The next page is requested with
+     * the {@code X-Next-Cursor} header of the previous one (absent on the last page); it seeks straight to
+     * its position, so deep pages cost the same as the first. {@code page} offsets are still accepted
+     * without a cursor but skip over every earlier reading. {@code fields} and {@code view} restrict the
+     * readings to the fields a client needs, read and written without the others.
+     */
     @GetMapping("/{vehicleId}")
-    public Mono<ResponseEntity<Flux<VehicleData>>> getVehicleDataHistory(
+    public Mono<ResponseEntity<List<Object>>> getVehicleDataHistory(
             @PathVariable String vehicleId,
+            @Parameter(description = "X-Next-Cursor header of the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page offset, used only without a cursor")
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
-        log.info("Fetching vehicle data history for vehicleId: {}, page: {}, size: {}", vehicleId, page, size);
-        
-        return vehicleDataService.getVehicleDataCount(vehicleId)
-            .flatMap(count -> {
-                if (count == 0) {
+            @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Comma-separated fields to return, e.g. timestamp,SPEED", example = "timestamp,SPEED")
+            @RequestParam(required = false) String fields,
+            @Parameter(description = "Named set of fields: full or compact", example = "compact")
+            @RequestParam(required = false) String view) {
+        log.debug("Fetching vehicle data history for vehicleId: {}, cursor: {}, page: {}, size: {}", vehicleId, cursor, page, size);
+        if (size < 1 || size > MAX_PAGE_SIZE || page < 0) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        Flux<VehicleData> data;
+        VehicleDataFields selection;
+        try {
+            selection = VehicleDataFields.parse(fields, view);
+            if (cursor != null) {
+                data = vehicleDataService.getVehicleDataHistory(vehicleId, ReadingCursor.decode(cursor), size, selection);
+            } else if (page > 0) {
+                data = vehicleDataService.getVehicleDataHistory(vehicleId, PageRequest.of(page, size), selection);
+            } else {
+                data = vehicleDataService.getVehicleDataHistory(vehicleId, null, size, selection);
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid history request for vehicleId: {}: {}", vehicleId, e.getMessage());
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        return data.collectList()
+            .map(readings -> {
+                if (readings.isEmpty() && cursor == null && page == 0) {
                     log.warn("No data found for vehicleId: {}", vehicleId);
-                    return Mono.just(ResponseEntity.notFound().<Flux<VehicleData>>build());
+                    return ResponseEntity.notFound().<List<Object>>build();
+                }
+                ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                if (readings.size() == size) {
+                    response.header(NEXT_CURSOR_HEADER, ReadingCursor.of(readings.get(readings.size() - 1)).encode());
                 }
-                
-                Flux<VehicleData> data = vehicleDataService.getVehicleDataHistory(vehicleId, PageRequest.of(page, size))
-                    .doOnComplete(() -> log.info("Completed fetching data for vehicleId: {}", vehicleId))
-                    .doOnError(error -> log.error("Error fetching data for vehicleId: {}", vehicleId, error));
-                
-                return Mono.just(ResponseEntity.ok(data));
+                return response.body(readings.stream().map(reading -> project(reading, selection)).toList());
             })
-            .defaultIfEmpty(ResponseEntity.notFound().build());
+            .doOnError(error -> log.error("Error fetching data for vehicleId: {}", vehicleId, error));
     }
 
     @GetMapping("/{vehicleId}/latest")
     public Mono<ResponseEntity<VehicleData>> getLatestVehicleData(@PathVariable String vehicleId) {
-        log.info("Received request for latest vehicle data - vehicleId: {}", vehicleId);
+        // Polled for every vehicle every few seconds: keep it out of the INFO log
+        log.debug("Fetching latest vehicle data for vehicleId: {}", vehicleId);
         return vehicleDataService.getLatestVehicleData(vehicleId)
-            .doOnSubscribe(s -> log.info("Starting to fetch latest data for vehicleId: {}", vehicleId))
-            .doOnNext(data -> log.info("Found data: {}", data))
             .map(ResponseEntity::ok)
             .defaultIfEmpty(ResponseEntity.notFound().build())
-            .doOnSuccess(response -> {
-                if (response.getStatusCode().is2xxSuccessful()) {
-                    log.info("Successfully returned data for vehicleId: {}", vehicleId);
-                } else {
-                    log.warn("No data found for vehicleId: {}", vehicleId);
-                }
-            })
             .doOnError(error -> log.error("Error fetching latest data for vehicleId: {}", vehicleId, error));
     }
 
+    /**
+     * Readings of a time range, oldest first. With {@code maxPoints} or {@code resolution} (ISO-8601
+     * duration, e.g. {@code PT1M}) the range is downsampled on the server while it streams:
+     * {@code LTTB} keeps the readings that preserve the shape of {@code sensor}, {@code AVERAGE} returns
+     * the mean of each interval. {@code fields} and {@code view} restrict the readings as for the history.
+     */
     @GetMapping("/{vehicleId}/timerange")
-    public Mono<ResponseEntity<Flux<VehicleData>>> getVehicleDataByTimeRange(
+    public Mono<ResponseEntity<Flux<Object>>> getVehicleDataByTimeRange(
             @PathVariable String vehicleId,
             @Parameter(description = "Start of time range (ISO-8601)", example = "2025-02-23T00:00:00Z", schema = @Schema(type = "string", format = "date-time"))
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant startTime,
             @Parameter(description = "End of time range (ISO-8601)", example = "2025-02-23T23:59:59Z", schema = @Schema(type = "string", format = "date-time"))
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant endTime) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant endTime,
+            @Parameter(description = "Maximum number of readings returned (downsampled when the range holds more)", example = "1000")
+            @RequestParam(required = false) Integer maxPoints,
+            @Parameter(description = "Downsampling interval (ISO-8601 duration), instead of maxPoints", example = "PT1M")
+            @RequestParam(required = false) String resolution,
+            @Parameter(description = "Downsampling method")
+            @RequestParam(defaultValue = "LTTB") TelemetryDownsampler.Method method,
+            @Parameter(description = "Sensor whose shape LTTB preserves")
+            @RequestParam(defaultValue = "SPEED") Sensor sensor,
+            @Parameter(description = "Comma-separated fields to return, e.g. timestamp,SPEED", example = "timestamp,SPEED")
+            @RequestParam(required = false) String fields,
+            @Parameter(description = "Named set of fields: full or compact", example = "compact")
+            @RequestParam(required = false) String view) {
         log.info("Fetching vehicle data for vehicleId: {} between {} and {}", vehicleId, startTime, endTime);
-        
-        Flux<VehicleData> data = vehicleDataService.getVehicleDataByTimeRange(vehicleId, startTime, endTime)
+
+        TelemetryDownsampler.Spec downsampling;
+        VehicleDataFields selection;
+        try {
+            downsampling = TelemetryDownsampler.Spec.of(method, maxPoints,
+                resolution != null ? Duration.parse(resolution) : null, sensor, startTime, endTime);
+            selection = VehicleDataFields.parse(fields, view);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            log.warn("Invalid time range request for vehicleId: {}: {}", vehicleId, e.getMessage());
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        Flux<Object> data = vehicleDataService.getVehicleDataByTimeRange(vehicleId, startTime, endTime, downsampling, selection)
+            .map(reading -> project(reading, selection))
             .doOnComplete(() -> log.info("Completed fetching time range data for vehicleId: {}", vehicleId))
             .doOnError(error -> log.error("Error fetching time range data for vehicleId: {}", vehicleId, error));
         
         return Mono.just(ResponseEntity.ok(data));
     }
 
+    /**
+     * Count, sum, min, max and mean per sensor and readings per risk level over a time range, read from
+     * the rollups maintained at ingest: one entry per interval of {@code resolution} starting in the
+     * range, plus the total. Rollups trail ingestion by at most {@code rollup.flush-ms}.
+     */
+    @GetMapping("/{vehicleId}/aggregates")
+    public Mono<ResponseEntity<VehicleDataRollupService.Aggregates>> getVehicleDataAggregates(
+            @PathVariable String vehicleId,
+            @Parameter(description = "Start of time range (ISO-8601), rounded down to the resolution", example = "2025-02-01T00:00:00Z", schema = @Schema(type = "string", format = "date-time"))
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant startTime,
+            @Parameter(description = "End of time range (ISO-8601), exclusive", example = "2025-03-01T00:00:00Z", schema = @Schema(type = "string", format = "date-time"))
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant endTime,
+            @Parameter(description = "Interval of the returned aggregates")
+            @RequestParam(defaultValue = "HOUR") RollupResolution resolution) {
+        log.info("Fetching {} aggregates for vehicleId: {} between {} and {}", resolution, vehicleId, startTime, endTime);
+        if (!endTime.isAfter(startTime)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return vehicleDataService.getVehicleDataAggregates(vehicleId, resolution, startTime, endTime)
+            .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Every reading of a vehicle in the range as NDJSON, oldest first, streamed from the database as
+     * the client reads it. Each line is {@code {"cursor": ..., "reading": ...}}; pass the last cursor
+     * received to resume after it.
+     */
+    @GetMapping(value = "/{vehicleId}/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<Flux<VehicleDataExporter.ExportLine>>> exportVehicleData(
+            @PathVariable String vehicleId,
+            @Parameter(description = "Start of time range (ISO-8601), inclusive; from the first reading when omitted", schema = @Schema(type = "string", format = "date-time"))
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant startTime,
+            @Parameter(description = "End of time range (ISO-8601), exclusive; up to the last reading when omitted", schema = @Schema(type = "string", format = "date-time"))
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant endTime,
+            @Parameter(description = "Cursor of the last line received, to resume after it")
+            @RequestParam(required = false) String cursor) {
+        log.info("Exporting vehicle data for vehicleId: {} between {} and {}", vehicleId, startTime, endTime);
+        return export(startTime, endTime, () -> vehicleDataExporter.exportVehicle(vehicleId, startTime, endTime, cursor));
+    }
+
+    /** Same as the vehicle export, for every reading of a contract. */
+    @GetMapping(value = "/contracts/{contractId}/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<Flux<VehicleDataExporter.ExportLine>>> exportContractData(
+            @PathVariable String contractId,
+            @Parameter(description = "Start of time range (ISO-8601), inclusive; from the first reading when omitted", schema = @Schema(type = "string", format = "date-time"))
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant startTime,
+            @Parameter(description = "End of time range (ISO-8601), exclusive; up to the last reading when omitted", schema = @Schema(type = "string", format = "date-time"))
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant endTime,
+            @Parameter(description = "Cursor of the last line received, to resume after it")
+            @RequestParam(required = false) String cursor) {
+        log.info("Exporting vehicle data for contractId: {} between {} and {}", contractId, startTime, endTime);
+        return export(startTime, endTime, () -> vehicleDataExporter.exportContract(contractId, startTime, endTime, cursor));
+    }
+
+    private Mono<ResponseEntity<Flux<VehicleDataExporter.ExportLine>>> export(
+            Instant startTime, Instant endTime, Supplier<Flux<VehicleDataExporter.ExportLine>> lines) {
+        if (startTime != null && endTime != null && !endTime.isAfter(startTime)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        try {
+            return Mono.just(ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(lines.get()));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid export cursor: {}", e.getMessage());
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+    }
+
+    /** The reading itself, or its {@link ProjectedVehicleData} when only some fields were asked for. */
+    private static Object project(VehicleData reading, VehicleDataFields fields) {
+        return fields == null ? reading : new ProjectedVehicleData(reading, fields);
+    }
+
+    /** Reading count and first/last reading time, maintained at ingest: one lookup whatever the history. */
+    @GetMapping("/{vehicleId}/summary")
+    public Mono<ResponseEntity<VehicleDataSummary>> getVehicleDataSummary(@PathVariable String vehicleId) {
+        log.debug("Fetching summary for vehicleId: {}", vehicleId);
+        return vehicleDataService.getVehicleDataSummary(vehicleId)
+            .map(ResponseEntity::ok)
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/{vehicleId}/count")
     public Mono<ResponseEntity<Long>> getVehicleDataCount(@PathVariable String vehicleId) {
         log.info("Fetching count for vehicleId: {}", vehicleId);
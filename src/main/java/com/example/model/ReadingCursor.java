@@ -0,0 +1,48 @@
+package com.example.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Position after one reading in a time-ordered scan: its timestamp, then vehicle and contract as
+ * tie-breakers, which together are the unique business key of a reading. Handed to clients as an
+ * opaque URL-safe token so a scan can resume right after the last reading they received.
+ */
+public record ReadingCursor(Instant timestamp, String vehicleId, String contractId) {
+
+    private static final char SEPARATOR = '\n';
+
+    public static ReadingCursor of(VehicleData data) {
+        return new ReadingCursor(data.getTimestamp(), data.getVehicleId(), data.getContractId());
+    }
+
+    public String encode() {
+        String raw = timestamp.toEpochMilli() + String.valueOf(SEPARATOR)
+            + nullToEmpty(vehicleId) + SEPARATOR + nullToEmpty(contractId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Parses a token from {@link #encode()}; throws {@link IllegalArgumentException} when malformed. */
+    public static ReadingCursor decode(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        String[] parts = raw.split(String.valueOf(SEPARATOR), 3);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        try {
+            return new ReadingCursor(Instant.ofEpochMilli(Long.parseLong(parts[0])),
+                emptyToNull(parts[1]), emptyToNull(parts[2]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -2,19 +2,35 @@ package com.example.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
 
+/**
+ * A risky manoeuvre or an episode of consecutive HIGH-risk readings. {@code timestamp} is the start
+ * of the event; {@code startTime}/{@code endTime}, {@code peakSeverity} and {@code readingCount}
+ * describe how long it lasted and how many readings it covers (one for a single manoeuvre).
+ * <p>
+ * {@code eventKey} is the event's business key, unique so that an event raised again for a
+ * redelivered reading is rejected as a duplicate (error 11000) instead of stored twice. Events
+ * written before the key existed have none.
+ */
 @Data
 @Document
 public class RiskEvent {
     @Id
     private String id;
+    @Indexed(name = "event_key_uidx", unique = true, sparse = true)
+    private String eventKey;
     private String vehicleId;
     private String contractId;
     private RiskEventType type;
     private Double severity;
     private Instant timestamp;
     private String description;
+    private Instant startTime;
+    private Instant endTime;
+    private Double peakSeverity;
+    private Integer readingCount;
 }
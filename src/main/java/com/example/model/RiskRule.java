@@ -0,0 +1,27 @@
+package com.example.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * One row of the risk rule table: the rule fires when the reading of {@code sensor} exceeds
+ * {@code threshold}, and contributes {@code (value - threshold) / threshold * weight} to the score.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "risk_rules")
+public class RiskRule {
+    @Id
+    private String id;
+    private Sensor sensor;
+    private double threshold;
+    private double weight;
+    private RiskFactorType factorType;
+    private String unit;
+    private String description;
+    private boolean enabled = true;
+}
@@ -0,0 +1,27 @@
+package com.example.model;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/** Interval length of a {@link VehicleDataRollup}; intervals are aligned on the epoch (UTC). */
+public enum RollupResolution {
+    MINUTE(Duration.ofMinutes(1)),
+    HOUR(Duration.ofHours(1)),
+    DAY(Duration.ofDays(1));
+
+    private final long millis;
+
+    RollupResolution(Duration duration) {
+        this.millis = duration.toMillis();
+    }
+
+    public long millis() {
+        return millis;
+    }
+
+    /** Start of the interval containing {@code timestamp}. */
+    public Instant start(Instant timestamp) {
+        long time = timestamp.toEpochMilli();
+        return Instant.ofEpochMilli(time - Math.floorMod(time, millis));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Sensors with a dedicated slot in {@link SensorSnapshot}. The JSON key is the enum name (as sent
+ * by the devices), the field name is the {@link VehicleData.SensorData} property used in MongoDB.
+ */
+public enum Sensor {
+    SPEED("speed", VehicleData.SensorData::getSpeed, VehicleData.SensorData::setSpeed),
+    RPM("rpm", VehicleData.SensorData::getRpm, VehicleData.SensorData::setRpm),
+    THROTTLE_POS("throttlePosition", VehicleData.SensorData::getThrottlePosition, VehicleData.SensorData::setThrottlePosition),
+    FUEL_LEVEL("fuelLevel", VehicleData.SensorData::getFuelLevel, VehicleData.SensorData::setFuelLevel),
+    MAF("maf", VehicleData.SensorData::getMaf, VehicleData.SensorData::setMaf),
+    ENGINE_LOAD("engineLoad", VehicleData.SensorData::getEngineLoad, VehicleData.SensorData::setEngineLoad),
+    FUEL_RATE("fuelRate", VehicleData.SensorData::getFuelRate, VehicleData.SensorData::setFuelRate),
+    INTAKE_PRESSURE("intakePressure", VehicleData.SensorData::getIntakePressure, VehicleData.SensorData::setIntakePressure),
+    ACCELERATOR_POS_D("acceleratorPosition", VehicleData.SensorData::getAcceleratorPosition, VehicleData.SensorData::setAcceleratorPosition),
+    BAROMETRIC_PRESSURE("barometricPressure", VehicleData.SensorData::getBarometricPressure, VehicleData.SensorData::setBarometricPressure),
+    BRAKE_PRESSURE("brakePressure", VehicleData.SensorData::getBrakePressure, VehicleData.SensorData::setBrakePressure);
+
+    private static final Map<String, Sensor> BY_JSON_KEY = new HashMap<>();
+
+    static {
+        for (Sensor sensor : values()) {
+            BY_JSON_KEY.put(sensor.name(), sensor);
+        }
+    }
+
+    private final String fieldName;
+    private final Function<VehicleData.SensorData, VehicleData.Measurement> getter;
+    private final BiConsumer<VehicleData.SensorData, VehicleData.Measurement> setter;
+
+    Sensor(String fieldName,
+           Function<VehicleData.SensorData, VehicleData.Measurement> getter,
+           BiConsumer<VehicleData.SensorData, VehicleData.Measurement> setter) {
+        this.fieldName = fieldName;
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    public String fieldName() {
+        return fieldName;
+    }
+
+    /** Returns the sensor for a telemetry key such as {@code SPEED}, or {@code null} for extra sensors. */
+    public static Sensor fromJsonKey(String key) {
+        return BY_JSON_KEY.get(key);
+    }
+
+    VehicleData.Measurement get(VehicleData.SensorData data) {
+        return getter.apply(data);
+    }
+
+    void set(VehicleData.SensorData data, VehicleData.Measurement measurement) {
+        setter.accept(data, measurement);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide intern tables for measurement units and extra sensor names, so a decoded reading
+ * stores small ids instead of one {@code String} per measurement.
+ * <p>
+ * Units come from a fixed allow-list, indexed by hash so a unit is found in the parser's buffer
+ * without a scan; any other unit is reported as {@link #UNREGISTERED} and kept verbatim by the caller,
+ * so payloads cannot grow the table. Extra sensor names are learned from payloads into an append-only
+ * table capped at {@link #MAX_EXTRA_SENSORS}; once full, new names are {@link #UNREGISTERED} as well.
+ * Ids are held by decoded readings, so learned entries never expire.
+ */
+public final class SensorRegistry {
+
+    public static final short NO_UNIT = -1;
+    public static final short UNREGISTERED = -2;
+
+    static final int MAX_EXTRA_SENSORS = 1024;
+
+    private static final String[] UNITS = {
+        "km/h", "mph", "rpm", "%", "g/s", "L/h", "L", "kPa", "hPa", "bar", "°C", "°F", "V", "mV", "A",
+        "deg", "m/s", "m/s²", "g", "m", "km", "s", "ms", "Nm", "kW", "L/100km"
+    };
+    /** Open-addressing index of {@link #UNITS}: id + 1 per slot, 0 when free. */
+    private static final short[] UNIT_SLOTS = new short[Integer.highestOneBit(UNITS.length * 4 - 1) << 1];
+
+    private static final Object LOCK = new Object();
+    private static final Map<String, Short> SENSOR_IDS = new ConcurrentHashMap<>();
+    private static volatile String[] sensorNames = new String[0];
+
+    static {
+        for (short id = 0; id < UNITS.length; id++) {
+            int slot = slot(UNITS[id].hashCode());
+            while (UNIT_SLOTS[slot] != 0) {
+                slot = (slot + 1) & (UNIT_SLOTS.length - 1);
+            }
+            UNIT_SLOTS[slot] = (short) (id + 1);
+        }
+    }
+
+    private SensorRegistry() {
+    }
+
+    /** Id of an allow-listed unit, {@link #UNREGISTERED} for any other. */
+    public static short unitId(String unit) {
+        if (unit == null) {
+            return NO_UNIT;
+        }
+        for (int slot = slot(unit.hashCode()); UNIT_SLOTS[slot] != 0; slot = (slot + 1) & (UNIT_SLOTS.length - 1)) {
+            short id = (short) (UNIT_SLOTS[slot] - 1);
+            if (UNITS[id].equals(unit)) {
+                return id;
+            }
+        }
+        return UNREGISTERED;
+    }
+
+    /** Same as {@link #unitId(String)}, looked up in a parser text buffer without creating a {@code String}. */
+    public static short unitId(char[] buffer, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+        for (int slot = slot(hash); UNIT_SLOTS[slot] != 0; slot = (slot + 1) & (UNIT_SLOTS.length - 1)) {
+            short id = (short) (UNIT_SLOTS[slot] - 1);
+            if (matches(UNITS[id], buffer, offset, length)) {
+                return id;
+            }
+        }
+        return UNREGISTERED;
+    }
+
+    public static String unit(short id) {
+        return id >= 0 ? UNITS[id] : null;
+    }
+
+    /** Id of an extra (non-{@link Sensor}) sensor, or {@link #UNREGISTERED} once the table is full. */
+    public static short sensorId(String name) {
+        Short id = SENSOR_IDS.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (LOCK) {
+            id = SENSOR_IDS.get(name);
+            if (id != null) {
+                return id;
+            }
+            if (sensorNames.length >= MAX_EXTRA_SENSORS) {
+                return UNREGISTERED;
+            }
+            String[] grown = Arrays.copyOf(sensorNames, sensorNames.length + 1);
+            grown[sensorNames.length] = name;
+            id = (short) sensorNames.length;
+            SENSOR_IDS.put(name, id);
+            sensorNames = grown;
+            return id;
+        }
+    }
+
+    public static String sensorName(short id) {
+        return sensorNames[id];
+    }
+
+    private static int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & (UNIT_SLOTS.length - 1);
+    }
+
+    private static boolean matches(String unit, char[] buffer, int offset, int length) {
+        if (unit.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (unit.charAt(i) != buffer[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
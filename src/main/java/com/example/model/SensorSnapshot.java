@@ -0,0 +1,219 @@
+package com.example.model;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact, internal form of {@link VehicleData.SensorData} used on the ingest and risk path.
+ * <p>
+ * Readings of the {@link Sensor} slots are primitive doubles with a presence bitmask; extra sensors
+ * ({@code additionalProperties}) are kept in parallel arrays keyed by {@link SensorRegistry} id.
+ * Units are stored as interned unit ids. Decoding a reading therefore allocates a handful of arrays
+ * instead of one {@code Measurement} and one unit {@code String} per sensor. The public model is only
+ * built by {@link #toSensorData()} when a reading is exposed through the API.
+ */
+public final class SensorSnapshot {
+
+    private static final Sensor[] SENSORS = Sensor.values();
+
+    private final double[] values = new double[SENSORS.length];
+    private final short[] units = new short[SENSORS.length];
+    private int present;
+    private Instant timestamp;
+
+    private int extraCount;
+    private short[] extraIds;
+    private double[] extraValues;
+    private short[] extraUnits;
+
+    /** Units and extra sensors that did not fit in {@link SensorRegistry}; only allocated then. */
+    private String[] overflowUnits;
+    private Map<String, VehicleData.Measurement> overflowExtras;
+
+    public boolean has(Sensor sensor) {
+        return (present & (1 << sensor.ordinal())) != 0;
+    }
+
+    public double value(Sensor sensor) {
+        return values[sensor.ordinal()];
+    }
+
+    public double valueOrDefault(Sensor sensor, double defaultValue) {
+        return has(sensor) ? values[sensor.ordinal()] : defaultValue;
+    }
+
+    public String unit(Sensor sensor) {
+        int slot = sensor.ordinal();
+        return resolveUnit(units[slot], slot);
+    }
+
+    public boolean isEmpty() {
+        return present == 0 && extraCount == 0 && overflowExtras == null;
+    }
+
+    public void set(Sensor sensor, double value, String unit) {
+        set(sensor, value, SensorRegistry.unitId(unit), unit);
+    }
+
+    /**
+     * Sets a reading from an already resolved unit id; {@code rawUnit} is only read when the id is
+     * {@link SensorRegistry#UNREGISTERED}.
+     */
+    public void set(Sensor sensor, double value, short unitId, String rawUnit) {
+        int slot = sensor.ordinal();
+        values[slot] = value;
+        units[slot] = unitId;
+        present |= 1 << slot;
+        keepOverflowUnit(slot, unitId, rawUnit);
+    }
+
+    public void addExtra(String name, double value, String unit) {
+        addExtra(name, value, SensorRegistry.unitId(unit), unit);
+    }
+
+    /** Adds or replaces the reading of an extra sensor. */
+    public void addExtra(String name, double value, short unitId, String rawUnit) {
+        short id = SensorRegistry.sensorId(name);
+        if (id == SensorRegistry.UNREGISTERED) {
+            if (overflowExtras == null) {
+                overflowExtras = new HashMap<>();
+            }
+            overflowExtras.put(name, measurement(value, unitId == SensorRegistry.UNREGISTERED ? rawUnit : SensorRegistry.unit(unitId)));
+            return;
+        }
+        int index = indexOfExtra(id);
+        if (index < 0) {
+            ensureExtraCapacity();
+            index = extraCount++;
+            extraIds[index] = id;
+        }
+        extraValues[index] = value;
+        extraUnits[index] = unitId;
+        keepOverflowUnit(SENSORS.length + index, unitId, rawUnit);
+    }
+
+    public int extraCount() {
+        return extraCount;
+    }
+
+    public String extraName(int index) {
+        return SensorRegistry.sensorName(extraIds[index]);
+    }
+
+    public double extraValue(int index) {
+        return extraValues[index];
+    }
+
+    public String extraUnit(int index) {
+        return resolveUnit(extraUnits[index], SENSORS.length + index);
+    }
+
+    /** Value of the extra sensor with registry id {@code sensorId}, or {@code defaultValue} when absent. */
+    public double extraValueOrDefault(short sensorId, double defaultValue) {
+        int index = indexOfExtra(sensorId);
+        return index >= 0 ? extraValues[index] : defaultValue;
+    }
+
+    /** Extra sensors beyond the registry capacity, or {@code null}. */
+    public Map<String, VehicleData.Measurement> overflowExtras() {
+        return overflowExtras;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    /** Builds the public model; only called at the API boundary. */
+    public VehicleData.SensorData toSensorData() {
+        VehicleData.SensorData data = new VehicleData.SensorData();
+        for (Sensor sensor : SENSORS) {
+            if (has(sensor)) {
+                sensor.set(data, measurement(value(sensor), unit(sensor)));
+            }
+        }
+        if (extraCount > 0 || overflowExtras != null) {
+            Map<String, VehicleData.Measurement> extras = new HashMap<>();
+            for (int i = 0; i < extraCount; i++) {
+                extras.put(extraName(i), measurement(extraValues[i], extraUnit(i)));
+            }
+            if (overflowExtras != null) {
+                extras.putAll(overflowExtras);
+            }
+            data.setAdditionalProperties(extras);
+        }
+        data.setTimestamp(timestamp);
+        return data;
+    }
+
+    public static SensorSnapshot from(VehicleData.SensorData data) {
+        SensorSnapshot snapshot = new SensorSnapshot();
+        for (Sensor sensor : SENSORS) {
+            VehicleData.Measurement measurement = sensor.get(data);
+            if (measurement != null) {
+                snapshot.set(sensor, measurement.getValue(), measurement.getUnit());
+            }
+        }
+        if (data.getAdditionalProperties() != null) {
+            data.getAdditionalProperties().forEach((name, measurement) -> {
+                if (measurement != null) {
+                    snapshot.addExtra(name, measurement.getValue(), measurement.getUnit());
+                }
+            });
+        }
+        snapshot.setTimestamp(data.getTimestamp());
+        return snapshot;
+    }
+
+    private int indexOfExtra(short id) {
+        for (int i = 0; i < extraCount; i++) {
+            if (extraIds[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void ensureExtraCapacity() {
+        if (extraIds == null) {
+            extraIds = new short[4];
+            extraValues = new double[4];
+            extraUnits = new short[4];
+        } else if (extraCount == extraIds.length) {
+            int capacity = extraCount * 2;
+            extraIds = Arrays.copyOf(extraIds, capacity);
+            extraValues = Arrays.copyOf(extraValues, capacity);
+            extraUnits = Arrays.copyOf(extraUnits, capacity);
+        }
+    }
+
+    private void keepOverflowUnit(int slot, short unitId, String rawUnit) {
+        if (unitId == SensorRegistry.UNREGISTERED) {
+            if (overflowUnits == null) {
+                overflowUnits = new String[SENSORS.length + Math.max(extraCount, 4)];
+            } else if (slot >= overflowUnits.length) {
+                overflowUnits = Arrays.copyOf(overflowUnits, slot * 2);
+            }
+            overflowUnits[slot] = rawUnit;
+        }
+    }
+
+    private String resolveUnit(short unitId, int slot) {
+        if (unitId == SensorRegistry.UNREGISTERED) {
+            return overflowUnits[slot];
+        }
+        return SensorRegistry.unit(unitId);
+    }
+
+    private static VehicleData.Measurement measurement(double value, String unit) {
+        VehicleData.Measurement measurement = new VehicleData.Measurement();
+        measurement.setValue(value);
+        measurement.setUnit(unit);
+        return measurement;
+    }
+}
@@ -1,10 +1,15 @@
 package com.example.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
@@ -12,7 +17,13 @@ import java.util.Map;
 
 @Data
 @Document(collection = "vehicle_data")
-@CompoundIndex(name = "vehicle_contract_time_uidx", def = "{ 'vehicleId': 1, 'contractId': 1, 'timestamp': 1 }", unique = true)
+@CompoundIndexes({
+    @CompoundIndex(name = "vehicle_contract_time_uidx", def = "{ 'vehicleId': 1, 'contractId': 1, 'timestamp': 1 }", unique = true),
+    // Time-ordered reads of one vehicle across its contracts (ranges, history, latest, exports resumed by contract)
+    @CompoundIndex(name = "vehicle_time_contract_idx", def = "{ 'vehicleId': 1, 'timestamp': -1, 'contractId': -1 }"),
+    // Time-ordered exports of one contract across its vehicles
+    @CompoundIndex(name = "contract_time_vehicle_idx", def = "{ 'contractId': 1, 'timestamp': 1, 'vehicleId': 1 }")
+})
 public class VehicleData {
     @Id
     private String id;
@@ -25,6 +36,50 @@ public class VehicleData {
     private SensorData data;
     private Instant timestamp;
 
+    /**
+     * Compact form of {@link #data} filled by the Kafka deserializer. Whichever of the two is set is
+     * authoritative; the other one is derived lazily by its getter.
+     */
+    @Transient
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private SensorSnapshot sensors;
+
+    public SensorData getData() {
+        if (data == null && sensors != null) {
+            data = sensors.toSensorData();
+        }
+        return data;
+    }
+
+    public void setData(SensorData data) {
+        this.data = data;
+        this.sensors = null;
+    }
+
+    public SensorSnapshot getSensors() {
+        if (sensors == null && data != null) {
+            sensors = SensorSnapshot.from(data);
+        }
+        return sensors;
+    }
+
+    public void setSensors(SensorSnapshot sensors) {
+        this.sensors = sensors;
+        this.data = null;
+    }
+
+    /**
+     * Derives whichever of {@link #data} and {@link #sensors} is missing now, so that the getters no
+     * longer write. A reading shared between threads (see {@code ReadCoalescer}) is then only read.
+     */
+    public VehicleData materialize() {
+        getData();
+        getSensors();
+        return this;
+    }
+
     @Data
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class SensorData {
@@ -0,0 +1,55 @@
+package com.example.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Readings of one vehicle for one time slot ({@code storage.bucket.slot-ms}), used instead of one
+ * {@link VehicleData} document per reading when {@code storage.layout=bucketed}.
+ * <p>
+ * Each reading is kept as the {@link VehicleData} document without {@code _id} and
+ * {@code vehicleId}. A slot holds about {@code storage.bucket.max-readings} readings per bucket;
+ * busier slots continue in further buckets with the same {@code bucketStart}, so the index is not
+ * unique. {@code summary} keeps the min/max of every known sensor of the bucket.
+ */
+@Data
+@Document(collection = VehicleDataBucket.COLLECTION)
+@CompoundIndexes({
+    @CompoundIndex(name = "vehicle_bucket_idx", def = "{ 'vehicleId': 1, 'bucketStart': 1 }"),
+    // Contract exports; a bucket usually holds a single contract, so about one key per bucket
+    @CompoundIndex(name = "contract_bucket_idx", def = "{ 'readings.contractId': 1, 'bucketStart': 1 }")
+})
+public class VehicleDataBucket {
+
+    public static final String COLLECTION = "vehicle_data_buckets";
+
+    @Id
+    private String id;
+
+    private String vehicleId;
+    private Instant bucketStart;
+    private int count;
+    private Instant minTimestamp;
+    private Instant maxTimestamp;
+    private Map<String, Range> summary;
+    private List<org.bson.Document> readings;
+
+    /** Start of the slot containing {@code timestamp}. */
+    public static Instant bucketStart(Instant timestamp, long slotMillis) {
+        long millis = timestamp.toEpochMilli();
+        return Instant.ofEpochMilli(millis - Math.floorMod(millis, slotMillis));
+    }
+
+    @Data
+    public static class Range {
+        private double min;
+        private double max;
+    }
+}
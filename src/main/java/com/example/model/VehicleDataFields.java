@@ -0,0 +1,169 @@
+package com.example.model;
+
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Subset of the {@link VehicleData} fields a client asked for, by {@code fields=} and/or a named view.
+ * <p>
+ * Field names are those of the JSON response: {@code id}, {@code vehicleId}, {@code contractId},
+ * {@code timestamp}, {@code riskAssessment} or one of its fields ({@code riskAssessment.level},
+ * {@code .score}, {@code .timestamp}, {@code .riskFactors}, {@code .insuranceImpact}), {@code data} or one
+ * sensor ({@code data.SPEED}, or just {@code SPEED}). The selection is pushed down to MongoDB as a
+ * projection; timestamp, vehicle and contract are always read since paging, ordering and deduplication
+ * rely on them, but only written out when selected.
+ */
+public final class VehicleDataFields {
+
+    public enum Field {
+        ID, VEHICLE_ID, CONTRACT_ID, TIMESTAMP,
+        RISK_LEVEL, RISK_SCORE, RISK_TIMESTAMP, RISK_FACTORS, INSURANCE_IMPACT,
+        /** {@code data.timestamp} and extra sensors, only with the whole of {@code data}. */
+        DATA_EXTRAS
+    }
+
+    /** Chart-sized readings: vehicle, time, risk level and score, and every sensor value. */
+    public static final VehicleDataFields COMPACT = new VehicleDataFields(
+        EnumSet.of(Field.VEHICLE_ID, Field.TIMESTAMP, Field.RISK_LEVEL, Field.RISK_SCORE), EnumSet.allOf(Sensor.class));
+
+    private static final Set<Field> RISK = EnumSet.of(
+        Field.RISK_LEVEL, Field.RISK_SCORE, Field.RISK_TIMESTAMP, Field.RISK_FACTORS, Field.INSURANCE_IMPACT);
+
+    private final Set<Field> fields;
+    private final Set<Sensor> sensors;
+
+    private VehicleDataFields(Set<Field> fields, Set<Sensor> sensors) {
+        this.fields = fields;
+        this.sensors = sensors;
+    }
+
+    /**
+     * The selection of a {@code view} ({@code full} or {@code compact}) plus a comma-separated list of
+     * {@code fields}; {@code null} for the full document. Unknown names throw {@link IllegalArgumentException}.
+     */
+    public static VehicleDataFields parse(String fields, String view) {
+        boolean noFields = fields == null || fields.isBlank();
+        String viewName = view == null || view.isBlank() ? "full" : view.trim().toLowerCase(Locale.ROOT);
+        if (!viewName.equals("full") && !viewName.equals("compact")) {
+            throw new IllegalArgumentException("Unknown view: " + view);
+        }
+        if (noFields) {
+            return viewName.equals("compact") ? COMPACT : null;
+        }
+        Set<Field> selected = EnumSet.noneOf(Field.class);
+        Set<Sensor> selectedSensors = EnumSet.noneOf(Sensor.class);
+        if (viewName.equals("compact")) {
+            selected.addAll(COMPACT.fields);
+            selectedSensors.addAll(COMPACT.sensors);
+        }
+        for (String name : fields.split(",")) {
+            add(name.trim(), selected, selectedSensors);
+        }
+        return new VehicleDataFields(selected, selectedSensors);
+    }
+
+    private static void add(String name, Set<Field> fields, Set<Sensor> sensors) {
+        switch (name) {
+            case "" -> { }
+            case "id" -> fields.add(Field.ID);
+            case "vehicleId", "vehicle_id" -> fields.add(Field.VEHICLE_ID);
+            case "contractId" -> fields.add(Field.CONTRACT_ID);
+            case "timestamp" -> fields.add(Field.TIMESTAMP);
+            case "riskAssessment" -> fields.addAll(RISK);
+            case "riskAssessment.level" -> fields.add(Field.RISK_LEVEL);
+            case "riskAssessment.score" -> fields.add(Field.RISK_SCORE);
+            case "riskAssessment.timestamp" -> fields.add(Field.RISK_TIMESTAMP);
+            case "riskAssessment.riskFactors" -> fields.add(Field.RISK_FACTORS);
+            case "riskAssessment.insuranceImpact" -> fields.add(Field.INSURANCE_IMPACT);
+            case "data" -> {
+                sensors.addAll(EnumSet.allOf(Sensor.class));
+                fields.add(Field.DATA_EXTRAS);
+            }
+            default -> {
+                Sensor sensor = Sensor.fromJsonKey(name.startsWith("data.") ? name.substring(5) : name);
+                if (sensor == null) {
+                    throw new IllegalArgumentException("Unknown field: " + name);
+                }
+                sensors.add(sensor);
+            }
+        }
+    }
+
+    public boolean has(Field field) {
+        return fields.contains(field);
+    }
+
+    public boolean has(Sensor sensor) {
+        return sensors.contains(sensor);
+    }
+
+    public boolean hasRisk() {
+        return fields.stream().anyMatch(RISK::contains);
+    }
+
+    public boolean hasData() {
+        return !sensors.isEmpty() || fields.contains(Field.DATA_EXTRAS);
+    }
+
+    /** The same selection plus {@code sensor}, e.g. the one a downsampler needs. */
+    public VehicleDataFields with(Sensor sensor) {
+        if (sensors.contains(sensor)) {
+            return this;
+        }
+        Set<Sensor> withSensor = EnumSet.noneOf(Sensor.class);
+        withSensor.addAll(sensors);
+        withSensor.add(sensor);
+        return new VehicleDataFields(fields, withSensor);
+    }
+
+    /**
+     * Restricts {@code query} to the selected fields; {@code prefix} is the path of the reading inside the
+     * returned document ({@code ""} for {@code vehicle_data}, {@code "readings."} inside a bucket).
+     */
+    public Query project(Query query, String prefix) {
+        org.springframework.data.mongodb.core.query.Field projection = query.fields();
+        projection.include(prefix + "timestamp", prefix + "contractId");
+        if (prefix.isEmpty()) {
+            projection.include("vehicleId");
+            if (!fields.contains(Field.ID)) {
+                projection.exclude("_id");
+            }
+        }
+        include(projection, prefix, Field.RISK_LEVEL, "riskAssessment.level");
+        include(projection, prefix, Field.RISK_SCORE, "riskAssessment.score");
+        include(projection, prefix, Field.RISK_TIMESTAMP, "riskAssessment.timestamp");
+        include(projection, prefix, Field.RISK_FACTORS, "riskAssessment.riskFactors");
+        include(projection, prefix, Field.INSURANCE_IMPACT, "riskAssessment.insuranceImpact");
+        if (fields.contains(Field.DATA_EXTRAS)) {
+            projection.include(prefix + "data");
+        } else {
+            sensors.forEach(sensor -> projection.include(prefix + "data." + sensor.fieldName()));
+        }
+        return query;
+    }
+
+    private void include(org.springframework.data.mongodb.core.query.Field projection, String prefix, Field field, String path) {
+        if (fields.contains(field)) {
+            projection.include(prefix + path);
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof VehicleDataFields that && fields.equals(that.fields) && sensors.equals(that.sensors);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fields, sensors);
+    }
+
+    @Override
+    public String toString() {
+        return "VehicleDataFields" + fields + sensors;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Aggregate of the readings of one vehicle over one {@link RollupResolution} interval: reading
+ * count, count/sum/min/max per sensor (keyed by {@link Sensor#fieldName()}) and reading count per
+ * {@link RiskLevel}. Maintained incrementally at ingest; the id is derived from vehicle, resolution
+ * and interval start so every flush is an upsert of known documents.
+ */
+@Data
+@Document(collection = "vehicle_data_rollups")
+@CompoundIndex(name = "vehicle_resolution_start_idx", def = "{ 'vehicleId': 1, 'resolution': 1, 'start': 1 }")
+public class VehicleDataRollup {
+
+    @Id
+    private String id;
+
+    private String vehicleId;
+    private RollupResolution resolution;
+    private Instant start;
+    private long count;
+    private Map<String, SensorStats> sensors;
+    private Map<String, Long> riskLevels;
+
+    public static String id(String vehicleId, RollupResolution resolution, Instant start) {
+        return vehicleId + '|' + resolution.name() + '|' + start.toEpochMilli();
+    }
+
+    @Data
+    public static class SensorStats {
+        private long count;
+        private double sum;
+        private double min;
+        private double max;
+    }
+}
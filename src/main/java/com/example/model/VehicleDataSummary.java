@@ -0,0 +1,28 @@
+package com.example.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Reading count and first/last reading time of one vehicle, so counting its readings is a lookup by
+ * id whatever the size of its history. Maintained incrementally at ingest and periodically
+ * reconciled against the readings themselves.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "vehicle_data_summaries")
+public class VehicleDataSummary {
+
+    @Id
+    private String vehicleId;
+
+    private long count;
+    private Instant firstTimestamp;
+    private Instant lastTimestamp;
+}
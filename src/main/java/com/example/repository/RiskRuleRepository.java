@@ -0,0 +1,9 @@
+package com.example.repository;
+
+import com.example.model.RiskRule;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RiskRuleRepository extends ReactiveMongoRepository<RiskRule, String> {
+}
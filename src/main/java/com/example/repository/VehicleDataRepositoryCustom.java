@@ -0,0 +1,72 @@
+package com.example.repository;
+
+import com.example.model.ReadingCursor;
+import com.example.model.VehicleData;
+import com.example.model.VehicleDataFields;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * Per-vehicle reads that work on both storage layouts ({@code storage.layout}): one document per
+ * reading in {@code vehicle_data}, or readings packed into {@code vehicle_data_buckets}.
+ * <p>
+ * History and time-range reads take an optional {@link VehicleDataFields} selection, pushed down as a
+ * projection so only the selected fields leave MongoDB; {@code null} reads whole readings.
+ */
+public interface VehicleDataRepositoryCustom {
+
+    Mono<VehicleData> findFirstByVehicleIdOrderByTimestampDesc(String vehicleId);
+
+    default Flux<VehicleData> findByVehicleIdOrderByTimestampDesc(String vehicleId, Pageable pageable) {
+        return findByVehicleIdOrderByTimestampDesc(vehicleId, pageable, null);
+    }
+
+    Flux<VehicleData> findByVehicleIdOrderByTimestampDesc(String vehicleId, Pageable pageable, VehicleDataFields fields);
+
+    /**
+     * Up to {@code limit} readings of a vehicle, newest first (ties by contract), positioned right after
+     * {@code before} in that order or from the latest reading when null. Seeks through the index, so a
+     * deep page costs the same as the first one.
+     */
+    default Flux<VehicleData> findByVehicleIdBefore(String vehicleId, ReadingCursor before, int limit) {
+        return findByVehicleIdBefore(vehicleId, before, limit, null);
+    }
+
+    Flux<VehicleData> findByVehicleIdBefore(String vehicleId, ReadingCursor before, int limit, VehicleDataFields fields);
+
+    /** Readings strictly between the two instants, oldest first. */
+    default Flux<VehicleData> findByVehicleIdAndTimestampBetween(String vehicleId, Instant startTime, Instant endTime) {
+        return findByVehicleIdAndTimestampBetween(vehicleId, startTime, endTime, null);
+    }
+
+    Flux<VehicleData> findByVehicleIdAndTimestampBetween(String vehicleId, Instant startTime, Instant endTime,
+                                                         VehicleDataFields fields);
+
+    Mono<Long> countByVehicleId(String vehicleId);
+
+    /** Every vehicle with at least one reading, read from the vehicle index. */
+    Flux<String> findDistinctVehicleIds();
+
+    /** Latest reading of each of the vehicles that has one, in a single query for the whole set. */
+    Flux<VehicleData> findLatestByVehicleIdIn(Collection<String> vehicleIds);
+
+    /**
+     * Up to {@code limit} readings per vehicle since {@code since}, newest first, grouped by vehicle;
+     * one limited index walk per vehicle, a few vehicles at a time.
+     */
+    Flux<VehicleData> findRecentByVehicleIdIn(Collection<String> vehicleIds, Instant since, int limit);
+
+    /**
+     * Readings of a vehicle in {@code [startTime, endTime)} (either bound may be null) positioned after
+     * {@code after} when given, ordered by timestamp then contract. Read from one cursor, {@code batchSize}
+     * readings per round trip and only as fast as they are requested, so nothing is collected.
+     */
+    Flux<VehicleData> streamByVehicleId(String vehicleId, Instant startTime, Instant endTime, ReadingCursor after, int batchSize);
+
+    /** Same as {@link #streamByVehicleId} for the readings of a contract, ordered by timestamp then vehicle. */
+    Flux<VehicleData> streamByContractId(String contractId, Instant startTime, Instant endTime, ReadingCursor after, int batchSize);
+}
@@ -0,0 +1,319 @@
+package com.example.repository;
+
+import com.example.model.ReadingCursor;
+import com.example.model.VehicleData;
+import com.example.model.VehicleDataBucket;
+import com.example.model.VehicleDataFields;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * {@link VehicleDataRepositoryCustom} over either storage layout. In the bucketed layout the
+ * buckets of a vehicle are streamed in slot order and unpacked one slot at a time, so a page or a
+ * time range only reads the buckets it needs. Readings stored twice (a redelivery that reached
+ * MongoDB) are returned once; {@link #countByVehicleId} sums the bucket counts and does include them.
+ * <p>
+ * The export streams resume with a keyset on (timestamp, tie-breaker) rather than an offset, so a
+ * resumed stream seeks straight to its position through the time indexes.
+ */
+public class VehicleDataRepositoryImpl implements VehicleDataRepositoryCustom {
+
+    private static final int HISTORY_BUCKETS_PER_BATCH = 4;
+
+    /** Vehicles read at once by the set queries that go vehicle by vehicle. */
+    private static final int PER_VEHICLE_CONCURRENCY = 8;
+
+    private static final Comparator<VehicleData> OLDEST_FIRST = Comparator.comparing(VehicleData::getTimestamp);
+
+    /** MongoDB sorts missing values first. */
+    private static final Comparator<String> NULLS_FIRST = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final boolean bucketed;
+    private final long slotMillis;
+
+    public VehicleDataRepositoryImpl(
+            ReactiveMongoTemplate mongoTemplate,
+            @Value("${storage.layout:document}") String layout,
+            @Value("${storage.bucket.slot-ms:3600000}") long slotMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.bucketed = "bucketed".equalsIgnoreCase(layout.trim());
+        this.slotMillis = slotMillis;
+    }
+
+    @Override
+    public Mono<VehicleData> findFirstByVehicleIdOrderByTimestampDesc(String vehicleId) {
+        if (!bucketed) {
+            return mongoTemplate.findOne(byVehicle(vehicleId).with(Sort.by(Sort.Direction.DESC, "timestamp")), VehicleData.class);
+        }
+        // Find the latest slot through the index, then read only its bucket(s)
+        Query latestSlot = byVehicle(vehicleId).with(Sort.by(Sort.Direction.DESC, "bucketStart"));
+        latestSlot.fields().include("bucketStart");
+        return mongoTemplate.findOne(latestSlot, Document.class, VehicleDataBucket.COLLECTION)
+            .flatMap(slot -> mongoTemplate.find(Query.query(Criteria.where("vehicleId").is(vehicleId)
+                    .and("bucketStart").is(slot.get("bucketStart"))), Document.class, VehicleDataBucket.COLLECTION)
+                .collectList())
+            .flatMapIterable(buckets -> unpack(buckets, OLDEST_FIRST.reversed()))
+            .next();
+    }
+
+    @Override
+    public Flux<VehicleData> findByVehicleIdOrderByTimestampDesc(String vehicleId, Pageable pageable, VehicleDataFields fields) {
+        if (!bucketed) {
+            Query newestFirst = byVehicle(vehicleId).with(pageable).with(Sort.by(Sort.Direction.DESC, "timestamp"));
+            return mongoTemplate.find(project(newestFirst, fields), VehicleData.class);
+        }
+        // Buckets are large: fetch a few per round trip, a page rarely needs more than one or two
+        Query newestFirst = project(byVehicle(vehicleId)
+            .with(Sort.by(Sort.Direction.DESC, "bucketStart"))
+            .cursorBatchSize(HISTORY_BUCKETS_PER_BATCH), fields);
+        Flux<VehicleData> readings = slots(newestFirst)
+            .concatMapIterable(slot -> unpack(slot, OLDEST_FIRST.reversed()));
+        if (pageable.isUnpaged()) {
+            return readings;
+        }
+        return readings.skip(pageable.getOffset()).take(pageable.getPageSize(), true);
+    }
+
+    @Override
+    public Flux<VehicleData> findByVehicleIdBefore(String vehicleId, ReadingCursor before, int limit, VehicleDataFields fields) {
+        if (!bucketed) {
+            Criteria criteria = Criteria.where("vehicleId").is(vehicleId);
+            if (before != null && before.contractId() == null) {
+                // A missing contract sorts last when descending: the rest of its timestamp came before it
+                criteria = criteria.and("timestamp").lt(before.timestamp());
+            } else if (before != null) {
+                // ... and never matches $lt, so it is asked for explicitly
+                criteria = criteria.orOperator(
+                    Criteria.where("timestamp").lt(before.timestamp()),
+                    Criteria.where("timestamp").is(before.timestamp()).orOperator(
+                        Criteria.where("contractId").lt(before.contractId()), Criteria.where("contractId").is(null)));
+            }
+            return mongoTemplate.find(project(Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "timestamp", "contractId"))
+                .limit(limit), fields), VehicleData.class);
+        }
+        Criteria criteria = Criteria.where("vehicleId").is(vehicleId);
+        if (before != null) {
+            criteria = criteria.and("bucketStart").lte(before.timestamp());
+        }
+        Query newestFirst = project(Query.query(criteria)
+            .with(Sort.by(Sort.Direction.DESC, "bucketStart"))
+            .cursorBatchSize(HISTORY_BUCKETS_PER_BATCH), fields);
+        Comparator<VehicleData> order = OLDEST_FIRST.thenComparing(VehicleData::getContractId, NULLS_FIRST).reversed();
+        return slots(newestFirst)
+            .concatMapIterable(slot -> unpack(slot, order))
+            .filter(data -> before == null || data.getTimestamp().isBefore(before.timestamp())
+                || data.getTimestamp().equals(before.timestamp()) && NULLS_FIRST.compare(data.getContractId(), before.contractId()) < 0)
+            .take(limit, true);
+    }
+
+    @Override
+    public Flux<VehicleData> findByVehicleIdAndTimestampBetween(String vehicleId, Instant startTime, Instant endTime,
+                                                                VehicleDataFields fields) {
+        if (!bucketed) {
+            return mongoTemplate.find(project(Query.query(Criteria.where("vehicleId").is(vehicleId)
+                    .and("timestamp").gt(startTime).lt(endTime))
+                .with(Sort.by(Sort.Direction.ASC, "timestamp")), fields), VehicleData.class);
+        }
+        Query overlapping = project(Query.query(Criteria.where("vehicleId").is(vehicleId)
+                .and("bucketStart").gt(startTime.minusMillis(slotMillis)).lt(endTime)
+                .and("maxTimestamp").gt(startTime)
+                .and("minTimestamp").lt(endTime))
+            .with(Sort.by(Sort.Direction.ASC, "bucketStart")), fields);
+        return slots(overlapping)
+            .concatMapIterable(slot -> unpack(slot, OLDEST_FIRST))
+            .filter(data -> data.getTimestamp().isAfter(startTime) && data.getTimestamp().isBefore(endTime));
+    }
+
+    @Override
+    public Mono<Long> countByVehicleId(String vehicleId) {
+        if (!bucketed) {
+            return mongoTemplate.count(byVehicle(vehicleId), VehicleData.class);
+        }
+        Aggregation total = Aggregation.newAggregation(
+            Aggregation.match(Criteria.where("vehicleId").is(vehicleId)),
+            Aggregation.group().sum("count").as("total"));
+        return mongoTemplate.aggregate(total, VehicleDataBucket.COLLECTION, Document.class)
+            .next()
+            .map(result -> ((Number) result.get("total")).longValue())
+            .defaultIfEmpty(0L);
+    }
+
+    @Override
+    public Flux<String> findDistinctVehicleIds() {
+        if (!bucketed) {
+            return mongoTemplate.findDistinct(new Query(), "vehicleId", VehicleData.class, String.class);
+        }
+        return mongoTemplate.findDistinct(new Query(), "vehicleId", VehicleDataBucket.COLLECTION, VehicleDataBucket.class, String.class);
+    }
+
+    @Override
+    public Flux<VehicleData> findLatestByVehicleIdIn(Collection<String> vehicleIds) {
+        if (bucketed) {
+            return Flux.fromIterable(vehicleIds)
+                .flatMap(this::findFirstByVehicleIdOrderByTimestampDesc, PER_VEHICLE_CONCURRENCY);
+        }
+        // Sorted like vehicle_time_contract_idx, so the group only reads the first entry of each vehicle
+        Aggregation latest = Aggregation.newAggregation(
+            Aggregation.match(Criteria.where("vehicleId").in(vehicleIds)),
+            Aggregation.sort(Sort.by(Sort.Direction.ASC, "vehicleId").and(Sort.by(Sort.Direction.DESC, "timestamp", "contractId"))),
+            Aggregation.group("vehicleId").first(Aggregation.ROOT).as("latest"),
+            Aggregation.replaceRoot("latest"));
+        return mongoTemplate.aggregate(latest, VehicleData.class, VehicleData.class);
+    }
+
+    @Override
+    public Flux<VehicleData> findRecentByVehicleIdIn(Collection<String> vehicleIds, Instant since, int limit) {
+        if (bucketed) {
+            return Flux.fromIterable(vehicleIds)
+                .flatMapSequential(vehicleId -> findByVehicleIdBefore(vehicleId, null, limit)
+                    .takeWhile(data -> !data.getTimestamp().isBefore(since)), PER_VEHICLE_CONCURRENCY);
+        }
+        // One limited walk of vehicle_time_contract_idx per vehicle: at most limit entries read each,
+        // however many readings the vehicle has since then
+        return Flux.fromIterable(vehicleIds)
+            .flatMapSequential(vehicleId -> mongoTemplate.find(Query.query(Criteria.where("vehicleId").is(vehicleId)
+                    .and("timestamp").gte(since))
+                .with(Sort.by(Sort.Direction.DESC, "timestamp", "contractId"))
+                .limit(limit), VehicleData.class), PER_VEHICLE_CONCURRENCY);
+    }
+
+    @Override
+    public Flux<VehicleData> streamByVehicleId(String vehicleId, Instant startTime, Instant endTime,
+                                               ReadingCursor after, int batchSize) {
+        if (!bucketed) {
+            return streamDocuments("vehicleId", vehicleId, "contractId", after != null ? after.contractId() : null,
+                startTime, endTime, after, batchSize);
+        }
+        return streamBuckets(Criteria.where("vehicleId").is(vehicleId), data -> true,
+            VehicleData::getContractId, after != null ? after.contractId() : null, startTime, endTime, after);
+    }
+
+    @Override
+    public Flux<VehicleData> streamByContractId(String contractId, Instant startTime, Instant endTime,
+                                                ReadingCursor after, int batchSize) {
+        if (!bucketed) {
+            return streamDocuments("contractId", contractId, "vehicleId", after != null ? after.vehicleId() : null,
+                startTime, endTime, after, batchSize);
+        }
+        return streamBuckets(Criteria.where("readings.contractId").is(contractId),
+            data -> contractId.equals(data.getContractId()),
+            VehicleData::getVehicleId, after != null ? after.vehicleId() : null, startTime, endTime, after);
+    }
+
+    private Flux<VehicleData> streamDocuments(String keyField, String key, String tieField, String afterTie,
+                                              Instant startTime, Instant endTime, ReadingCursor after, int batchSize) {
+        List<Criteria> criteria = new ArrayList<>();
+        criteria.add(Criteria.where(keyField).is(key));
+        if (startTime != null) {
+            criteria.add(Criteria.where("timestamp").gte(startTime));
+        }
+        if (endTime != null) {
+            criteria.add(Criteria.where("timestamp").lt(endTime));
+        }
+        if (after != null) {
+            // A null tie-breaker sorts first, so every non-null one at the same timestamp comes after it
+            Criteria sameTimestamp = Criteria.where("timestamp").is(after.timestamp());
+            sameTimestamp = afterTie != null ? sameTimestamp.and(tieField).gt(afterTie) : sameTimestamp.and(tieField).ne(null);
+            criteria.add(new Criteria().orOperator(Criteria.where("timestamp").gt(after.timestamp()), sameTimestamp));
+        }
+        Query query = Query.query(new Criteria().andOperator(criteria))
+            .with(Sort.by(Sort.Direction.ASC, "timestamp", tieField))
+            .cursorBatchSize(batchSize);
+        return mongoTemplate.find(query, VehicleData.class);
+    }
+
+    /**
+     * Buckets are read in slot order from the first slot that can hold a matching reading; each slot is
+     * unpacked, sorted by (timestamp, tie-breaker) and filtered, so only one slot is in memory at a time.
+     */
+    private Flux<VehicleData> streamBuckets(Criteria owner, Predicate<VehicleData> belongs,
+                                            Function<VehicleData, String> tie, String afterTie,
+                                            Instant startTime, Instant endTime, ReadingCursor after) {
+        Instant lower = startTime;
+        if (after != null && (lower == null || after.timestamp().isAfter(lower))) {
+            lower = after.timestamp();
+        }
+        if (lower != null) {
+            owner = owner.and("bucketStart").gt(lower.minusMillis(slotMillis));
+            if (endTime != null) {
+                owner = owner.lt(endTime);
+            }
+        } else if (endTime != null) {
+            owner = owner.and("bucketStart").lt(endTime);
+        }
+        Query query = Query.query(owner)
+            .with(Sort.by(Sort.Direction.ASC, "bucketStart"))
+            .cursorBatchSize(HISTORY_BUCKETS_PER_BATCH);
+        Comparator<VehicleData> order = OLDEST_FIRST.thenComparing(tie, NULLS_FIRST);
+        Predicate<VehicleData> inRange = data -> belongs.test(data)
+            && (startTime == null || !data.getTimestamp().isBefore(startTime))
+            && (endTime == null || data.getTimestamp().isBefore(endTime))
+            && (after == null || data.getTimestamp().isAfter(after.timestamp())
+                || data.getTimestamp().equals(after.timestamp()) && NULLS_FIRST.compare(tie.apply(data), afterTie) > 0);
+        return slots(query)
+            .concatMapIterable(slot -> unpack(slot, order))
+            .filter(inRange);
+    }
+
+    private static Query byVehicle(String vehicleId) {
+        return Query.query(Criteria.where("vehicleId").is(vehicleId));
+    }
+
+    /**
+     * Restricts {@code query} to the selected fields, or leaves it whole for {@code null}. In the bucketed
+     * layout the selection applies to each packed reading; the bucket keys are kept for grouping.
+     */
+    private Query project(Query query, VehicleDataFields fields) {
+        if (fields == null) {
+            return query;
+        }
+        if (!bucketed) {
+            return fields.project(query, "");
+        }
+        fields.project(query, "readings.");
+        query.fields().include("vehicleId", "bucketStart");
+        return query;
+    }
+
+    /** The matching buckets grouped by slot; a busy slot spans several buckets. */
+    private Flux<List<Document>> slots(Query query) {
+        return mongoTemplate.find(query, Document.class, VehicleDataBucket.COLLECTION)
+            .bufferUntilChanged(bucket -> bucket.get("bucketStart"));
+    }
+
+    /** Readings of one slot's buckets, in the given order, each (vehicle, contract, timestamp) once. */
+    private List<VehicleData> unpack(List<Document> buckets, Comparator<VehicleData> order) {
+        Map<String, VehicleData> readings = new LinkedHashMap<>();
+        for (Document bucket : buckets) {
+            String vehicleId = bucket.getString("vehicleId");
+            for (Document reading : bucket.getList("readings", Document.class, List.of())) {
+                VehicleData data = mongoTemplate.getConverter().read(VehicleData.class, reading);
+                data.setVehicleId(vehicleId);
+                readings.putIfAbsent(vehicleId + '|' + data.getContractId() + '|' + data.getTimestamp(), data);
+            }
+        }
+        List<VehicleData> sorted = new ArrayList<>(readings.values());
+        sorted.sort(order);
+        return sorted;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.repository;
+
+import com.example.model.RollupResolution;
+import com.example.model.VehicleDataRollup;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+
+public interface VehicleDataRollupRepository extends ReactiveMongoRepository<VehicleDataRollup, String> {
+
+    /** Rollups of one resolution whose interval starts in {@code [from, to)}. */
+    @Query("{ 'vehicleId': ?0, 'resolution': ?1, 'start': { '$gte': ?2, '$lt': ?3 } }")
+    Flux<VehicleDataRollup> findRange(String vehicleId, RollupResolution resolution, Instant from, Instant to, Sort sort);
+}
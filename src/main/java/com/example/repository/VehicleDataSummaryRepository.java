@@ -0,0 +1,7 @@
+package com.example.repository;
+
+import com.example.model.VehicleDataSummary;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface VehicleDataSummaryRepository extends ReactiveMongoRepository<VehicleDataSummary, String> {
+}
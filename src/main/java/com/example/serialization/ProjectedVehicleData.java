@@ -0,0 +1,107 @@
+package com.example.serialization;
+
+import com.example.model.RiskAssessment;
+import com.example.model.Sensor;
+import com.example.model.SensorSnapshot;
+import com.example.model.VehicleData;
+import com.example.model.VehicleDataFields;
+import com.example.model.VehicleDataFields.Field;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * A reading restricted to the {@link VehicleDataFields} a client asked for. Written with the same
+ * names and nesting as the full {@link VehicleData} JSON, but only the selected fields that have a
+ * value are written, straight from the {@link SensorSnapshot} without building the sensor model.
+ */
+@JsonSerialize(using = ProjectedVehicleData.Serializer.class)
+public record ProjectedVehicleData(VehicleData data, VehicleDataFields fields) {
+
+    public static final class Serializer extends StdSerializer<ProjectedVehicleData> {
+
+        public Serializer() {
+            super(ProjectedVehicleData.class);
+        }
+
+        @Override
+        public void serialize(ProjectedVehicleData projected, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            VehicleData data = projected.data();
+            VehicleDataFields fields = projected.fields();
+            gen.writeStartObject();
+            if (fields.has(Field.ID) && data.getId() != null) {
+                gen.writeStringField("id", data.getId());
+            }
+            if (fields.has(Field.VEHICLE_ID) && data.getVehicleId() != null) {
+                gen.writeStringField("vehicle_id", data.getVehicleId());
+            }
+            if (fields.has(Field.CONTRACT_ID) && data.getContractId() != null) {
+                gen.writeStringField("contractId", data.getContractId());
+            }
+            if (fields.hasRisk() && data.getRiskAssessment() != null) {
+                writeRisk(data.getRiskAssessment(), fields, gen, provider);
+            }
+            if (fields.hasData()) {
+                writeData(data, fields, gen, provider);
+            }
+            if (fields.has(Field.TIMESTAMP) && data.getTimestamp() != null) {
+                provider.defaultSerializeField("timestamp", data.getTimestamp(), gen);
+            }
+            gen.writeEndObject();
+        }
+
+        private static void writeRisk(RiskAssessment risk, VehicleDataFields fields, JsonGenerator gen,
+                                      SerializerProvider provider) throws IOException {
+            gen.writeObjectFieldStart("riskAssessment");
+            if (fields.has(Field.RISK_LEVEL) && risk.getLevel() != null) {
+                gen.writeStringField("level", risk.getLevel().name());
+            }
+            if (fields.has(Field.RISK_SCORE)) {
+                gen.writeNumberField("score", risk.getScore());
+            }
+            if (fields.has(Field.RISK_TIMESTAMP) && risk.getTimestamp() != null) {
+                provider.defaultSerializeField("timestamp", risk.getTimestamp(), gen);
+            }
+            if (fields.has(Field.RISK_FACTORS) && risk.getRiskFactors() != null) {
+                provider.defaultSerializeField("riskFactors", risk.getRiskFactors(), gen);
+            }
+            if (fields.has(Field.INSURANCE_IMPACT) && risk.getInsuranceImpact() != null) {
+                provider.defaultSerializeField("insuranceImpact", risk.getInsuranceImpact(), gen);
+            }
+            gen.writeEndObject();
+        }
+
+        private static void writeData(VehicleData data, VehicleDataFields fields, JsonGenerator gen,
+                                      SerializerProvider provider) throws IOException {
+            SensorSnapshot sensors = data.getSensors();
+            if (sensors == null) {
+                return;
+            }
+            gen.writeObjectFieldStart("data");
+            for (Sensor sensor : Sensor.values()) {
+                if (fields.has(sensor) && sensors.has(sensor)) {
+                    gen.writeObjectFieldStart(sensor.name());
+                    gen.writeNumberField("value", sensors.value(sensor));
+                    String unit = sensors.unit(sensor);
+                    if (unit != null) {
+                        gen.writeStringField("unit", unit);
+                    }
+                    gen.writeEndObject();
+                }
+            }
+            if (fields.has(Field.DATA_EXTRAS)) {
+                VehicleData.SensorData sensorData = data.getData();
+                if (sensorData.getTimestamp() != null) {
+                    provider.defaultSerializeField("timestamp", sensorData.getTimestamp(), gen);
+                }
+                if (sensorData.getAdditionalProperties() != null) {
+                    provider.defaultSerializeField("additionalProperties", sensorData.getAdditionalProperties(), gen);
+                }
+            }
+            gen.writeEndObject();
+        }
+    }
+}
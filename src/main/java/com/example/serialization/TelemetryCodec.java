@@ -0,0 +1,80 @@
+package com.example.serialization;
+
+import com.example.model.VehicleData;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Encodes and decodes {@link VehicleData} in the supported {@link TelemetryFormat}s.
+ * <p>
+ * The Smile mapper is a copy of the application {@link ObjectMapper} (same modules and
+ * features) over a {@link SmileFactory} with shared property names and values enabled, so
+ * repeated keys such as {@code SPEED}, {@code value} and {@code unit} are written once per
+ * message and back-referenced afterwards.
+ * <p>
+ * Decoding goes through {@link VehicleDataReader}, which fills a {@link com.example.model.SensorSnapshot}
+ * instead of the boxed {@code SensorData} model.
+ */
+@Component
+public class TelemetryCodec {
+
+    /** Every Smile document written by Jackson starts with this header (":)\n"). */
+    private static final byte[] SMILE_HEADER = {':', ')', '\n'};
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper smileMapper;
+    private final VehicleDataReader reader;
+    private final ObjectWriter jsonWriter;
+    private final ObjectWriter smileWriter;
+
+    public TelemetryCodec(ObjectMapper objectMapper) {
+        SmileFactory smileFactory = SmileFactory.builder()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+            .build();
+        this.jsonMapper = objectMapper;
+        this.smileMapper = objectMapper.copyWith(smileFactory);
+        this.reader = new VehicleDataReader(objectMapper);
+        this.jsonWriter = jsonMapper.writerFor(VehicleData.class);
+        this.smileWriter = smileMapper.writerFor(VehicleData.class);
+    }
+
+    public ObjectMapper smileMapper() {
+        return smileMapper;
+    }
+
+    public byte[] encode(VehicleData data, TelemetryFormat format) throws JsonProcessingException {
+        return (format == TelemetryFormat.SMILE ? smileWriter : jsonWriter).writeValueAsBytes(data);
+    }
+
+    /**
+     * Decodes a payload slice. With a {@code null} format the encoding is detected from the
+     * Smile header, so binary producers that do not set a content type are still understood.
+     */
+    public VehicleData decode(byte[] data, int offset, int length, TelemetryFormat format) throws IOException {
+        TelemetryFormat resolved = format != null ? format : detect(data, offset, length);
+        ObjectMapper mapper = resolved == TelemetryFormat.SMILE ? smileMapper : jsonMapper;
+        try (JsonParser parser = mapper.getFactory().createParser(data, offset, length)) {
+            return reader.read(parser);
+        }
+    }
+
+    public static TelemetryFormat detect(byte[] data, int offset, int length) {
+        if (length < SMILE_HEADER.length) {
+            return TelemetryFormat.JSON;
+        }
+        for (int i = 0; i < SMILE_HEADER.length; i++) {
+            if (data[offset + i] != SMILE_HEADER[i]) {
+                return TelemetryFormat.JSON;
+            }
+        }
+        return TelemetryFormat.SMILE;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.serialization;
+
+import org.springframework.util.MimeType;
+
+/**
+ * Wire encodings accepted for vehicle telemetry. The format is carried by the {@code content-type}
+ * Kafka header or HTTP Content-Type / Accept headers; JSON stays the default.
+ */
+public enum TelemetryFormat {
+    JSON("application/json"),
+    SMILE("application/x-jackson-smile");
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    /** Kafka record header naming the payload encoding. */
+    public static final String CONTENT_TYPE_HEADER = "content-type";
+
+    private final String mediaType;
+
+    TelemetryFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+
+    /** Resolves a content type such as {@code application/x-jackson-smile}; anything else is JSON. */
+    public static TelemetryFormat fromContentType(String contentType) {
+        if (contentType == null || contentType.isBlank()) {
+            return JSON;
+        }
+        try {
+            MimeType mimeType = MimeType.valueOf(contentType);
+            return SMILE.mediaType.equals(mimeType.getType() + "/" + mimeType.getSubtype()) ? SMILE : JSON;
+        } catch (IllegalArgumentException e) {
+            return JSON;
+        }
+    }
+}
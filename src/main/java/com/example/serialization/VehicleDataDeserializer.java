@@ -0,0 +1,76 @@
+package com.example.serialization;
+
+import com.example.model.VehicleData;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Kafka value deserializer that feeds the record bytes straight into a streaming Jackson parser
+ * through pre-built readers, without decoding the payload to a {@code String} first.
+ * <p>
+ * The encoding comes from the {@link TelemetryFormat#CONTENT_TYPE_HEADER} record header; without
+ * it, Smile payloads are recognised by their header and everything else is read as JSON.
+ * An unreadable payload is logged (topic and size only, never the content) and returned as
+ * {@code null} so the consumer can skip it instead of failing the whole poll.
+ */
+@Slf4j
+public class VehicleDataDeserializer implements Deserializer<VehicleData> {
+
+    private final TelemetryCodec codec;
+
+    public VehicleDataDeserializer(TelemetryCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public VehicleData deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public VehicleData deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        return read(topic, format(headers), data, 0, data.length);
+    }
+
+    @Override
+    public VehicleData deserialize(String topic, Headers headers, ByteBuffer data) {
+        if (data == null || !data.hasRemaining()) {
+            return null;
+        }
+        if (data.hasArray()) {
+            return read(topic, format(headers), data.array(), data.arrayOffset() + data.position(), data.remaining());
+        }
+        byte[] copy = new byte[data.remaining()];
+        data.duplicate().get(copy);
+        return read(topic, format(headers), copy, 0, copy.length);
+    }
+
+    private VehicleData read(String topic, TelemetryFormat format, byte[] data, int offset, int length) {
+        try {
+            return codec.decode(data, offset, length, format);
+        } catch (IOException e) {
+            log.error("Error deserializing vehicle data from topic {} ({} bytes): {}", topic, length, e.getMessage());
+            return null;
+        }
+    }
+
+    private static TelemetryFormat format(Headers headers) {
+        if (headers == null) {
+            return null;
+        }
+        Header header = headers.lastHeader(TelemetryFormat.CONTENT_TYPE_HEADER);
+        if (header == null || header.value() == null) {
+            return null;
+        }
+        return TelemetryFormat.fromContentType(new String(header.value(), StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.serialization;
+
+import com.example.model.RiskAssessment;
+import com.example.model.Sensor;
+import com.example.model.SensorRegistry;
+import com.example.model.SensorSnapshot;
+import com.example.model.VehicleData;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Streaming reader that decodes a telemetry document token by token into {@link VehicleData} with a
+ * {@link SensorSnapshot}, so no {@code SensorData}, {@code Measurement} or unit {@code String} is
+ * allocated per message. It accepts the same documents as the Jackson binding of {@link VehicleData}
+ * (property names, null handling, unknown properties ignored) and works on JSON and Smile parsers alike.
+ */
+class VehicleDataReader {
+
+    private final ObjectReader instantReader;
+    private final ObjectReader riskAssessmentReader;
+
+    VehicleDataReader(ObjectMapper objectMapper) {
+        this.instantReader = objectMapper.readerFor(Instant.class);
+        this.riskAssessmentReader = objectMapper.readerFor(RiskAssessment.class);
+    }
+
+    VehicleData read(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            throw MismatchedInputException.from(parser, VehicleData.class, "No content to map due to end-of-input");
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expectObject(parser, token, "vehicle data");
+        VehicleData data = new VehicleData();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            token = parser.nextToken();
+            switch (field) {
+                case "id" -> data.setId(text(parser, token));
+                case "vehicle_id" -> data.setVehicleId(text(parser, token));
+                case "contractId" -> data.setContractId(text(parser, token));
+                case "timestamp" -> data.setTimestamp(instant(parser, token));
+                case "riskAssessment" -> data.setRiskAssessment(
+                    token == JsonToken.VALUE_NULL ? null : riskAssessmentReader.readValue(parser));
+                case "data" -> data.setSensors(token == JsonToken.VALUE_NULL ? null : readSensors(parser, token));
+                default -> parser.skipChildren();
+            }
+        }
+        return data;
+    }
+
+    private SensorSnapshot readSensors(JsonParser parser, JsonToken token) throws IOException {
+        expectObject(parser, token, "sensor data");
+        SensorSnapshot snapshot = new SensorSnapshot();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            token = parser.nextToken();
+            Sensor sensor = Sensor.fromJsonKey(field);
+            if (sensor != null) {
+                readMeasurement(parser, token, snapshot, sensor, null);
+            } else if ("timestamp".equals(field)) {
+                snapshot.setTimestamp(instant(parser, token));
+            } else if ("additionalProperties".equals(field) && token != JsonToken.VALUE_NULL) {
+                expectObject(parser, token, "additional sensors");
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.currentName();
+                    readMeasurement(parser, parser.nextToken(), snapshot, null, name);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return snapshot;
+    }
+
+    /** Reads {@code {"value": .., "unit": ..}} into the sensor slot, or as extra sensor {@code extraName}. */
+    private void readMeasurement(JsonParser parser, JsonToken token, SensorSnapshot snapshot,
+                                 Sensor sensor, String extraName) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return;
+        }
+        expectObject(parser, token, "measurement");
+        double value = 0.0;
+        short unitId = SensorRegistry.NO_UNIT;
+        String rawUnit = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            token = parser.nextToken();
+            if ("value".equals(field)) {
+                value = parser.getValueAsDouble();
+            } else if ("unit".equals(field) && token == JsonToken.VALUE_STRING) {
+                unitId = SensorRegistry.unitId(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                rawUnit = unitId == SensorRegistry.UNREGISTERED ? parser.getText() : null;
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (sensor != null) {
+            snapshot.set(sensor, value, unitId, rawUnit);
+        } else {
+            snapshot.addExtra(extraName, value, unitId, rawUnit);
+        }
+    }
+
+    private String text(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!token.isScalarValue()) {
+            throw MismatchedInputException.from(parser, String.class, "Expected a text value, got " + token);
+        }
+        return parser.getValueAsString();
+    }
+
+    private Instant instant(JsonParser parser, JsonToken token) throws IOException {
+        return token == JsonToken.VALUE_NULL ? null : instantReader.readValue(parser);
+    }
+
+    private static void expectObject(JsonParser parser, JsonToken token, String what) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            throw MismatchedInputException.from(parser, Object.class, "Expected " + what + " object, got " + token);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.service;
+
+import com.example.model.InsuranceContract;
+import com.example.model.VehicleData;
+import com.example.repository.InsuranceContractRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps {@link InsuranceContract#getCurrentPremium()} close to the driving of the last
+ * {@code pricing.window-ms} without a MongoDB write per reading.
+ * <p>
+ * Each assessed reading only updates its contract's in-memory risk: a time-weighted, exponentially
+ * decaying average of the per-reading multiplier ({@link InsuranceContractService#riskMultiplier}),
+ * seeded with the stored premium the first time the contract is repriced. Every {@code pricing.flush-ms}
+ * the contracts with new readings that were not repriced during the last {@code pricing.debounce-ms}
+ * are loaded in one query, and the premiums that changed are written in one unordered bulk update.
+ * Each update only applies if {@code lastUpdated} is still the value that was read (optimistic
+ * concurrency); contracts changed in between are retried on the next flush.
+ */
+@Slf4j
+@Component
+public class ContractRepricer {
+
+    /** Weight of the first reading of a contract, whose sampling interval is not known yet. */
+    private static final long FIRST_READING_WEIGHT_MS = 1_000;
+
+    private final InsuranceContractRepository contractRepository;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final Map<String, ContractRisk> contracts = new ConcurrentHashMap<>();
+    private final long windowMillis;
+    private final long debounceMillis;
+    private final Duration flushInterval;
+    private final int batchSize;
+
+    private final Counter repricedCounter;
+    private final Counter unchangedCounter;
+    private final Counter conflictCounter;
+    private Disposable flushes;
+
+    public ContractRepricer(
+            InsuranceContractRepository contractRepository,
+            ReactiveMongoTemplate mongoTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${pricing.window-ms:900000}") long windowMillis,
+            @Value("${pricing.debounce-ms:60000}") long debounceMillis,
+            @Value("${pricing.flush-ms:5000}") long flushMs,
+            @Value("${pricing.batch-size:500}") int batchSize) {
+        this.contractRepository = contractRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.windowMillis = windowMillis;
+        this.debounceMillis = debounceMillis;
+        this.flushInterval = flushMs > 0 ? Duration.ofMillis(flushMs) : null;
+        this.batchSize = Math.max(1, batchSize);
+
+        Gauge.builder("pricing.contracts.tracked", contracts, Map::size)
+            .description("Contracts with driving risk aggregated in memory")
+            .register(meterRegistry);
+        this.repricedCounter = Counter.builder("pricing.repriced")
+            .description("Contract premiums written")
+            .register(meterRegistry);
+        this.unchangedCounter = Counter.builder("pricing.unchanged")
+            .description("Repricings skipped because the premium did not change")
+            .register(meterRegistry);
+        this.conflictCounter = Counter.builder("pricing.conflicts")
+            .description("Premium updates rejected because the contract changed concurrently")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (flushInterval == null) {
+            return;
+        }
+        flushes = Flux.interval(flushInterval, flushInterval)
+            .concatMap(tick -> reprice(System.currentTimeMillis())
+                .doOnError(error -> log.warn("Contract repricing failed, retrying on next flush: {}", error.getMessage()))
+                .onErrorResume(error -> Mono.empty()))
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flushes != null) {
+            flushes.dispose();
+        }
+    }
+
+    /** Adds an assessed reading to its contract's risk; no I/O. */
+    public void record(VehicleData data) {
+        if (data.getContractId() == null || data.getSensors() == null) {
+            return;
+        }
+        double multiplier = InsuranceContractService.riskMultiplier(data.getSensors());
+        long time = data.getTimestamp() != null ? data.getTimestamp().toEpochMilli() : System.currentTimeMillis();
+        ContractRisk risk = contracts.computeIfAbsent(data.getContractId(), id -> new ContractRisk());
+        synchronized (risk) {
+            risk.add(multiplier, time, windowMillis);
+            risk.dirty = true;
+            risk.touched = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Writes the premiums of the contracts that are due at {@code now}, {@code pricing.batch-size}
+     * contracts per query and bulk update, and forgets contracts idle for a whole window.
+     */
+    public Mono<Void> reprice(long now) {
+        List<String> due = new ArrayList<>();
+        contracts.forEach((contractId, risk) -> {
+            synchronized (risk) {
+                if (risk.dirty && now - risk.repriced >= debounceMillis) {
+                    risk.dirty = false;
+                    due.add(contractId);
+                } else if (!risk.dirty && now - risk.touched > windowMillis) {
+                    contracts.remove(contractId, risk);
+                }
+            }
+        });
+        if (due.isEmpty()) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(due)
+            .buffer(batchSize)
+            .concatMap(batch -> repriceBatch(batch, now))
+            .then();
+    }
+
+    public int trackedContracts() {
+        return contracts.size();
+    }
+
+    private Mono<Void> repriceBatch(List<String> contractIds, long now) {
+        Set<String> missing = new HashSet<>(contractIds);
+        return contractRepository.findAllById(contractIds)
+            .collectList()
+            .flatMap(loaded -> {
+                ReactiveBulkOperations operations = mongoTemplate.bulkOps(BulkMode.UNORDERED, InsuranceContract.class);
+                Instant updatedAt = Instant.ofEpochMilli(now);
+                int updates = 0;
+                for (InsuranceContract contract : loaded) {
+                    missing.remove(contract.getId());
+                    BigDecimal premium = premium(contract, now);
+                    if (premium == null || (contract.getCurrentPremium() != null && premium.compareTo(contract.getCurrentPremium()) == 0)) {
+                        unchangedCounter.increment();
+                        continue;
+                    }
+                    operations.updateOne(
+                        Query.query(Criteria.where("_id").is(contract.getId()).and("lastUpdated").is(contract.getLastUpdated())),
+                        new Update().set("currentPremium", premium).set("lastUpdated", updatedAt));
+                    updates++;
+                }
+                missing.forEach(contracts::remove);
+                if (updates == 0) {
+                    return Mono.empty();
+                }
+                int expected = updates;
+                return operations.execute()
+                    .doOnNext(result -> {
+                        repricedCounter.increment(result.getModifiedCount());
+                        int conflicts = expected - result.getMatchedCount();
+                        if (conflicts > 0) {
+                            // The bulk result does not say which ones: re-read them all, unchanged ones are skipped
+                            conflictCounter.increment(conflicts);
+                            contractIds.forEach(this::markDirty);
+                        }
+                        log.debug("Repriced {} contract(s), {} conflict(s)", result.getModifiedCount(), Math.max(0, conflicts));
+                    })
+                    .then();
+            })
+            .doOnError(error -> contractIds.forEach(this::markDirty));
+    }
+
+    /** New premium of a loaded contract, or {@code null} when it cannot be priced. */
+    private BigDecimal premium(InsuranceContract contract, long now) {
+        ContractRisk risk = contracts.get(contract.getId());
+        if (risk == null || contract.getBasePremium() == null || contract.getBasePremium().signum() == 0) {
+            return null;
+        }
+        synchronized (risk) {
+            if (!risk.seeded) {
+                double stored = contract.getCurrentPremium() != null
+                    ? contract.getCurrentPremium().doubleValue() / contract.getBasePremium().doubleValue()
+                    : 1.0;
+                risk.seed(stored, windowMillis);
+            }
+            risk.repriced = now;
+            return InsuranceContractService.adjustedPremium(contract.getBasePremium(), Math.max(1.0, risk.multiplier()));
+        }
+    }
+
+    private void markDirty(String contractId) {
+        ContractRisk risk = contracts.get(contractId);
+        if (risk != null) {
+            synchronized (risk) {
+                risk.dirty = true;
+                risk.repriced = 0;
+            }
+        }
+    }
+
+    /**
+     * Decayed sums of multiplier x time and of time: their ratio is the average multiplier, each
+     * reading weighted by the time since the previous one and by {@code exp(-age / window)}.
+     */
+    private static final class ContractRisk {
+
+        private double weightedSum;
+        private double weight;
+        private long last;
+        private boolean seeded;
+        private boolean dirty;
+        private long repriced;
+        private long touched;
+
+        void add(double multiplier, long time, long windowMillis) {
+            double readingWeight;
+            if (last == 0) {
+                readingWeight = FIRST_READING_WEIGHT_MS;
+                last = time;
+            } else if (time > last) {
+                readingWeight = Math.min(time - last, windowMillis);
+                double decay = Math.exp(-(double) (time - last) / windowMillis);
+                weightedSum *= decay;
+                weight *= decay;
+                last = time;
+            } else {
+                readingWeight = 1;
+            }
+            weightedSum += multiplier * readingWeight;
+            weight += readingWeight;
+        }
+
+        /** Adds the stored multiplier as one window of history, so a restart does not reset the premium. */
+        void seed(double multiplier, long windowMillis) {
+            weightedSum += multiplier * windowMillis;
+            weight += windowMillis;
+            seeded = true;
+        }
+
+        double multiplier() {
+            return weight > 0 ? weightedSum / weight : 1.0;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.service;
+
+import com.example.model.VehicleData;
+import com.mongodb.MongoException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Recent-key filters placed in front of the duplicate lookups of the ingest path, one per
+ * collection. The configured memory ceiling is split evenly between them.
+ */
+@Component
+public class IdempotencyFilters {
+
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    private final RecentKeyFilter vehicleData;
+    private final RecentKeyFilter riskEvents;
+
+    public IdempotencyFilters(
+            MeterRegistry meterRegistry,
+            @Value("${idempotency.filter.memory-bytes:16777216}") long memoryBytes,
+            @Value("${idempotency.filter.window-ms:600000}") long windowMs,
+            @Value("${idempotency.filter.generations:4}") int generations,
+            @Value("${idempotency.filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.vehicleData = new RecentKeyFilter("vehicle_data", memoryBytes / 2, windowMs, generations,
+            falsePositiveRate, meterRegistry);
+        this.riskEvents = new RecentKeyFilter("risk_event", memoryBytes / 2, windowMs, generations,
+            falsePositiveRate, meterRegistry);
+    }
+
+    public RecentKeyFilter vehicleData() {
+        return vehicleData;
+    }
+
+    public RecentKeyFilter riskEvents() {
+        return riskEvents;
+    }
+
+    /** Business key shared by the vehicle_data unique index and risk event deduplication. */
+    public static String businessKey(String vehicleId, String contractId, Instant timestamp) {
+        return vehicleId + '|' + contractId + '|' + timestamp.toEpochMilli();
+    }
+
+    public static String businessKey(VehicleData data) {
+        return businessKey(data.getVehicleId(), data.getContractId(), data.getTimestamp());
+    }
+
+    /** Whether a write failed only because a document with the same unique key already exists. */
+    public static boolean isDuplicateKey(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DuplicateKeyException
+                    || cause instanceof MongoException mongo && mongo.getCode() == DUPLICATE_KEY_ERROR) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.service;
+
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+
+/**
+ * What the ingestion consumers do with a reading that still fails after its retries.
+ * <p>
+ * A transient failure (MongoDB unreachable or timing out) says nothing about the reading: the consumer
+ * fails its batch without acknowledging it, and the broker redelivers it once the database is back.
+ * Any other failure belongs to the reading itself and would fail the same way on every redelivery, so
+ * the reading is logged, counted in {@code ingestion.skipped} and acknowledged with its batch, and the
+ * partition (or MQTT session) keeps moving.
+ */
+final class IngestionFailures {
+
+    private IngestionFailures() {
+    }
+
+    static boolean isTransient(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof MongoSocketException
+                    || cause instanceof MongoTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static Counter skipped(MeterRegistry registry, String channel, String reason) {
+        return Counter.builder("ingestion.skipped")
+            .description("Readings acknowledged without being stored")
+            .tag("channel", channel)
+            .tag("reason", reason)
+            .register(registry);
+    }
+}
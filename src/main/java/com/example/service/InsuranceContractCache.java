@@ -0,0 +1,211 @@
+package com.example.service;
+
+import com.example.model.InsuranceContract;
+import com.example.repository.InsuranceContractRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.mongodb.client.model.changestream.OperationType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonValue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+/**
+ * In-process cache of {@link InsuranceContract}s by id and by vehicle id, in front of
+ * {@link InsuranceContractRepository}.
+ * <p>
+ * Both indexes are bounded Caffeine caches ({@code contracts.cache.max-size} entries each) whose
+ * entries expire after {@code contracts.cache.ttl-ms}; misses are cached too, for the shorter
+ * {@code contracts.cache.negative-ttl-ms}. Concurrent misses on the same key share one query. A
+ * MongoDB change stream on the contract collection invalidates the entries of every inserted,
+ * updated or deleted contract, so the TTL only bounds staleness when the stream is down (change
+ * streams need a replica set; on a standalone server the stream keeps retrying with backoff).
+ * <p>
+ * Hit ratio, load latency and evictions are published as {@code cache.*} meters (tag
+ * {@code cache=insurance_contracts}, {@code index=id|vehicle}) and {@code contracts.cache.hit.ratio}.
+ */
+@Slf4j
+@Component
+public class InsuranceContractCache {
+
+    private static final String CACHE_NAME = "insurance_contracts";
+
+    private final InsuranceContractRepository contractRepository;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final boolean changeStreamEnabled;
+    private final AsyncCache<String, Optional<InsuranceContract>> byId;
+    private final AsyncCache<String, List<InsuranceContract>> byVehicle;
+    private final Counter invalidationCounter;
+    private Disposable changeStream;
+
+    public InsuranceContractCache(
+            InsuranceContractRepository contractRepository,
+            ReactiveMongoTemplate mongoTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${contracts.cache.max-size:100000}") long maxSize,
+            @Value("${contracts.cache.ttl-ms:300000}") long ttlMillis,
+            @Value("${contracts.cache.negative-ttl-ms:30000}") long negativeTtlMillis,
+            @Value("${contracts.cache.change-stream:true}") boolean changeStreamEnabled) {
+        this.contractRepository = contractRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.changeStreamEnabled = changeStreamEnabled;
+        this.byId = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(InsuranceContractCache.<Optional<InsuranceContract>>expiry(Optional::isEmpty, ttlMillis, negativeTtlMillis))
+            .recordStats()
+            .buildAsync();
+        this.byVehicle = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(InsuranceContractCache.<List<InsuranceContract>>expiry(List::isEmpty, ttlMillis, negativeTtlMillis))
+            .recordStats()
+            .buildAsync();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, byId.synchronous(), CACHE_NAME, "index", "id");
+        CaffeineCacheMetrics.monitor(meterRegistry, byVehicle.synchronous(), CACHE_NAME, "index", "vehicle");
+        Gauge.builder("contracts.cache.hit.ratio", byId, cache -> cache.synchronous().stats().hitRate())
+            .description("Share of contract lookups by id served from memory")
+            .tag("index", "id")
+            .register(meterRegistry);
+        Gauge.builder("contracts.cache.hit.ratio", byVehicle, cache -> cache.synchronous().stats().hitRate())
+            .description("Share of contract lookups by vehicle served from memory")
+            .tag("index", "vehicle")
+            .register(meterRegistry);
+        this.invalidationCounter = Counter.builder("contracts.cache.invalidations")
+            .description("Contract cache entries invalidated by the change stream")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!changeStreamEnabled) {
+            log.info("Contract cache change stream disabled, entries expire after their TTL only");
+            return;
+        }
+        changeStream = Flux.defer(() -> mongoTemplate.changeStream(InsuranceContract.class)
+                .withOptions(options -> options.returnFullDocumentOnUpdate())
+                .watchCollection(InsuranceContract.class)
+                .listen())
+            .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                .maxBackoff(Duration.ofMinutes(5))
+                .doBeforeRetry(signal -> {
+                    // Changes may have been missed while the stream was down
+                    invalidateAll();
+                    log.warn("Contract change stream failed, cache relies on TTL until it resumes: {}",
+                        signal.failure().getMessage());
+                }))
+            .subscribe(this::onChange);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (changeStream != null) {
+            changeStream.dispose();
+        }
+    }
+
+    public Mono<InsuranceContract> findById(String contractId) {
+        return Mono.fromFuture(() -> byId.get(contractId, (id, executor) -> contractRepository.findById(id)
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .toFuture()), true)
+            .flatMap(Mono::justOrEmpty);
+    }
+
+    public Flux<InsuranceContract> findByVehicleId(String vehicleId) {
+        return Mono.fromFuture(() -> byVehicle.get(vehicleId, (id, executor) -> contractRepository.findByVehicleId(id)
+                    .collectList()
+                    .map(List::copyOf)
+                    .toFuture()), true)
+            .flatMapIterable(contracts -> contracts);
+    }
+
+    /** Drops the cached entries of a contract; {@code vehicleId} is its current vehicle when known. */
+    public void invalidate(String contractId, String vehicleId) {
+        invalidationCounter.increment();
+        InsuranceContract cached = completedValue(byId.getIfPresent(contractId)).flatMap(contract -> contract).orElse(null);
+        byId.synchronous().invalidate(contractId);
+        if (vehicleId != null) {
+            byVehicle.synchronous().invalidate(vehicleId);
+        }
+        if (cached != null && cached.getVehicleId() != null) {
+            byVehicle.synchronous().invalidate(cached.getVehicleId());
+        } else if (vehicleId == null) {
+            // Unknown vehicle (e.g. delete of an uncached contract): drop any list that contains it
+            byVehicle.synchronous().asMap().values()
+                .removeIf(contracts -> contracts.stream().anyMatch(contract -> contractId.equals(contract.getId())));
+        }
+    }
+
+    public void invalidateAll() {
+        byId.synchronous().invalidateAll();
+        byVehicle.synchronous().invalidateAll();
+    }
+
+    private void onChange(ChangeStreamEvent<InsuranceContract> event) {
+        OperationType type = event.getOperationType();
+        if (type == OperationType.DROP || type == OperationType.RENAME || type == OperationType.INVALIDATE
+                || type == OperationType.DROP_DATABASE) {
+            invalidateAll();
+            return;
+        }
+        if (event.getRaw() == null || event.getRaw().getDocumentKey() == null) {
+            return;
+        }
+        BsonValue id = event.getRaw().getDocumentKey().get("_id");
+        if (id == null) {
+            return;
+        }
+        String contractId = id.isObjectId() ? id.asObjectId().getValue().toHexString()
+            : id.isString() ? id.asString().getValue() : id.toString();
+        InsuranceContract body = event.getBody();
+        invalidate(contractId, body != null ? body.getVehicleId() : null);
+    }
+
+    private static <V> Optional<V> completedValue(CompletableFuture<V> future) {
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(future.join());
+    }
+
+    /** Positive entries live {@code ttlMillis}, cached misses {@code negativeTtlMillis}. */
+    private static <V> Expiry<String, V> expiry(Predicate<V> negative, long ttlMillis, long negativeTtlMillis) {
+        long ttlNanos = Duration.ofMillis(ttlMillis).toNanos();
+        long negativeTtlNanos = Duration.ofMillis(negativeTtlMillis).toNanos();
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(String key, V value, long currentTime) {
+                return negative.test(value) ? negativeTtlNanos : ttlNanos;
+            }
+
+            @Override
+            public long expireAfterUpdate(String key, V value, long currentTime, long currentDuration) {
+                return expireAfterCreate(key, value, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(String key, V value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.service;
 
 import com.example.model.InsuranceContract;
+import com.example.model.Sensor;
+import com.example.model.SensorSnapshot;
 import com.example.model.VehicleData;
 import com.example.repository.InsuranceContractRepository;
 import lombok.RequiredArgsConstructor;
@@ -8,12 +10,14 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.Instant;
 
 @Service
 @RequiredArgsConstructor
 public class InsuranceContractService {
     private final InsuranceContractRepository contractRepository;
+    private final InsuranceContractCache contractCache;
 
     public Mono<InsuranceContract> createContract(InsuranceContract contract) {
         contract.setLastUpdated(Instant.now());
@@ -23,11 +27,17 @@ public class InsuranceContractService {
         if (contract.getCurrentPremium() == null) {
             contract.setCurrentPremium(contract.getBasePremium());
         }
-        return contractRepository.save(contract);
+        return contractRepository.save(contract)
+            .doOnNext(saved -> contractCache.invalidate(saved.getId(), saved.getVehicleId()));
+    }
+
+    /** Cached lookup, see {@link InsuranceContractCache}. */
+    public Mono<InsuranceContract> getContract(String contractId) {
+        return contractCache.findById(contractId);
     }
 
     public Flux<InsuranceContract> getClientContracts(String clientId) {
-        return contractRepository.findByVehicleId(clientId);
+        return contractCache.findByVehicleId(clientId);
     }
 
     public Mono<InsuranceContract> updatePricing(String contractId, VehicleData vehicleData) {
@@ -37,46 +47,56 @@ public class InsuranceContractService {
                 contract.setCurrentPremium(calculateAdjustedPremium(contract, vehicleData));
                 return contract;
             })
-            .flatMap(contractRepository::save);
+            .flatMap(contractRepository::save)
+            .doOnNext(saved -> contractCache.invalidate(saved.getId(), saved.getVehicleId()));
     }
 
     private BigDecimal calculateAdjustedPremium(InsuranceContract contract, VehicleData vehicleData) {
-        double riskMultiplier = calculateRiskMultiplier(vehicleData);
-        return contract.getBasePremium().multiply(BigDecimal.valueOf(riskMultiplier));
+        return adjustedPremium(contract.getBasePremium(), riskMultiplier(vehicleData.getSensors()));
+    }
+
+    /**
+     * Premium for a risk multiplier, rounded half up to the cent. Premiums used to be stored unrounded,
+     * with the scale of the base premium times that of the multiplier; the repricer's decayed
+     * multipliers would make that a long fraction that never compares equal to the stored premium.
+     */
+    public static BigDecimal adjustedPremium(BigDecimal basePremium, double riskMultiplier) {
+        return basePremium.multiply(BigDecimal.valueOf(riskMultiplier)).setScale(2, RoundingMode.HALF_UP);
     }
 
-    private double calculateRiskMultiplier(VehicleData vehicleData) {
-        if (vehicleData.getData() == null) {
+    /** Premium multiplier of one reading (speed, RPM and engine load bands), at least 1. */
+    public static double riskMultiplier(SensorSnapshot sensors) {
+        if (sensors == null) {
             return 1.0;
         }
 
-        double speedFactor = getSpeedFactor(vehicleData.getData().getSpeed());
-        double rpmFactor = getRpmFactor(vehicleData.getData().getRpm());
-        double engineLoadFactor = getEngineLoadFactor(vehicleData.getData().getEngineLoad());
+        double speedFactor = getSpeedFactor(sensors);
+        double rpmFactor = getRpmFactor(sensors);
+        double engineLoadFactor = getEngineLoadFactor(sensors);
 
         return Math.max(1.0, speedFactor * rpmFactor * engineLoadFactor);
     }
 
-    private double getSpeedFactor(VehicleData.Measurement speed) {
-        if (speed == null) return 1.0;
-        double value = speed.getValue();
+    private static double getSpeedFactor(SensorSnapshot sensors) {
+        if (!sensors.has(Sensor.SPEED)) return 1.0;
+        double value = sensors.value(Sensor.SPEED);
         if (value > 130) return 1.5;
         if (value > 110) return 1.3;
         if (value > 90) return 1.1;
         return 1.0;
     }
 
-    private double getRpmFactor(VehicleData.Measurement rpm) {
-        if (rpm == null) return 1.0;
-        double value = rpm.getValue();
+    private static double getRpmFactor(SensorSnapshot sensors) {
+        if (!sensors.has(Sensor.RPM)) return 1.0;
+        double value = sensors.value(Sensor.RPM);
         if (value > 4000) return 1.3;
         if (value > 3000) return 1.1;
         return 1.0;
     }
 
-    private double getEngineLoadFactor(VehicleData.Measurement engineLoad) {
-        if (engineLoad == null) return 1.0;
-        double value = engineLoad.getValue();
+    private static double getEngineLoadFactor(SensorSnapshot sensors) {
+        if (!sensors.has(Sensor.ENGINE_LOAD)) return 1.0;
+        double value = sensors.value(Sensor.ENGINE_LOAD);
         if (value > 80) return 1.3;
         if (value > 60) return 1.1;
         return 1.0;
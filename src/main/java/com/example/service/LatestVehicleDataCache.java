@@ -0,0 +1,119 @@
+package com.example.service;
+
+import com.example.model.VehicleData;
+import com.example.repository.VehicleDataRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Latest reading of each vehicle, kept in memory so {@code /latest} polling does not reach MongoDB.
+ * <p>
+ * The ingest pipeline hands over every reading once it is persisted; a reading only replaces the
+ * cached one when it is newer, so late or redelivered data never moves a vehicle back in time. Those
+ * entries expire {@code latest.cache.idle-ms} after the vehicle's last reading, which evicts inactive
+ * vehicles and bounds staleness when a vehicle's readings move to another instance (e.g. a Kafka
+ * rebalance). A vehicle not ingested here is read from MongoDB and cached for the much shorter
+ * {@code latest.cache.fallback-ttl-ms}, as another instance may be receiving its readings. At most
+ * {@code latest.cache.max-size} vehicles are held; hits and misses are published as {@code cache.*}
+ * meters (tag {@code cache=latest_vehicle_data}).
+ */
+@Slf4j
+@Component
+public class LatestVehicleDataCache {
+
+    private static final String CACHE_NAME = "latest_vehicle_data";
+
+    /** A cached reading and whether it came from local ingestion rather than a MongoDB lookup. */
+    private record Entry(VehicleData data, boolean ingested) {
+    }
+
+    private final VehicleDataRepository vehicleDataRepository;
+    private final Cache<String, Entry> latest;
+
+    public LatestVehicleDataCache(
+            VehicleDataRepository vehicleDataRepository,
+            MeterRegistry meterRegistry,
+            @Value("${latest.cache.max-size:500000}") long maxSize,
+            @Value("${latest.cache.idle-ms:60000}") long idleMillis,
+            @Value("${latest.cache.fallback-ttl-ms:5000}") long fallbackTtlMillis) {
+        this.vehicleDataRepository = vehicleDataRepository;
+        this.latest = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(expiry(idleMillis, fallbackTtlMillis))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, latest, CACHE_NAME);
+    }
+
+    /** Called once {@code data} is persisted; kept unless the vehicle already has a newer reading. */
+    public void record(VehicleData data) {
+        if (data.getVehicleId() == null || data.getTimestamp() == null) {
+            return;
+        }
+        latest.asMap().merge(data.getVehicleId(), new Entry(data, true), LatestVehicleDataCache::newest);
+    }
+
+    /** The latest reading from memory, or from MongoDB when the vehicle is not cached. */
+    public Mono<VehicleData> get(String vehicleId) {
+        VehicleData cached = getIfPresent(vehicleId);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        log.debug("Latest reading of vehicleId: {} not cached, reading it from the database", vehicleId);
+        return vehicleDataRepository.findFirstByVehicleIdOrderByTimestampDesc(vehicleId)
+            .map(this::remember);
+    }
+
+    /** The cached latest reading, {@code null} when the vehicle is not cached. */
+    public VehicleData getIfPresent(String vehicleId) {
+        Entry cached = latest.getIfPresent(vehicleId);
+        return cached != null ? cached.data() : null;
+    }
+
+    /**
+     * Caches a latest reading looked up in MongoDB and returns the vehicle's latest reading, which is
+     * an ingested one when it arrived meanwhile and is newer.
+     */
+    public VehicleData remember(VehicleData found) {
+        return latest.asMap().merge(found.getVehicleId(), new Entry(found, false), LatestVehicleDataCache::newest).data();
+    }
+
+    private static Entry newest(Entry current, Entry candidate) {
+        int order = candidate.data().getTimestamp().compareTo(current.data().getTimestamp());
+        if (order > 0 || order == 0 && candidate.ingested() && !current.ingested()) {
+            return candidate;
+        }
+        return current;
+    }
+
+    /** Ingested entries live {@code idleMillis} after their last update, looked-up ones {@code fallbackTtlMillis}. */
+    private static Expiry<String, Entry> expiry(long idleMillis, long fallbackTtlMillis) {
+        long idleNanos = Duration.ofMillis(idleMillis).toNanos();
+        long fallbackTtlNanos = Duration.ofMillis(fallbackTtlMillis).toNanos();
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(String key, Entry value, long currentTime) {
+                return value.ingested() ? idleNanos : fallbackTtlNanos;
+            }
+
+            @Override
+            public long expireAfterUpdate(String key, Entry value, long currentTime, long currentDuration) {
+                return value.ingested() ? idleNanos : currentDuration;
+            }
+
+            @Override
+            public long expireAfterRead(String key, Entry value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+}
@@ -0,0 +1,316 @@
+package com.example.service;
+
+import com.example.model.VehicleData;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fan-out of processed readings to live dashboards (SSE and WebSocket).
+ * <p>
+ * Every subscriber has its own buffer of at most {@code live.buffer-size} readings, filled by the
+ * ingest path and drained at the subscriber's own demand on a {@link Schedulers#parallel()} worker, so
+ * serializing and writing to the client never run on the ingest thread. Publishing never blocks and
+ * never waits for a client: when a buffer is full, the oldest pending reading of the same vehicle is
+ * replaced by the new one (latest-value conflation); if the buffer holds nothing for that vehicle, the
+ * oldest reading overall is dropped. A slow browser therefore sees fewer, fresher readings, and costs
+ * the ingest path one short per-subscriber lock: each buffer indexes its pending readings by vehicle,
+ * so conflation does not scan it.
+ */
+@Component
+public class LiveTelemetryHub {
+
+    public enum Scope {
+        VEHICLE, CONTRACT, ALL
+    }
+
+    private final int bufferSize;
+    private final Map<String, Set<Subscriber>> byVehicle = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscriber>> byContract = new ConcurrentHashMap<>();
+    private final Set<Subscriber> all = new CopyOnWriteArraySet<>();
+
+    private final Map<Scope, AtomicInteger> subscriberCounts = new EnumMap<>(Scope.class);
+    private final AtomicInteger totalSubscribers = new AtomicInteger();
+    private final Counter conflatedCounter;
+    private final Counter overflowCounter;
+
+    public LiveTelemetryHub(
+            MeterRegistry meterRegistry,
+            @Value("${live.buffer-size:256}") int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("live.buffer-size must be positive");
+        }
+        this.bufferSize = bufferSize;
+        for (Scope scope : Scope.values()) {
+            AtomicInteger count = new AtomicInteger();
+            subscriberCounts.put(scope, count);
+            Gauge.builder("live.telemetry.subscribers", count, AtomicInteger::get)
+                .description("Live telemetry subscribers")
+                .tag("scope", scope.name().toLowerCase())
+                .register(meterRegistry);
+        }
+        this.conflatedCounter = dropped(meterRegistry, "conflated");
+        this.overflowCounter = dropped(meterRegistry, "overflow");
+    }
+
+    /** Live readings of one vehicle. */
+    public Flux<VehicleData> vehicle(String vehicleId) {
+        return subscribe(Scope.VEHICLE, vehicleId);
+    }
+
+    /** Live readings of every vehicle reporting under one contract. */
+    public Flux<VehicleData> contract(String contractId) {
+        return subscribe(Scope.CONTRACT, contractId);
+    }
+
+    /** Live readings of all vehicles, with the same bounded, conflating buffer. */
+    public Flux<VehicleData> all() {
+        return subscribe(Scope.ALL, null);
+    }
+
+    /** Hands a processed reading to the matching subscribers; returns immediately. */
+    public void publish(VehicleData data) {
+        if (data == null || totalSubscribers.get() == 0) {
+            return;
+        }
+        offer(data.getVehicleId() != null ? byVehicle.get(data.getVehicleId()) : null, data);
+        offer(data.getContractId() != null ? byContract.get(data.getContractId()) : null, data);
+        offer(all, data);
+    }
+
+    public int subscriberCount() {
+        return totalSubscribers.get();
+    }
+
+    private Flux<VehicleData> subscribe(Scope scope, String key) {
+        if (scope != Scope.ALL) {
+            Objects.requireNonNull(key, "key");
+        }
+        return Flux.create(sink -> {
+            Subscriber subscriber = new Subscriber(sink);
+            register(scope, key, subscriber);
+            sink.onRequest(n -> subscriber.scheduleDrain());
+            sink.onDispose(() -> {
+                unregister(scope, key, subscriber);
+                subscriber.worker.dispose();
+            });
+        });
+    }
+
+    private void register(Scope scope, String key, Subscriber subscriber) {
+        switch (scope) {
+            case VEHICLE -> add(byVehicle, key, subscriber);
+            case CONTRACT -> add(byContract, key, subscriber);
+            case ALL -> all.add(subscriber);
+        }
+        subscriberCounts.get(scope).incrementAndGet();
+        totalSubscribers.incrementAndGet();
+    }
+
+    private void unregister(Scope scope, String key, Subscriber subscriber) {
+        boolean removed = switch (scope) {
+            case VEHICLE -> remove(byVehicle, key, subscriber);
+            case CONTRACT -> remove(byContract, key, subscriber);
+            case ALL -> all.remove(subscriber);
+        };
+        if (removed) {
+            subscriberCounts.get(scope).decrementAndGet();
+            totalSubscribers.decrementAndGet();
+        }
+    }
+
+    private static void add(Map<String, Set<Subscriber>> registry, String key, Subscriber subscriber) {
+        registry.compute(key, (k, subscribers) -> {
+            Set<Subscriber> set = subscribers != null ? subscribers : new CopyOnWriteArraySet<>();
+            set.add(subscriber);
+            return set;
+        });
+    }
+
+    private static boolean remove(Map<String, Set<Subscriber>> registry, String key, Subscriber subscriber) {
+        boolean[] removed = new boolean[1];
+        registry.computeIfPresent(key, (k, subscribers) -> {
+            removed[0] = subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+        return removed[0];
+    }
+
+    private static void offer(Set<Subscriber> subscribers, VehicleData data) {
+        if (subscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(data);
+        }
+    }
+
+    private static Counter dropped(MeterRegistry registry, String reason) {
+        return Counter.builder("live.telemetry.dropped")
+            .description("Live readings not delivered to a slow subscriber")
+            .tag("reason", reason)
+            .register(registry);
+    }
+
+    private final class Subscriber {
+
+        private final FluxSink<VehicleData> sink;
+        private final Scheduler.Worker worker = Schedulers.parallel().createWorker();
+        private final PendingReadings buffer = new PendingReadings();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        Subscriber(FluxSink<VehicleData> sink) {
+            this.sink = sink;
+        }
+
+        void offer(VehicleData data) {
+            synchronized (buffer) {
+                if (buffer.size() >= bufferSize) {
+                    if (buffer.removeOldest(data.getVehicleId())) {
+                        conflatedCounter.increment();
+                    } else {
+                        buffer.pollFirst();
+                        overflowCounter.increment();
+                    }
+                }
+                buffer.addLast(data);
+            }
+            // Without demand the next request schedules the drain
+            if (sink.requestedFromDownstream() > 0) {
+                scheduleDrain();
+            }
+        }
+
+        /** Drains on the subscriber's worker; one drain runs at a time. */
+        void scheduleDrain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            try {
+                worker.schedule(this::drain);
+            } catch (RejectedExecutionException disposed) {
+                // The subscriber is gone
+            }
+        }
+
+        /** Emits buffered readings while there is demand. */
+        private void drain() {
+            int missed = 1;
+            do {
+                while (sink.requestedFromDownstream() > 0 && !sink.isCancelled()) {
+                    VehicleData next;
+                    synchronized (buffer) {
+                        next = buffer.pollFirst();
+                    }
+                    if (next == null) {
+                        break;
+                    }
+                    sink.next(next);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+
+    /**
+     * Pending readings of one subscriber in arrival order, linked so that any of them can be unlinked in
+     * constant time, with each vehicle's readings queued oldest first. Guarded by the subscriber.
+     */
+    private static final class PendingReadings {
+
+        private static final class Node {
+            private final VehicleData data;
+            private Node previous;
+            private Node next;
+
+            Node(VehicleData data) {
+                this.data = data;
+            }
+        }
+
+        private final Map<String, ArrayDeque<Node>> byVehicle = new HashMap<>();
+        private Node head;
+        private Node tail;
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        void addLast(VehicleData data) {
+            Node node = new Node(data);
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+                node.previous = tail;
+            }
+            tail = node;
+            size++;
+            byVehicle.computeIfAbsent(data.getVehicleId(), vehicleId -> new ArrayDeque<>()).addLast(node);
+        }
+
+        /** The oldest pending reading, {@code null} when there is none. */
+        VehicleData pollFirst() {
+            Node first = head;
+            if (first == null) {
+                return null;
+            }
+            // The oldest reading overall is also the oldest of its vehicle
+            ArrayDeque<Node> ofVehicle = byVehicle.get(first.data.getVehicleId());
+            ofVehicle.pollFirst();
+            if (ofVehicle.isEmpty()) {
+                byVehicle.remove(first.data.getVehicleId());
+            }
+            unlink(first);
+            return first.data;
+        }
+
+        /** Removes the oldest pending reading of the vehicle; {@code false} when there is none. */
+        boolean removeOldest(String vehicleId) {
+            ArrayDeque<Node> ofVehicle = byVehicle.get(vehicleId);
+            if (ofVehicle == null) {
+                return false;
+            }
+            Node oldest = ofVehicle.pollFirst();
+            if (ofVehicle.isEmpty()) {
+                byVehicle.remove(vehicleId);
+            }
+            unlink(oldest);
+            return true;
+        }
+
+        private void unlink(Node node) {
+            if (node.previous == null) {
+                head = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            node.previous = null;
+            node.next = null;
+            size--;
+        }
+    }
+}
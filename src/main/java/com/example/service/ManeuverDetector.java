@@ -0,0 +1,315 @@
+package com.example.service;
+
+import com.example.model.RiskEvent;
+import com.example.model.RiskEventType;
+import com.example.model.Sensor;
+import com.example.model.SensorRegistry;
+import com.example.model.SensorSnapshot;
+import com.example.model.VehicleData;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stateful detection of harsh braking, rapid acceleration and dangerous cornering from consecutive
+ * readings of the same vehicle.
+ * <p>
+ * Each vehicle keeps a ring of its last {@link #SAMPLES} readings (timestamp, speed, brake pressure,
+ * throttle, heading as primitives) in its {@link VehicleStateStore} record, so the windows are off-heap,
+ * bounded by {@code state.max-vehicles} and survive restarts. A new reading is compared with the
+ * readings of the last {@code detection.window-ms} only, so detection is O({@link #SAMPLES}) whatever
+ * the history. Vehicles are spread over the store segments by vehicle id hash, each with its own lock.
+ * Readings that are not newer than the last one of the vehicle (redelivery, replay after restart, out
+ * of order) are ignored, so a replay does not raise events twice. Should the store lose a window
+ * anyway, the event key (vehicle, contract, type and the {@code detection.cooldown-ms} window the
+ * manoeuvre falls in) lets the unique {@code eventKey} index reject the repeated event: two events of
+ * a type are at least a cooldown apart, so they never share a window.
+ * <p>
+ * Cornering needs a heading: it is read from the {@code HEADING} extra sensor (degrees) when the
+ * gateway sends one.
+ */
+@Component
+public class ManeuverDetector {
+
+    static final int SAMPLES = 8;
+    static final String HEADING = "HEADING";
+
+    private static final short HEADING_ID = SensorRegistry.sensorId(HEADING);
+    private static final long MIN_INTERVAL_MS = 200;
+
+    private final VehicleStateStore stateStore;
+    private final long windowMs;
+    private final long cooldownMs;
+    private final double brakingThreshold;
+    private final double brakePressureRateThreshold;
+    private final double accelerationThreshold;
+    private final double throttleRateThreshold;
+    private final double corneringThreshold;
+
+    private final Counter brakingCounter;
+    private final Counter accelerationCounter;
+    private final Counter corneringCounter;
+
+    public ManeuverDetector(
+            MeterRegistry meterRegistry,
+            VehicleStateStore stateStore,
+            @Value("${detection.window-ms:3000}") long windowMs,
+            @Value("${detection.cooldown-ms:10000}") long cooldownMs,
+            @Value("${detection.harsh-braking-mps2:3.5}") double brakingThreshold,
+            @Value("${detection.brake-pressure-rate-kpa-s:400}") double brakePressureRateThreshold,
+            @Value("${detection.rapid-acceleration-mps2:3.0}") double accelerationThreshold,
+            @Value("${detection.throttle-rate-pct-s:60}") double throttleRateThreshold,
+            @Value("${detection.cornering-mps2:4.0}") double corneringThreshold) {
+        this.stateStore = stateStore;
+        this.windowMs = windowMs;
+        this.cooldownMs = cooldownMs;
+        this.brakingThreshold = brakingThreshold;
+        this.brakePressureRateThreshold = brakePressureRateThreshold;
+        this.accelerationThreshold = accelerationThreshold;
+        this.throttleRateThreshold = throttleRateThreshold;
+        this.corneringThreshold = corneringThreshold;
+        this.brakingCounter = events(meterRegistry, RiskEventType.HARSH_BRAKING);
+        this.accelerationCounter = events(meterRegistry, RiskEventType.RAPID_ACCELERATION);
+        this.corneringCounter = events(meterRegistry, RiskEventType.DANGEROUS_CORNERING);
+    }
+
+    /**
+     * Adds the reading to the vehicle's window and returns the manoeuvres it completes (not saved),
+     * usually none. At most one event per type and vehicle is raised per {@code detection.cooldown-ms}.
+     */
+    public List<RiskEvent> detect(VehicleData data) {
+        SensorSnapshot sensors = data.getSensors();
+        if (data.getVehicleId() == null || sensors == null || sensors.isEmpty()) {
+            return List.of();
+        }
+        Instant timestamp = data.getTimestamp() != null ? data.getTimestamp() : Instant.now();
+        long time = timestamp.toEpochMilli();
+        float speed = sensors.has(Sensor.SPEED) ? (float) toMetersPerSecond(sensors.value(Sensor.SPEED), sensors.unit(Sensor.SPEED)) : Float.NaN;
+        float brake = sensors.has(Sensor.BRAKE_PRESSURE) ? (float) sensors.value(Sensor.BRAKE_PRESSURE) : Float.NaN;
+        float throttle = sensors.has(Sensor.THROTTLE_POS) ? (float) sensors.value(Sensor.THROTTLE_POS) : Float.NaN;
+        float heading = (float) sensors.extraValueOrDefault(HEADING_ID, Double.NaN);
+
+        VehicleStateStore.Segment segment = stateStore.segment(data.getVehicleId());
+        List<RiskEvent> events = null;
+        synchronized (segment) {
+            int base = segment.find(data.getVehicleId(), System.currentTimeMillis());
+            if (base < 0) {
+                return List.of();
+            }
+            Track track = new Track(segment.buffer(), base);
+            if (track.size() > 0 && time <= track.newestTime()) {
+                return List.of();
+            }
+            track.add(time, speed, brake, throttle, heading);
+            int size = track.size();
+
+            double deceleration = 0;
+            double acceleration = 0;
+            double brakeRate = 0;
+            double throttleRate = 0;
+            double lateral = 0;
+            for (int age = 1; age < size; age++) {
+                int i = track.index(age);
+                long dt = time - track.time(i);
+                if (dt > windowMs) {
+                    break;
+                }
+                if (dt < MIN_INTERVAL_MS) {
+                    continue;
+                }
+                double seconds = dt / 1000.0;
+                double dv = (speed - track.speed(i)) / seconds;
+                if (!Double.isNaN(dv)) {
+                    deceleration = Math.max(deceleration, -dv);
+                    acceleration = Math.max(acceleration, dv);
+                }
+                double db = (brake - track.brake(i)) / seconds;
+                if (!Double.isNaN(db)) {
+                    brakeRate = Math.max(brakeRate, db);
+                }
+                double dp = (throttle - track.throttle(i)) / seconds;
+                if (!Double.isNaN(dp)) {
+                    throttleRate = Math.max(throttleRate, dp);
+                }
+                double yawRate = Math.toRadians(headingDelta(track.heading(i), heading)) / seconds;
+                double meanSpeed = (speed + track.speed(i)) / 2;
+                double lat = Math.abs(yawRate * meanSpeed);
+                if (!Double.isNaN(lat)) {
+                    lateral = Math.max(lateral, lat);
+                }
+            }
+
+            if (deceleration >= brakingThreshold || brakeRate >= brakePressureRateThreshold) {
+                double severity = Math.max(deceleration / brakingThreshold, brakeRate / brakePressureRateThreshold);
+                events = emit(events, track, 0, time, data, timestamp, RiskEventType.HARSH_BRAKING, severity,
+                    String.format("Harsh braking: %.1f m/s² deceleration, brake pressure +%.0f kPa/s", deceleration, brakeRate));
+            }
+            if (acceleration >= accelerationThreshold || (throttleRate >= throttleRateThreshold && acceleration > 0)) {
+                double severity = Math.max(acceleration / accelerationThreshold, throttleRate / throttleRateThreshold);
+                events = emit(events, track, 1, time, data, timestamp, RiskEventType.RAPID_ACCELERATION, severity,
+                    String.format("Rapid acceleration: %.1f m/s², throttle +%.0f %%/s", acceleration, throttleRate));
+            }
+            if (lateral >= corneringThreshold) {
+                events = emit(events, track, 2, time, data, timestamp, RiskEventType.DANGEROUS_CORNERING,
+                    lateral / corneringThreshold, String.format("Dangerous cornering: %.1f m/s² lateral acceleration", lateral));
+            }
+        }
+        if (events == null) {
+            return List.of();
+        }
+        for (RiskEvent event : events) {
+            switch (event.getType()) {
+                case HARSH_BRAKING -> brakingCounter.increment();
+                case RAPID_ACCELERATION -> accelerationCounter.increment();
+                default -> corneringCounter.increment();
+            }
+        }
+        return events;
+    }
+
+    private List<RiskEvent> emit(List<RiskEvent> events, Track track, int kind, long time, VehicleData data,
+                                 Instant timestamp, RiskEventType type, double severity, String description) {
+        if (time - track.lastEvent(kind) < cooldownMs) {
+            return events;
+        }
+        track.setLastEvent(kind, time);
+        long windowStart = cooldownMs > 0 ? time - Math.floorMod(time, cooldownMs) : time;
+        RiskEvent event = new RiskEvent();
+        event.setEventKey(type.name() + '|'
+            + IdempotencyFilters.businessKey(data.getVehicleId(), data.getContractId(), Instant.ofEpochMilli(windowStart)));
+        event.setVehicleId(data.getVehicleId());
+        event.setContractId(data.getContractId());
+        event.setType(type);
+        event.setSeverity(severity);
+        event.setTimestamp(timestamp);
+        event.setDescription(description);
+        event.setStartTime(timestamp);
+        event.setEndTime(timestamp);
+        event.setPeakSeverity(severity);
+        event.setReadingCount(1);
+        List<RiskEvent> result = events != null ? events : new ArrayList<>(3);
+        result.add(event);
+        return result;
+    }
+
+    /** Signed heading change in degrees, taking the short way round. */
+    private static double headingDelta(double from, double to) {
+        double delta = (to - from) % 360.0;
+        if (delta > 180.0) {
+            delta -= 360.0;
+        } else if (delta < -180.0) {
+            delta += 360.0;
+        }
+        return delta;
+    }
+
+    private static double toMetersPerSecond(double speed, String unit) {
+        if ("m/s".equals(unit)) {
+            return speed;
+        }
+        if ("mph".equals(unit)) {
+            return speed * 0.44704;
+        }
+        return speed / 3.6;
+    }
+
+    private static Counter events(MeterRegistry registry, RiskEventType type) {
+        return Counter.builder("detection.events")
+            .description("Manoeuvres detected from consecutive readings")
+            .tag("type", type.name())
+            .register(registry);
+    }
+
+    /**
+     * View of one vehicle's record in the state store: a ring of the last {@link #SAMPLES} readings,
+     * absent values are NaN. Only valid while the segment lock is held.
+     */
+    private static final class Track {
+
+        // Record layout, relative to the value offset of the slot
+        private static final int LAST_EVENT = 0;
+        private static final int HEAD = 24;
+        private static final int SIZE = 28;
+        private static final int TIMES = 32;
+        private static final int SPEEDS = TIMES + SAMPLES * 8;
+        private static final int BRAKES = SPEEDS + SAMPLES * 4;
+        private static final int THROTTLES = BRAKES + SAMPLES * 4;
+        private static final int HEADINGS = THROTTLES + SAMPLES * 4;
+        private static final int BYTES = HEADINGS + SAMPLES * 4;
+
+        static {
+            if (BYTES > VehicleStateStore.VALUE_BYTES) {
+                throw new IllegalStateException("Detection window does not fit in a state store record");
+            }
+        }
+
+        private final ByteBuffer buffer;
+        private final int base;
+
+        Track(ByteBuffer buffer, int base) {
+            this.buffer = buffer;
+            this.base = base;
+        }
+
+        void add(long time, float speed, float brake, float throttle, float heading) {
+            int size = size();
+            int head = size == 0 ? 0 : (buffer.getInt(base + HEAD) + 1) & (SAMPLES - 1);
+            buffer.putInt(base + HEAD, head);
+            buffer.putLong(base + TIMES + head * 8, time);
+            buffer.putFloat(base + SPEEDS + head * 4, speed);
+            buffer.putFloat(base + BRAKES + head * 4, brake);
+            buffer.putFloat(base + THROTTLES + head * 4, throttle);
+            buffer.putFloat(base + HEADINGS + head * 4, heading);
+            if (size < SAMPLES) {
+                buffer.putInt(base + SIZE, size + 1);
+            }
+        }
+
+        int size() {
+            return buffer.getInt(base + SIZE);
+        }
+
+        long newestTime() {
+            return time(buffer.getInt(base + HEAD));
+        }
+
+        /** Slot of the reading {@code age} readings before the newest one. */
+        int index(int age) {
+            return (buffer.getInt(base + HEAD) - age) & (SAMPLES - 1);
+        }
+
+        long time(int index) {
+            return buffer.getLong(base + TIMES + index * 8);
+        }
+
+        float speed(int index) {
+            return buffer.getFloat(base + SPEEDS + index * 4);
+        }
+
+        float brake(int index) {
+            return buffer.getFloat(base + BRAKES + index * 4);
+        }
+
+        float throttle(int index) {
+            return buffer.getFloat(base + THROTTLES + index * 4);
+        }
+
+        float heading(int index) {
+            return buffer.getFloat(base + HEADINGS + index * 4);
+        }
+
+        long lastEvent(int kind) {
+            return buffer.getLong(base + LAST_EVENT + kind * 8);
+        }
+
+        void setLastEvent(int kind, long time) {
+            buffer.putLong(base + LAST_EVENT + kind * 8, time);
+        }
+    }
+}
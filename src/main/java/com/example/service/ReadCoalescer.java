@@ -0,0 +1,196 @@
+package com.example.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight reads: identical queries running at the same time share one upstream query.
+ * <p>
+ * The first request for a {@link Key} runs the query; requests for the same key arriving while it runs
+ * join it and get every result already emitted replayed, then the rest as it comes. A query stops taking
+ * new joiners once it has emitted half of {@code coalescing.max-replay} results, which bounds the replay
+ * buffer; later requests run their own query. A query is cancelled when all of its subscribers are gone.
+ * <p>
+ * Results covering only data older than {@code coalescing.result-cache.settle-ms} (e.g. a time range
+ * ending yesterday) no longer change once late readings have arrived; up to
+ * {@code coalescing.result-cache.max-results} of them are kept for {@code coalescing.result-cache.ttl-ms}
+ * (meters {@code cache.*}, tag {@code cache=read_results}). A cached reading with its sensors takes
+ * about 1 KB of heap, so the default of 20000 holds some 20 MB.
+ * <p>
+ * Results are handed to every request that shares them, on different threads: queries must emit
+ * results that are no longer modified, and callers must not modify them.
+ * <p>
+ * {@code coalescing.requests} counts requests by {@code query} and {@code outcome} ({@code upstream},
+ * {@code joined} or {@code cached}); {@code coalescing.ratio} is the share served without a query.
+ */
+@Slf4j
+@Component
+public class ReadCoalescer {
+
+    private static final String CACHE_NAME = "read_results";
+
+    /** A query and its arguments; equal keys return equal results. */
+    public record Key(String query, List<Object> arguments) {
+
+        public static Key of(String query, Object... arguments) {
+            return new Key(query, Arrays.asList(arguments));
+        }
+    }
+
+    private enum Outcome { UPSTREAM, JOINED, CACHED }
+
+    private final ConcurrentMap<Key, InFlight<?>> inFlight = new ConcurrentHashMap<>();
+    private final Cache<Key, List<?>> results;
+    private final MeterRegistry meterRegistry;
+    private final int maxReplay;
+    private final long settleMillis;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder upstream = new LongAdder();
+
+    public ReadCoalescer(
+            MeterRegistry meterRegistry,
+            @Value("${coalescing.max-replay:10000}") int maxReplay,
+            @Value("${coalescing.result-cache.max-results:20000}") long maxCachedResults,
+            @Value("${coalescing.result-cache.ttl-ms:60000}") long resultTtlMillis,
+            @Value("${coalescing.result-cache.settle-ms:300000}") long settleMillis) {
+        this.meterRegistry = meterRegistry;
+        this.maxReplay = Math.max(2, maxReplay);
+        this.settleMillis = settleMillis;
+        this.results = Caffeine.newBuilder()
+            .maximumWeight(maxCachedResults)
+            .weigher((Key key, List<?> list) -> Math.max(1, list.size()))
+            .expireAfterWrite(Duration.ofMillis(resultTtlMillis))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, results, CACHE_NAME);
+        Gauge.builder("coalescing.ratio", this, ReadCoalescer::ratio)
+            .description("Share of read requests served by another request's query or from cached results")
+            .register(meterRegistry);
+    }
+
+    /** Runs {@code query} unless an identical one is in flight, in which case its results are shared. */
+    public <T> Flux<T> flux(Key key, Supplier<Flux<T>> query) {
+        return flux(key, null, query);
+    }
+
+    /**
+     * Same as {@link #flux(Key, Supplier)}; when {@code newest}, the latest instant the results may cover,
+     * is older than {@code coalescing.result-cache.settle-ms}, complete results are also cached.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Flux<T> flux(Key key, Instant newest, Supplier<Flux<T>> query) {
+        return Flux.defer(() -> {
+            boolean settled = newest != null && newest.isBefore(Instant.now().minusMillis(settleMillis));
+            if (settled) {
+                List<T> cached = (List<T>) results.getIfPresent(key);
+                if (cached != null) {
+                    count(key, Outcome.CACHED);
+                    return Flux.fromIterable(cached);
+                }
+            }
+            InFlight<?>[] started = new InFlight<?>[1];
+            InFlight<T> shared = (InFlight<T>) inFlight.compute(key, (k, current) -> {
+                if (current != null && current.admits()) {
+                    return current;
+                }
+                started[0] = new InFlight<>(k, query.get(), settled);
+                return started[0];
+            });
+            count(key, started[0] != null ? Outcome.UPSTREAM : Outcome.JOINED);
+            return shared.flux;
+        });
+    }
+
+    /** {@link #flux(Key, Supplier)} for a single result. */
+    public <T> Mono<T> mono(Key key, Supplier<Mono<T>> query) {
+        return flux(key, () -> query.get().flux()).singleOrEmpty();
+    }
+
+    private void count(Key key, Outcome outcome) {
+        requests.increment();
+        if (outcome == Outcome.UPSTREAM) {
+            upstream.increment();
+        } else {
+            log.debug("Read {} served by {}", key, outcome == Outcome.JOINED ? "a query in flight" : "cached results");
+        }
+        Counter.builder("coalescing.requests")
+            .description("Read requests by how they were served")
+            .tag("query", key.query())
+            .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+            .register(meterRegistry)
+            .increment();
+    }
+
+    private double ratio() {
+        long total = requests.sum();
+        return total == 0 ? 0 : 1 - (double) upstream.sum() / total;
+    }
+
+    /** One running query, replayed to the requests that join it. */
+    private final class InFlight<T> {
+
+        private final Key key;
+        private final Flux<T> flux;
+        private final AtomicInteger emitted = new AtomicInteger();
+        /** Results to cache once complete, {@code null} when they may still change. */
+        private final List<T> collected;
+        private volatile boolean done;
+
+        InFlight(Key key, Flux<T> query, boolean cacheable) {
+            this.key = key;
+            this.collected = cacheable ? new ArrayList<>() : null;
+            this.flux = query
+                .doOnNext(this::emitted)
+                .doOnComplete(this::cache)
+                .doFinally(signal -> {
+                    done = true;
+                    inFlight.remove(key, this);
+                })
+                .replay(maxReplay)
+                .refCount();
+        }
+
+        /** Whether a new request may still join: every result emitted so far is still in the replay buffer. */
+        boolean admits() {
+            return !done && emitted.get() < maxReplay / 2;
+        }
+
+        private void emitted(T result) {
+            int count = emitted.incrementAndGet();
+            if (collected != null && !done && count <= maxReplay) {
+                collected.add(result);
+            }
+            if (count == maxReplay / 2) {
+                inFlight.remove(key, this);
+            }
+        }
+
+        private void cache() {
+            // done: a subscriber that arrived just as the query ended made it run again
+            if (collected != null && !done && emitted.get() <= maxReplay) {
+                results.put(key, List.copyOf(collected));
+            }
+        }
+    }
+}
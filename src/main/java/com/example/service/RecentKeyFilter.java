@@ -0,0 +1,235 @@
+package com.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, concurrent record of recently persisted business keys, used to skip duplicate lookups.
+ * <p>
+ * A time-partitioned Bloom filter (one generation per slice of the retention window, the oldest
+ * generation being cleared on rotation) answers "definitely new" for the common case. When the
+ * Bloom filter reports a possible hit, an exact striped LRU of recent keys decides whether the key
+ * was really seen; only when neither is sure does the caller fall back to the database.
+ * Memory is capped by {@code memoryBytes}: half for the Bloom generations, half for the LRU.
+ */
+public class RecentKeyFilter {
+
+    public enum Verdict {
+        /** Bloom filter miss: the key was never recorded in the retention window. */
+        NEW,
+        /** Bloom filter hit without an exact match: may be a false positive, check the database. */
+        MAYBE,
+        /** Exact match in the LRU: the key was persisted recently. */
+        SEEN
+    }
+
+    /** Rough heap cost of one LRU entry (key string, map node, hash table slot). */
+    private static final int LRU_ENTRY_BYTES = 160;
+    private static final int LRU_STRIPES = 16;
+
+    private final AtomicLongArray[] generations;
+    private final long bitsPerGeneration;
+    private final int hashFunctions;
+    private final long sliceMillis;
+    private final LongSupplier clock;
+    private final Object rotationLock = new Object();
+    private volatile long currentSlice;
+
+    private final Map<String, Boolean>[] lruStripes;
+    private final long memoryBytes;
+
+    private final Counter newCounter;
+    private final Counter maybeCounter;
+    private final Counter seenCounter;
+    private final Counter falsePositiveCounter;
+
+    public RecentKeyFilter(String name, long memoryBytes, long windowMillis, int generationCount,
+                           double falsePositiveRate, MeterRegistry meterRegistry) {
+        this(name, memoryBytes, windowMillis, generationCount, falsePositiveRate, meterRegistry, System::currentTimeMillis);
+    }
+
+    @SuppressWarnings("unchecked")
+    RecentKeyFilter(String name, long memoryBytes, long windowMillis, int generationCount,
+                    double falsePositiveRate, MeterRegistry meterRegistry, LongSupplier clock) {
+        if (generationCount < 2) {
+            throw new IllegalArgumentException("At least two Bloom generations are required");
+        }
+        this.memoryBytes = memoryBytes;
+        this.clock = clock;
+        this.sliceMillis = Math.max(1, windowMillis / (generationCount - 1));
+        this.currentSlice = clock.getAsLong() / sliceMillis;
+
+        long bloomBits = memoryBytes * 8 / 2;
+        long words = Math.max(1, bloomBits / 64 / generationCount);
+        this.bitsPerGeneration = words * 64;
+        this.hashFunctions = Math.max(1, (int) Math.round(-Math.log(falsePositiveRate) / Math.log(2)));
+        this.generations = new AtomicLongArray[generationCount];
+        for (int i = 0; i < generationCount; i++) {
+            generations[i] = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE, words));
+        }
+
+        int capacityPerStripe = (int) Math.max(1, memoryBytes / 2 / LRU_ENTRY_BYTES / LRU_STRIPES);
+        this.lruStripes = new Map[LRU_STRIPES];
+        for (int i = 0; i < LRU_STRIPES; i++) {
+            lruStripes[i] = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > capacityPerStripe;
+                }
+            };
+        }
+
+        this.newCounter = checks(meterRegistry, name, "new");
+        this.maybeCounter = checks(meterRegistry, name, "maybe");
+        this.seenCounter = checks(meterRegistry, name, "seen");
+        this.falsePositiveCounter = Counter.builder("idempotency.filter.false.positives")
+            .description("Bloom filter hits that the database reported as new keys")
+            .tag("filter", name)
+            .register(meterRegistry);
+        Gauge.builder("idempotency.filter.memory", this, RecentKeyFilter::memoryBytes)
+            .description("Configured memory ceiling of the filter")
+            .baseUnit("bytes")
+            .tag("filter", name)
+            .register(meterRegistry);
+    }
+
+    public Verdict check(String key) {
+        rotateIfNeeded();
+        long h1 = hash(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        if (!bloomContains(h1, h2)) {
+            newCounter.increment();
+            return Verdict.NEW;
+        }
+        Map<String, Boolean> stripe = stripe(key);
+        boolean seen;
+        synchronized (stripe) {
+            seen = stripe.get(key) != null;
+        }
+        if (seen) {
+            seenCounter.increment();
+            return Verdict.SEEN;
+        }
+        maybeCounter.increment();
+        return Verdict.MAYBE;
+    }
+
+    /** Records a key once it is known to be persisted (inserted or found as duplicate). */
+    public void record(String key) {
+        rotateIfNeeded();
+        long h1 = hash(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        AtomicLongArray current = generations[(int) (currentSlice % generations.length)];
+        for (int i = 0; i < hashFunctions; i++) {
+            setBit(current, index(h1, h2, i));
+        }
+        Map<String, Boolean> stripe = stripe(key);
+        synchronized (stripe) {
+            stripe.put(key, Boolean.TRUE);
+        }
+    }
+
+    /** Called when a {@link Verdict#MAYBE} key turned out to be absent from the database. */
+    public void falsePositive() {
+        falsePositiveCounter.increment();
+    }
+
+    public long memoryBytes() {
+        return memoryBytes;
+    }
+
+    private boolean bloomContains(long h1, long h2) {
+        for (AtomicLongArray generation : generations) {
+            boolean all = true;
+            for (int i = 0; i < hashFunctions && all; i++) {
+                all = isBitSet(generation, index(h1, h2, i));
+            }
+            if (all) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Advances to the slice for the current time, clearing each generation that is being reused.
+     * Keys are thus remembered for at least {@code windowMillis}.
+     */
+    private void rotateIfNeeded() {
+        long slice = clock.getAsLong() / sliceMillis;
+        if (slice <= currentSlice) {
+            return;
+        }
+        synchronized (rotationLock) {
+            long previous = currentSlice;
+            if (slice <= previous) {
+                return;
+            }
+            long steps = Math.min(slice - previous, generations.length);
+            for (long s = slice - steps + 1; s <= slice; s++) {
+                AtomicLongArray reused = generations[(int) (s % generations.length)];
+                for (int i = 0; i < reused.length(); i++) {
+                    reused.set(i, 0L);
+                }
+            }
+            currentSlice = slice;
+        }
+    }
+
+    private long index(long h1, long h2, int i) {
+        return Math.floorMod(h1 + i * h2, bitsPerGeneration);
+    }
+
+    private static boolean isBitSet(AtomicLongArray bits, long index) {
+        return (bits.get((int) (index >>> 6)) & (1L << index)) != 0;
+    }
+
+    private static void setBit(AtomicLongArray bits, long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long value;
+        do {
+            value = bits.get(word);
+            if ((value & mask) != 0) {
+                return;
+            }
+        } while (!bits.compareAndSet(word, value, value | mask));
+    }
+
+    private Map<String, Boolean> stripe(String key) {
+        return lruStripes[(key.hashCode() & 0x7fffffff) % LRU_STRIPES];
+    }
+
+    /** 64-bit FNV-1a over the key characters, finalised with a murmur mix. */
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static Counter checks(MeterRegistry registry, String name, String result) {
+        return Counter.builder("idempotency.filter.checks")
+            .description("Duplicate checks answered by the in-memory filter")
+            .tag("filter", name)
+            .tag("result", result)
+            .register(registry);
+    }
+}
@@ -9,11 +9,11 @@ import com.example.model.InsuranceImpact;
 import com.example.service.InsuranceContractService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import java.time.Instant;
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.ArrayList;
 
 @Service
 @RequiredArgsConstructor
@@ -21,35 +21,58 @@ public class RiskAssessmentService {
 
     private final RiskEventRepository riskEventRepository;
     private final InsuranceContractService insuranceContractService;
+    private final IdempotencyFilters idempotencyFilters;
+    private final RiskRuleEngine riskRuleEngine;
+    private final ManeuverDetector maneuverDetector;
+    private final RiskEpisodeTracker riskEpisodeTracker;
 
     public Mono<VehicleData> assessRisk(VehicleData data) {
         RiskAssessment assessment = new RiskAssessment();
-        List<RiskFactor> factors = evaluateRiskFactors(data);
+        riskRuleEngine.evaluate(data.getSensors(), assessment);
         
-        double totalScore = calculateRiskScore(factors);
+        double totalScore = assessment.getScore();
         RiskLevel level = determineRiskLevel(totalScore);
         
-        assessment.setRiskFactors(factors);
-        assessment.setScore(totalScore);
         assessment.setLevel(level);
         assessment.setInsuranceImpact(calculateInsuranceImpact(totalScore, data.getContractId()));
         
         data.setRiskAssessment(assessment);
+
+        List<RiskEvent> maneuvers = maneuverDetector.detect(data);
+        Mono<Void> events = maneuvers.isEmpty()
+            ? Mono.empty()
+            : Flux.fromIterable(maneuvers)
+                .flatMap(event -> riskEventRepository.insert(event)
+                    .onErrorResume(IdempotencyFilters::isDuplicateKey, duplicate -> Mono.empty()))
+                .then();
         
         if (level == RiskLevel.HIGH) {
-            return createRiskEvent(data).thenReturn(data);
+            recordRiskEpisode(data);
         }
         
-        return Mono.just(data);
+        return maneuvers.isEmpty() ? Mono.just(data) : events.thenReturn(data);
     }
 
-    private double calculateRiskScore(List<RiskFactor> factors) {
-        double totalScore = 0.0;
-        for (RiskFactor factor : factors) {
-            double baseScore = (factor.getValue() - factor.getThreshold()) / factor.getThreshold();
-            totalScore += baseScore * factor.getWeight();
+    /** Event type of a HIGH reading: the factor contributing most to the score. */
+    private static RiskEventType eventType(RiskAssessment assessment) {
+        RiskFactor top = null;
+        double topContribution = Double.NEGATIVE_INFINITY;
+        for (RiskFactor factor : assessment.getRiskFactors()) {
+            double contribution = (factor.getValue() - factor.getThreshold()) / factor.getThreshold() * factor.getWeight();
+            if (contribution > topContribution) {
+                top = factor;
+                topContribution = contribution;
+            }
+        }
+        if (top == null) {
+            return RiskEventType.SPEEDING;
         }
-        return totalScore;
+        return switch (top.getType()) {
+            case HARSH_BRAKING -> RiskEventType.HARSH_BRAKING;
+            case AGGRESSIVE_ACCELERATION -> RiskEventType.RAPID_ACCELERATION;
+            case TIME_OF_DAY -> RiskEventType.NIGHT_DRIVING;
+            default -> RiskEventType.SPEEDING;
+        };
     }
 
     private RiskLevel determineRiskLevel(double score) {
@@ -58,78 +81,6 @@ public class RiskAssessmentService {
         return RiskLevel.LOW;
     }
 
-    private List<RiskFactor> evaluateRiskFactors(VehicleData data) {
-        List<RiskFactor> factors = new ArrayList<>();
-        VehicleData.SensorData sensorData = data.getData();
-        
-        if (sensorData == null) {
-            return factors;
-        }
-
-        addSpeedRiskFactor(factors, sensorData);
-        addRpmRiskFactor(factors, sensorData);
-        addEngineLoadRiskFactor(factors, sensorData);
-        addThrottleRiskFactor(factors, sensorData);
-        
-        return factors;
-    }
-
-    private void addSpeedRiskFactor(List<RiskFactor> factors, VehicleData.SensorData data) {
-        double speed = getValueOrDefault(data.getSpeed(), 0.0);
-        if (speed > 90) {
-            RiskFactor factor = new RiskFactor();
-            factor.setType(RiskFactorType.SPEED_VIOLATION);
-            factor.setValue(speed);
-            factor.setUnit("km/h");
-            factor.setThreshold(90.0);
-            factor.setWeight(1.5);  // Adjusted weight
-            factor.setDescription("Excessive speed detected");
-            factors.add(factor);
-        }
-    }
-
-    private void addRpmRiskFactor(List<RiskFactor> factors, VehicleData.SensorData data) {
-        double rpm = getValueOrDefault(data.getRpm(), 0.0);
-        if (rpm > 3000) {
-            RiskFactor factor = new RiskFactor();
-            factor.setType(RiskFactorType.HIGH_RPM);
-            factor.setValue(rpm);
-            factor.setUnit("rpm");
-            factor.setThreshold(3000.0);
-            factor.setWeight(1.0);  // Adjusted weight
-            factor.setDescription("High engine RPM");
-            factors.add(factor);
-        }
-    }
-
-    private void addEngineLoadRiskFactor(List<RiskFactor> factors, VehicleData.SensorData data) {
-        double load = getValueOrDefault(data.getEngineLoad(), 0.0);
-        if (load > 60) {
-            RiskFactor factor = new RiskFactor();
-            factor.setType(RiskFactorType.ENGINE_STRESS);
-            factor.setValue(load);
-            factor.setUnit("%");
-            factor.setThreshold(60.0);
-            factor.setWeight(1);
-            factor.setDescription("High engine load");
-            factors.add(factor);
-        }
-    }
-
-    private void addThrottleRiskFactor(List<RiskFactor> factors, VehicleData.SensorData data) {
-        double throttle = getValueOrDefault(data.getThrottlePosition(), 0.0);
-        if (throttle > 80) {
-            RiskFactor factor = new RiskFactor();
-            factor.setType(RiskFactorType.AGGRESSIVE_ACCELERATION);
-            factor.setValue(throttle);
-            factor.setUnit("%");
-            factor.setThreshold(80.0);
-            factor.setWeight(1);
-            factor.setDescription("Aggressive throttle usage");
-            factors.add(factor);
-        }
-    }
-
     private InsuranceImpact calculateInsuranceImpact(double riskScore, String contractId) {
         InsuranceImpact impact = new InsuranceImpact();
         
@@ -151,25 +102,22 @@ public class RiskAssessmentService {
         return impact;
     }
 
-    private Mono<RiskEvent> createRiskEvent(VehicleData data) {
+    /**
+     * Adds a HIGH reading to its vehicle's risk episode, once per (vehicleId, contractId, timestamp):
+     * redelivered readings still in the recent-key filter are not counted twice. The episode is
+     * written when it closes, so no lookup or insert happens per reading; an episode rebuilt from
+     * readings redelivered after a restart is rejected by the unique event key when it is written.
+     */
+    private void recordRiskEpisode(VehicleData data) {
         Instant timestamp = data.getTimestamp() != null ? data.getTimestamp() : Instant.now();
         String contractId = data.getContractId() != null ? data.getContractId() : "";
-        return riskEventRepository
-                .findFirstByVehicleIdAndContractIdAndTimestamp(data.getVehicleId(), contractId, timestamp)
-                .flatMap(existing -> Mono.just(existing))
-                .switchIfEmpty(Mono.defer(() -> {
-                    RiskEvent event = new RiskEvent();
-                    event.setVehicleId(data.getVehicleId());
-                    event.setContractId(data.getContractId());
-                    event.setType(RiskEventType.SPEEDING);
-                    event.setSeverity(data.getRiskAssessment().getScore() / 10.0);
-                    event.setTimestamp(timestamp);
-                    event.setDescription("High risk detected: score " + data.getRiskAssessment().getScore() + ", level " + data.getRiskAssessment().getLevel());
-                    return riskEventRepository.save(event);
-                }));
-    }
-
-    private double getValueOrDefault(VehicleData.Measurement measurement, double defaultValue) {
-        return measurement != null ? measurement.getValue() : defaultValue;
+        RecentKeyFilter filter = idempotencyFilters.riskEvents();
+        String key = IdempotencyFilters.businessKey(data.getVehicleId(), contractId, timestamp);
+        if (filter.check(key) == RecentKeyFilter.Verdict.SEEN) {
+            return;
+        }
+        filter.record(key);
+        RiskAssessment assessment = data.getRiskAssessment();
+        riskEpisodeTracker.record(data.getVehicleId(), contractId, eventType(assessment), assessment.getScore() / 10.0, timestamp);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,268 @@
+package com.example.service;
+
+import com.example.model.RiskEvent;
+import com.example.model.RiskEventType;
+import com.example.repository.RiskEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Coalesces consecutive HIGH-risk readings of a vehicle into one {@link RiskEvent} episode (start,
+ * end, peak severity, reading count) instead of one document per reading.
+ * <p>
+ * Open episodes live in memory, one per vehicle and contract. A reading extends the open episode when
+ * it lies within {@code risk.episode.gap-ms} of it; otherwise the episode is closed and a new one
+ * starts. Episodes are also closed after {@code risk.episode.idle-ms} without a new reading and once
+ * they span {@code risk.episode.max-duration-ms}. Closed episodes are written in batches (one
+ * {@code insertMany} per {@code risk.episode.batch-size}) every {@code risk.episode.flush-ms}; a batch
+ * that fails is put back for the next flush. Open episodes are closed and flushed on shutdown, and the
+ * keys of any that still could not be written are logged.
+ * <p>
+ * An episode's key is its vehicle, contract and start, so an episode rebuilt from readings redelivered
+ * after a restart is rejected by the unique {@code eventKey} index. When a batch hits such a duplicate,
+ * its episodes are inserted one by one and the duplicates skipped.
+ */
+@Slf4j
+@Component
+public class RiskEpisodeTracker {
+
+    private final RiskEventRepository riskEventRepository;
+    private final Map<String, Episode> open = new ConcurrentHashMap<>();
+    private final Queue<RiskEvent> closed = new ConcurrentLinkedQueue<>();
+    private final long gapMillis;
+    private final long maxDurationMillis;
+    private final long idleMillis;
+    private final Duration flushInterval;
+    private final int batchSize;
+
+    private final Counter gapCounter;
+    private final Counter idleCounter;
+    private final Counter maxDurationCounter;
+    private final Counter readingsCounter;
+    private final Counter failureCounter;
+    private Disposable flushes;
+
+    public RiskEpisodeTracker(
+            RiskEventRepository riskEventRepository,
+            MeterRegistry meterRegistry,
+            @Value("${risk.episode.gap-ms:30000}") long gapMillis,
+            @Value("${risk.episode.max-duration-ms:600000}") long maxDurationMillis,
+            @Value("${risk.episode.idle-ms:60000}") long idleMillis,
+            @Value("${risk.episode.flush-ms:1000}") long flushMs,
+            @Value("${risk.episode.batch-size:500}") int batchSize) {
+        this.riskEventRepository = riskEventRepository;
+        this.gapMillis = gapMillis;
+        this.maxDurationMillis = maxDurationMillis;
+        this.idleMillis = idleMillis;
+        this.flushInterval = flushMs > 0 ? Duration.ofMillis(flushMs) : null;
+        this.batchSize = Math.max(1, batchSize);
+
+        Gauge.builder("risk.episodes.open", open, Map::size)
+            .description("Risk episodes still collecting readings")
+            .register(meterRegistry);
+        this.gapCounter = closedCounter(meterRegistry, "gap");
+        this.idleCounter = closedCounter(meterRegistry, "idle");
+        this.maxDurationCounter = closedCounter(meterRegistry, "max-duration");
+        this.readingsCounter = Counter.builder("risk.episodes.readings")
+            .description("HIGH-risk readings merged into episodes")
+            .register(meterRegistry);
+        Gauge.builder("risk.episodes.pending", closed, Queue::size)
+            .description("Closed risk episodes waiting for the next flush")
+            .register(meterRegistry);
+        this.failureCounter = Counter.builder("risk.episodes.flush.failures")
+            .description("Risk episode batch writes that failed and were retried")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (flushInterval == null) {
+            return;
+        }
+        flushes = Flux.interval(flushInterval, flushInterval)
+            .concatMap(tick -> {
+                closeIdle(System.currentTimeMillis());
+                return flush()
+                    .doOnError(error -> log.warn("Could not write risk episodes: {}", error.getMessage()))
+                    .onErrorResume(error -> Mono.empty());
+            })
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flushes != null) {
+            flushes.dispose();
+        }
+        open.keySet().forEach(key -> open.computeIfPresent(key, (k, episode) -> {
+            closed.add(episode.toEvent());
+            return null;
+        }));
+        try {
+            flush().block(Duration.ofSeconds(10));
+        } catch (RuntimeException e) {
+            log.warn("Risk episode flush on shutdown did not complete: {}", e.getMessage());
+        }
+        if (!closed.isEmpty()) {
+            log.error("Could not write {} risk episode(s) before shutdown: {}", closed.size(),
+                closed.stream().map(RiskEvent::getEventKey).toList());
+        }
+    }
+
+    /** Adds a HIGH-risk reading to its vehicle's episode. Nothing is written until the episode closes. */
+    public void record(String vehicleId, String contractId, RiskEventType type, double severity, Instant timestamp) {
+        long time = timestamp.toEpochMilli();
+        long now = System.currentTimeMillis();
+        readingsCounter.increment();
+        open.compute(vehicleId + '|' + contractId, (key, episode) -> {
+            if (episode != null) {
+                if (time < episode.start - gapMillis) {
+                    // Late reading from before the episode: keep it as its own, already closed episode
+                    closed.add(new Episode(vehicleId, contractId, type, severity, time, now).toEvent());
+                    return episode;
+                }
+                if (time <= episode.end + gapMillis && Math.max(time, episode.end) - episode.start < maxDurationMillis) {
+                    episode.add(type, severity, time, now);
+                    return episode;
+                }
+                (time > episode.end + gapMillis ? gapCounter : maxDurationCounter).increment();
+                closed.add(episode.toEvent());
+            }
+            return new Episode(vehicleId, contractId, type, severity, time, now);
+        });
+    }
+
+    /** Closes the episodes that received no reading for {@code risk.episode.idle-ms} before {@code now}. */
+    public void closeIdle(long now) {
+        open.forEach((key, candidate) -> open.computeIfPresent(key, (k, episode) -> {
+            if (now - episode.touched < idleMillis) {
+                return episode;
+            }
+            idleCounter.increment();
+            closed.add(episode.toEvent());
+            return null;
+        }));
+    }
+
+    /**
+     * Writes the episodes closed so far, {@code risk.episode.batch-size} documents per insert. Batches
+     * that fail are put back for the next flush.
+     */
+    public Mono<Void> flush() {
+        List<RiskEvent> drained = new ArrayList<>();
+        RiskEvent event;
+        while ((event = closed.poll()) != null) {
+            drained.add(event);
+        }
+        if (drained.isEmpty()) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(drained)
+            .buffer(batchSize)
+            .concatMap(this::write)
+            .then();
+    }
+
+    private Mono<Void> write(List<RiskEvent> batch) {
+        return riskEventRepository.insert(batch)
+            .onErrorResume(IdempotencyFilters::isDuplicateKey, duplicate -> insertEach(batch))
+            .then(Mono.fromRunnable(() -> log.debug("Wrote {} risk episode(s)", batch.size())))
+            .onErrorResume(error -> {
+                failureCounter.increment();
+                closed.addAll(batch);
+                log.warn("Could not write {} risk episode(s), retrying on next flush: {}", batch.size(), error.getMessage());
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    private Flux<RiskEvent> insertEach(List<RiskEvent> batch) {
+        return Flux.fromIterable(batch)
+            .concatMap(event -> riskEventRepository.insert(event)
+                .onErrorResume(IdempotencyFilters::isDuplicateKey, duplicate -> {
+                    log.debug("Risk episode {} already written", event.getEventKey());
+                    return Mono.empty();
+                }));
+    }
+
+    public int openEpisodes() {
+        return open.size();
+    }
+
+    private static Counter closedCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("risk.episodes.closed")
+            .description("Risk episodes closed and queued for writing")
+            .tag("reason", reason)
+            .register(registry);
+    }
+
+    /** Mutable state of an open episode; only touched inside {@code open.compute*}. */
+    private static final class Episode {
+
+        private final String vehicleId;
+        private final String contractId;
+        private RiskEventType type;
+        private double peakSeverity;
+        private long start;
+        private long end;
+        private int readings;
+        private long touched;
+
+        Episode(String vehicleId, String contractId, RiskEventType type, double severity, long time, long now) {
+            this.vehicleId = vehicleId;
+            this.contractId = contractId;
+            this.type = type;
+            this.peakSeverity = severity;
+            this.start = time;
+            this.end = time;
+            this.readings = 1;
+            this.touched = now;
+        }
+
+        void add(RiskEventType type, double severity, long time, long now) {
+            if (severity > peakSeverity) {
+                this.peakSeverity = severity;
+                this.type = type;
+            }
+            start = Math.min(start, time);
+            end = Math.max(end, time);
+            readings++;
+            touched = now;
+        }
+
+        RiskEvent toEvent() {
+            RiskEvent event = new RiskEvent();
+            event.setEventKey("EPISODE|" + IdempotencyFilters.businessKey(vehicleId, contractId, Instant.ofEpochMilli(start)));
+            event.setVehicleId(vehicleId);
+            event.setContractId(contractId.isEmpty() ? null : contractId);
+            event.setType(type);
+            event.setSeverity(peakSeverity);
+            event.setPeakSeverity(peakSeverity);
+            event.setTimestamp(Instant.ofEpochMilli(start));
+            event.setStartTime(Instant.ofEpochMilli(start));
+            event.setEndTime(Instant.ofEpochMilli(end));
+            event.setReadingCount(readings);
+            event.setDescription(String.format("High risk episode: %d reading(s) over %d s, peak severity %.2f",
+                readings, (end - start) / 1000, peakSeverity));
+            return event;
+        }
+    }
+}
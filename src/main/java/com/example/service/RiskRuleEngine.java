@@ -0,0 +1,157 @@
+package com.example.service;
+
+import com.example.model.RiskAssessment;
+import com.example.model.RiskFactor;
+import com.example.model.RiskFactorType;
+import com.example.model.RiskRule;
+import com.example.model.Sensor;
+import com.example.model.SensorSnapshot;
+import com.example.repository.RiskRuleRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Evaluates the risk rule table against a {@link SensorSnapshot}.
+ * <p>
+ * Rules are read from the {@code risk_rules} collection every {@code risk.rules.refresh-ms} and
+ * compiled into flat arrays (sensor, threshold, weight per rule); an evaluation is then a single
+ * loop over primitives that only allocates a {@link RiskFactor} for rules that fire. A changed table
+ * is swapped in atomically without restart. When the collection is empty or unreadable the built-in
+ * {@link #DEFAULT_RULES} apply.
+ */
+@Slf4j
+@Component
+public class RiskRuleEngine {
+
+    /** Rules applied when no table is configured; same thresholds and weights as the former hard-coded factors. */
+    public static final List<RiskRule> DEFAULT_RULES = List.of(
+        new RiskRule("speed", Sensor.SPEED, 90.0, 1.5, RiskFactorType.SPEED_VIOLATION, "km/h", "Excessive speed detected", true),
+        new RiskRule("rpm", Sensor.RPM, 3000.0, 1.0, RiskFactorType.HIGH_RPM, "rpm", "High engine RPM", true),
+        new RiskRule("engine-load", Sensor.ENGINE_LOAD, 60.0, 1.0, RiskFactorType.ENGINE_STRESS, "%", "High engine load", true),
+        new RiskRule("throttle", Sensor.THROTTLE_POS, 80.0, 1.0, RiskFactorType.AGGRESSIVE_ACCELERATION, "%", "Aggressive throttle usage", true));
+
+    private final RiskRuleRepository riskRuleRepository;
+    private final Duration refreshInterval;
+    private volatile CompiledRules rules = compile(DEFAULT_RULES);
+    private Disposable refresh;
+
+    public RiskRuleEngine(
+            RiskRuleRepository riskRuleRepository,
+            @Value("${risk.rules.refresh-ms:30000}") long refreshMs) {
+        this.riskRuleRepository = riskRuleRepository;
+        this.refreshInterval = refreshMs > 0 ? Duration.ofMillis(refreshMs) : null;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (refreshInterval == null) {
+            log.info("Risk rule refresh disabled, using {} built-in rule(s)", DEFAULT_RULES.size());
+            return;
+        }
+        refresh = Flux.interval(Duration.ZERO, refreshInterval)
+            .concatMap(tick -> riskRuleRepository.findAll().collectList()
+                .doOnError(error -> log.warn("Could not load risk rules, keeping current table: {}", error.getMessage()))
+                .onErrorResume(error -> Mono.empty()))
+            .subscribe(this::reload);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresh != null) {
+            refresh.dispose();
+        }
+    }
+
+    /** Compiles and installs a rule table; an empty table falls back to {@link #DEFAULT_RULES}. */
+    public void reload(List<RiskRule> table) {
+        List<RiskRule> effective = table.isEmpty() ? DEFAULT_RULES : table;
+        if (effective.equals(rules.source())) {
+            return;
+        }
+        rules = compile(effective);
+        log.info("Loaded {} risk rule(s) ({} active)", effective.size(), rules.sensors().length);
+    }
+
+    /**
+     * Sets the fired factors and the total score on {@code assessment}. A rule fires when its sensor
+     * is present and strictly above the threshold; absent sensors never fire.
+     */
+    public void evaluate(SensorSnapshot sensors, RiskAssessment assessment) {
+        CompiledRules compiled = rules;
+        List<RiskFactor> factors = null;
+        double score = 0.0;
+        if (sensors != null) {
+            Sensor[] ruleSensors = compiled.sensors();
+            double[] thresholds = compiled.thresholds();
+            double[] weights = compiled.weights();
+            for (int i = 0; i < ruleSensors.length; i++) {
+                double value = sensors.value(ruleSensors[i]);
+                if (value > thresholds[i] && sensors.has(ruleSensors[i])) {
+                    score += (value - thresholds[i]) / thresholds[i] * weights[i];
+                    if (factors == null) {
+                        factors = new ArrayList<>(ruleSensors.length);
+                    }
+                    factors.add(compiled.factor(i, value));
+                }
+            }
+        }
+        assessment.setRiskFactors(factors != null ? factors : List.of());
+        assessment.setScore(score);
+    }
+
+    List<RiskRule> activeRules() {
+        return rules.source();
+    }
+
+    static CompiledRules compile(List<RiskRule> table) {
+        List<RiskRule> active = new ArrayList<>(table.size());
+        for (RiskRule rule : table) {
+            if (!rule.isEnabled()) {
+                continue;
+            }
+            if (rule.getSensor() == null || rule.getFactorType() == null || !(rule.getThreshold() > 0)) {
+                log.warn("Ignoring invalid risk rule {}: sensor, factor type and a positive threshold are required", rule.getId());
+                continue;
+            }
+            active.add(rule);
+        }
+        int size = active.size();
+        Sensor[] sensors = new Sensor[size];
+        double[] thresholds = new double[size];
+        double[] weights = new double[size];
+        RiskRule[] rules = new RiskRule[size];
+        for (int i = 0; i < size; i++) {
+            RiskRule rule = active.get(i);
+            sensors[i] = rule.getSensor();
+            thresholds[i] = rule.getThreshold();
+            weights[i] = rule.getWeight();
+            rules[i] = rule;
+        }
+        return new CompiledRules(List.copyOf(table), sensors, thresholds, weights, rules);
+    }
+
+    record CompiledRules(List<RiskRule> source, Sensor[] sensors, double[] thresholds, double[] weights, RiskRule[] rules) {
+
+        RiskFactor factor(int index, double value) {
+            RiskRule rule = rules[index];
+            RiskFactor factor = new RiskFactor();
+            factor.setType(rule.getFactorType());
+            factor.setValue(value);
+            factor.setUnit(rule.getUnit());
+            factor.setThreshold(rule.getThreshold());
+            factor.setWeight(rule.getWeight());
+            factor.setDescription(rule.getDescription());
+            return factor;
+        }
+    }
+}
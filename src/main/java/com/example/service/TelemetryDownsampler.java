@@ -0,0 +1,260 @@
+package com.example.service;
+
+import com.example.model.RiskAssessment;
+import com.example.model.Sensor;
+import com.example.model.SensorSnapshot;
+import com.example.model.VehicleData;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reduces a time-ordered stream of readings to a chart-sized one in a single pass, keeping at most two
+ * time buckets in memory however long the range is.
+ * <p>
+ * The range is cut into fixed-width buckets, either {@code resolution} wide or {@code range / maxPoints}.
+ * {@link Method#AVERAGE} emits one synthetic reading per non-empty bucket, stamped with the bucket start,
+ * holding the mean of every sensor and the riskiest assessment of the bucket. {@link Method#LTTB}
+ * (Largest-Triangle-Three-Buckets) keeps the first and last readings and, per bucket, the original
+ * reading forming the largest triangle with the previously kept one and the average of the next bucket,
+ * which preserves peaks and dips of the chosen sensor.
+ */
+public final class TelemetryDownsampler {
+
+    public enum Method {
+        AVERAGE,
+        LTTB
+    }
+
+    /** How to downsample: bucket width and, for LTTB, the sensor whose shape is preserved. */
+    public record Spec(Method method, Duration bucket, Sensor sensor) {
+
+        /**
+         * Bucket width from {@code resolution} if given, otherwise from {@code maxPoints} over the
+         * range; {@code null} when neither is set (no downsampling).
+         */
+        public static Spec of(Method method, Integer maxPoints, Duration resolution, Sensor sensor, Instant from, Instant to) {
+            if (resolution != null) {
+                if (resolution.isNegative() || resolution.isZero()) {
+                    throw new IllegalArgumentException("resolution must be positive");
+                }
+                return new Spec(method, resolution, sensor);
+            }
+            if (maxPoints == null) {
+                return null;
+            }
+            if (maxPoints < 3) {
+                throw new IllegalArgumentException("maxPoints must be at least 3");
+            }
+            // LTTB always adds the first and last readings
+            int buckets = method == Method.LTTB ? maxPoints - 2 : maxPoints;
+            long rangeMillis = Math.max(1, Duration.between(from, to).toMillis());
+            return new Spec(method, Duration.ofMillis((rangeMillis + buckets - 1) / buckets), sensor);
+        }
+    }
+
+    private TelemetryDownsampler() {
+    }
+
+    public static Flux<VehicleData> downsample(Flux<VehicleData> readings, Spec spec, Instant from) {
+        long origin = from.toEpochMilli();
+        long width = Math.max(1, spec.bucket().toMillis());
+        return Flux.defer(() -> {
+            Sampler sampler = spec.method() == Method.AVERAGE
+                ? new Averaging(origin, width)
+                : new Lttb(origin, width, spec.sensor());
+            return readings
+                .concatMapIterable(sampler::accept)
+                .concatWith(Flux.defer(() -> Flux.fromIterable(sampler.finish())));
+        });
+    }
+
+    private interface Sampler {
+
+        /** Readings that can be emitted once {@code reading} has been seen. */
+        List<VehicleData> accept(VehicleData reading);
+
+        List<VehicleData> finish();
+    }
+
+    private static final class Averaging implements Sampler {
+
+        private final long origin;
+        private final long width;
+        private long bucket = Long.MIN_VALUE;
+        private final double[] sums = new double[Sensor.values().length];
+        private final int[] counts = new int[Sensor.values().length];
+        private final String[] units = new String[Sensor.values().length];
+        private VehicleData first;
+        private RiskAssessment riskiest;
+
+        Averaging(long origin, long width) {
+            this.origin = origin;
+            this.width = width;
+        }
+
+        @Override
+        public List<VehicleData> accept(VehicleData reading) {
+            long index = Math.floorDiv(reading.getTimestamp().toEpochMilli() - origin, width);
+            List<VehicleData> emitted = Collections.emptyList();
+            if (first != null && index > bucket) {
+                emitted = List.of(emit());
+            }
+            if (first == null) {
+                first = reading;
+                bucket = index;
+            }
+            SensorSnapshot sensors = reading.getSensors();
+            if (sensors != null) {
+                for (Sensor sensor : Sensor.values()) {
+                    if (sensors.has(sensor)) {
+                        int i = sensor.ordinal();
+                        sums[i] += sensors.value(sensor);
+                        counts[i]++;
+                        if (units[i] == null) {
+                            units[i] = sensors.unit(sensor);
+                        }
+                    }
+                }
+            }
+            RiskAssessment assessment = reading.getRiskAssessment();
+            if (assessment != null && (riskiest == null || assessment.getScore() > riskiest.getScore())) {
+                riskiest = assessment;
+            }
+            return emitted;
+        }
+
+        @Override
+        public List<VehicleData> finish() {
+            return first == null ? Collections.emptyList() : List.of(emit());
+        }
+
+        private VehicleData emit() {
+            SensorSnapshot sensors = new SensorSnapshot();
+            for (Sensor sensor : Sensor.values()) {
+                int i = sensor.ordinal();
+                if (counts[i] > 0) {
+                    sensors.set(sensor, sums[i] / counts[i], units[i]);
+                }
+            }
+            VehicleData average = new VehicleData();
+            average.setVehicleId(first.getVehicleId());
+            average.setContractId(first.getContractId());
+            average.setTimestamp(Instant.ofEpochMilli(origin + bucket * width));
+            average.setSensors(sensors);
+            average.setRiskAssessment(riskiest);
+
+            first = null;
+            riskiest = null;
+            Arrays.fill(sums, 0);
+            Arrays.fill(counts, 0);
+            Arrays.fill(units, null);
+            return average;
+        }
+    }
+
+    private static final class Lttb implements Sampler {
+
+        private final long origin;
+        private final long width;
+        private final Sensor sensor;
+        /** Last kept reading (point A). */
+        private VehicleData kept;
+        /** Complete bucket to choose from, waiting for the average of the next one. */
+        private List<VehicleData> held;
+        private List<VehicleData> filling = new ArrayList<>();
+        private long fillingBucket;
+        private double fillingX;
+        private double fillingY;
+
+        Lttb(long origin, long width, Sensor sensor) {
+            this.origin = origin;
+            this.width = width;
+            this.sensor = sensor;
+        }
+
+        @Override
+        public List<VehicleData> accept(VehicleData reading) {
+            if (reading.getSensors() == null || !reading.getSensors().has(sensor)) {
+                return Collections.emptyList();
+            }
+            if (kept == null) {
+                kept = reading;
+                return List.of(reading);
+            }
+            long index = Math.floorDiv(reading.getTimestamp().toEpochMilli() - origin, width);
+            if (filling.isEmpty() || index <= fillingBucket) {
+                add(reading, index);
+                return Collections.emptyList();
+            }
+            // The filling bucket is complete: its average decides the pick in the held bucket
+            List<VehicleData> emitted = Collections.emptyList();
+            if (held != null) {
+                kept = pick(held, fillingX / filling.size(), fillingY / filling.size());
+                emitted = List.of(kept);
+            }
+            held = filling;
+            filling = new ArrayList<>();
+            fillingX = 0;
+            fillingY = 0;
+            add(reading, index);
+            return emitted;
+        }
+
+        @Override
+        public List<VehicleData> finish() {
+            if (filling.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<VehicleData> emitted = new ArrayList<>(3);
+            VehicleData last = filling.get(filling.size() - 1);
+            if (held != null) {
+                kept = pick(held, fillingX / filling.size(), fillingY / filling.size());
+                emitted.add(kept);
+            }
+            if (filling.size() > 1) {
+                emitted.add(pick(filling.subList(0, filling.size() - 1), x(last), y(last)));
+            }
+            emitted.add(last);
+            return emitted;
+        }
+
+        private void add(VehicleData reading, long index) {
+            if (filling.isEmpty()) {
+                fillingBucket = index;
+            }
+            filling.add(reading);
+            fillingX += x(reading);
+            fillingY += y(reading);
+        }
+
+        /** Reading of {@code bucket} forming the largest triangle with the kept reading and (cx, cy). */
+        private VehicleData pick(List<VehicleData> bucket, double cx, double cy) {
+            double ax = x(kept);
+            double ay = y(kept);
+            VehicleData best = bucket.get(0);
+            double bestArea = -1;
+            for (VehicleData candidate : bucket) {
+                double area = Math.abs((ax - cx) * (y(candidate) - ay) - (ax - x(candidate)) * (cy - ay));
+                if (area > bestArea) {
+                    bestArea = area;
+                    best = candidate;
+                }
+            }
+            return best;
+        }
+
+        private double x(VehicleData reading) {
+            return reading.getTimestamp().toEpochMilli() - origin;
+        }
+
+        private double y(VehicleData reading) {
+            return reading.getSensors().value(sensor);
+        }
+    }
+}
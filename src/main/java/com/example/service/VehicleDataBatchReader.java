@@ -0,0 +1,112 @@
+package com.example.service;
+
+import com.example.model.InsuranceContract;
+import com.example.model.VehicleData;
+import com.example.repository.VehicleDataRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Latest readings and short histories of many vehicles at once, for fleet dashboards.
+ * <p>
+ * The vehicles are given directly or through their contracts (resolved by the
+ * {@link InsuranceContractCache}). Latest readings come from the {@link LatestVehicleDataCache} first;
+ * only the vehicles it does not hold are read from MongoDB. Reads are split into shards of
+ * {@code batch.shard-size} vehicles, with at most {@code batch.concurrency} shards in flight; results are
+ * emitted as each shard completes. A shard of latest readings is one {@code $in} aggregation; a shard of
+ * histories is one limited index query per vehicle, a few vehicles at a time.
+ */
+@Slf4j
+@Service
+public class VehicleDataBatchReader {
+
+    /** Vehicles to read, by id and/or by contract id. */
+    public record VehicleSelection(List<String> vehicleIds, List<String> contractIds) {
+    }
+
+    /** The most recent readings of one vehicle, newest first. */
+    public record VehicleHistory(String vehicleId, List<VehicleData> readings) {
+    }
+
+    private final VehicleDataRepository vehicleDataRepository;
+    private final LatestVehicleDataCache latestCache;
+    private final InsuranceContractCache contractCache;
+    private final int shardSize;
+    private final int concurrency;
+    private final int maxVehicles;
+
+    public VehicleDataBatchReader(
+            VehicleDataRepository vehicleDataRepository,
+            LatestVehicleDataCache latestCache,
+            InsuranceContractCache contractCache,
+            @Value("${batch.shard-size:500}") int shardSize,
+            @Value("${batch.concurrency:4}") int concurrency,
+            @Value("${batch.max-vehicles:10000}") int maxVehicles) {
+        this.vehicleDataRepository = vehicleDataRepository;
+        this.latestCache = latestCache;
+        this.contractCache = contractCache;
+        this.shardSize = Math.max(1, shardSize);
+        this.concurrency = Math.max(1, concurrency);
+        this.maxVehicles = maxVehicles;
+    }
+
+    /**
+     * Distinct vehicle ids of the selection, in request order. Fails with
+     * {@link IllegalArgumentException} when it is empty or holds more than {@code batch.max-vehicles}.
+     */
+    public Mono<List<String>> resolve(VehicleSelection selection) {
+        List<String> vehicleIds = selection.vehicleIds() != null ? selection.vehicleIds() : List.of();
+        List<String> contractIds = selection.contractIds() != null ? selection.contractIds() : List.of();
+        if (vehicleIds.size() + contractIds.size() > maxVehicles) {
+            return Mono.error(new IllegalArgumentException("At most " + maxVehicles + " vehicles per request"));
+        }
+        return Flux.fromIterable(contractIds)
+            .flatMapSequential(contractId -> contractCache.findById(contractId).map(InsuranceContract::getVehicleId), concurrency)
+            .collect(() -> new LinkedHashSet<>(vehicleIds), Set::add)
+            .flatMap(ids -> {
+                ids.remove(null);
+                return ids.isEmpty()
+                    ? Mono.error(new IllegalArgumentException("No vehicle selected"))
+                    : Mono.just(List.copyOf(ids));
+            });
+    }
+
+    /** Latest reading of each vehicle that has one; cached vehicles first, the others by shard. */
+    public Flux<VehicleData> latest(List<String> vehicleIds) {
+        List<VehicleData> cached = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        for (String vehicleId : vehicleIds) {
+            VehicleData hit = latestCache.getIfPresent(vehicleId);
+            if (hit != null) {
+                cached.add(hit);
+            } else {
+                missing.add(vehicleId);
+            }
+        }
+        log.debug("Batch latest for {} vehicle(s): {} cached, {} read from the database", vehicleIds.size(), cached.size(), missing.size());
+        Flux<VehicleData> loaded = Flux.fromIterable(missing)
+            .buffer(shardSize)
+            .flatMap(vehicleDataRepository::findLatestByVehicleIdIn, concurrency)
+            .map(latestCache::remember);
+        return Flux.fromIterable(cached).concatWith(loaded);
+    }
+
+    /** Up to {@code limit} readings per vehicle since {@code since}; vehicles without any are left out. */
+    public Flux<VehicleHistory> history(List<String> vehicleIds, Instant since, int limit) {
+        log.debug("Batch history for {} vehicle(s) since {} (limit {})", vehicleIds.size(), since, limit);
+        return Flux.fromIterable(vehicleIds)
+            .buffer(shardSize)
+            .flatMap(shard -> vehicleDataRepository.findRecentByVehicleIdIn(shard, since, limit)
+                .bufferUntilChanged(VehicleData::getVehicleId)
+                .map(readings -> new VehicleHistory(readings.get(0).getVehicleId(), readings)), concurrency);
+    }
+}
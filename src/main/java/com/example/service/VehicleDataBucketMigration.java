@@ -0,0 +1,144 @@
+package com.example.service;
+
+import com.example.model.Sensor;
+import com.example.model.VehicleData;
+import com.example.model.VehicleDataBucket;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * One-off copy of {@code vehicle_data} into {@code vehicle_data_buckets}, run at startup when
+ * {@code storage.migration.enabled=true}.
+ * <p>
+ * Vehicles are migrated one at a time, their readings streamed in timestamp order and cut into
+ * buckets of {@code storage.bucket.max-readings}. Migrated buckets get a deterministic id
+ * (vehicle, slot, chunk) and are written with replace-upserts, so an interrupted migration can
+ * simply be run again. {@code vehicle_data} is left untouched; switch {@code storage.layout} to
+ * {@code bucketed} once the counts match, and drop it afterwards.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "storage.migration.enabled", havingValue = "true")
+public class VehicleDataBucketMigration implements ApplicationRunner {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final long slotMillis;
+    private final int maxReadings;
+    private final int batchSize;
+
+    public VehicleDataBucketMigration(
+            ReactiveMongoTemplate mongoTemplate,
+            @Value("${storage.bucket.slot-ms:3600000}") long slotMillis,
+            @Value("${storage.bucket.max-readings:1000}") int maxReadings,
+            @Value("${storage.migration.batch-size:100}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.slotMillis = slotMillis;
+        this.maxReadings = Math.max(1, maxReadings);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        Long readings = migrate().block();
+        log.info("Migrated {} vehicle data reading(s) to {} in {} ms",
+            readings, VehicleDataBucket.COLLECTION, System.currentTimeMillis() - start);
+    }
+
+    /** Copies every vehicle's readings into buckets and returns how many readings were copied. */
+    public Mono<Long> migrate() {
+        return mongoTemplate.findDistinct(new Query(), "vehicleId", VehicleData.class, String.class)
+            .concatMap(this::migrateVehicle)
+            .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> migrateVehicle(String vehicleId) {
+        Query readings = Query.query(Criteria.where("vehicleId").is(vehicleId).and("timestamp").ne(null))
+            .with(Sort.by(Sort.Direction.ASC, "timestamp"))
+            .allowDiskUse(true);
+        return mongoTemplate.find(readings, Document.class, mongoTemplate.getCollectionName(VehicleData.class))
+            .bufferUntilChanged(reading -> slot(reading.getDate("timestamp")))
+            .concatMapIterable(slot -> buckets(vehicleId, slot))
+            .buffer(batchSize)
+            .concatMap(this::write)
+            .reduce(0L, Long::sum)
+            .doOnSuccess(count -> log.debug("Migrated {} reading(s) of vehicleId: {}", count, vehicleId));
+    }
+
+    private long slot(Date timestamp) {
+        return VehicleDataBucket.bucketStart(timestamp.toInstant(), slotMillis).toEpochMilli();
+    }
+
+    private List<Document> buckets(String vehicleId, List<Document> slot) {
+        long slotStart = slot(slot.get(0).getDate("timestamp"));
+        List<Document> buckets = new ArrayList<>();
+        for (int from = 0, chunk = 0; from < slot.size(); from += maxReadings, chunk++) {
+            buckets.add(bucket(vehicleId + '|' + slotStart + '|' + chunk, vehicleId, slotStart,
+                slot.subList(from, Math.min(slot.size(), from + maxReadings))));
+        }
+        return buckets;
+    }
+
+    private static Document bucket(String id, String vehicleId, long slotStart, List<Document> slot) {
+        List<Document> readings = new ArrayList<>(slot.size());
+        Document summary = new Document();
+        for (Document source : slot) {
+            Document reading = new Document(source);
+            reading.remove("_id");
+            reading.remove("_class");
+            reading.remove("vehicleId");
+            readings.add(reading);
+            Document data = source.get("data", Document.class);
+            if (data == null) {
+                continue;
+            }
+            for (Sensor sensor : Sensor.values()) {
+                if (data.get(sensor.fieldName()) instanceof Document measurement
+                        && measurement.get("value") instanceof Number number) {
+                    double value = number.doubleValue();
+                    Document range = (Document) summary.computeIfAbsent(sensor.fieldName(), name -> new Document("min", value).append("max", value));
+                    range.put("min", Math.min(range.getDouble("min"), value));
+                    range.put("max", Math.max(range.getDouble("max"), value));
+                }
+            }
+        }
+        return new Document("_id", id)
+            .append("vehicleId", vehicleId)
+            .append("bucketStart", Date.from(Instant.ofEpochMilli(slotStart)))
+            .append("count", readings.size())
+            .append("minTimestamp", readings.get(0).getDate("timestamp"))
+            .append("maxTimestamp", readings.get(readings.size() - 1).getDate("timestamp"))
+            .append("summary", summary)
+            .append("readings", readings);
+    }
+
+    private Mono<Long> write(List<Document> buckets) {
+        ReactiveBulkOperations operations = mongoTemplate.bulkOps(BulkMode.UNORDERED, VehicleDataBucket.COLLECTION);
+        long readings = 0;
+        for (Document bucket : buckets) {
+            operations.replaceOne(Query.query(Criteria.where("_id").is(bucket.get("_id"))), bucket,
+                FindAndReplaceOptions.options().upsert());
+            readings += bucket.getInteger("count");
+        }
+        long written = readings;
+        return operations.execute().thenReturn(written);
+    }
+}
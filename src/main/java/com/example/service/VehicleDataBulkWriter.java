@@ -0,0 +1,437 @@
+package com.example.service;
+
+import com.example.model.Sensor;
+import com.example.model.SensorSnapshot;
+import com.example.model.VehicleData;
+import com.example.model.VehicleDataBucket;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteInsert;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects vehicle data writes for a size/time window and persists each window with a single
+ * unordered bulkWrite of upserts keyed on the {@code vehicle_contract_time_uidx} unique index
+ * (vehicleId, contractId, timestamp). Every caller gets its own outcome back: inserted, or
+ * duplicate when the business key already existed.
+ * <p>
+ * Readings decoded from Kafka carry a {@link SensorSnapshot}; their {@code data} sub-document is
+ * written from it directly, in the same shape as the mapped {@code SensorData}, without building
+ * the boxed model first.
+ * <p>
+ * With {@code storage.layout=bucketed} the window is written to {@link VehicleDataBucket}s instead:
+ * one upsert per vehicle and time slot appends the readings to the slot's open bucket and widens its
+ * min/max summary. Buckets have no unique key, so the batch first looks up which of its readings the
+ * slots already hold and reports those as duplicates; the append itself only matches a bucket that
+ * does not hold any of its readings yet. Two writers racing on the same reading can still both append
+ * it, and such copies are dropped when buckets are read back.
+ */
+@Slf4j
+@Component
+public class VehicleDataBulkWriter {
+
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    private static final Sinks.EmitFailureHandler RETRY_NON_SERIALIZED =
+        (signalType, emitResult) -> emitResult == Sinks.EmitResult.FAIL_NON_SERIALIZED;
+
+    public enum Outcome {
+        INSERTED,
+        DUPLICATE
+    }
+
+    public record WriteResult(VehicleData data, Outcome outcome) {
+        public boolean inserted() {
+            return outcome == Outcome.INSERTED;
+        }
+    }
+
+    private record PendingWrite(VehicleData data, boolean knownNew, Sinks.One<WriteResult> result) {
+    }
+
+    private record BucketKey(String vehicleId, Instant bucketStart) {
+    }
+
+    private record ReadingKey(String vehicleId, String contractId, Instant timestamp) {
+        static ReadingKey of(VehicleData data) {
+            return new ReadingKey(data.getVehicleId(), data.getContractId(), data.getTimestamp());
+        }
+    }
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final boolean bucketed;
+    private final long slotMillis;
+    private final int maxReadings;
+    private final Sinks.Many<PendingWrite> queue = Sinks.many().unicast().onBackpressureBuffer();
+    private final Disposable pipeline;
+
+    public VehicleDataBulkWriter(
+            ReactiveMongoTemplate mongoTemplate,
+            @Value("${vehicle-data.writer.batch-size:500}") int batchSize,
+            @Value("${vehicle-data.writer.batch-window-ms:20}") long batchWindowMs,
+            @Value("${vehicle-data.writer.concurrency:4}") int concurrency,
+            @Value("${storage.layout:document}") String layout,
+            @Value("${storage.bucket.slot-ms:3600000}") long slotMillis,
+            @Value("${storage.bucket.max-readings:1000}") int maxReadings) {
+        this.mongoTemplate = mongoTemplate;
+        this.bucketed = "bucketed".equalsIgnoreCase(layout.trim());
+        this.slotMillis = slotMillis;
+        this.maxReadings = Math.max(1, maxReadings);
+        this.pipeline = queue.asFlux()
+            .bufferTimeout(batchSize, Duration.ofMillis(batchWindowMs), true)
+            .flatMap(batch -> Mono.defer(() -> flush(batch))
+                .onErrorResume(error -> {
+                    fail(batch, error);
+                    return Mono.empty();
+                }), concurrency)
+            .subscribe();
+    }
+
+    /**
+     * Queues the reading for the next bulk write. The returned Mono completes once the batch
+     * containing it has been acknowledged by MongoDB.
+     */
+    public Mono<WriteResult> write(VehicleData data) {
+        return write(data, false);
+    }
+
+    /**
+     * Same as {@link #write(VehicleData)}; when the caller already knows the key is new (e.g. from
+     * {@link RecentKeyFilter}) the reading is sent as a plain insert instead of an upsert. A wrong
+     * guess is still safe: the unique index rejects it and the outcome is reported as duplicate.
+     */
+    public Mono<WriteResult> write(VehicleData data, boolean knownNew) {
+        return Mono.defer(() -> {
+            Sinks.One<WriteResult> result = Sinks.one();
+            queue.emitNext(new PendingWrite(data, knownNew, result), RETRY_NON_SERIALIZED);
+            return result.asMono();
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        queue.emitComplete(RETRY_NON_SERIALIZED);
+        pipeline.dispose();
+    }
+
+    /**
+     * Writes one batch. In the document layout a reading that cannot be added to the bulk fails alone;
+     * any other error fails the batch's writes (see {@link #fail}), never the pipeline, so later batches
+     * keep flowing.
+     */
+    private Mono<Void> flush(List<PendingWrite> all) {
+        if (bucketed) {
+            return flushBuckets(all);
+        }
+        ReactiveBulkOperations operations = mongoTemplate.bulkOps(BulkMode.UNORDERED, VehicleData.class);
+        // Indexes of the bulk result refer to the writes actually queued
+        List<PendingWrite> batch = new ArrayList<>(all.size());
+        for (PendingWrite write : all) {
+            try {
+                if (write.knownNew()) {
+                    operations.insert(toDocument(write.data()));
+                } else {
+                    operations.upsert(businessKey(write.data()), insertOnly(write.data()));
+                }
+                batch.add(write);
+            } catch (RuntimeException e) {
+                rejectUnqueueable(write, e);
+            }
+        }
+        if (batch.isEmpty()) {
+            return Mono.empty();
+        }
+        return operations.execute()
+            .map(result -> resolve(batch, result, List.of()))
+            .onErrorResume(BulkOperationException.class,
+                e -> Mono.just(resolve(batch, e.getResult(), e.getErrors())))
+            .onErrorResume(MongoBulkWriteException.class,
+                e -> Mono.just(resolve(batch, e.getWriteResult(), e.getWriteErrors())))
+            .doOnNext(failures -> log.debug("Bulk wrote {} vehicle data record(s), {} failed", batch.size(), failures))
+            .doOnError(error -> fail(batch, error))
+            .onErrorResume(error -> Mono.empty())
+            .then();
+    }
+
+    private void fail(List<PendingWrite> batch, Throwable error) {
+        log.error("Bulk write of {} vehicle data record(s) failed: {}", batch.size(), error.getMessage());
+        batch.forEach(write -> write.result().tryEmitError(error));
+    }
+
+    private static void rejectUnqueueable(PendingWrite write, RuntimeException error) {
+        log.error("Could not add vehicle data for vehicleId {} to the bulk write: {}", write.data().getVehicleId(), error.getMessage());
+        write.result().tryEmitError(error);
+    }
+
+    /**
+     * Completes every pending write of the batch from the bulk result and returns how many failed.
+     * Upserted and inserted indexes were inserted; duplicate-key errors and matched upserts are duplicates.
+     */
+    private int resolve(List<PendingWrite> batch, BulkWriteResult result, List<BulkWriteError> errors) {
+        Map<Integer, BsonValue> insertedIds = new HashMap<>();
+        for (BulkWriteUpsert upsert : result.getUpserts()) {
+            insertedIds.put(upsert.getIndex(), upsert.getId());
+        }
+        for (BulkWriteInsert insert : result.getInserts()) {
+            insertedIds.put(insert.getIndex(), insert.getId());
+        }
+        Map<Integer, BulkWriteError> errorsByIndex = new HashMap<>();
+        for (BulkWriteError error : errors) {
+            errorsByIndex.put(error.getIndex(), error);
+        }
+
+        int failures = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            PendingWrite write = batch.get(i);
+            BulkWriteError error = errorsByIndex.get(i);
+            if (error != null && error.getCode() != DUPLICATE_KEY_ERROR) {
+                failures++;
+                write.result().tryEmitError(new IllegalStateException(
+                    "Failed to write vehicle data for vehicleId " + write.data().getVehicleId() + ": " + error.getMessage()));
+                continue;
+            }
+            BsonValue id = insertedIds.get(i);
+            if (id != null) {
+                if (id.isObjectId()) {
+                    write.data().setId(id.asObjectId().getValue().toHexString());
+                }
+                write.result().tryEmitValue(new WriteResult(write.data(), Outcome.INSERTED));
+            } else {
+                write.result().tryEmitValue(new WriteResult(write.data(), Outcome.DUPLICATE));
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Appends the readings of the batch that the buckets do not hold yet, one upsert per vehicle and
+     * slot (or per {@code storage.bucket.max-readings} readings of a busy slot). A full bucket no
+     * longer matches the filter, so the upsert opens the next one. Readings already stored, or repeated
+     * within the batch, are reported as duplicates without being written.
+     */
+    private Mono<Void> flushBuckets(List<PendingWrite> batch) {
+        return storedReadings(slots(batch))
+            .flatMap(stored -> {
+                List<PendingWrite> fresh = new ArrayList<>(batch.size());
+                for (PendingWrite write : batch) {
+                    if (stored.add(ReadingKey.of(write.data()))) {
+                        fresh.add(write);
+                    } else {
+                        write.result().tryEmitValue(new WriteResult(write.data(), Outcome.DUPLICATE));
+                    }
+                }
+                return fresh.isEmpty() ? Mono.just(0) : appendToBuckets(fresh);
+            })
+            .doOnNext(failures -> log.debug("Bulk wrote {} vehicle data record(s) into buckets, {} failed",
+                batch.size(), failures))
+            .doOnError(error -> fail(batch, error))
+            .onErrorResume(error -> Mono.empty())
+            .then();
+    }
+
+    private Mono<Integer> appendToBuckets(List<PendingWrite> batch) {
+        ReactiveBulkOperations operations = mongoTemplate.bulkOps(BulkMode.UNORDERED, VehicleDataBucket.class);
+        List<List<PendingWrite>> appends = new ArrayList<>();
+        slots(batch).forEach((key, writes) -> {
+            for (int from = 0; from < writes.size(); from += maxReadings) {
+                List<PendingWrite> chunk = writes.subList(from, Math.min(writes.size(), from + maxReadings));
+                operations.upsert(openBucket(key, chunk), append(chunk));
+                appends.add(chunk);
+            }
+        });
+        return operations.execute()
+            .map(result -> resolveBuckets(appends, List.of()))
+            .onErrorResume(BulkOperationException.class, e -> Mono.just(resolveBuckets(appends, e.getErrors())))
+            .onErrorResume(MongoBulkWriteException.class, e -> Mono.just(resolveBuckets(appends, e.getWriteErrors())));
+    }
+
+    private Map<BucketKey, List<PendingWrite>> slots(List<PendingWrite> batch) {
+        Map<BucketKey, List<PendingWrite>> slots = new LinkedHashMap<>();
+        for (PendingWrite write : batch) {
+            VehicleData data = write.data();
+            slots.computeIfAbsent(new BucketKey(data.getVehicleId(), VehicleDataBucket.bucketStart(data.getTimestamp(), slotMillis)),
+                key -> new ArrayList<>()).add(write);
+        }
+        return slots;
+    }
+
+    /**
+     * Keys of the readings the slots' buckets already hold at the batch's timestamps, read with one
+     * query on {@code vehicle_bucket_idx} that only returns the key fields of each reading.
+     */
+    private Mono<Set<ReadingKey>> storedReadings(Map<BucketKey, List<PendingWrite>> slots) {
+        List<Criteria> perSlot = new ArrayList<>(slots.size());
+        slots.forEach((key, writes) -> perSlot.add(Criteria.where("vehicleId").is(key.vehicleId())
+            .and("bucketStart").is(key.bucketStart())
+            .and("readings.timestamp").in(writes.stream().map(write -> write.data().getTimestamp()).toList())));
+        Query query = Query.query(new Criteria().orOperator(perSlot));
+        query.fields().include("vehicleId", "readings.contractId", "readings.timestamp");
+        return mongoTemplate.find(query, VehicleDataBucket.class)
+            .collect(HashSet::new, (keys, bucket) -> {
+                for (Document reading : bucket.getReadings()) {
+                    keys.add(new ReadingKey(bucket.getVehicleId(), reading.getString("contractId"), instant(reading.get("timestamp"))));
+                }
+            });
+    }
+
+    private static Instant instant(Object timestamp) {
+        return timestamp instanceof Date date ? date.toInstant() : (Instant) timestamp;
+    }
+
+    private int resolveBuckets(List<List<PendingWrite>> appends, List<BulkWriteError> errors) {
+        Map<Integer, BulkWriteError> errorsByIndex = new HashMap<>();
+        for (BulkWriteError error : errors) {
+            errorsByIndex.put(error.getIndex(), error);
+        }
+        int failures = 0;
+        for (int i = 0; i < appends.size(); i++) {
+            BulkWriteError error = errorsByIndex.get(i);
+            for (PendingWrite write : appends.get(i)) {
+                if (error != null) {
+                    failures++;
+                    write.result().tryEmitError(new IllegalStateException(
+                        "Failed to write vehicle data for vehicleId " + write.data().getVehicleId() + ": " + error.getMessage()));
+                } else {
+                    write.result().tryEmitValue(new WriteResult(write.data(), Outcome.INSERTED));
+                }
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * The slot's open bucket, provided it does not hold any of the chunk's readings: a reading another
+     * writer appended since {@link #storedReadings} is never added to the same bucket twice.
+     */
+    private Query openBucket(BucketKey key, List<PendingWrite> chunk) {
+        List<Criteria> readings = new ArrayList<>(chunk.size());
+        for (PendingWrite write : chunk) {
+            readings.add(Criteria.where("contractId").is(write.data().getContractId())
+                .and("timestamp").is(write.data().getTimestamp()));
+        }
+        return Query.query(Criteria.where("vehicleId").is(key.vehicleId())
+            .and("bucketStart").is(key.bucketStart())
+            .and("count").lt(maxReadings)
+            .and("readings").not().elemMatch(new Criteria().orOperator(readings)));
+    }
+
+    private Update append(List<PendingWrite> writes) {
+        List<Document> readings = new ArrayList<>(writes.size());
+        Instant min = null;
+        Instant max = null;
+        Map<String, double[]> ranges = new LinkedHashMap<>();
+        for (PendingWrite write : writes) {
+            VehicleData data = write.data();
+            Document reading = toDocument(data);
+            reading.remove("_id");
+            reading.remove("_class");
+            reading.remove("vehicleId");
+            readings.add(reading);
+            min = min == null || data.getTimestamp().isBefore(min) ? data.getTimestamp() : min;
+            max = max == null || data.getTimestamp().isAfter(max) ? data.getTimestamp() : max;
+            SensorSnapshot sensors = data.getSensors();
+            if (sensors != null) {
+                for (Sensor sensor : Sensor.values()) {
+                    if (sensors.has(sensor)) {
+                        double value = sensors.value(sensor);
+                        double[] range = ranges.computeIfAbsent(sensor.fieldName(), name -> new double[] {value, value});
+                        range[0] = Math.min(range[0], value);
+                        range[1] = Math.max(range[1], value);
+                    }
+                }
+            }
+        }
+        Update update = new Update()
+            .inc("count", writes.size())
+            .min("minTimestamp", min)
+            .max("maxTimestamp", max);
+        ranges.forEach((field, range) -> update
+            .min("summary." + field + ".min", range[0])
+            .max("summary." + field + ".max", range[1]));
+        update.push("readings").each(readings.toArray());
+        return update;
+    }
+
+    private static Query businessKey(VehicleData data) {
+        return Query.query(Criteria.where("vehicleId").is(data.getVehicleId())
+            .and("contractId").is(data.getContractId())
+            .and("timestamp").is(data.getTimestamp()));
+    }
+
+    private Update insertOnly(VehicleData data) {
+        Document document = toDocument(data);
+        document.remove("_id");
+        Update update = new Update();
+        document.forEach(update::setOnInsert);
+        return update;
+    }
+
+    private Document toDocument(VehicleData data) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(data, document);
+        if (!document.containsKey("data") && data.getSensors() != null) {
+            document.put("data", sensorDocument(data.getSensors()));
+        }
+        return document;
+    }
+
+    private static Document sensorDocument(SensorSnapshot sensors) {
+        Document document = new Document();
+        for (Sensor sensor : Sensor.values()) {
+            if (sensors.has(sensor)) {
+                document.put(sensor.fieldName(), measurement(sensors.value(sensor), sensors.unit(sensor)));
+            }
+        }
+        if (sensors.getTimestamp() != null) {
+            document.put("timestamp", Date.from(sensors.getTimestamp()));
+        }
+        if (sensors.extraCount() > 0 || sensors.overflowExtras() != null) {
+            Document extras = new Document();
+            for (int i = 0; i < sensors.extraCount(); i++) {
+                extras.put(sensors.extraName(i), measurement(sensors.extraValue(i), sensors.extraUnit(i)));
+            }
+            if (sensors.overflowExtras() != null) {
+                sensors.overflowExtras().forEach((name, measurement) ->
+                    extras.put(name, measurement(measurement.getValue(), measurement.getUnit())));
+            }
+            document.put("additionalProperties", extras);
+        }
+        return document;
+    }
+
+    private static Document measurement(double value, String unit) {
+        Document document = new Document("value", value);
+        if (unit != null) {
+            document.put("unit", unit);
+        }
+        return document;
+    }
+}
@@ -1,53 +1,176 @@
 package com.example.service;
 
 import com.example.model.VehicleData;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.annotation.KafkaListener;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
 import reactor.core.publisher.Flux;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverPartition;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.util.retry.Retry;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reactive Kafka ingestion: records are received with bounded prefetch, grouped into
+ * micro-batches, processed with bounded concurrency, and their offsets are committed
+ * only after the whole batch has been persisted. A record that still fails after the per-record
+ * retries is skipped as described in {@link IngestionFailures}: a poison record is logged, counted
+ * and committed with its batch, while a transient failure tears the receiver down and re-subscribes
+ * from the last committed offset, so a database outage does not acknowledge anything unsaved.
+ * <p>
+ * Committed offsets are also handed to the {@link VehicleStateStore}. On partition assignment the
+ * consumer seeks back to the store's last checkpoint when it is behind the committed offset, so the
+ * per-vehicle state lost by a crash since that checkpoint is rebuilt from the log.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
-public class VehicleDataConsumer {
+public class VehicleDataConsumer implements SmartLifecycle {
 
     private final VehicleDataService vehicleDataService;
-    private final ObjectMapper objectMapper;
-    private final Sinks.Many<VehicleData> vehicleDataSink = Sinks.many().multicast().onBackpressureBuffer();
-
-    @KafkaListener(
-        topics = "${kafka.topic.vehicle-data:vehicle-data}",
-        groupId = "${kafka.consumer.group-id:insurance-group}"
-    )
-    public void consume(String message) {
-        log.debug("Received message: {}", message);
-        try {
-            VehicleData vehicleData = objectMapper.readValue(message, VehicleData.class);
-            processMessage(vehicleData)
-                .doOnNext(data -> log.info("Processed vehicle data for vehicle: {}", data.getVehicleId()))
-                .doOnError(error -> log.error("Error processing vehicle data: {}", error.getMessage()))
-                .subscribe(
-                    vehicleDataSink::tryEmitNext,
-                    error -> log.error("Error emitting to sink: {}", error.getMessage())
-                );
-        } catch (JsonProcessingException e) {
-            log.error("Error deserializing message: {}. Message content: {}", e.getMessage(), message);
+    private final ReceiverOptions<String, VehicleData> receiverOptions;
+    private final LiveTelemetryHub liveTelemetryHub;
+    private final VehicleStateStore vehicleStateStore;
+    private final Counter unreadableCounter;
+    private final Counter failedCounter;
+
+    private final int batchSize;
+    private final Duration batchWindow;
+    private final int concurrency;
+    private final int maxRetries;
+
+    private volatile Disposable subscription;
+
+    public VehicleDataConsumer(
+            VehicleDataService vehicleDataService,
+            ReceiverOptions<String, VehicleData> receiverOptions,
+            LiveTelemetryHub liveTelemetryHub,
+            VehicleStateStore vehicleStateStore,
+            MeterRegistry meterRegistry,
+            @Value("${kafka.consumer.batch-size:500}") int batchSize,
+            @Value("${kafka.consumer.batch-window-ms:200}") long batchWindowMs,
+            @Value("${kafka.consumer.concurrency:16}") int concurrency,
+            @Value("${kafka.consumer.max-retries:3}") int maxRetries) {
+        this.vehicleDataService = vehicleDataService;
+        this.receiverOptions = receiverOptions;
+        this.liveTelemetryHub = liveTelemetryHub;
+        this.vehicleStateStore = vehicleStateStore;
+        this.unreadableCounter = IngestionFailures.skipped(meterRegistry, "kafka", "unreadable");
+        this.failedCounter = IngestionFailures.skipped(meterRegistry, "kafka", "failed");
+        this.batchSize = batchSize;
+        this.batchWindow = Duration.ofMillis(batchWindowMs);
+        this.concurrency = concurrency;
+        this.maxRetries = maxRetries;
+    }
+
+    @Override
+    public void start() {
+        ReceiverOptions<String, VehicleData> options = receiverOptions.addAssignListener(this::seekToCheckpoint);
+        subscription = Flux.defer(() -> KafkaReceiver.create(options).receive())
+            .bufferTimeout(batchSize, batchWindow, true)
+            .concatMap(this::processBatch, 1)
+            .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                .maxBackoff(Duration.ofSeconds(30))
+                .doBeforeRetry(signal -> log.error("Kafka ingestion failed, restarting from last committed offset: {}",
+                    signal.failure().getMessage())))
+            .subscribe();
+        log.info("Started vehicle data ingestion (batchSize={}, batchWindow={}, concurrency={})",
+            batchSize, batchWindow, concurrency);
+    }
+
+    @Override
+    public void stop() {
+        Disposable current = subscription;
+        if (current != null) {
+            current.dispose();
+            subscription = null;
         }
     }
 
+    @Override
+    public boolean isRunning() {
+        Disposable current = subscription;
+        return current != null && !current.isDisposed();
+    }
+
+    /** Processed readings as they are ingested, through a bounded, conflating {@link LiveTelemetryHub} subscription. */
     public Flux<VehicleData> consumeVehicleData() {
-        return vehicleDataSink.asFlux();
+        return liveTelemetryHub.all();
     }
 
-    private Mono<VehicleData> processMessage(VehicleData data) {
-        if (data == null) {
-            return Mono.error(new IllegalArgumentException("Vehicle data cannot be null"));
+    private void seekToCheckpoint(Collection<ReceiverPartition> partitions) {
+        Map<TopicPartition, Long> checkpointed = vehicleStateStore.checkpointedOffsets();
+        for (ReceiverPartition partition : partitions) {
+            Long offset = checkpointed.get(partition.topicPartition());
+            if (offset != null && offset < partition.position()) {
+                log.info("Replaying {} from state checkpoint offset {} (committed {})",
+                    partition.topicPartition(), offset, partition.position());
+                partition.seek(offset);
+            }
+        }
+    }
+
+    Mono<Void> processBatch(List<ReceiverRecord<String, VehicleData>> batch) {
+        return Flux.fromIterable(batch)
+            .flatMap(this::processRecord, concurrency)
+            .then(Mono.defer(() -> commit(batch)))
+            .doOnSuccess(v -> log.debug("Committed batch of {} record(s)", batch.size()));
+    }
+
+    private Mono<Void> processRecord(ReceiverRecord<String, VehicleData> record) {
+        VehicleData vehicleData = record.value();
+        if (vehicleData == null) {
+            // Poison message (empty or unreadable, see VehicleDataDeserializer): it will never parse,
+            // so it is skipped and its offset committed with the batch.
+            log.error("Skipping unreadable vehicle data payload at {}-{}@{}", record.topic(), record.partition(), record.offset());
+            unreadableCounter.increment();
+            return Mono.empty();
+        }
+        return vehicleDataService.processVehicleData(vehicleData)
+            .retryWhen(Retry.backoff(maxRetries, Duration.ofMillis(200))
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+            .doOnNext(data -> {
+                log.debug("Processed vehicle data for vehicle: {}", data.getVehicleId());
+                liveTelemetryHub.publish(data);
+            })
+            .then()
+            .onErrorResume(error -> !IngestionFailures.isTransient(error), error -> {
+                log.error("Skipping vehicle data for vehicle {} at {}-{}@{} after {} retries: {}", vehicleData.getVehicleId(),
+                    record.topic(), record.partition(), record.offset(), maxRetries, error.toString());
+                failedCounter.increment();
+                return Mono.empty();
+            })
+            .doOnError(error -> log.error("Error processing vehicle data at {}-{}@{}, the batch will be redelivered: {}",
+                record.topic(), record.partition(), record.offset(), error.getMessage()));
+    }
+
+    /**
+     * Acknowledges every record of the batch, then commits through the last one, which
+     * flushes all acknowledged offsets of every partition in the batch, and notes them for the
+     * next state store checkpoint.
+     */
+    private Mono<Void> commit(List<ReceiverRecord<String, VehicleData>> batch) {
+        if (batch.isEmpty()) {
+            return Mono.empty();
+        }
+        Map<TopicPartition, Long> nextOffsets = new HashMap<>();
+        for (ReceiverRecord<String, VehicleData> record : batch) {
+            record.receiverOffset().acknowledge();
+            nextOffsets.merge(record.receiverOffset().topicPartition(), record.receiverOffset().offset() + 1, Math::max);
         }
-        return vehicleDataService.processVehicleData(data);
+        return batch.get(batch.size() - 1).receiverOffset().commit()
+            .doOnSuccess(v -> vehicleStateStore.recordConsumed(nextOffsets));
     }
-} 
\ No newline at end of file
+}
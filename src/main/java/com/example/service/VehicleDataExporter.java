@@ -0,0 +1,62 @@
+package com.example.service;
+
+import com.example.model.ReadingCursor;
+import com.example.model.VehicleData;
+import com.example.repository.VehicleDataRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+
+/**
+ * Full exports of the readings of a vehicle or a contract over any range, meant to be written as
+ * NDJSON. Readings flow one by one from a single MongoDB cursor that fetches
+ * {@code export.batch-size} readings per round trip and only when the client has consumed the
+ * previous ones, so memory stays flat whatever the size of the export.
+ * <p>
+ * Every line carries the cursor token of its reading; passing the last one received resumes the
+ * export right after it, e.g. after a dropped connection.
+ */
+@Slf4j
+@Service
+public class VehicleDataExporter {
+
+    /** One NDJSON line: a reading and the token to resume after it. */
+    public record ExportLine(String cursor, VehicleData reading) {
+    }
+
+    private final VehicleDataRepository vehicleDataRepository;
+    private final int batchSize;
+
+    public VehicleDataExporter(
+            VehicleDataRepository vehicleDataRepository,
+            @Value("${export.batch-size:1000}") int batchSize) {
+        this.vehicleDataRepository = vehicleDataRepository;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Readings of a vehicle in {@code [startTime, endTime)}, either bound optional, ordered by timestamp.
+     * An invalid {@code cursor} fails with {@link IllegalArgumentException} before any query.
+     */
+    public Flux<ExportLine> exportVehicle(String vehicleId, Instant startTime, Instant endTime, String cursor) {
+        ReadingCursor after = cursor != null ? ReadingCursor.decode(cursor) : null;
+        log.debug("Exporting vehicle data for vehicleId: {} between {} and {} after {}", vehicleId, startTime, endTime, after);
+        return lines(vehicleDataRepository.streamByVehicleId(vehicleId, startTime, endTime, after, batchSize))
+            .doOnError(error -> log.error("Error exporting vehicle data for vehicleId: {}", vehicleId, error));
+    }
+
+    /** Same as {@link #exportVehicle} for the readings of a contract. */
+    public Flux<ExportLine> exportContract(String contractId, Instant startTime, Instant endTime, String cursor) {
+        ReadingCursor after = cursor != null ? ReadingCursor.decode(cursor) : null;
+        log.debug("Exporting vehicle data for contractId: {} between {} and {} after {}", contractId, startTime, endTime, after);
+        return lines(vehicleDataRepository.streamByContractId(contractId, startTime, endTime, after, batchSize))
+            .doOnError(error -> log.error("Error exporting vehicle data for contractId: {}", contractId, error));
+    }
+
+    private static Flux<ExportLine> lines(Flux<VehicleData> readings) {
+        return readings.map(data -> new ExportLine(ReadingCursor.of(data).encode(), data));
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.service;
+
+import com.example.model.VehicleData;
+import com.example.serialization.TelemetryCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttCallback;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Native MQTT ingestion for in-vehicle gateways, feeding the same pipeline as the Kafka consumer.
+ * <p>
+ * Gateways publish to one topic per vehicle ({@code vehicles/<vehicleId>/telemetry} by default); every
+ * instance joins the same shared subscription ({@code $share/<group>/...}) so the broker spreads
+ * vehicles over instances like a Kafka consumer group. Acknowledgements are manual: a QoS 1/2
+ * message is only acknowledged (PUBACK / PUBREC) once it has been processed, and at most
+ * {@code mqtt.max-in-flight} messages are unacknowledged at once. When that limit is reached the
+ * Paho callback thread blocks, which stops reading from the socket and pushes back on the broker.
+ * Messages of a batch are processed concurrently but acknowledged in arrival order, as MQTT requires.
+ * A message that still fails after the per-message retries is handled as described in
+ * {@link IngestionFailures}: a poison message is logged, counted and acknowledged, while a transient
+ * failure drops the connection without acknowledging, and the persistent session makes the broker
+ * redeliver on reconnect.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "mqtt.enabled", havingValue = "true")
+public class VehicleDataMqttConsumer implements SmartLifecycle {
+
+    private record InboundMessage(String topic, VehicleData data, int messageId, int qos,
+                                  MqttAsyncClient client, Semaphore inFlight) {
+    }
+
+    private final VehicleDataService vehicleDataService;
+    private final TelemetryCodec telemetryCodec;
+    private final LiveTelemetryHub liveTelemetryHub;
+    private final MqttConnectOptions connectOptions;
+    private final String brokerUrl;
+    private final String clientId;
+    private final String topicFilter;
+    private final int qos;
+    private final int maxInFlight;
+    private final int batchSize;
+    private final Duration batchWindow;
+    private final int concurrency;
+    private final int maxRetries;
+    private final Counter unreadableCounter;
+    private final Counter failedCounter;
+
+    private volatile Disposable subscription;
+
+    public VehicleDataMqttConsumer(
+            VehicleDataService vehicleDataService,
+            TelemetryCodec telemetryCodec,
+            LiveTelemetryHub liveTelemetryHub,
+            MeterRegistry meterRegistry,
+            MqttConnectOptions connectOptions,
+            @Value("${mqtt.broker-url:tcp://localhost:1883}") String brokerUrl,
+            @Value("${mqtt.client-id:}") String clientId,
+            @Value("${mqtt.topic:vehicles/+/telemetry}") String topic,
+            @Value("${mqtt.shared-group:insurance-group}") String sharedGroup,
+            @Value("${mqtt.qos:1}") int qos,
+            @Value("${mqtt.max-in-flight:1000}") int maxInFlight,
+            @Value("${mqtt.batch-size:500}") int batchSize,
+            @Value("${mqtt.batch-window-ms:200}") long batchWindowMs,
+            @Value("${mqtt.concurrency:16}") int concurrency,
+            @Value("${mqtt.max-retries:3}") int maxRetries) {
+        this.vehicleDataService = vehicleDataService;
+        this.telemetryCodec = telemetryCodec;
+        this.liveTelemetryHub = liveTelemetryHub;
+        this.connectOptions = connectOptions;
+        this.brokerUrl = brokerUrl.split(",")[0];
+        this.clientId = clientId.isBlank() ? defaultClientId() : clientId;
+        this.topicFilter = sharedGroup.isBlank() ? topic : "$share/" + sharedGroup + "/" + topic;
+        this.qos = qos;
+        this.maxInFlight = maxInFlight;
+        this.batchSize = batchSize;
+        this.batchWindow = Duration.ofMillis(batchWindowMs);
+        this.concurrency = concurrency;
+        this.maxRetries = maxRetries;
+        this.unreadableCounter = IngestionFailures.skipped(meterRegistry, "mqtt", "unreadable");
+        this.failedCounter = IngestionFailures.skipped(meterRegistry, "mqtt", "failed");
+    }
+
+    @Override
+    public void start() {
+        subscription = Flux.defer(this::receive)
+            .bufferTimeout(batchSize, batchWindow, true)
+            .concatMap(this::processBatch, 1)
+            .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                .maxBackoff(Duration.ofSeconds(30))
+                .doBeforeRetry(signal -> log.error("MQTT ingestion failed, reconnecting: {}", signal.failure().getMessage())))
+            .subscribe();
+        log.info("Started MQTT vehicle data ingestion (filter={}, qos={}, clientId={}, batchSize={}, concurrency={})",
+            topicFilter, qos, clientId, batchSize, concurrency);
+    }
+
+    @Override
+    public void stop() {
+        Disposable current = subscription;
+        if (current != null) {
+            current.dispose();
+            subscription = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        Disposable current = subscription;
+        return current != null && !current.isDisposed();
+    }
+
+    /** One broker connection: completes with an error when the connection is lost. */
+    private Flux<InboundMessage> receive() {
+        return Flux.<InboundMessage>create(sink -> {
+            Semaphore inFlight = new Semaphore(maxInFlight);
+            MqttAsyncClient client;
+            try {
+                client = new MqttAsyncClient(brokerUrl, clientId, new MemoryPersistence());
+            } catch (MqttException e) {
+                sink.error(e);
+                return;
+            }
+            client.setManualAcks(true);
+            client.setCallback(new MqttCallback() {
+                @Override
+                public void connectionLost(Throwable cause) {
+                    sink.error(new IllegalStateException("MQTT connection lost", cause));
+                }
+
+                @Override
+                public void messageArrived(String topic, MqttMessage message) throws InterruptedException {
+                    while (!inFlight.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                        if (sink.isCancelled()) {
+                            return;
+                        }
+                    }
+                    sink.next(new InboundMessage(topic, decode(topic, message.getPayload()), message.getId(),
+                        message.getQos(), client, inFlight));
+                }
+
+                @Override
+                public void deliveryComplete(IMqttDeliveryToken token) {
+                }
+            });
+            sink.onDispose(() -> close(client));
+            try {
+                client.connect(connectOptions).waitForCompletion();
+                client.subscribe(topicFilter, qos).waitForCompletion();
+                log.info("Subscribed to MQTT {} on {}", topicFilter, brokerUrl);
+            } catch (MqttException e) {
+                sink.error(e);
+            }
+        }, FluxSink.OverflowStrategy.BUFFER).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Mono<Void> processBatch(List<InboundMessage> batch) {
+        return Flux.fromIterable(batch)
+            .flatMapSequential(this::processMessage, concurrency)
+            .doOnNext(this::acknowledge)
+            .then()
+            .doOnSuccess(v -> log.debug("Processed MQTT batch of {} message(s)", batch.size()));
+    }
+
+    /** Processes one message and returns it once it may be acknowledged. */
+    private Mono<InboundMessage> processMessage(InboundMessage message) {
+        if (message.data() == null) {
+            // Unreadable payload: it will never parse, so it is acknowledged and skipped.
+            log.error("Skipping unreadable vehicle data payload from MQTT topic {}", message.topic());
+            unreadableCounter.increment();
+            return Mono.just(message);
+        }
+        return vehicleDataService.processVehicleData(message.data())
+            .retryWhen(Retry.backoff(maxRetries, Duration.ofMillis(200))
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+            .doOnNext(liveTelemetryHub::publish)
+            .thenReturn(message)
+            .onErrorResume(error -> !IngestionFailures.isTransient(error), error -> {
+                log.error("Skipping vehicle data from MQTT topic {} after {} retries: {}",
+                    message.topic(), maxRetries, error.toString());
+                failedCounter.increment();
+                return Mono.just(message);
+            })
+            .doOnError(error -> log.error("Error processing vehicle data from MQTT topic {}, reconnecting for redelivery: {}",
+                message.topic(), error.getMessage()));
+    }
+
+    /** Sends PUBACK (QoS 1) or PUBREC (QoS 2); QoS 0 messages have nothing to acknowledge. */
+    private void acknowledge(InboundMessage message) {
+        try {
+            if (message.qos() > 0) {
+                message.client().messageArrivedComplete(message.messageId(), message.qos());
+            }
+        } catch (MqttException e) {
+            log.warn("Could not acknowledge MQTT message {}: {}", message.messageId(), e.getMessage());
+        } finally {
+            message.inFlight().release();
+        }
+    }
+
+    /**
+     * Decodes a JSON or Smile payload (MQTT 3.1.1 has no content type, the format is detected).
+     * The vehicle id defaults to the topic segment after {@code vehicles/} when the payload has none.
+     */
+    private VehicleData decode(String topic, byte[] payload) {
+        if (payload == null || payload.length == 0) {
+            return null;
+        }
+        try {
+            VehicleData data = telemetryCodec.decode(payload, 0, payload.length, null);
+            if (data != null && data.getVehicleId() == null) {
+                data.setVehicleId(vehicleIdFromTopic(topic));
+            }
+            return data;
+        } catch (IOException e) {
+            log.error("Error deserializing vehicle data from MQTT topic {} ({} bytes): {}", topic, payload.length, e.getMessage());
+            return null;
+        }
+    }
+
+    static String vehicleIdFromTopic(String topic) {
+        String[] levels = topic.split("/");
+        for (int i = 0; i < levels.length - 1; i++) {
+            if ("vehicles".equals(levels[i])) {
+                return levels[i + 1];
+            }
+        }
+        return null;
+    }
+
+    private void close(MqttAsyncClient client) {
+        try {
+            if (client.isConnected()) {
+                client.disconnectForcibly(1_000, 1_000);
+            }
+            client.close();
+        } catch (MqttException e) {
+            log.warn("Error closing MQTT client {}: {}", clientId, e.getMessage());
+        }
+    }
+
+    private static String defaultClientId() {
+        try {
+            return "connected-insurance-" + InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "connected-insurance-" + ProcessHandle.current().pid();
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.service;
+
+import com.example.model.RiskLevel;
+import com.example.model.RollupResolution;
+import com.example.model.Sensor;
+import com.example.model.SensorSnapshot;
+import com.example.model.VehicleData;
+import com.example.model.VehicleDataRollup;
+import com.example.repository.VehicleDataRollupRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-vehicle {@link VehicleDataRollup}s at minute, hour and day resolution, so range statistics
+ * are read from a few pre-aggregated documents instead of the raw readings.
+ * <p>
+ * Each inserted reading is only added to in-memory deltas (one per vehicle and interval of each
+ * resolution). Every {@code rollup.flush-ms} the deltas are drained and written as one unordered bulk
+ * of upserts, {@code rollup.batch-size} rollups per bulk, with {@code $inc} for counts and sums and
+ * {@code $min}/{@code $max} for extremes, so concurrent instances can update the same rollup. A failed
+ * bulk puts its deltas back for the next flush. Rollups lag the raw data by at most one flush interval.
+ */
+@Slf4j
+@Component
+public class VehicleDataRollupService {
+
+    private static final Sort OLDEST_FIRST = Sort.by(Sort.Direction.ASC, "start");
+
+    public record SensorAggregate(long count, double sum, double min, double max, double mean) {
+    }
+
+    public record Aggregate(Instant start, long count, Map<String, SensorAggregate> sensors, Map<String, Long> riskLevels) {
+    }
+
+    /** Statistics over {@code [from, to)} at {@code resolution}: the overall total and one entry per interval. */
+    public record Aggregates(String vehicleId, RollupResolution resolution, Instant from, Instant to,
+                             Aggregate total, List<Aggregate> intervals) {
+    }
+
+    private final VehicleDataRollupRepository rollupRepository;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final Map<String, Delta> pending = new ConcurrentHashMap<>();
+    private final Duration flushInterval;
+    private final int batchSize;
+
+    private final Counter writtenCounter;
+    private final Counter failureCounter;
+    private Disposable flushes;
+
+    public VehicleDataRollupService(
+            VehicleDataRollupRepository rollupRepository,
+            ReactiveMongoTemplate mongoTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${rollup.flush-ms:5000}") long flushMs,
+            @Value("${rollup.batch-size:500}") int batchSize) {
+        this.rollupRepository = rollupRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.flushInterval = flushMs > 0 ? Duration.ofMillis(flushMs) : null;
+        this.batchSize = Math.max(1, batchSize);
+
+        Gauge.builder("rollups.pending", pending, Map::size)
+            .description("Rollup deltas waiting for the next flush")
+            .register(meterRegistry);
+        this.writtenCounter = Counter.builder("rollups.written")
+            .description("Rollup upserts written")
+            .register(meterRegistry);
+        this.failureCounter = Counter.builder("rollups.flush.failures")
+            .description("Rollup bulk writes that failed and were retried")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (flushInterval == null) {
+            return;
+        }
+        flushes = Flux.interval(flushInterval, flushInterval)
+            .concatMap(tick -> flush()
+                .doOnError(error -> log.warn("Could not write rollups, retrying on next flush: {}", error.getMessage()))
+                .onErrorResume(error -> Mono.empty()))
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flushes != null) {
+            flushes.dispose();
+        }
+        flush().block(Duration.ofSeconds(10));
+    }
+
+    /** Adds an inserted reading to the minute, hour and day rollups of its vehicle; no I/O. */
+    public void record(VehicleData data) {
+        if (data.getVehicleId() == null || data.getTimestamp() == null) {
+            return;
+        }
+        SensorSnapshot sensors = data.getSensors();
+        RiskLevel level = data.getRiskAssessment() != null ? data.getRiskAssessment().getLevel() : null;
+        for (RollupResolution resolution : RollupResolution.values()) {
+            Instant start = resolution.start(data.getTimestamp());
+            pending.compute(VehicleDataRollup.id(data.getVehicleId(), resolution, start), (id, delta) -> {
+                Delta target = delta != null ? delta : new Delta(id, data.getVehicleId(), resolution, start);
+                target.add(sensors, level);
+                return target;
+            });
+        }
+    }
+
+    /** Writes the pending deltas, {@code rollup.batch-size} upserts per bulk write. */
+    public Mono<Void> flush() {
+        List<Delta> drained = new ArrayList<>(pending.size());
+        pending.keySet().forEach(id -> {
+            Delta delta = pending.remove(id);
+            if (delta != null) {
+                drained.add(delta);
+            }
+        });
+        if (drained.isEmpty()) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(drained)
+            .buffer(batchSize)
+            .concatMap(this::write)
+            .then();
+    }
+
+    public Mono<Aggregates> aggregates(String vehicleId, RollupResolution resolution, Instant from, Instant to) {
+        return rollupRepository.findRange(vehicleId, resolution, resolution.start(from), to, OLDEST_FIRST)
+            .map(VehicleDataRollupService::toAggregate)
+            .collectList()
+            .map(intervals -> new Aggregates(vehicleId, resolution, from, to, total(intervals), intervals));
+    }
+
+    private Mono<Void> write(List<Delta> deltas) {
+        ReactiveBulkOperations operations = mongoTemplate.bulkOps(BulkMode.UNORDERED, VehicleDataRollup.class);
+        for (Delta delta : deltas) {
+            operations.upsert(Query.query(Criteria.where("_id").is(delta.id)), delta.toUpdate());
+        }
+        return operations.execute()
+            .doOnNext(result -> {
+                writtenCounter.increment(deltas.size());
+                log.debug("Wrote {} rollup(s)", deltas.size());
+            })
+            .doOnError(error -> {
+                failureCounter.increment();
+                deltas.forEach(this::requeue);
+            })
+            .then();
+    }
+
+    private void requeue(Delta failed) {
+        pending.merge(failed.id, failed, (current, retry) -> {
+            retry.merge(current);
+            return retry;
+        });
+    }
+
+    private static Aggregate toAggregate(VehicleDataRollup rollup) {
+        Map<String, SensorAggregate> sensors = new LinkedHashMap<>();
+        if (rollup.getSensors() != null) {
+            rollup.getSensors().forEach((name, stats) -> sensors.put(name,
+                sensorAggregate(stats.getCount(), stats.getSum(), stats.getMin(), stats.getMax())));
+        }
+        return new Aggregate(rollup.getStart(), rollup.getCount(), sensors,
+            rollup.getRiskLevels() != null ? rollup.getRiskLevels() : Map.of());
+    }
+
+    private static Aggregate total(List<Aggregate> intervals) {
+        long count = 0;
+        Map<String, SensorAggregate> sensors = new LinkedHashMap<>();
+        Map<String, Long> riskLevels = new LinkedHashMap<>();
+        for (Aggregate interval : intervals) {
+            count += interval.count();
+            interval.sensors().forEach((name, stats) -> sensors.merge(name, stats, (a, b) -> sensorAggregate(
+                a.count() + b.count(), a.sum() + b.sum(), Math.min(a.min(), b.min()), Math.max(a.max(), b.max()))));
+            interval.riskLevels().forEach((level, n) -> riskLevels.merge(level, n, Long::sum));
+        }
+        return new Aggregate(intervals.isEmpty() ? null : intervals.get(0).start(), count, sensors, riskLevels);
+    }
+
+    private static SensorAggregate sensorAggregate(long count, double sum, double min, double max) {
+        return new SensorAggregate(count, sum, min, max, count > 0 ? sum / count : 0);
+    }
+
+    /** Changes to one rollup since the last flush; only touched under the pending map's per-key lock. */
+    private static final class Delta {
+
+        private final String id;
+        private final String vehicleId;
+        private final RollupResolution resolution;
+        private final Instant start;
+        private long count;
+        private final Map<Sensor, double[]> sensors = new EnumMap<>(Sensor.class);
+        private final Map<RiskLevel, Long> riskLevels = new EnumMap<>(RiskLevel.class);
+
+        Delta(String id, String vehicleId, RollupResolution resolution, Instant start) {
+            this.id = id;
+            this.vehicleId = vehicleId;
+            this.resolution = resolution;
+            this.start = start;
+        }
+
+        void add(SensorSnapshot snapshot, RiskLevel level) {
+            count++;
+            if (snapshot != null) {
+                for (Sensor sensor : Sensor.values()) {
+                    if (snapshot.has(sensor)) {
+                        addSensor(sensor, 1, snapshot.value(sensor), snapshot.value(sensor), snapshot.value(sensor));
+                    }
+                }
+            }
+            if (level != null) {
+                riskLevels.merge(level, 1L, Long::sum);
+            }
+        }
+
+        void merge(Delta other) {
+            count += other.count;
+            other.sensors.forEach((sensor, stats) -> addSensor(sensor, (long) stats[0], stats[1], stats[2], stats[3]));
+            other.riskLevels.forEach((level, n) -> riskLevels.merge(level, n, Long::sum));
+        }
+
+        /** Stats are {count, sum, min, max}. */
+        private void addSensor(Sensor sensor, long n, double sum, double min, double max) {
+            double[] stats = sensors.get(sensor);
+            if (stats == null) {
+                sensors.put(sensor, new double[] {n, sum, min, max});
+                return;
+            }
+            stats[0] += n;
+            stats[1] += sum;
+            stats[2] = Math.min(stats[2], min);
+            stats[3] = Math.max(stats[3], max);
+        }
+
+        Update toUpdate() {
+            Update update = new Update()
+                .setOnInsert("vehicleId", vehicleId)
+                .setOnInsert("resolution", resolution.name())
+                .setOnInsert("start", start)
+                .inc("count", count);
+            sensors.forEach((sensor, stats) -> {
+                String field = "sensors." + sensor.fieldName();
+                update.inc(field + ".count", (long) stats[0])
+                    .inc(field + ".sum", stats[1])
+                    .min(field + ".min", stats[2])
+                    .max(field + ".max", stats[3]);
+            });
+            riskLevels.forEach((level, n) -> update.inc("riskLevels." + level.name(), n));
+            return update;
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.example.service;
 
+import com.example.model.ReadingCursor;
+import com.example.model.RollupResolution;
 import com.example.model.VehicleData;
+import com.example.model.VehicleDataFields;
+import com.example.model.VehicleDataSummary;
 import com.example.repository.VehicleDataRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
@@ -19,6 +22,13 @@ public class VehicleDataService {
 
     private final VehicleDataRepository vehicleDataRepository;
     private final RiskAssessmentService riskAssessmentService;
+    private final VehicleDataBulkWriter bulkWriter;
+    private final IdempotencyFilters idempotencyFilters;
+    private final ContractRepricer contractRepricer;
+    private final VehicleDataRollupService rollupService;
+    private final LatestVehicleDataCache latestCache;
+    private final ReadCoalescer readCoalescer;
+    private final VehicleDataSummaryService summaryService;
 
     public Mono<VehicleData> processVehicleData(VehicleData data) {
         if (data == null) {
@@ -35,65 +45,135 @@ public class VehicleDataService {
     }
 
     /**
-     * Saves vehicle data with deduplication: if a record with the same vehicleId, contractId and timestamp
-     * already exists, returns it without inserting again (idempotent for Kafka re-delivery or duplicate messages).
+     * Saves vehicle data with deduplication: the write is an upsert on (vehicleId, contractId, timestamp)
+     * batched with concurrent writes by {@link VehicleDataBulkWriter}, so a record that already exists is
+     * returned without inserting again (idempotent for Kafka re-delivery or duplicate messages).
+     * The {@link RecentKeyFilter} short-circuits the common cases: a key persisted recently is skipped
+     * without touching MongoDB, and a key that is definitely new is sent as a plain insert.
+     * Only inserted readings feed the {@link ContractRepricer}, the {@link VehicleDataRollupService}, the
+     * {@link LatestVehicleDataCache} and the {@link VehicleDataSummaryService}, so a redelivery is neither
+     * priced nor counted twice.
      */
     public Mono<VehicleData> saveVehicleData(VehicleData data) {
         if (data.getTimestamp() == null) {
             data.setTimestamp(Instant.now());
         }
-        return vehicleDataRepository
-                .findByVehicleIdAndContractIdAndTimestamp(
-                        data.getVehicleId(),
-                        data.getContractId() != null ? data.getContractId() : "",
-                        data.getTimestamp())
-                .flatMap(existing -> {
-                    log.debug("Duplicate vehicle data skipped (idempotent): vehicleId={}, contractId={}, timestamp={}",
-                            data.getVehicleId(), data.getContractId(), data.getTimestamp());
-                    return Mono.just(existing);
+        RecentKeyFilter filter = idempotencyFilters.vehicleData();
+        String key = IdempotencyFilters.businessKey(data);
+        RecentKeyFilter.Verdict verdict = filter.check(key);
+        if (verdict == RecentKeyFilter.Verdict.SEEN) {
+            log.debug("Duplicate vehicle data skipped (recently seen): vehicleId={}, contractId={}, timestamp={}",
+                    data.getVehicleId(), data.getContractId(), data.getTimestamp());
+            return Mono.just(data);
+        }
+        return bulkWriter.write(data, verdict == RecentKeyFilter.Verdict.NEW)
+                .doOnNext(result -> {
+                    filter.record(key);
+                    if (result.inserted()) {
+                        if (verdict == RecentKeyFilter.Verdict.MAYBE) {
+                            filter.falsePositive();
+                        }
+                        contractRepricer.record(data);
+                        rollupService.record(data);
+                        latestCache.record(data);
+                        summaryService.record(data);
+                        log.debug("Saved vehicle data for vehicleId: {}", data.getVehicleId());
+                    } else {
+                        log.debug("Duplicate vehicle data skipped (idempotent): vehicleId={}, contractId={}, timestamp={}",
+                                data.getVehicleId(), data.getContractId(), data.getTimestamp());
+                    }
                 })
-                .switchIfEmpty(Mono.defer(() -> vehicleDataRepository.save(data)
-                        .doOnSuccess(saved -> log.debug("Saved vehicle data for vehicleId: {}", saved.getVehicleId()))
-                        .doOnError(error -> log.error("Error saving vehicle data for vehicleId: {}", data.getVehicleId(), error))
-                        .onErrorResume(DuplicateKeyException.class, e -> {
-                            log.debug("Duplicate key (concurrent insert), returning existing: vehicleId={}, timestamp={}",
-                                    data.getVehicleId(), data.getTimestamp());
-                            return vehicleDataRepository.findByVehicleIdAndContractIdAndTimestamp(
-                                    data.getVehicleId(),
-                                    data.getContractId() != null ? data.getContractId() : "",
-                                    data.getTimestamp());
-                        })));
+                .doOnError(error -> log.error("Error saving vehicle data for vehicleId: {}", data.getVehicleId(), error))
+                .map(VehicleDataBulkWriter.WriteResult::data);
     }
 
+    /** Served by the {@link LatestVehicleDataCache}; MongoDB is only read for vehicles it does not hold. */
     public Mono<VehicleData> getLatestVehicleData(String vehicleId) {
-        log.info("Service - Fetching latest vehicle data for vehicleId: {}", vehicleId);
-        return vehicleDataRepository.findFirstByVehicleIdOrderByTimestampDesc(vehicleId)
-            .doOnSubscribe(s -> log.info("Starting database query for vehicleId: {}", vehicleId))
-            .doOnNext(data -> log.info("Found data in database: {}", data))
-            .doOnError(error -> log.error("Database error for vehicleId: {}", vehicleId, error));
+        return latestCache.get(vehicleId)
+            .doOnError(error -> log.error("Error fetching latest data for vehicleId: {}", vehicleId, error));
     }
 
-    public Flux<VehicleData> getVehicleDataHistory(String vehicleId, Pageable pageable) {
+    /** A page of the history, newest first; {@code fields} restricts the readings, {@code null} reads them whole. */
+    public Flux<VehicleData> getVehicleDataHistory(String vehicleId, Pageable pageable, VehicleDataFields fields) {
         log.debug("Fetching vehicle data history for vehicleId: {} with pageable: {}", vehicleId, pageable);
-        return vehicleDataRepository.findByVehicleIdOrderByTimestampDesc(vehicleId, pageable)
+        return readCoalescer.flux(ReadCoalescer.Key.of("history", vehicleId, pageable, fields),
+                () -> vehicleDataRepository.findByVehicleIdOrderByTimestampDesc(vehicleId, pageable, fields)
+                    .map(VehicleData::materialize))
+            .doOnComplete(() -> log.debug("Completed fetching history for vehicleId: {}", vehicleId))
+            .doOnError(error -> log.error("Error fetching history for vehicleId: {}", vehicleId, error));
+    }
+
+    /**
+     * A page of the history, newest first, continuing right after {@code after} (from the latest reading
+     * when null). Keyset pagination: no count and no skip, whatever the depth of the page. A page after a
+     * settled cursor only holds old readings, so it may be served from the {@link ReadCoalescer} cache.
+     */
+    public Flux<VehicleData> getVehicleDataHistory(String vehicleId, ReadingCursor after, int size, VehicleDataFields fields) {
+        log.debug("Fetching vehicle data history for vehicleId: {} after {} (size {}, fields {})", vehicleId, after, size, fields);
+        return readCoalescer.flux(ReadCoalescer.Key.of("history", vehicleId, after, size, fields),
+                after != null ? after.timestamp() : null,
+                () -> vehicleDataRepository.findByVehicleIdBefore(vehicleId, after, size, fields)
+                    .map(VehicleData::materialize))
             .doOnComplete(() -> log.debug("Completed fetching history for vehicleId: {}", vehicleId))
             .doOnError(error -> log.error("Error fetching history for vehicleId: {}", vehicleId, error));
     }
 
     public Flux<VehicleData> getVehicleDataByTimeRange(String vehicleId, Instant startTime, Instant endTime) {
-        log.debug("Fetching vehicle data for vehicleId: {} between {} and {}", vehicleId, startTime, endTime);
-        return vehicleDataRepository.findByVehicleIdAndTimestampBetween(vehicleId, startTime, endTime)
+        return getVehicleDataByTimeRange(vehicleId, startTime, endTime, null, null);
+    }
+
+    private Flux<VehicleData> readTimeRange(String vehicleId, Instant startTime, Instant endTime, VehicleDataFields fields) {
+        log.debug("Fetching vehicle data for vehicleId: {} between {} and {} (fields {})", vehicleId, startTime, endTime, fields);
+        return vehicleDataRepository.findByVehicleIdAndTimestampBetween(vehicleId, startTime, endTime, fields)
             .doOnComplete(() -> log.debug("Completed fetching time range data for vehicleId: {}", vehicleId))
             .doOnError(error -> log.error("Error fetching time range data for vehicleId: {}", vehicleId, error));
     }
 
+    /**
+     * Time range reduced on the fly by {@link TelemetryDownsampler}; readings are streamed through it
+     * oldest first, never collected. A {@code null} spec returns the raw range. With {@code fields} only the
+     * selected fields are read, plus the sensor the downsampler follows.
+     * <p>
+     * Identical requests in flight share one read through the {@link ReadCoalescer}; ranges that ended
+     * long enough ago are cached there too. Shared readings are {@link VehicleData#materialize materialized}
+     * first, as their lazy getters would otherwise write from every request thread.
+     */
+    public Flux<VehicleData> getVehicleDataByTimeRange(String vehicleId, Instant startTime, Instant endTime,
+                                                       TelemetryDownsampler.Spec downsampling, VehicleDataFields fields) {
+        return readCoalescer.flux(ReadCoalescer.Key.of("timerange", vehicleId, startTime, endTime, downsampling, fields), endTime,
+            () -> {
+                if (downsampling == null) {
+                    return readTimeRange(vehicleId, startTime, endTime, fields).map(VehicleData::materialize);
+                }
+                log.debug("Downsampling vehicle data for vehicleId: {} between {} and {} ({})", vehicleId, startTime, endTime, downsampling);
+                VehicleDataFields read = fields != null ? fields.with(downsampling.sensor()) : null;
+                return TelemetryDownsampler.downsample(readTimeRange(vehicleId, startTime, endTime, read), downsampling, startTime)
+                    .map(VehicleData::materialize);
+            });
+    }
+
+    /** Read from the vehicle's {@link VehicleDataSummaryService} summary: one lookup whatever its history. */
     public Mono<Long> getVehicleDataCount(String vehicleId) {
         log.debug("Counting records for vehicleId: {}", vehicleId);
-        return vehicleDataRepository.countByVehicleId(vehicleId)
+        return readCoalescer.mono(ReadCoalescer.Key.of("count", vehicleId), () -> summaryService.count(vehicleId))
             .doOnSuccess(count -> log.debug("Found {} records for vehicleId: {}", count, vehicleId))
             .doOnError(error -> log.error("Error counting records for vehicleId: {}", vehicleId, error));
     }
 
+    /** Reading count and first/last reading time of the vehicle; empty when it has no reading. */
+    public Mono<VehicleDataSummary> getVehicleDataSummary(String vehicleId) {
+        log.debug("Fetching summary for vehicleId: {}", vehicleId);
+        return summaryService.summary(vehicleId)
+            .doOnError(error -> log.error("Error fetching summary for vehicleId: {}", vehicleId, error));
+    }
+
+    public Mono<VehicleDataRollupService.Aggregates> getVehicleDataAggregates(
+            String vehicleId, RollupResolution resolution, Instant startTime, Instant endTime) {
+        log.debug("Fetching {} aggregates for vehicleId: {} between {} and {}", resolution, vehicleId, startTime, endTime);
+        return rollupService.aggregates(vehicleId, resolution, startTime, endTime)
+            .doOnError(error -> log.error("Error fetching aggregates for vehicleId: {}", vehicleId, error));
+    }
+
     public Mono<Boolean> checkDatabaseConnection() {
         return vehicleDataRepository.count()
             .map(count -> {
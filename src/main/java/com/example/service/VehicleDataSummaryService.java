@@ -0,0 +1,393 @@
+package com.example.service;
+
+import com.example.model.VehicleData;
+import com.example.model.VehicleDataSummary;
+import com.example.repository.VehicleDataRepository;
+import com.example.repository.VehicleDataSummaryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Per-vehicle {@link VehicleDataSummary}s (reading count, first and last reading time), so counts are
+ * one lookup by id instead of an index range count over the vehicle's whole history.
+ * <p>
+ * Like the rollups, each inserted reading only updates an in-memory delta per vehicle; every
+ * {@code summary.flush-ms} the deltas are written as unordered bulks of upserts ({@code $inc} count,
+ * {@code $min}/{@code $max} timestamps), {@code summary.batch-size} per bulk, and a failed bulk is put
+ * back for the next flush. Reads add this instance's pending delta to the stored summary. A vehicle
+ * without a summary yet (readings stored before summaries existed) is summarized from its readings,
+ * both on read and before its first delta is written: the summary is inserted from its readings, which
+ * already include the delta's, so the delta does not start a count from zero.
+ * <p>
+ * Every {@code summary.reconcile-ms} (first run {@code summary.reconcile-delay-ms} after startup, 0 to
+ * disable) each vehicle's summary is recomputed from its readings and corrected when it drifted, e.g.
+ * after a lost flush or a direct write to the readings. The correction is conditional on the stored
+ * count read before recomputing, so a flush landing in between is never overwritten; that vehicle is
+ * left for the next pass. Only the instance holding the {@code summary-reconcile} lease in
+ * {@value #LEASE_COLLECTION} runs a pass; the lease lasts half the interval. Readings ingested while a
+ * vehicle is being seeded or recomputed can leave it off by a flush interval's worth until the next pass.
+ */
+@Slf4j
+@Component
+public class VehicleDataSummaryService {
+
+    static final String LEASE_COLLECTION = "scheduled_leases";
+    private static final String RECONCILE_LEASE = "summary-reconcile";
+
+    private final VehicleDataSummaryRepository summaryRepository;
+    private final VehicleDataRepository vehicleDataRepository;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final Map<String, Delta> pending = new ConcurrentHashMap<>();
+    private final Duration flushInterval;
+    private final int batchSize;
+    private final Duration reconcileInterval;
+    private final Duration reconcileDelay;
+    private final int reconcileConcurrency;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Counter writtenCounter;
+    private final Counter failureCounter;
+    private final Counter repairedCounter;
+    private Disposable flushes;
+    private Disposable reconciliations;
+
+    public VehicleDataSummaryService(
+            VehicleDataSummaryRepository summaryRepository,
+            VehicleDataRepository vehicleDataRepository,
+            ReactiveMongoTemplate mongoTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${summary.flush-ms:5000}") long flushMs,
+            @Value("${summary.batch-size:500}") int batchSize,
+            @Value("${summary.reconcile-ms:86400000}") long reconcileMs,
+            @Value("${summary.reconcile-delay-ms:60000}") long reconcileDelayMs,
+            @Value("${summary.reconcile-concurrency:4}") int reconcileConcurrency) {
+        this.summaryRepository = summaryRepository;
+        this.vehicleDataRepository = vehicleDataRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.flushInterval = flushMs > 0 ? Duration.ofMillis(flushMs) : null;
+        this.batchSize = Math.max(1, batchSize);
+        this.reconcileInterval = reconcileMs > 0 ? Duration.ofMillis(reconcileMs) : null;
+        this.reconcileDelay = Duration.ofMillis(Math.max(0, reconcileDelayMs));
+        this.reconcileConcurrency = Math.max(1, reconcileConcurrency);
+
+        Gauge.builder("summaries.pending", pending, Map::size)
+            .description("Vehicle summary deltas waiting for the next flush")
+            .register(meterRegistry);
+        this.writtenCounter = Counter.builder("summaries.written")
+            .description("Vehicle summary upserts written")
+            .register(meterRegistry);
+        this.failureCounter = Counter.builder("summaries.flush.failures")
+            .description("Vehicle summary bulk writes that failed and were retried")
+            .register(meterRegistry);
+        this.repairedCounter = Counter.builder("summaries.reconcile.repaired")
+            .description("Vehicle summaries rewritten by reconciliation because they had drifted")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (flushInterval != null) {
+            flushes = Flux.interval(flushInterval, flushInterval)
+                .concatMap(tick -> flush()
+                    .doOnError(error -> log.warn("Could not write vehicle summaries, retrying on next flush: {}", error.getMessage()))
+                    .onErrorResume(error -> Mono.empty()))
+                .subscribe();
+        }
+        if (reconcileInterval != null) {
+            reconciliations = Flux.interval(reconcileDelay, reconcileInterval)
+                .concatMap(tick -> reconcileIfLeaseHeld()
+                    .doOnError(error -> log.warn("Vehicle summary reconciliation failed, retrying on next run: {}", error.getMessage()))
+                    .onErrorResume(error -> Mono.empty()))
+                .subscribe();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (reconciliations != null) {
+            reconciliations.dispose();
+        }
+        if (flushes != null) {
+            flushes.dispose();
+        }
+        flush().block(Duration.ofSeconds(10));
+    }
+
+    /** Adds an inserted reading to its vehicle's pending delta; no I/O. */
+    public void record(VehicleData data) {
+        if (data.getVehicleId() == null || data.getTimestamp() == null) {
+            return;
+        }
+        pending.compute(data.getVehicleId(), (vehicleId, delta) -> {
+            Delta target = delta != null ? delta : new Delta(vehicleId);
+            target.add(1, data.getTimestamp(), data.getTimestamp());
+            return target;
+        });
+    }
+
+    /** The vehicle's summary, empty when it has no reading. */
+    public Mono<VehicleDataSummary> summary(String vehicleId) {
+        return summaryRepository.findById(vehicleId)
+            .map(this::withPending)
+            .switchIfEmpty(Mono.defer(() -> {
+                log.debug("No summary for vehicleId: {}, summarizing its readings", vehicleId);
+                return summarize(vehicleId);
+            }));
+    }
+
+    /** Number of readings of the vehicle. */
+    public Mono<Long> count(String vehicleId) {
+        return summary(vehicleId)
+            .map(VehicleDataSummary::getCount)
+            .defaultIfEmpty(0L);
+    }
+
+    /** Writes the pending deltas, {@code summary.batch-size} upserts per bulk write. */
+    public Mono<Void> flush() {
+        List<Delta> drained = new ArrayList<>(pending.size());
+        pending.keySet().forEach(vehicleId -> {
+            Delta delta = pending.remove(vehicleId);
+            if (delta != null) {
+                drained.add(delta);
+            }
+        });
+        if (drained.isEmpty()) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(drained)
+            .buffer(batchSize)
+            .concatMap(this::write)
+            .then();
+    }
+
+    /** Recomputes every vehicle's summary from its readings and rewrites those that drifted. */
+    public Mono<Long> reconcile() {
+        return flush()
+            .thenMany(vehicleDataRepository.findDistinctVehicleIds())
+            .flatMap(this::reconcile, reconcileConcurrency)
+            .filter(Boolean::booleanValue)
+            .count()
+            .elapsed()
+            .doOnNext(run -> log.info("Reconciled vehicle summaries in {} ms, {} repaired", run.getT1(), run.getT2()))
+            .map(Tuple2::getT2);
+    }
+
+    /**
+     * {@link #reconcile()} when this instance takes the reconciliation lease, empty when another instance
+     * holds it. The lease is not released after the run, so the other instances skip this interval too.
+     */
+    Mono<Long> reconcileIfLeaseHeld() {
+        Instant now = Instant.now();
+        Query expired = Query.query(Criteria.where("_id").is(RECONCILE_LEASE).and("until").lt(now));
+        Update take = new Update()
+            .set("owner", instanceId)
+            .set("until", now.plus(reconcileInterval.dividedBy(2)));
+        return mongoTemplate.upsert(expired, take, LEASE_COLLECTION)
+            .thenReturn(true)
+            // Held by another instance: the filter missed and the upsert collided with its lease
+            .onErrorResume(IdempotencyFilters::isDuplicateKey, held -> Mono.just(false))
+            .flatMap(acquired -> {
+                if (!acquired) {
+                    log.debug("Vehicle summary reconciliation runs on another instance");
+                    return Mono.empty();
+                }
+                return reconcile();
+            });
+    }
+
+    private Mono<Boolean> reconcile(String vehicleId) {
+        return summaryRepository.findById(vehicleId)
+            .map(Optional::of)
+            .defaultIfEmpty(Optional.empty())
+            .flatMap(stored -> summarize(vehicleId)
+                .filter(actual -> stored.isEmpty() || !sameSummary(stored.get(), actual))
+                .flatMap(actual -> repair(stored.orElse(null), actual)))
+            .defaultIfEmpty(false);
+    }
+
+    /**
+     * Moves the stored summary to the recomputed one, unless a flush changed its count since it was read;
+     * {@code $inc} of the difference under that condition. Returns whether it was repaired.
+     */
+    private Mono<Boolean> repair(VehicleDataSummary stored, VehicleDataSummary actual) {
+        Mono<Boolean> written;
+        if (stored == null) {
+            written = mongoTemplate.insert(actual)
+                .thenReturn(true)
+                .onErrorResume(IdempotencyFilters::isDuplicateKey, flushed -> Mono.just(false));
+        } else {
+            Query unchanged = Query.query(Criteria.where("_id").is(actual.getVehicleId()).and("count").is(stored.getCount()));
+            Update correction = new Update()
+                .inc("count", actual.getCount() - stored.getCount())
+                .set("firstTimestamp", actual.getFirstTimestamp())
+                .set("lastTimestamp", actual.getLastTimestamp());
+            written = mongoTemplate.updateFirst(unchanged, correction, VehicleDataSummary.class)
+                .map(result -> result.getModifiedCount() > 0);
+        }
+        return written.doOnNext(repaired -> {
+            if (repaired) {
+                repairedCounter.increment();
+                log.debug("Repaired summary of vehicleId: {} to {}", actual.getVehicleId(), actual);
+            } else {
+                log.debug("Summary of vehicleId: {} changed while it was recomputed, left for the next pass", actual.getVehicleId());
+            }
+        });
+    }
+
+    /** The summary computed from the readings themselves: an index count and the two ends of the index. */
+    private Mono<VehicleDataSummary> summarize(String vehicleId) {
+        return vehicleDataRepository.countByVehicleId(vehicleId)
+            .filter(count -> count > 0)
+            .flatMap(count -> Mono.zip(
+                vehicleDataRepository.streamByVehicleId(vehicleId, null, null, null, 1).next().map(VehicleData::getTimestamp),
+                vehicleDataRepository.findFirstByVehicleIdOrderByTimestampDesc(vehicleId).map(VehicleData::getTimestamp),
+                (first, last) -> new VehicleDataSummary(vehicleId, count, first, last)));
+    }
+
+    private VehicleDataSummary withPending(VehicleDataSummary stored) {
+        Delta delta = pending.get(stored.getVehicleId());
+        if (delta == null) {
+            return stored;
+        }
+        synchronized (delta) {
+            return new VehicleDataSummary(stored.getVehicleId(), stored.getCount() + delta.count,
+                earliest(stored.getFirstTimestamp(), delta.first), latest(stored.getLastTimestamp(), delta.last));
+        }
+    }
+
+    /**
+     * Seeds the summaries of the batch's vehicles that have none, then increments the others. A delta is
+     * requeued unless it was written or covered by its vehicle's seeded summary.
+     */
+    private Mono<Void> write(List<Delta> deltas) {
+        return summaryRepository.findAllById(deltas.stream().map(delta -> delta.vehicleId).toList())
+            .map(VehicleDataSummary::getVehicleId)
+            .collect(Collectors.toSet())
+            .doOnError(error -> {
+                failureCounter.increment();
+                deltas.forEach(this::requeue);
+            })
+            .flatMapMany(summarized -> Flux.fromIterable(deltas)
+                .flatMap(delta -> summarized.contains(delta.vehicleId) ? Mono.just(delta) : seed(delta), reconcileConcurrency))
+            .collectList()
+            .flatMap(this::increment);
+    }
+
+    /**
+     * Inserts the summary of a vehicle without one from its readings, which include the delta's own.
+     * Returns the delta when it still has to be applied: another instance seeded the summary first, or
+     * its readings are not visible yet.
+     */
+    private Mono<Delta> seed(Delta delta) {
+        return summarize(delta.vehicleId)
+            .flatMap(actual -> mongoTemplate.insert(actual)
+                .doOnNext(seeded -> log.debug("Seeded summary of vehicleId: {} from its readings: {}", delta.vehicleId, seeded))
+                .thenReturn(Optional.<Delta>empty())
+                .onErrorResume(IdempotencyFilters::isDuplicateKey, seededElsewhere -> Mono.just(Optional.of(delta))))
+            .defaultIfEmpty(Optional.of(delta))
+            .flatMap(Mono::justOrEmpty)
+            .onErrorResume(error -> {
+                log.warn("Could not seed summary of vehicleId: {}, retrying on next flush: {}", delta.vehicleId, error.getMessage());
+                failureCounter.increment();
+                requeue(delta);
+                return Mono.empty();
+            });
+    }
+
+    private Mono<Void> increment(List<Delta> deltas) {
+        if (deltas.isEmpty()) {
+            return Mono.empty();
+        }
+        ReactiveBulkOperations operations = mongoTemplate.bulkOps(BulkMode.UNORDERED, VehicleDataSummary.class);
+        for (Delta delta : deltas) {
+            operations.upsert(Query.query(Criteria.where("_id").is(delta.vehicleId)), delta.toUpdate());
+        }
+        return operations.execute()
+            .doOnNext(result -> {
+                writtenCounter.increment(deltas.size());
+                log.debug("Wrote {} vehicle summaries", deltas.size());
+            })
+            .doOnError(error -> {
+                failureCounter.increment();
+                deltas.forEach(this::requeue);
+            })
+            .then();
+    }
+
+    private void requeue(Delta failed) {
+        pending.merge(failed.vehicleId, failed, (current, retry) -> {
+            retry.add(current.count, current.first, current.last);
+            return retry;
+        });
+    }
+
+    private static boolean sameSummary(VehicleDataSummary stored, VehicleDataSummary actual) {
+        return stored.getCount() == actual.getCount()
+            && Objects.equals(stored.getFirstTimestamp(), actual.getFirstTimestamp())
+            && Objects.equals(stored.getLastTimestamp(), actual.getLastTimestamp());
+    }
+
+    private static Instant earliest(Instant a, Instant b) {
+        return a == null || b != null && b.isBefore(a) ? b : a;
+    }
+
+    private static Instant latest(Instant a, Instant b) {
+        return a == null || b != null && b.isAfter(a) ? b : a;
+    }
+
+    /**
+     * Readings of one vehicle since the last flush. Updated under the pending map's per-key lock, and
+     * synchronized so reads see a consistent count and range.
+     */
+    private static final class Delta {
+
+        private final String vehicleId;
+        private long count;
+        private Instant first;
+        private Instant last;
+
+        Delta(String vehicleId) {
+            this.vehicleId = vehicleId;
+        }
+
+        synchronized void add(long n, Instant from, Instant to) {
+            count += n;
+            first = earliest(first, from);
+            last = latest(last, to);
+        }
+
+        Update toUpdate() {
+            return new Update()
+                .inc("count", count)
+                .min("firstTimestamp", first)
+                .max("lastTimestamp", last);
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package com.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Off-heap store of fixed-size per-vehicle records, keyed by vehicle id.
+ * <p>
+ * The store is split into segments by vehicle id hash; each segment is an open-addressing hash table
+ * of {@link #SLOT_BYTES}-byte slots (key, last access, then {@link #VALUE_BYTES} of caller-defined
+ * value) in one memory-mapped file under {@code state.path}, with its own lock. Reopening a segment
+ * only maps the file, so a restarted instance has its state back without replaying history; with an
+ * empty {@code state.path} the segments are direct buffers and nothing survives a restart.
+ * <p>
+ * Every {@code state.checkpoint-ms} the Kafka offsets handed to {@link #recordConsumed} are captured,
+ * the mapped files are forced to disk, then the offsets are written to {@code checkpoint.properties}.
+ * Everything consumed before a checkpoint's offsets is therefore on disk; the consumer seeks back to
+ * them on startup to cover what a machine crash may have lost since. Slots whose vehicle has not been
+ * seen for {@code state.ttl-ms} are reused by new vehicles; once a segment is full, new vehicles are
+ * not tracked.
+ */
+@Slf4j
+@Component
+public class VehicleStateStore {
+
+    public static final int SLOT_BYTES = 320;
+    public static final int MAX_KEY_BYTES = 54;
+    public static final int VALUE_OFFSET = 72;
+    public static final int VALUE_BYTES = SLOT_BYTES - VALUE_OFFSET;
+
+    private static final int HEADER_BYTES = 64;
+    private static final int MAGIC = 0x56535431;
+    private static final int VERSION = 1;
+    private static final String CHECKPOINT_FILE = "checkpoint.properties";
+
+    // Slot layout: used flag, key hash, last access time, key length, key bytes, value
+    private static final int USED = 0;
+    private static final int HASH = 4;
+    private static final int TOUCHED = 8;
+    private static final int KEY_LENGTH = 16;
+    private static final int KEY = 18;
+
+    private final Path directory;
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final long ttlMillis;
+    private final Duration checkpointInterval;
+    private final Map<TopicPartition, Long> consumed = new ConcurrentHashMap<>();
+    private volatile Map<TopicPartition, Long> checkpointed;
+
+    private final Counter untrackedCounter;
+    private final Timer checkpointTimer;
+    private Disposable checkpoints;
+
+    public VehicleStateStore(
+            MeterRegistry meterRegistry,
+            @Value("${state.path:}") String path,
+            @Value("${state.shards:16}") int shards,
+            @Value("${state.max-vehicles:500000}") int maxVehicles,
+            @Value("${state.ttl-ms:604800000}") long ttlMillis,
+            @Value("${state.checkpoint-ms:10000}") long checkpointMs) {
+        this.directory = path.isBlank() ? null : Path.of(path);
+        int count = Integer.highestOneBit(Math.max(1, shards) * 2 - 1);
+        this.segments = new Segment[count];
+        this.segmentMask = count - 1;
+        this.ttlMillis = ttlMillis;
+        this.checkpointInterval = checkpointMs > 0 && directory != null ? Duration.ofMillis(checkpointMs) : null;
+        int perSegment = Math.max(1, (maxVehicles + count - 1) / count);
+        try {
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+            for (int i = 0; i < count; i++) {
+                segments[i] = openSegment(i, perSegment);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open vehicle state store in " + directory, e);
+        }
+        this.checkpointed = readCheckpoint();
+
+        Gauge.builder("state.store.vehicles", this, VehicleStateStore::size)
+            .description("Vehicles with a record in the state store")
+            .register(meterRegistry);
+        Gauge.builder("state.store.bytes", this, store -> (double) store.capacityBytes())
+            .description("Off-heap bytes reserved by the state store")
+            .register(meterRegistry);
+        this.untrackedCounter = Counter.builder("state.store.untracked")
+            .description("Lookups of vehicles that could not be given a record (store full or id too long)")
+            .register(meterRegistry);
+        this.checkpointTimer = Timer.builder("state.store.checkpoint")
+            .description("Duration of state store checkpoints")
+            .register(meterRegistry);
+        log.info("Vehicle state store: {} segment(s) of {} slot(s), {} vehicle(s) restored, {}",
+            count, segments[0].capacity, size(), directory != null ? "files in " + directory : "in memory");
+    }
+
+    @PostConstruct
+    public void start() {
+        if (checkpointInterval == null) {
+            return;
+        }
+        checkpoints = Flux.interval(checkpointInterval, checkpointInterval, Schedulers.boundedElastic())
+            .subscribe(tick -> {
+                try {
+                    checkpoint();
+                } catch (RuntimeException e) {
+                    log.warn("Vehicle state checkpoint failed: {}", e.getMessage());
+                }
+            });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (checkpoints != null) {
+            checkpoints.dispose();
+        }
+        if (directory != null) {
+            checkpoint();
+        }
+    }
+
+    /** The segment holding {@code vehicleId}; lock it for the whole read-modify-write of a record. */
+    public Segment segment(String vehicleId) {
+        return segments[spread(vehicleId.hashCode()) & segmentMask];
+    }
+
+    /** Notes the next offset to consume per partition, once the records before it are processed. */
+    public void recordConsumed(Map<TopicPartition, Long> nextOffsets) {
+        nextOffsets.forEach((partition, offset) -> consumed.merge(partition, offset, Math::max));
+    }
+
+    /** Offsets of the last completed checkpoint (empty when there is none). */
+    public Map<TopicPartition, Long> checkpointedOffsets() {
+        return checkpointed;
+    }
+
+    /** Forces the records to disk and then persists the offsets consumed before the force. */
+    public void checkpoint() {
+        if (directory == null) {
+            return;
+        }
+        checkpointTimer.record(() -> {
+            Map<TopicPartition, Long> offsets = new HashMap<>(checkpointed);
+            offsets.putAll(consumed);
+            for (Segment segment : segments) {
+                ((MappedByteBuffer) segment.buffer).force();
+            }
+            writeCheckpoint(offsets);
+            checkpointed = Map.copyOf(offsets);
+        });
+    }
+
+    public int size() {
+        int total = 0;
+        for (Segment segment : segments) {
+            total += segment.buffer.getInt(Segment.COUNT);
+        }
+        return total;
+    }
+
+    public long capacityBytes() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.buffer.capacity();
+        }
+        return total;
+    }
+
+    private Segment openSegment(int index, int maxEntries) throws IOException {
+        int capacity = Integer.highestOneBit(Math.max(2, (int) Math.ceil(maxEntries / 0.75)) * 2 - 1);
+        long bytes = HEADER_BYTES + (long) capacity * SLOT_BYTES;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("State segment too large; increase state.shards");
+        }
+        ByteBuffer buffer;
+        if (directory == null) {
+            buffer = ByteBuffer.allocateDirect((int) bytes);
+        } else {
+            Path file = directory.resolve("vehicle-state-" + index + ".dat");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                if (channel.size() > 0 && !(channel.size() == bytes && Segment.matches(channel, capacity))) {
+                    log.warn("Discarding incompatible vehicle state file {} (layout or capacity changed)", file);
+                    channel.truncate(0);
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            }
+        }
+        Segment segment = new Segment(buffer, capacity, maxEntries);
+        segment.initHeader();
+        return segment;
+    }
+
+    private Map<TopicPartition, Long> readCheckpoint() {
+        if (directory == null || !Files.exists(directory.resolve(CHECKPOINT_FILE))) {
+            return Map.of();
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(directory.resolve(CHECKPOINT_FILE), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            log.warn("Could not read vehicle state checkpoint: {}", e.getMessage());
+            return Map.of();
+        }
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith("offset.")) {
+                String partition = name.substring("offset.".length());
+                int dash = partition.lastIndexOf('-');
+                offsets.put(new TopicPartition(partition.substring(0, dash), Integer.parseInt(partition.substring(dash + 1))),
+                    Long.parseLong(properties.getProperty(name)));
+            }
+        }
+        return Map.copyOf(offsets);
+    }
+
+    private void writeCheckpoint(Map<TopicPartition, Long> offsets) {
+        Properties properties = new Properties();
+        offsets.forEach((partition, offset) -> properties.setProperty("offset." + partition, Long.toString(offset)));
+        properties.setProperty("vehicles", Integer.toString(size()));
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                properties.store(writer, "Vehicle state checkpoint");
+            }
+            Files.move(temp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write vehicle state checkpoint", e);
+        }
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    /** One hash table; callers synchronize on it around {@link #find} and the record access. */
+    public final class Segment {
+
+        private static final int COUNT = 16;
+
+        private final ByteBuffer buffer;
+        private final int capacity;
+        private final int maxEntries;
+
+        private Segment(ByteBuffer buffer, int capacity, int maxEntries) {
+            this.buffer = buffer;
+            this.capacity = capacity;
+            this.maxEntries = maxEntries;
+        }
+
+        public ByteBuffer buffer() {
+            return buffer;
+        }
+
+        /**
+         * Offset of the value of {@code vehicleId}'s record in {@link #buffer()}, creating a zeroed record
+         * if needed; {@code -1} when the vehicle cannot be tracked.
+         */
+        public int find(String vehicleId, long now) {
+            byte[] key = vehicleId.getBytes(StandardCharsets.UTF_8);
+            if (key.length > MAX_KEY_BYTES) {
+                untrackedCounter.increment();
+                return -1;
+            }
+            int hash = vehicleId.hashCode();
+            int mask = capacity - 1;
+            int reusable = -1;
+            for (int probe = 0, index = spread(hash) >>> 8 & mask; probe < capacity; probe++, index = (index + 1) & mask) {
+                int slot = HEADER_BYTES + index * SLOT_BYTES;
+                if (buffer.getInt(slot + USED) == 0) {
+                    if (reusable >= 0) {
+                        return claim(reusable, hash, key, now);
+                    }
+                    if (buffer.getInt(COUNT) >= maxEntries) {
+                        untrackedCounter.increment();
+                        return -1;
+                    }
+                    buffer.putInt(COUNT, buffer.getInt(COUNT) + 1);
+                    return claim(slot, hash, key, now);
+                }
+                if (buffer.getInt(slot + HASH) == hash && keyEquals(slot, key)) {
+                    buffer.putLong(slot + TOUCHED, now);
+                    return slot + VALUE_OFFSET;
+                }
+                if (reusable < 0 && ttlMillis > 0 && now - buffer.getLong(slot + TOUCHED) > ttlMillis) {
+                    reusable = slot;
+                }
+            }
+            if (reusable >= 0) {
+                return claim(reusable, hash, key, now);
+            }
+            untrackedCounter.increment();
+            return -1;
+        }
+
+        private int claim(int slot, int hash, byte[] key, long now) {
+            for (int i = VALUE_OFFSET; i < SLOT_BYTES; i += 8) {
+                buffer.putLong(slot + i, 0L);
+            }
+            buffer.putInt(slot + HASH, hash);
+            buffer.putLong(slot + TOUCHED, now);
+            buffer.putShort(slot + KEY_LENGTH, (short) key.length);
+            buffer.put(slot + KEY, key);
+            buffer.putInt(slot + USED, 1);
+            return slot + VALUE_OFFSET;
+        }
+
+        private boolean keyEquals(int slot, byte[] key) {
+            if (buffer.getShort(slot + KEY_LENGTH) != key.length) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (buffer.get(slot + KEY + i) != key[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void initHeader() {
+            if (buffer.getInt(0) == MAGIC) {
+                return;
+            }
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, SLOT_BYTES);
+            buffer.putInt(12, capacity);
+            buffer.putInt(COUNT, 0);
+        }
+
+        private static boolean matches(FileChannel channel, int capacity) throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(16);
+            channel.read(header, 0);
+            return header.getInt(0) == MAGIC && header.getInt(4) == VERSION
+                && header.getInt(8) == SLOT_BYTES && header.getInt(12) == capacity;
+        }
+    }
+}
@@ -1,23 +1,43 @@
 package com.example.controller;
 
+import com.example.config.TestSecurityConfig;
+import com.example.model.ReadingCursor;
+import com.example.model.RollupResolution;
+import com.example.model.Sensor;
 import com.example.model.VehicleData;
+import com.example.model.VehicleDataFields;
+import com.example.model.VehicleDataSummary;
+import com.example.service.LiveTelemetryHub;
+import com.example.service.TelemetryDownsampler;
+import com.example.service.VehicleDataExporter;
+import com.example.service.VehicleDataRollupService;
 import com.example.service.VehicleDataService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebFluxTest(VehicleDataController.class)
+@Import(TestSecurityConfig.class)
+@ActiveProfiles("test")
 class VehicleDataControllerTest {
 
     @Autowired
@@ -26,6 +46,12 @@ class VehicleDataControllerTest {
     @MockBean
     private VehicleDataService vehicleDataService;
 
+    @MockBean
+    private LiveTelemetryHub liveTelemetryHub;
+
+    @MockBean
+    private VehicleDataExporter vehicleDataExporter;
+
     @Test
     void shouldGetLatestVehicleData() {
         String vehicleId = "TEST-001";
@@ -39,7 +65,7 @@ class VehicleDataControllerTest {
             .exchange()
             .expectStatus().isOk()
             .expectBody()
-            .jsonPath("$.vehicleId").isEqualTo(vehicleId);
+            .jsonPath("$.vehicle_id").isEqualTo(vehicleId);
     }
 
     @Test
@@ -60,17 +86,62 @@ class VehicleDataControllerTest {
         String vehicleId = "TEST-001";
         VehicleData testData = createTestVehicleData(vehicleId);
         
-        when(vehicleDataService.getVehicleDataHistory(eq(vehicleId), any(PageRequest.class)))
+        when(vehicleDataService.getVehicleDataHistory(vehicleId, null, 20, null))
             .thenReturn(Flux.just(testData));
 
         webTestClient.get()
             .uri("/api/vehicle-data/{vehicleId}?page=0&size=20", vehicleId)
             .exchange()
             .expectStatus().isOk()
+            .expectHeader().doesNotExist(VehicleDataController.NEXT_CURSOR_HEADER)
             .expectBodyList(VehicleData.class)
             .hasSize(1);
     }
 
+    @Test
+    void shouldPageHistoryWithCursor() {
+        String vehicleId = "TEST-001";
+        VehicleData newest = createTestVehicleData(vehicleId);
+        VehicleData older = createTestVehicleData(vehicleId);
+        older.setContractId("CONTRACT-001");
+        // Cursors carry millisecond timestamps, like the stored readings
+        older.setTimestamp(Instant.parse("2024-01-01T00:00:00Z"));
+        ReadingCursor cursor = ReadingCursor.of(older);
+
+        when(vehicleDataService.getVehicleDataHistory(vehicleId, null, 2, null))
+            .thenReturn(Flux.just(newest, older));
+        when(vehicleDataService.getVehicleDataHistory(vehicleId, cursor, 2, null))
+            .thenReturn(Flux.just(createTestVehicleData(vehicleId)));
+
+        String next = webTestClient.get()
+            .uri("/api/vehicle-data/{vehicleId}?size=2", vehicleId)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals(VehicleDataController.NEXT_CURSOR_HEADER, cursor.encode())
+            .returnResult(VehicleData.class)
+            .getResponseHeaders().getFirst(VehicleDataController.NEXT_CURSOR_HEADER);
+
+        webTestClient.get()
+            .uri("/api/vehicle-data/{vehicleId}?size=2&cursor={cursor}", vehicleId, next)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().doesNotExist(VehicleDataController.NEXT_CURSOR_HEADER)
+            .expectBodyList(VehicleData.class)
+            .hasSize(1);
+        verify(vehicleDataService, never()).getVehicleDataCount(vehicleId);
+    }
+
+    @Test
+    void shouldReturn404WhenNoHistoryFound() {
+        when(vehicleDataService.getVehicleDataHistory("NONEXISTENT", null, 20, null))
+            .thenReturn(Flux.empty());
+
+        webTestClient.get()
+            .uri("/api/vehicle-data/{vehicleId}", "NONEXISTENT")
+            .exchange()
+            .expectStatus().isNotFound();
+    }
+
     @Test
     void shouldGetVehicleDataByTimeRange() {
         String vehicleId = "TEST-001";
@@ -78,7 +149,7 @@ class VehicleDataControllerTest {
         Instant startTime = Instant.parse("2024-01-01T00:00:00Z");
         Instant endTime = Instant.parse("2024-01-02T00:00:00Z");
         
-        when(vehicleDataService.getVehicleDataByTimeRange(vehicleId, startTime, endTime))
+        when(vehicleDataService.getVehicleDataByTimeRange(vehicleId, startTime, endTime, null, null))
             .thenReturn(Flux.just(testData));
 
         webTestClient.get()
@@ -93,6 +164,110 @@ class VehicleDataControllerTest {
             .hasSize(1);
     }
 
+    @Test
+    void shouldPassDownsamplingToService() {
+        String vehicleId = "TEST-001";
+        Instant startTime = Instant.parse("2024-01-01T00:00:00Z");
+        Instant endTime = Instant.parse("2024-01-08T00:00:00Z");
+        TelemetryDownsampler.Spec expected = new TelemetryDownsampler.Spec(
+            TelemetryDownsampler.Method.AVERAGE, Duration.ofMinutes(1), Sensor.RPM);
+
+        when(vehicleDataService.getVehicleDataByTimeRange(vehicleId, startTime, endTime, expected, null))
+            .thenReturn(Flux.just(createTestVehicleData(vehicleId)));
+
+        webTestClient.get()
+            .uri(uriBuilder -> uriBuilder
+                .path("/api/vehicle-data/{vehicleId}/timerange")
+                .queryParam("startTime", startTime.toString())
+                .queryParam("endTime", endTime.toString())
+                .queryParam("resolution", "PT1M")
+                .queryParam("method", "AVERAGE")
+                .queryParam("sensor", "RPM")
+                .build(vehicleId))
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(VehicleData.class)
+            .hasSize(1);
+    }
+
+    @Test
+    void shouldRejectInvalidDownsampling() {
+        webTestClient.get()
+            .uri(uriBuilder -> uriBuilder
+                .path("/api/vehicle-data/{vehicleId}/timerange")
+                .queryParam("startTime", "2024-01-01T00:00:00Z")
+                .queryParam("endTime", "2024-01-02T00:00:00Z")
+                .queryParam("maxPoints", "1")
+                .build("TEST-001"))
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void shouldReturnOnlySelectedFields() {
+        String vehicleId = "TEST-001";
+        Instant startTime = Instant.parse("2024-01-01T00:00:00Z");
+        Instant endTime = Instant.parse("2024-01-02T00:00:00Z");
+        VehicleDataFields fields = VehicleDataFields.parse("timestamp,SPEED", null);
+
+        when(vehicleDataService.getVehicleDataByTimeRange(vehicleId, startTime, endTime, null, fields))
+            .thenReturn(Flux.just(createTestVehicleData(vehicleId)));
+
+        webTestClient.get()
+            .uri(uriBuilder -> uriBuilder
+                .path("/api/vehicle-data/{vehicleId}/timerange")
+                .queryParam("startTime", startTime.toString())
+                .queryParam("endTime", endTime.toString())
+                .queryParam("fields", "timestamp,SPEED")
+                .build(vehicleId))
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$[0].timestamp").exists()
+            .jsonPath("$[0].data.SPEED.value").exists()
+            .jsonPath("$[0].vehicle_id").doesNotExist()
+            .jsonPath("$[0].riskAssessment").doesNotExist();
+    }
+
+    @Test
+    void shouldRejectUnknownFields() {
+        webTestClient.get()
+            .uri("/api/vehicle-data/{vehicleId}?fields=timestamp,colour", "TEST-001")
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void shouldStreamExportAsNdjson() {
+        String vehicleId = "TEST-001";
+        when(vehicleDataExporter.exportVehicle(vehicleId, null, null, "abc"))
+            .thenReturn(Flux.just(
+                new VehicleDataExporter.ExportLine("c1", createTestVehicleData(vehicleId)),
+                new VehicleDataExporter.ExportLine("c2", createTestVehicleData(vehicleId))));
+
+        webTestClient.get()
+            .uri("/api/vehicle-data/{vehicleId}/export?cursor=abc", vehicleId)
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+            .expectBody(String.class)
+            .value(body -> assertThat(body.lines().toList()).hasSize(2)
+                .allMatch(line -> line.contains("\"reading\"")));
+    }
+
+    @Test
+    void shouldRejectInvalidExportCursor() {
+        when(vehicleDataExporter.exportContract(eq("CONTRACT-001"), any(), any(), eq("bad")))
+            .thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        webTestClient.get()
+            .uri("/api/vehicle-data/contracts/{contractId}/export?cursor=bad", "CONTRACT-001")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+
     @Test
     void shouldGetVehicleDataCount() {
         String vehicleId = "TEST-001";
@@ -109,6 +284,55 @@ class VehicleDataControllerTest {
             .isEqualTo(expectedCount);
     }
 
+    @Test
+    void shouldGetVehicleDataSummary() {
+        String vehicleId = "TEST-001";
+        Instant first = Instant.parse("2024-01-01T00:00:00Z");
+        Instant last = Instant.parse("2024-02-01T00:00:00Z");
+
+        when(vehicleDataService.getVehicleDataSummary(vehicleId))
+            .thenReturn(Mono.just(new VehicleDataSummary(vehicleId, 42, first, last)));
+        when(vehicleDataService.getVehicleDataSummary("NONEXISTENT"))
+            .thenReturn(Mono.empty());
+
+        webTestClient.get()
+            .uri("/api/vehicle-data/{vehicleId}/summary", vehicleId)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(VehicleDataSummary.class)
+            .isEqualTo(new VehicleDataSummary(vehicleId, 42, first, last));
+        webTestClient.get()
+            .uri("/api/vehicle-data/{vehicleId}/summary", "NONEXISTENT")
+            .exchange()
+            .expectStatus().isNotFound();
+    }
+
+    @Test
+    void shouldGetVehicleDataAggregates() {
+        String vehicleId = "TEST-001";
+        Instant startTime = Instant.parse("2024-01-01T00:00:00Z");
+        Instant endTime = Instant.parse("2024-02-01T00:00:00Z");
+        VehicleDataRollupService.Aggregate day = new VehicleDataRollupService.Aggregate(startTime, 2,
+            Map.of("speed", new VehicleDataRollupService.SensorAggregate(2, 120.0, 50.0, 70.0, 60.0)), Map.of("LOW", 2L));
+
+        when(vehicleDataService.getVehicleDataAggregates(vehicleId, RollupResolution.DAY, startTime, endTime))
+            .thenReturn(Mono.just(new VehicleDataRollupService.Aggregates(
+                vehicleId, RollupResolution.DAY, startTime, endTime, day, List.of(day))));
+
+        webTestClient.get()
+            .uri(uriBuilder -> uriBuilder
+                .path("/api/vehicle-data/{vehicleId}/aggregates")
+                .queryParam("startTime", startTime.toString())
+                .queryParam("endTime", endTime.toString())
+                .queryParam("resolution", "DAY")
+                .build(vehicleId))
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.total.sensors.speed.mean").isEqualTo(60.0)
+            .jsonPath("$.intervals.length()").isEqualTo(1);
+    }
+
     private VehicleData createTestVehicleData(String vehicleId) {
         VehicleData data = new VehicleData();
         data.setVehicleId(vehicleId);
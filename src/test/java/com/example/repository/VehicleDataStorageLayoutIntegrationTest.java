@@ -0,0 +1,220 @@
+package com.example.repository;
+
+import com.example.model.ReadingCursor;
+import com.example.model.VehicleData;
+import com.example.model.VehicleDataBucket;
+import com.example.service.VehicleDataBucketMigration;
+import com.example.service.VehicleDataBulkWriter;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Query;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@Testcontainers
+class VehicleDataStorageLayoutIntegrationTest {
+
+    private static final Instant START = Instant.parse("2025-02-23T10:00:00Z");
+    private static final long SLOT_MS = 3_600_000;
+
+    @Container
+    static MongoDBContainer mongodb = new MongoDBContainer(DockerImageName.parse("mongo:5.0"))
+            .withExposedPorts(27017);
+
+    private static MongoClient client;
+    private static ReactiveMongoTemplate mongoTemplate;
+
+    private final VehicleDataRepositoryImpl documents = new VehicleDataRepositoryImpl(mongoTemplate, "document", SLOT_MS);
+    private final VehicleDataRepositoryImpl buckets = new VehicleDataRepositoryImpl(mongoTemplate, "bucketed", SLOT_MS);
+
+    @BeforeAll
+    static void connect() {
+        client = MongoClients.create(mongodb.getConnectionString());
+        mongoTemplate = new ReactiveMongoTemplate(client, "vehicledb");
+    }
+
+    @AfterAll
+    static void disconnect() {
+        client.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(VehicleData.class)
+            .then(mongoTemplate.dropCollection(VehicleDataBucket.class))
+            .then(mongoTemplate.indexOps(VehicleData.class).ensureIndex(new Index()
+                .on("vehicleId", Sort.Direction.ASC).on("contractId", Sort.Direction.ASC).on("timestamp", Sort.Direction.ASC)
+                .unique()))
+            .then(mongoTemplate.indexOps(VehicleDataBucket.class).ensureIndex(new Index()
+                .on("vehicleId", Sort.Direction.ASC).on("bucketStart", Sort.Direction.ASC)))
+            .block();
+    }
+
+    @Test
+    void shouldReadMigratedBucketsLikeDocuments() {
+        write("document", 1_000, 2, 5_000);
+        VehicleDataBucketMigration migration = new VehicleDataBucketMigration(mongoTemplate, SLOT_MS, 1_000, 100);
+
+        assertThat(migration.migrate().block()).isEqualTo(10_000L);
+        assertThat(migration.migrate().block()).isEqualTo(10_000L);
+
+        assertThat(mongoTemplate.count(new Query(), VehicleDataBucket.class).block())
+            .isEqualTo(12L);
+        assertSameReadings("VEH-0");
+        assertSameReadings("VEH-1");
+    }
+
+    @Test
+    void shouldReadBucketsWrittenByTheBulkWriter() {
+        write("bucketed", 1_000, 1, 5_000);
+        // A redelivered reading is stored again but read back once
+        write("bucketed", 1_000, 1, 1);
+
+        assertThat(buckets.countByVehicleId("VEH-0").block()).isEqualTo(5_001L);
+        assertThat(buckets.findFirstByVehicleIdOrderByTimestampDesc("VEH-0").block().getTimestamp())
+            .isEqualTo(START.plusSeconds(4_999));
+        assertThat(buckets.findByVehicleIdOrderByTimestampDesc("VEH-0", PageRequest.of(0, 5_100)).collectList().block())
+            .hasSize(5_000)
+            .isSortedAccordingTo((a, b) -> b.getTimestamp().compareTo(a.getTimestamp()));
+        assertThat(buckets.findByVehicleIdAndTimestampBetween("VEH-0", START.plusSeconds(3_590), START.plusSeconds(3_610))
+                .map(VehicleData::getTimestamp).collectList().block())
+            .hasSize(19)
+            .first().isEqualTo(START.plusSeconds(3_591));
+        Document bucket = mongoTemplate.findOne(new Query(), Document.class,
+            VehicleDataBucket.COLLECTION).block();
+        assertThat(bucket.get("summary", Document.class).get("speed", Document.class)).containsKeys("min", "max");
+    }
+
+    @Test
+    void shouldResumeExportsAfterTheirCursorInBothLayouts() {
+        write("document", 1_000, 2, 5_000);
+        write("bucketed", 1_000, 2, 5_000);
+        Instant from = START.plusSeconds(1_000);
+        Instant to = START.plusSeconds(4_500);
+
+        for (VehicleDataRepositoryImpl repository : List.of(documents, buckets)) {
+            List<Instant> full = repository.streamByVehicleId("VEH-0", from, to, null, 100)
+                .map(VehicleData::getTimestamp).collectList().block();
+            assertThat(full).hasSize(3_500).isSorted().first().isEqualTo(from);
+
+            // Interrupted after 1 200 readings, then resumed from the cursor of the last one
+            VehicleData last = repository.streamByContractId("CONTRACT-VEH-0", from, to, null, 100).take(1_200).blockLast();
+            List<Instant> rest = repository.streamByContractId("CONTRACT-VEH-0", from, to, ReadingCursor.decode(ReadingCursor.of(last).encode()), 100)
+                .map(VehicleData::getTimestamp).collectList().block();
+            assertThat(rest).isEqualTo(full.subList(1_200, full.size()));
+        }
+    }
+
+    @Test
+    void shouldPageHistoryWithCursorsLikeOffsets() {
+        write("document", 1_000, 1, 5_000);
+        write("bucketed", 1_000, 1, 5_000);
+
+        for (VehicleDataRepositoryImpl repository : List.of(documents, buckets)) {
+            ReadingCursor cursor = null;
+            for (int page = 0; page < 250; page++) {
+                List<VehicleData> keyset = withoutIds(repository.findByVehicleIdBefore("VEH-0", cursor, 20));
+                assertThat(keyset).isEqualTo(withoutIds(repository.findByVehicleIdOrderByTimestampDesc("VEH-0", PageRequest.of(page, 20))));
+                cursor = ReadingCursor.of(keyset.get(keyset.size() - 1));
+            }
+            assertThat(repository.findByVehicleIdBefore("VEH-0", cursor, 20).collectList().block()).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldReadLatestAndRecentReadingsOfManyVehiclesInBothLayouts() {
+        write("document", 1_000, 20, 500);
+        write("bucketed", 1_000, 20, 500);
+        List<String> vehicleIds = List.of("VEH-3", "VEH-7", "VEH-404");
+
+        for (VehicleDataRepositoryImpl repository : List.of(documents, buckets)) {
+            assertThat(repository.findLatestByVehicleIdIn(vehicleIds).collectList().block())
+                .extracting(VehicleData::getVehicleId, VehicleData::getTimestamp)
+                .containsExactlyInAnyOrder(
+                    tuple("VEH-3", START.plusSeconds(499)),
+                    tuple("VEH-7", START.plusSeconds(499)));
+
+            List<VehicleData> recent = repository.findRecentByVehicleIdIn(vehicleIds, START.plusSeconds(490), 5)
+                .collectList().block();
+            assertThat(recent).hasSize(10);
+            assertThat(recent.subList(0, 5)).extracting(VehicleData::getVehicleId).containsOnly(recent.get(0).getVehicleId());
+            assertThat(recent.subList(0, 5)).extracting(VehicleData::getTimestamp)
+                .containsExactly(START.plusSeconds(499), START.plusSeconds(498), START.plusSeconds(497),
+                    START.plusSeconds(496), START.plusSeconds(495));
+        }
+    }
+
+    private void assertSameReadings(String vehicleId) {
+        assertThat(buckets.countByVehicleId(vehicleId).block()).isEqualTo(documents.countByVehicleId(vehicleId).block());
+        assertThat(buckets.findFirstByVehicleIdOrderByTimestampDesc(vehicleId).block())
+            .isEqualTo(withoutId(documents.findFirstByVehicleIdOrderByTimestampDesc(vehicleId).block()));
+        for (int page = 0; page < 3; page++) {
+            assertThat(buckets.findByVehicleIdOrderByTimestampDesc(vehicleId, PageRequest.of(page * 40, 20)).collectList().block())
+                .isEqualTo(withoutIds(documents.findByVehicleIdOrderByTimestampDesc(vehicleId, PageRequest.of(page * 40, 20))));
+        }
+        Instant from = START.plusSeconds(3_000);
+        Instant to = START.plusSeconds(4_000);
+        assertThat(buckets.findByVehicleIdAndTimestampBetween(vehicleId, from, to).collectList().block())
+            .isEqualTo(withoutIds(documents.findByVehicleIdAndTimestampBetween(vehicleId, from, to)
+                .sort((a, b) -> a.getTimestamp().compareTo(b.getTimestamp()))));
+    }
+
+    private static List<VehicleData> withoutIds(Flux<VehicleData> readings) {
+        return readings.map(VehicleDataStorageLayoutIntegrationTest::withoutId).collectList().block();
+    }
+
+    private static VehicleData withoutId(VehicleData data) {
+        data.setId(null);
+        return data;
+    }
+
+    /** Writes {@code count} readings per vehicle, one every {@code stepMillis}, through the bulk writer. */
+    private static void write(String layout, long stepMillis, int vehicles, int count) {
+        VehicleDataBulkWriter writer = new VehicleDataBulkWriter(mongoTemplate, 500, 20, 4, layout, SLOT_MS, 1_000);
+        try {
+            Flux.range(0, vehicles * count)
+                .flatMap(i -> writer.write(reading("VEH-" + (i % vehicles), START.plusMillis(stepMillis * (i / vehicles)), i)), 2_000)
+                .blockLast();
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    private static VehicleData reading(String vehicleId, Instant timestamp, int i) {
+        VehicleData data = new VehicleData();
+        data.setVehicleId(vehicleId);
+        data.setContractId("CONTRACT-" + vehicleId);
+        data.setTimestamp(timestamp);
+        VehicleData.SensorData sensorData = new VehicleData.SensorData();
+        sensorData.setSpeed(measurement(40 + i % 80, "km/h"));
+        sensorData.setRpm(measurement(1_500 + i % 3_000, "rpm"));
+        sensorData.setEngineLoad(measurement(i % 100, "%"));
+        data.setData(sensorData);
+        return data;
+    }
+
+    private static VehicleData.Measurement measurement(double value, String unit) {
+        VehicleData.Measurement measurement = new VehicleData.Measurement();
+        measurement.setValue(value);
+        measurement.setUnit(unit);
+        return measurement;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.serialization;
+
+import com.example.config.JacksonConfig;
+import com.example.model.InsuranceImpact;
+import com.example.model.RiskAssessment;
+import com.example.model.RiskFactor;
+import com.example.model.RiskFactorType;
+import com.example.model.RiskLevel;
+import com.example.model.VehicleData;
+import com.example.model.VehicleDataFields;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProjectedVehicleDataTest {
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+
+    @Test
+    void shouldWriteOnlySelectedFields() throws Exception {
+        VehicleData data = loadDevDataset().get(0);
+        data.setContractId("CONTRACT-001");
+        data.setRiskAssessment(riskAssessment());
+
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsBytes(
+            new ProjectedVehicleData(data, VehicleDataFields.parse("timestamp,SPEED,riskAssessment.score", null))));
+
+        assertThat(json.fieldNames()).toIterable().containsExactly("riskAssessment", "data", "timestamp");
+        assertThat(json.get("riskAssessment").fieldNames()).toIterable().containsExactly("score");
+        assertThat(json.get("data").fieldNames()).toIterable().containsExactly("SPEED");
+        assertThat(json.get("data").get("SPEED").get("value").asDouble())
+            .isEqualTo(data.getData().getSpeed().getValue());
+        assertThat(json.get("timestamp")).isEqualTo(objectMapper.readTree(objectMapper.writeValueAsBytes(data)).get("timestamp"));
+    }
+
+    @Test
+    void shouldWriteCompactViewMuchSmallerThanFullReading() throws Exception {
+        long full = 0;
+        long compact = 0;
+        long chart = 0;
+        VehicleDataFields speedOnly = VehicleDataFields.parse("timestamp,SPEED", null);
+        for (VehicleData data : loadDevDataset()) {
+            data.setRiskAssessment(riskAssessment());
+            full += objectMapper.writeValueAsBytes(data).length;
+            compact += objectMapper.writeValueAsBytes(new ProjectedVehicleData(data, VehicleDataFields.COMPACT)).length;
+            chart += objectMapper.writeValueAsBytes(new ProjectedVehicleData(data, speedOnly)).length;
+        }
+
+        assertThat(compact).isLessThan(full);
+        assertThat(chart * 4).isLessThan(full);
+    }
+
+    @Test
+    void shouldParseViewsAndRejectUnknownNames() {
+        assertThat(VehicleDataFields.parse(null, null)).isNull();
+        assertThat(VehicleDataFields.parse("", "full")).isNull();
+        assertThat(VehicleDataFields.parse(null, "compact")).isEqualTo(VehicleDataFields.COMPACT);
+        assertThat(VehicleDataFields.parse("data.SPEED", null)).isEqualTo(VehicleDataFields.parse("SPEED", null));
+
+        assertThatThrownBy(() -> VehicleDataFields.parse("timestamp,colour", null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> VehicleDataFields.parse(null, "tiny")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static RiskAssessment riskAssessment() {
+        RiskAssessment assessment = new RiskAssessment();
+        assessment.setLevel(RiskLevel.MEDIUM);
+        assessment.setScore(42.5);
+        assessment.setTimestamp(Instant.parse("2025-02-23T10:00:00Z"));
+        RiskFactor speeding = new RiskFactor();
+        speeding.setType(RiskFactorType.SPEED_VIOLATION);
+        speeding.setValue(95);
+        speeding.setUnit("km/h");
+        speeding.setThreshold(90);
+        speeding.setWeight(0.3);
+        speeding.setDescription("Speed above the limit for the road category");
+        assessment.getRiskFactors().add(speeding);
+        InsuranceImpact impact = new InsuranceImpact();
+        impact.setPremiumAdjustment(new BigDecimal("0.05"));
+        impact.setRecommendedAction("Notify the policy holder");
+        impact.setJustification("Repeated speed violations over the last period");
+        assessment.setInsuranceImpact(impact);
+        return assessment;
+    }
+
+    private List<VehicleData> loadDevDataset() throws Exception {
+        try (InputStream is = new ClassPathResource("data/vehicle-data-dev.json").getInputStream()) {
+            return objectMapper.readValue(is, new TypeReference<>() {});
+        }
+    }
+}
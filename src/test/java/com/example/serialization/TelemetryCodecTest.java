@@ -0,0 +1,65 @@
+package com.example.serialization;
+
+import com.example.config.JacksonConfig;
+import com.example.model.VehicleData;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.InputStream;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TelemetryCodecTest {
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final TelemetryCodec codec = new TelemetryCodec(objectMapper);
+
+    @Test
+    void shouldRoundTripDevDatasetThroughSmile() throws Exception {
+        for (VehicleData data : loadDevDataset()) {
+            byte[] smile = codec.encode(data, TelemetryFormat.SMILE);
+
+            assertThat(TelemetryCodec.detect(smile, 0, smile.length)).isEqualTo(TelemetryFormat.SMILE);
+            VehicleData decoded = codec.decode(smile, 0, smile.length, null);
+            assertThat(decoded).isEqualTo(data);
+        }
+    }
+
+    @Test
+    void shouldDetectJsonWhenNoFormatIsGiven() throws Exception {
+        VehicleData data = loadDevDataset().get(0);
+        byte[] json = codec.encode(data, TelemetryFormat.JSON);
+
+        assertThat(TelemetryCodec.detect(json, 0, json.length)).isEqualTo(TelemetryFormat.JSON);
+        assertThat(codec.decode(json, 0, json.length, null)).isEqualTo(data);
+    }
+
+    @Test
+    void shouldResolveFormatFromContentType() {
+        assertThat(TelemetryFormat.fromContentType("application/x-jackson-smile")).isEqualTo(TelemetryFormat.SMILE);
+        assertThat(TelemetryFormat.fromContentType("application/json;charset=UTF-8")).isEqualTo(TelemetryFormat.JSON);
+        assertThat(TelemetryFormat.fromContentType(null)).isEqualTo(TelemetryFormat.JSON);
+        assertThat(TelemetryFormat.fromContentType("not a type")).isEqualTo(TelemetryFormat.JSON);
+    }
+
+    @Test
+    void shouldEncodeDevDatasetSmallerInSmile() throws Exception {
+        long jsonBytes = 0;
+        long smileBytes = 0;
+        for (VehicleData data : loadDevDataset()) {
+            jsonBytes += codec.encode(data, TelemetryFormat.JSON).length;
+            smileBytes += codec.encode(data, TelemetryFormat.SMILE).length;
+        }
+
+        assertThat(smileBytes).isLessThan(jsonBytes);
+    }
+
+    private List<VehicleData> loadDevDataset() throws Exception {
+        try (InputStream is = new ClassPathResource("data/vehicle-data-dev.json").getInputStream()) {
+            return objectMapper.readValue(is, new TypeReference<>() {});
+        }
+    }
+}
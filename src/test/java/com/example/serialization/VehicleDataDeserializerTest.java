@@ -0,0 +1,107 @@
+package com.example.serialization;
+
+import com.example.config.JacksonConfig;
+import com.example.model.Sensor;
+import com.example.model.SensorRegistry;
+import com.example.model.SensorSnapshot;
+import com.example.model.VehicleData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VehicleDataDeserializerTest {
+
+    private static final String TOPIC = "vehicle-data";
+    private static final String PAYLOAD = "{\"vehicle_id\":\"DEV-VEH-002\",\"contractId\":\"CONTRACT-DEV-002\","
+        + "\"timestamp\":\"2025-02-23T10:05:00Z\",\"data\":{"
+        + "\"SPEED\":{\"value\":95,\"unit\":\"km/h\"},"
+        + "\"RPM\":{\"value\":3200,\"unit\":\"rpm\"},"
+        + "\"ENGINE_LOAD\":{\"value\":70,\"unit\":\"%\"},"
+        + "\"THROTTLE_POS\":{\"value\":35,\"unit\":\"%\"},"
+        + "\"timestamp\":\"2025-02-23T10:05:00Z\"}}";
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final VehicleDataDeserializer deserializer = new VehicleDataDeserializer(new TelemetryCodec(objectMapper));
+
+    @Test
+    void shouldDeserializeVehicleDataFromBytes() {
+        VehicleData data = deserializer.deserialize(TOPIC, PAYLOAD.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(data.getVehicleId()).isEqualTo("DEV-VEH-002");
+        assertThat(data.getContractId()).isEqualTo("CONTRACT-DEV-002");
+        assertThat(data.getTimestamp()).isEqualTo(Instant.parse("2025-02-23T10:05:00Z"));
+        assertThat(data.getData().getSpeed().getValue()).isEqualTo(95.0);
+        assertThat(data.getData().getEngineLoad().getUnit()).isEqualTo("%");
+    }
+
+    @Test
+    void shouldDecodeSensorsIntoACompactSnapshot() {
+        String payload = PAYLOAD.replace("\"timestamp\":\"2025-02-23T10:05:00Z\"}}",
+            "\"additionalProperties\":{\"HEADING\":{\"value\":182.5,\"unit\":\"deg\"}},"
+                + "\"timestamp\":\"2025-02-23T10:05:00Z\"}}");
+
+        VehicleData data = deserializer.deserialize(TOPIC, payload.getBytes(StandardCharsets.UTF_8));
+        SensorSnapshot sensors = data.getSensors();
+
+        assertThat(sensors.value(Sensor.RPM)).isEqualTo(3200.0);
+        assertThat(sensors.has(Sensor.BRAKE_PRESSURE)).isFalse();
+        assertThat(sensors.unit(Sensor.SPEED)).isSameAs(
+            deserializer.deserialize(TOPIC, PAYLOAD.getBytes(StandardCharsets.UTF_8)).getSensors().unit(Sensor.SPEED));
+        assertThat(sensors.extraName(0)).isEqualTo("HEADING");
+        assertThat(sensors.extraValue(0)).isEqualTo(182.5);
+        assertThat(data.getData().getAdditionalProperties().get("HEADING").getUnit()).isEqualTo("deg");
+    }
+
+    @Test
+    void shouldKeepUnitsOutsideTheAllowListVerbatimWithoutInterningThem() {
+        String payload = PAYLOAD.replace("\"unit\":\"rpm\"", "\"unit\":\"turns/min\"");
+
+        SensorSnapshot sensors = deserializer.deserialize(TOPIC, payload.getBytes(StandardCharsets.UTF_8)).getSensors();
+
+        assertThat(sensors.unit(Sensor.RPM)).isEqualTo("turns/min");
+        assertThat(sensors.unit(Sensor.SPEED)).isEqualTo("km/h");
+        assertThat(SensorRegistry.unitId("turns/min")).isEqualTo(SensorRegistry.UNREGISTERED);
+    }
+
+    @Test
+    void shouldMatchTheJacksonBindingOfVehicleData() throws Exception {
+        VehicleData bound = objectMapper.readValue(PAYLOAD, VehicleData.class);
+
+        assertThat(deserializer.deserialize(TOPIC, PAYLOAD.getBytes(StandardCharsets.UTF_8))).isEqualTo(bound);
+    }
+
+    @Test
+    void shouldDeserializeFromASliceOfAByteBuffer() {
+        byte[] bytes = PAYLOAD.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer framed = ByteBuffer.allocate(bytes.length + 8);
+        framed.putInt(0).put(bytes).putInt(0);
+        framed.position(4).limit(4 + bytes.length);
+
+        VehicleData data = deserializer.deserialize(TOPIC, null, framed.slice());
+
+        assertThat(data.getVehicleId()).isEqualTo("DEV-VEH-002");
+    }
+
+    @Test
+    void shouldDeserializeSmilePayloadNamedByContentTypeHeader() throws Exception {
+        VehicleData source = objectMapper.readValue(PAYLOAD, VehicleData.class);
+        byte[] smile = new TelemetryCodec(objectMapper).encode(source, TelemetryFormat.SMILE);
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(TelemetryFormat.CONTENT_TYPE_HEADER, TelemetryFormat.SMILE_VALUE.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(deserializer.deserialize(TOPIC, headers, smile)).isEqualTo(source);
+        assertThat(deserializer.deserialize(TOPIC, smile)).isEqualTo(source);
+    }
+
+    @Test
+    void shouldReturnNullForUnreadablePayload() {
+        assertThat(deserializer.deserialize(TOPIC, "not json".getBytes(StandardCharsets.UTF_8))).isNull();
+        assertThat(deserializer.deserialize(TOPIC, new byte[0])).isNull();
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.service;
+
+import com.example.model.InsuranceContract;
+import com.example.model.VehicleData;
+import com.example.repository.InsuranceContractRepository;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ContractRepricerTest {
+
+    private static final Instant START = Instant.parse("2025-02-23T10:00:00Z");
+    private static final Instant LAST_UPDATED = Instant.parse("2025-02-01T00:00:00Z");
+
+    @Mock
+    private InsuranceContractRepository contractRepository;
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Mock
+    private ReactiveBulkOperations bulkOperations;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ContractRepricer repricer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        repricer = new ContractRepricer(contractRepository, mongoTemplate, meterRegistry, 900_000, 60_000, 0, 500);
+        lenient().when(mongoTemplate.bulkOps(BulkMode.UNORDERED, InsuranceContract.class)).thenReturn(bulkOperations);
+        lenient().when(bulkOperations.updateOne(any(Query.class), any(Update.class))).thenReturn(bulkOperations);
+    }
+
+    @Test
+    void shouldWriteOneBulkUpdatePerFlushInsteadOfOneWritePerReading() {
+        when(contractRepository.findAllById(anyIterable())).thenReturn(Flux.just(contract("CONTRACT-001", "1000.00")));
+        when(bulkOperations.execute()).thenReturn(Mono.just(result(1)));
+        for (int i = 0; i < 600; i++) {
+            repricer.record(reading("CONTRACT-001", i, 140));
+        }
+
+        repricer.reprice(System.currentTimeMillis()).block();
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(1)).updateOne(any(Query.class), update.capture());
+        verify(bulkOperations, times(1)).execute();
+        BigDecimal premium = (BigDecimal) update.getValue().getUpdateObject().get("$set", Document.class).get("currentPremium");
+        assertThat(premium).isGreaterThan(new BigDecimal("1000.00")).isLessThan(new BigDecimal("1500.00"));
+        assertThat(meterRegistry.get("pricing.repriced").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldDebounceAndSkipUnchangedPremiums() {
+        when(contractRepository.findAllById(anyIterable())).thenReturn(Flux.just(contract("CONTRACT-001", "1000.00")));
+        long now = System.currentTimeMillis();
+        repricer.record(reading("CONTRACT-001", 0, 50));
+
+        repricer.reprice(now).block();
+        repricer.record(reading("CONTRACT-001", 1, 50));
+        repricer.reprice(now + 1_000).block();
+
+        verify(contractRepository, times(1)).findAllById(anyIterable());
+        verify(bulkOperations, never()).execute();
+        assertThat(meterRegistry.get("pricing.unchanged").counter().count()).isEqualTo(1.0);
+
+        repricer.reprice(now + 60_000).block();
+        verify(contractRepository, times(2)).findAllById(anyIterable());
+    }
+
+    @Test
+    void shouldRetryContractsThatChangedConcurrently() {
+        when(contractRepository.findAllById(anyIterable())).thenReturn(Flux.just(contract("CONTRACT-001", "1000.00")));
+        when(bulkOperations.execute()).thenReturn(Mono.just(result(0)));
+        long now = System.currentTimeMillis();
+        repricer.record(reading("CONTRACT-001", 0, 140));
+
+        repricer.reprice(now).block();
+        repricer.reprice(now + 1).block();
+
+        verify(contractRepository, times(2)).findAllById(anyIterable());
+        verify(bulkOperations, times(2)).updateOne(eq(Query.query(
+            Criteria.where("_id").is("CONTRACT-001").and("lastUpdated").is(LAST_UPDATED))),
+            any(Update.class));
+        assertThat(meterRegistry.get("pricing.conflicts").counter().count()).isEqualTo(2.0);
+    }
+
+    private static InsuranceContract contract(String id, String premium) {
+        InsuranceContract contract = new InsuranceContract();
+        contract.setId(id);
+        contract.setBasePremium(new BigDecimal(premium));
+        contract.setCurrentPremium(new BigDecimal(premium));
+        contract.setLastUpdated(LAST_UPDATED);
+        return contract;
+    }
+
+    private static VehicleData reading(String contractId, int second, double speed) {
+        VehicleData data = new VehicleData();
+        data.setVehicleId("VEH-001");
+        data.setContractId(contractId);
+        data.setTimestamp(START.plusSeconds(second));
+        VehicleData.SensorData sensorData = new VehicleData.SensorData();
+        VehicleData.Measurement measurement = new VehicleData.Measurement();
+        measurement.setValue(speed);
+        measurement.setUnit("km/h");
+        sensorData.setSpeed(measurement);
+        data.setData(sensorData);
+        return data;
+    }
+
+    private static BulkWriteResult result(int matched) {
+        return BulkWriteResult.acknowledged(0, matched, 0, matched, List.of(), List.of());
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.service;
+
+import com.example.model.InsuranceContract;
+import com.example.repository.InsuranceContractRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InsuranceContractCacheTest {
+
+    @Mock
+    private InsuranceContractRepository contractRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private InsuranceContractCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new InsuranceContractCache(contractRepository, null, meterRegistry, 1_000, 300_000, 30_000, false);
+    }
+
+    @Test
+    void shouldServeRepeatedLookupsFromMemory() {
+        when(contractRepository.findById("CONTRACT-001")).thenReturn(Mono.just(contract("CONTRACT-001", "VEH-001")));
+
+        for (int i = 0; i < 10; i++) {
+            StepVerifier.create(cache.findById("CONTRACT-001"))
+                .assertNext(contract -> assertThat(contract.getVehicleId()).isEqualTo("VEH-001"))
+                .verifyComplete();
+        }
+
+        verify(contractRepository, times(1)).findById("CONTRACT-001");
+        assertThat(meterRegistry.get("contracts.cache.hit.ratio").tag("index", "id").gauge().value()).isEqualTo(0.9);
+        assertThat(meterRegistry.get("cache.gets").tag("index", "id").tag("result", "hit").functionCounter().count()).isEqualTo(9.0);
+    }
+
+    @Test
+    void shouldCacheMisses() {
+        when(contractRepository.findById("UNKNOWN")).thenReturn(Mono.empty());
+        when(contractRepository.findByVehicleId("VEH-404")).thenReturn(Flux.empty());
+
+        StepVerifier.create(cache.findById("UNKNOWN")).verifyComplete();
+        StepVerifier.create(cache.findById("UNKNOWN")).verifyComplete();
+        StepVerifier.create(cache.findByVehicleId("VEH-404")).verifyComplete();
+        StepVerifier.create(cache.findByVehicleId("VEH-404")).verifyComplete();
+
+        verify(contractRepository, times(1)).findById("UNKNOWN");
+        verify(contractRepository, times(1)).findByVehicleId("VEH-404");
+    }
+
+    @Test
+    void shouldReloadInvalidatedContractsAndVehicleLists() {
+        InsuranceContract contract = contract("CONTRACT-001", "VEH-001");
+        when(contractRepository.findById("CONTRACT-001")).thenReturn(Mono.just(contract));
+        when(contractRepository.findByVehicleId("VEH-001")).thenReturn(Flux.just(contract));
+        cache.findById("CONTRACT-001").block();
+        cache.findByVehicleId("VEH-001").collectList().block();
+
+        cache.invalidate("CONTRACT-001", null);
+        cache.findById("CONTRACT-001").block();
+        cache.findByVehicleId("VEH-001").collectList().block();
+
+        verify(contractRepository, times(2)).findById("CONTRACT-001");
+        verify(contractRepository, times(2)).findByVehicleId("VEH-001");
+        assertThat(meterRegistry.get("contracts.cache.invalidations").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldDropVehicleListsContainingAnUncachedContract() {
+        when(contractRepository.findByVehicleId("VEH-001")).thenReturn(Flux.just(contract("CONTRACT-001", "VEH-001")));
+        cache.findByVehicleId("VEH-001").collectList().block();
+
+        cache.invalidate("CONTRACT-001", null);
+        cache.findByVehicleId("VEH-001").collectList().block();
+
+        verify(contractRepository, times(2)).findByVehicleId("VEH-001");
+    }
+
+    private static InsuranceContract contract(String id, String vehicleId) {
+        InsuranceContract contract = new InsuranceContract();
+        contract.setId(id);
+        contract.setVehicleId(vehicleId);
+        contract.setBasePremium(new BigDecimal("1000.00"));
+        contract.setCurrentPremium(new BigDecimal("1000.00"));
+        return contract;
+    }
+}
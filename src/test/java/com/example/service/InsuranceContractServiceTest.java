@@ -3,6 +3,7 @@ package com.example.service;
 import com.example.model.InsuranceContract;
 import com.example.model.VehicleData;
 import com.example.repository.InsuranceContractRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -28,7 +29,9 @@ class InsuranceContractServiceTest {
 
     @BeforeEach
     void setUp() {
-        contractService = new InsuranceContractService(contractRepository);
+        InsuranceContractCache contractCache = new InsuranceContractCache(contractRepository, null,
+            new SimpleMeterRegistry(), 1_000, 300_000, 30_000, false);
+        contractService = new InsuranceContractService(contractRepository, contractCache);
     }
 
     @Test
@@ -77,6 +80,14 @@ class InsuranceContractServiceTest {
         return measurement;
     }
 
+    @Test
+    void shouldRoundAdjustedPremiumHalfUpToTheCent() {
+        assertThat(InsuranceContractService.adjustedPremium(new BigDecimal("100.05"), 1.1)).isEqualTo(new BigDecimal("110.06"));
+        assertThat(InsuranceContractService.adjustedPremium(new BigDecimal("999.99"), 1.1)).isEqualTo(new BigDecimal("1099.99"));
+        assertThat(InsuranceContractService.adjustedPremium(new BigDecimal("1000"), 1.0)).isEqualTo(new BigDecimal("1000.00"));
+        assertThat(InsuranceContractService.adjustedPremium(new BigDecimal("1000.00"), 1.0 / 3 + 1)).isEqualTo(new BigDecimal("1333.33"));
+    }
+
     private InsuranceContract createTestContract(String contractId) {
         InsuranceContract contract = new InsuranceContract();
         contract.setId(contractId);
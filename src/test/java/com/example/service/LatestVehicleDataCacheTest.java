@@ -0,0 +1,92 @@
+package com.example.service;
+
+import com.example.model.VehicleData;
+import com.example.repository.VehicleDataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LatestVehicleDataCacheTest {
+
+    private static final Instant NOW = Instant.parse("2025-02-23T10:00:00Z");
+
+    @Mock
+    private VehicleDataRepository vehicleDataRepository;
+
+    private LatestVehicleDataCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new LatestVehicleDataCache(vehicleDataRepository, new SimpleMeterRegistry(), 1_000_000, 60_000, 5_000);
+    }
+
+    @Test
+    void shouldServeIngestedReadingsWithoutTheDatabase() {
+        cache.record(reading("VEH-001", NOW));
+
+        StepVerifier.create(cache.get("VEH-001"))
+            .assertNext(data -> assertThat(data.getTimestamp()).isEqualTo(NOW))
+            .verifyComplete();
+        verify(vehicleDataRepository, never()).findFirstByVehicleIdOrderByTimestampDesc("VEH-001");
+    }
+
+    @Test
+    void shouldKeepTheNewestReadingWhenLateDataArrives() {
+        cache.record(reading("VEH-001", NOW));
+        cache.record(reading("VEH-001", NOW.minusSeconds(30)));
+
+        assertThat(cache.get("VEH-001").block().getTimestamp()).isEqualTo(NOW);
+
+        cache.record(reading("VEH-001", NOW.plusSeconds(1)));
+        assertThat(cache.get("VEH-001").block().getTimestamp()).isEqualTo(NOW.plusSeconds(1));
+    }
+
+    @Test
+    void shouldFallBackToTheDatabaseOnceForUnknownVehicles() {
+        when(vehicleDataRepository.findFirstByVehicleIdOrderByTimestampDesc("VEH-002"))
+            .thenReturn(Mono.just(reading("VEH-002", NOW)));
+        when(vehicleDataRepository.findFirstByVehicleIdOrderByTimestampDesc("VEH-404"))
+            .thenReturn(Mono.empty());
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(cache.get("VEH-002").block().getTimestamp()).isEqualTo(NOW);
+        }
+        StepVerifier.create(cache.get("VEH-404")).verifyComplete();
+
+        verify(vehicleDataRepository, times(1)).findFirstByVehicleIdOrderByTimestampDesc("VEH-002");
+    }
+
+    @Test
+    void shouldPreferAnIngestedReadingOverAnOlderLookup() {
+        when(vehicleDataRepository.findFirstByVehicleIdOrderByTimestampDesc("VEH-004"))
+            .thenReturn(Mono.fromSupplier(() -> {
+                // Ingested while the lookup was in flight
+                cache.record(reading("VEH-004", NOW.plusSeconds(5)));
+                return reading("VEH-004", NOW);
+            }));
+
+        assertThat(cache.get("VEH-004").block().getTimestamp()).isEqualTo(NOW.plusSeconds(5));
+    }
+
+    private static VehicleData reading(String vehicleId, Instant timestamp) {
+        VehicleData data = new VehicleData();
+        data.setVehicleId(vehicleId);
+        data.setContractId("CONTRACT-" + vehicleId);
+        data.setTimestamp(timestamp);
+        return data;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.service;
+
+import com.example.model.VehicleData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LiveTelemetryHubTest {
+
+    private static final Instant START = Instant.parse("2025-02-23T10:00:00Z");
+
+    private SimpleMeterRegistry meterRegistry;
+    private LiveTelemetryHub hub;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        hub = new LiveTelemetryHub(meterRegistry, 4);
+    }
+
+    @Test
+    void shouldRouteReadingsByVehicleAndContract() {
+        StepVerifier.create(hub.vehicle("VEH-001"))
+            .then(() -> {
+                hub.publish(reading("VEH-002", "CONTRACT-001", 0));
+                hub.publish(reading("VEH-001", "CONTRACT-001", 1));
+            })
+            .assertNext(data -> assertThat(data.getVehicleId()).isEqualTo("VEH-001"))
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+
+        StepVerifier.create(hub.contract("CONTRACT-001"))
+            .then(() -> {
+                hub.publish(reading("VEH-002", "CONTRACT-001", 2));
+                hub.publish(reading("VEH-003", "CONTRACT-002", 3));
+                hub.publish(reading("VEH-001", "CONTRACT-001", 4));
+            })
+            .assertNext(data -> assertThat(data.getVehicleId()).isEqualTo("VEH-002"))
+            .assertNext(data -> assertThat(data.getVehicleId()).isEqualTo("VEH-001"))
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(hub.subscriberCount()).isZero();
+    }
+
+    @Test
+    void shouldConflateToLatestReadingsForSlowSubscriber() {
+        StepVerifier.create(hub.contract("CONTRACT-001"), 0)
+            .then(() -> {
+                hub.publish(reading("VEH-001", "CONTRACT-001", 0));
+                hub.publish(reading("VEH-002", "CONTRACT-001", 1));
+                for (int i = 2; i < 10; i++) {
+                    hub.publish(reading("VEH-001", "CONTRACT-001", i));
+                }
+            })
+            .thenRequest(10)
+            .assertNext(data -> assertThat(data.getVehicleId()).isEqualTo("VEH-002"))
+            .assertNext(data -> assertThat(data.getTimestamp()).isEqualTo(START.plusSeconds(7)))
+            .assertNext(data -> assertThat(data.getTimestamp()).isEqualTo(START.plusSeconds(8)))
+            .assertNext(data -> assertThat(data.getTimestamp()).isEqualTo(START.plusSeconds(9)))
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(meterRegistry.get("live.telemetry.dropped").tag("reason", "conflated").counter().count()).isEqualTo(6.0);
+    }
+
+    @Test
+    void shouldDropOldestWhenBufferHoldsNoReadingOfTheVehicle() {
+        StepVerifier.create(hub.all(), 0)
+            .then(() -> {
+                for (int i = 0; i < 6; i++) {
+                    hub.publish(reading("VEH-00" + i, "CONTRACT-001", i));
+                }
+            })
+            .thenRequest(10)
+            .expectNextCount(4)
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(meterRegistry.get("live.telemetry.dropped").tag("reason", "overflow").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void shouldDeliverOffThePublishingThread() {
+        Thread publisher = Thread.currentThread();
+
+        StepVerifier.create(hub.vehicle("VEH-001").map(data -> Thread.currentThread()))
+            .then(() -> hub.publish(reading("VEH-001", "CONTRACT-001", 0)))
+            .assertNext(deliveredOn -> assertThat(deliveredOn).isNotSameAs(publisher))
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void shouldConflateEachVehicleInArrivalOrder() {
+        StepVerifier.create(hub.all(), 0)
+            .then(() -> {
+                hub.publish(reading("VEH-001", "CONTRACT-001", 0));
+                hub.publish(reading("VEH-002", "CONTRACT-001", 1));
+                hub.publish(reading("VEH-001", "CONTRACT-001", 2));
+                hub.publish(reading("VEH-002", "CONTRACT-001", 3));
+                hub.publish(reading("VEH-002", "CONTRACT-001", 4));
+                hub.publish(reading("VEH-001", "CONTRACT-001", 5));
+            })
+            .thenRequest(10)
+            .assertNext(data -> assertThat(data.getTimestamp()).isEqualTo(START.plusSeconds(2)))
+            .assertNext(data -> assertThat(data.getTimestamp()).isEqualTo(START.plusSeconds(3)))
+            .assertNext(data -> assertThat(data.getTimestamp()).isEqualTo(START.plusSeconds(4)))
+            .assertNext(data -> assertThat(data.getTimestamp()).isEqualTo(START.plusSeconds(5)))
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void shouldReportSubscriberCountsPerScope() {
+        Disposable first = hub.vehicle("VEH-001").subscribe();
+        Disposable second = hub.vehicle("VEH-001").subscribe();
+        Disposable contract = hub.contract("CONTRACT-001").subscribe();
+
+        assertThat(meterRegistry.get("live.telemetry.subscribers").tag("scope", "vehicle").gauge().value()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("live.telemetry.subscribers").tag("scope", "contract").gauge().value()).isEqualTo(1.0);
+
+        first.dispose();
+        second.dispose();
+        contract.dispose();
+
+        assertThat(meterRegistry.get("live.telemetry.subscribers").tag("scope", "vehicle").gauge().value()).isZero();
+        assertThat(hub.subscriberCount()).isZero();
+    }
+
+    private static VehicleData reading(String vehicleId, String contractId, int second) {
+        VehicleData data = new VehicleData();
+        data.setVehicleId(vehicleId);
+        data.setContractId(contractId);
+        data.setTimestamp(START.plusSeconds(second));
+        return data;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.service;
+
+import com.example.model.RiskEvent;
+import com.example.model.RiskEventType;
+import com.example.model.Sensor;
+import com.example.model.SensorSnapshot;
+import com.example.model.VehicleData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ManeuverDetectorTest {
+
+    private static final Instant START = Instant.parse("2025-02-23T10:00:00Z");
+
+    private SimpleMeterRegistry meterRegistry;
+    private ManeuverDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        detector = detector(meterRegistry, new VehicleStateStore(meterRegistry, "", 4, 10_000, 0, 0));
+    }
+
+    @Test
+    void shouldNotRaiseEventsForSteadyDriving() {
+        for (int i = 0; i < 20; i++) {
+            assertThat(detector.detect(reading("VEH-001", i * 1000L, 80 + (i % 3), 20, Double.NaN))).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldDetectHarshBrakingFromSpeedDrop() {
+        detector.detect(reading("VEH-001", 0, 80, 20, Double.NaN));
+        detector.detect(reading("VEH-001", 1_000, 80, 0, Double.NaN));
+        List<RiskEvent> events = detector.detect(reading("VEH-001", 2_000, 50, 0, Double.NaN));
+
+        assertThat(events).extracting(RiskEvent::getType).containsExactly(RiskEventType.HARSH_BRAKING);
+        assertThat(events.get(0).getVehicleId()).isEqualTo("VEH-001");
+        assertThat(events.get(0).getTimestamp()).isEqualTo(START.plusSeconds(2));
+        assertThat(events.get(0).getEventKey()).isEqualTo("HARSH_BRAKING|VEH-001|CONTRACT-001|" + START.toEpochMilli());
+        assertThat(events.get(0).getSeverity()).isGreaterThan(2.0);
+        assertThat(meterRegistry.get("detection.events").tag("type", "HARSH_BRAKING").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldDetectRapidAcceleration() {
+        detector.detect(reading("VEH-001", 0, 20, 30, Double.NaN));
+        List<RiskEvent> events = detector.detect(reading("VEH-001", 1_000, 45, 95, Double.NaN));
+
+        assertThat(events).extracting(RiskEvent::getType).containsExactly(RiskEventType.RAPID_ACCELERATION);
+    }
+
+    @Test
+    void shouldDetectDangerousCorneringAcrossNorth() {
+        detector.detect(reading("VEH-001", 0, 50, 20, 350));
+        List<RiskEvent> events = detector.detect(reading("VEH-001", 1_000, 50, 20, 20));
+
+        assertThat(events).extracting(RiskEvent::getType).containsExactly(RiskEventType.DANGEROUS_CORNERING);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ManeuverDetector gentle = detector(registry, new VehicleStateStore(registry, "", 1, 100, 0, 0));
+        gentle.detect(reading("VEH-001", 0, 50, 20, 350));
+        assertThat(gentle.detect(reading("VEH-001", 1_000, 50, 20, 355))).isEmpty();
+    }
+
+    @Test
+    void shouldIgnoreRedeliveredReadingsAndRespectCooldown() {
+        detector.detect(reading("VEH-001", 0, 80, 20, Double.NaN));
+        VehicleData braking = reading("VEH-001", 1_000, 40, 0, Double.NaN);
+
+        assertThat(detector.detect(braking)).hasSize(1);
+        assertThat(detector.detect(braking)).isEmpty();
+
+        detector.detect(reading("VEH-001", 2_000, 80, 20, Double.NaN));
+        assertThat(detector.detect(reading("VEH-001", 3_000, 40, 0, Double.NaN))).isEmpty();
+        detector.detect(reading("VEH-001", 12_000, 80, 20, Double.NaN));
+        assertThat(detector.detect(reading("VEH-001", 13_000, 40, 0, Double.NaN))).hasSize(1);
+    }
+
+    @Test
+    void shouldBoundTrackedVehicles() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        VehicleStateStore store = new VehicleStateStore(registry, "", 4, 64, 0, 0);
+        ManeuverDetector bounded = detector(registry, store);
+        for (int i = 0; i < 1_000; i++) {
+            bounded.detect(reading("VEH-" + i, 0, 50, 20, Double.NaN));
+        }
+
+        assertThat(store.size()).isEqualTo(64);
+        assertThat(registry.get("state.store.untracked").counter().count()).isEqualTo(1_000.0 - 64);
+        assertThat(bounded.detect(reading("VEH-999", 1_000, 10, 0, Double.NaN))).isEmpty();
+    }
+
+    private static ManeuverDetector detector(SimpleMeterRegistry registry, VehicleStateStore store) {
+        return new ManeuverDetector(registry, store, 3_000, 10_000, 3.5, 400, 3.0, 60, 4.0);
+    }
+
+    private static VehicleData reading(String vehicleId, long offsetMillis, double speed, double throttle, double heading) {
+        SensorSnapshot sensors = new SensorSnapshot();
+        sensors.set(Sensor.SPEED, speed, "km/h");
+        sensors.set(Sensor.THROTTLE_POS, throttle, "%");
+        if (!Double.isNaN(heading)) {
+            sensors.addExtra(ManeuverDetector.HEADING, heading, "deg");
+        }
+        VehicleData data = new VehicleData();
+        data.setVehicleId(vehicleId);
+        data.setContractId("CONTRACT-001");
+        data.setTimestamp(START.plusMillis(offsetMillis));
+        data.setSensors(sensors);
+        return data;
+    }
+}
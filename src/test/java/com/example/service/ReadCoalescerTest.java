@@ -0,0 +1,113 @@
+package com.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadCoalescerTest {
+
+    private static final ReadCoalescer.Key KEY = ReadCoalescer.Key.of("timerange", "VEH-1", 1, 2);
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReadCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new ReadCoalescer(meterRegistry, 100, 1_000, 60_000, 300_000);
+    }
+
+    @Test
+    void shouldShareOneQueryAndReplayToLateJoiners() {
+        AtomicInteger queries = new AtomicInteger();
+        Sinks.Many<Integer> source = Sinks.many().unicast().onBackpressureBuffer();
+        List<Integer> first = new ArrayList<>();
+        List<Integer> late = new ArrayList<>();
+
+        coalescer.flux(KEY, () -> {
+            queries.incrementAndGet();
+            return source.asFlux();
+        }).subscribe(first::add);
+        source.tryEmitNext(1);
+        coalescer.flux(KEY, () -> {
+            queries.incrementAndGet();
+            return Flux.just(-1);
+        }).subscribe(late::add);
+        source.tryEmitNext(2);
+        source.tryEmitComplete();
+
+        assertThat(queries).hasValue(1);
+        assertThat(first).containsExactly(1, 2);
+        assertThat(late).containsExactly(1, 2);
+        assertThat(meterRegistry.get("coalescing.ratio").gauge().value()).isEqualTo(0.5);
+        assertThat(meterRegistry.get("coalescing.requests").tag("outcome", "joined").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRunAgainOnceTheQueryIsOver() {
+        AtomicInteger queries = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(coalescer.mono(KEY, () -> Mono.fromCallable(queries::incrementAndGet)))
+                .expectNext(i + 1)
+                .verifyComplete();
+        }
+    }
+
+    @Test
+    void shouldStopTakingJoinersBeyondHalfTheReplayBuffer() {
+        AtomicInteger queries = new AtomicInteger();
+        Sinks.Many<Integer> source = Sinks.many().unicast().onBackpressureBuffer();
+
+        coalescer.flux(KEY, () -> {
+            queries.incrementAndGet();
+            return source.asFlux();
+        }).subscribe();
+        IntStream.range(0, 50).forEach(source::tryEmitNext);
+
+        StepVerifier.create(coalescer.flux(KEY, () -> {
+                queries.incrementAndGet();
+                return Flux.just(7);
+            }))
+            .expectNext(7)
+            .verifyComplete();
+        assertThat(queries).hasValue(2);
+    }
+
+    @Test
+    void shouldCacheSettledResultsOnly() {
+        AtomicInteger queries = new AtomicInteger();
+        Instant yesterday = Instant.now().minusSeconds(86_400);
+
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(coalescer.flux(KEY, yesterday, () -> {
+                    queries.incrementAndGet();
+                    return Flux.just(1, 2, 3);
+                }))
+                .expectNext(1, 2, 3)
+                .verifyComplete();
+        }
+        assertThat(queries).hasValue(1);
+
+        ReadCoalescer.Key recent = ReadCoalescer.Key.of("timerange", "VEH-1", 3, 4);
+        for (int i = 0; i < 2; i++) {
+            coalescer.flux(recent, Instant.now(), () -> {
+                queries.incrementAndGet();
+                return Flux.just(1);
+            }).blockLast();
+        }
+        assertThat(queries).hasValue(3);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecentKeyFilterTest {
+
+    private static final long WINDOW_MS = 60_000;
+
+    private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+    private SimpleMeterRegistry meterRegistry;
+    private RecentKeyFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new RecentKeyFilter("test", 1 << 20, WINDOW_MS, 4, 0.01, meterRegistry, clock::get);
+    }
+
+    @Test
+    void shouldReportNewThenSeenForRecordedKey() {
+        String key = "VEH-001|CONTRACT-001|1700000000000";
+
+        assertThat(filter.check(key)).isEqualTo(RecentKeyFilter.Verdict.NEW);
+        filter.record(key);
+
+        assertThat(filter.check(key)).isEqualTo(RecentKeyFilter.Verdict.SEEN);
+        assertThat(meterRegistry.get("idempotency.filter.checks").tag("result", "new").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("idempotency.filter.checks").tag("result", "seen").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldForgetKeysOnceTheWindowHasRotatedOut() {
+        String key = "VEH-001|CONTRACT-001|1700000000000";
+        filter.record(key);
+
+        clock.addAndGet(WINDOW_MS / 2);
+        assertThat(filter.check(key)).isEqualTo(RecentKeyFilter.Verdict.SEEN);
+
+        clock.addAndGet(2 * WINDOW_MS);
+        assertThat(filter.check(key)).isEqualTo(RecentKeyFilter.Verdict.NEW);
+    }
+
+    @Test
+    void shouldKeepFalsePositiveRateNearTarget() {
+        for (int i = 0; i < 10_000; i++) {
+            filter.record("VEH-" + i + "|CONTRACT|1700000000000");
+        }
+
+        int maybe = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.check("OTHER-" + i + "|CONTRACT|1700000000000") != RecentKeyFilter.Verdict.NEW) {
+                maybe++;
+            }
+        }
+
+        assertThat(maybe).isLessThan(300);
+    }
+}
@@ -2,17 +2,23 @@ package com.example.service;
 
 import com.example.model.*;
 import com.example.repository.RiskEventRepository;
+import com.example.repository.RiskRuleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Instant;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class RiskAssessmentServiceTest {
@@ -23,16 +29,47 @@ class RiskAssessmentServiceTest {
     @Mock
     private InsuranceContractService insuranceContractService;
 
+    @Mock
+    private RiskRuleRepository riskRuleRepository;
+
     private RiskAssessmentService riskAssessmentService;
 
     @BeforeEach
     void setUp() {
-        riskAssessmentService = new RiskAssessmentService(riskEventRepository, insuranceContractService);
+        riskAssessmentService = new RiskAssessmentService(riskEventRepository, insuranceContractService,
+            new IdempotencyFilters(new SimpleMeterRegistry(), 1 << 20, 600_000, 4, 0.01),
+            new RiskRuleEngine(riskRuleRepository, 0),
+            new ManeuverDetector(new SimpleMeterRegistry(), new VehicleStateStore(new SimpleMeterRegistry(), "", 1, 1_000, 0, 0), 3_000, 10_000, 3.5, 400, 3.0, 60, 4.0),
+            new RiskEpisodeTracker(riskEventRepository, new SimpleMeterRegistry(), 30_000, 600_000, 60_000, 0, 500));
         // Use lenient() to avoid unnecessary stubbing warnings
-        lenient().when(riskEventRepository.save(any(RiskEvent.class)))
+        lenient().when(riskEventRepository.insert(any(RiskEvent.class)))
             .thenReturn(Mono.just(new RiskEvent()));
     }
 
+    @Test
+    void shouldIgnoreManeuverEventsAlreadyStored() {
+        when(riskEventRepository.insert(any(RiskEvent.class)))
+            .thenReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key error")));
+        VehicleData first = createManeuverData(0, 80);
+        VehicleData second = createManeuverData(2_000, 40);
+
+        StepVerifier.create(riskAssessmentService.assessRisk(first).then(riskAssessmentService.assessRisk(second)))
+            .expectNext(second)
+            .verifyComplete();
+        verify(riskEventRepository).insert(any(RiskEvent.class));
+    }
+
+    private VehicleData createManeuverData(long offsetMillis, double speed) {
+        SensorSnapshot sensors = new SensorSnapshot();
+        sensors.set(Sensor.SPEED, speed, "km/h");
+        VehicleData data = new VehicleData();
+        data.setVehicleId("VEH-001");
+        data.setContractId("CONTRACT-001");
+        data.setTimestamp(Instant.parse("2025-02-23T10:00:00Z").plusMillis(offsetMillis));
+        data.setSensors(sensors);
+        return data;
+    }
+
     private VehicleData createTestData(double speed, double rpm) {
         VehicleData data = new VehicleData();
         VehicleData.SensorData sensorData = new VehicleData.SensorData();
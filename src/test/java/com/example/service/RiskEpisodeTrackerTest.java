@@ -0,0 +1,170 @@
+package com.example.service;
+
+import com.example.model.RiskEvent;
+import com.example.model.RiskEventType;
+import com.example.repository.RiskEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RiskEpisodeTrackerTest {
+
+    private static final Instant START = Instant.parse("2025-02-23T10:00:00Z");
+
+    @Mock
+    private RiskEventRepository riskEventRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RiskEpisodeTracker tracker;
+    private final List<RiskEvent> written = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tracker = new RiskEpisodeTracker(riskEventRepository, meterRegistry, 30_000, 600_000, 60_000, 0, 2);
+        lenient().when(riskEventRepository.insert(any(Iterable.class))).thenAnswer(invocation -> {
+            List<RiskEvent> batch = new ArrayList<>();
+            ((Iterable<RiskEvent>) invocation.getArgument(0)).forEach(batch::add);
+            written.addAll(batch);
+            return Flux.fromIterable(batch);
+        });
+    }
+
+    @Test
+    void shouldMergeConsecutiveReadingsIntoOneEpisode() {
+        for (int i = 0; i < 600; i++) {
+            tracker.record("VEH-001", "CONTRACT-001", RiskEventType.SPEEDING, i == 300 ? 0.2 : 0.1, START.plusSeconds(i));
+        }
+        tracker.flush().block();
+
+        verify(riskEventRepository, never()).insert(any(Iterable.class));
+        assertThat(tracker.openEpisodes()).isEqualTo(1);
+
+        tracker.closeIdle(System.currentTimeMillis() + 60_000);
+        tracker.flush().block();
+
+        assertThat(written).singleElement().satisfies(event -> {
+            assertThat(event.getVehicleId()).isEqualTo("VEH-001");
+            assertThat(event.getStartTime()).isEqualTo(START);
+            assertThat(event.getEndTime()).isEqualTo(START.plusSeconds(599));
+            assertThat(event.getTimestamp()).isEqualTo(START);
+            assertThat(event.getReadingCount()).isEqualTo(600);
+            assertThat(event.getPeakSeverity()).isEqualTo(0.2);
+        });
+        assertThat(meterRegistry.get("risk.episodes.closed").tag("reason", "idle").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldStartNewEpisodeAfterGapAndMaxDuration() {
+        tracker.record("VEH-001", "CONTRACT-001", RiskEventType.SPEEDING, 0.1, START);
+        tracker.record("VEH-001", "CONTRACT-001", RiskEventType.NIGHT_DRIVING, 0.3, START.plusSeconds(10));
+        tracker.record("VEH-001", "CONTRACT-001", RiskEventType.SPEEDING, 0.1, START.plusSeconds(100));
+        for (int i = 0; i <= 600; i += 10) {
+            tracker.record("VEH-002", "CONTRACT-002", RiskEventType.SPEEDING, 0.1, START.plusSeconds(i));
+        }
+        tracker.flush().block();
+
+        assertThat(written).hasSize(2);
+        assertThat(written.get(0).getType()).isEqualTo(RiskEventType.NIGHT_DRIVING);
+        assertThat(written.get(0).getReadingCount()).isEqualTo(2);
+        assertThat(written.get(1).getVehicleId()).isEqualTo("VEH-002");
+        assertThat(written.get(1).getEndTime()).isEqualTo(START.plusSeconds(590));
+        assertThat(meterRegistry.get("risk.episodes.closed").tag("reason", "gap").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("risk.episodes.closed").tag("reason", "max-duration").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldWriteClosedEpisodesInBatchesAndOpenOnesOnShutdown() {
+        for (int i = 0; i < 5; i++) {
+            tracker.record("VEH-" + i, "CONTRACT-001", RiskEventType.SPEEDING, 0.1, START);
+        }
+
+        tracker.stop();
+
+        ArgumentCaptor<Iterable<RiskEvent>> batches = ArgumentCaptor.forClass(Iterable.class);
+        verify(riskEventRepository, times(3)).insert(batches.capture());
+        assertThat(written).hasSize(5);
+        assertThat(tracker.openEpisodes()).isZero();
+    }
+
+    @Test
+    void shouldSkipEpisodesAlreadyWrittenBeforeARestart() {
+        when(riskEventRepository.insert(any(Iterable.class)))
+            .thenReturn(Flux.error(new DuplicateKeyException("E11000 duplicate key error")));
+        when(riskEventRepository.insert(any(RiskEvent.class))).thenAnswer(invocation -> {
+            RiskEvent event = invocation.getArgument(0);
+            if (event.getVehicleId().equals("VEH-001")) {
+                return Mono.error(new DuplicateKeyException("E11000 duplicate key error"));
+            }
+            written.add(event);
+            return Mono.just(event);
+        });
+        tracker.record("VEH-001", "CONTRACT-001", RiskEventType.SPEEDING, 0.1, START);
+        tracker.record("VEH-002", "CONTRACT-001", RiskEventType.SPEEDING, 0.1, START);
+
+        tracker.closeIdle(System.currentTimeMillis() + 60_000);
+        tracker.flush().block();
+
+        assertThat(written).singleElement().satisfies(event -> {
+            assertThat(event.getVehicleId()).isEqualTo("VEH-002");
+            assertThat(event.getEventKey()).isEqualTo("EPISODE|VEH-002|CONTRACT-001|" + START.toEpochMilli());
+        });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldRequeueEpisodesWhoseWriteFailed() {
+        when(riskEventRepository.insert(any(Iterable.class)))
+            .thenReturn(Flux.error(new IllegalStateException("primary stepped down")))
+            .thenAnswer(invocation -> Flux.fromIterable((Iterable<RiskEvent>) invocation.getArgument(0))
+                .doOnNext(written::add));
+        tracker.record("VEH-001", "CONTRACT-001", RiskEventType.SPEEDING, 0.1, START);
+        tracker.closeIdle(System.currentTimeMillis() + 60_000);
+
+        tracker.flush().block();
+        assertThat(written).isEmpty();
+        assertThat(meterRegistry.get("risk.episodes.pending").gauge().value()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("risk.episodes.flush.failures").counter().count()).isEqualTo(1.0);
+
+        tracker.flush().block();
+        assertThat(written).singleElement().extracting(RiskEvent::getVehicleId).isEqualTo("VEH-001");
+        assertThat(meterRegistry.get("risk.episodes.pending").gauge().value()).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldKeepEpisodesThatCouldNotBeWrittenOnShutdown() {
+        when(riskEventRepository.insert(any(Iterable.class)))
+            .thenReturn(Flux.error(new IllegalStateException("no primary")));
+        tracker.record("VEH-001", "CONTRACT-001", RiskEventType.SPEEDING, 0.1, START);
+        tracker.record("VEH-002", "CONTRACT-001", RiskEventType.SPEEDING, 0.1, START);
+
+        tracker.stop();
+
+        verify(riskEventRepository, times(1)).insert(any(Iterable.class));
+        assertThat(tracker.openEpisodes()).isZero();
+        assertThat(meterRegistry.get("risk.episodes.pending").gauge().value()).isEqualTo(2.0);
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.service;
+
+import com.example.model.RiskAssessment;
+import com.example.model.RiskFactor;
+import com.example.model.RiskFactorType;
+import com.example.model.RiskRule;
+import com.example.model.Sensor;
+import com.example.model.SensorSnapshot;
+import com.example.repository.RiskRuleRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class RiskRuleEngineTest {
+
+    @Mock
+    private RiskRuleRepository riskRuleRepository;
+
+    @Test
+    void shouldScoreDefaultRulesLikeTheFormerHardCodedFactors() {
+        RiskRuleEngine engine = new RiskRuleEngine(riskRuleRepository, 0);
+        Random random = new Random(42);
+
+        for (int i = 0; i < 1_000; i++) {
+            SensorSnapshot sensors = randomSnapshot(random);
+            RiskAssessment assessment = new RiskAssessment();
+            engine.evaluate(sensors, assessment);
+
+            List<RiskFactor> expected = legacyFactors(sensors);
+            assertThat(assessment.getRiskFactors()).isEqualTo(expected);
+            assertThat(assessment.getScore()).isEqualTo(legacyScore(expected));
+        }
+    }
+
+    @Test
+    void shouldApplyReloadedTableAndFallBackToDefaultsWhenEmpty() {
+        RiskRuleEngine engine = new RiskRuleEngine(riskRuleRepository, 0);
+        SensorSnapshot sensors = new SensorSnapshot();
+        sensors.set(Sensor.SPEED, 120.0, "km/h");
+        sensors.set(Sensor.BRAKE_PRESSURE, 150.0, "kPa");
+
+        engine.reload(List.of(
+            new RiskRule("harsh-braking", Sensor.BRAKE_PRESSURE, 100.0, 2.0, RiskFactorType.HARSH_BRAKING, "kPa", "Harsh braking", true),
+            new RiskRule("speed", Sensor.SPEED, 90.0, 1.5, RiskFactorType.SPEED_VIOLATION, "km/h", "Excessive speed detected", false)));
+        RiskAssessment assessment = new RiskAssessment();
+        engine.evaluate(sensors, assessment);
+
+        assertThat(assessment.getRiskFactors()).extracting(RiskFactor::getType).containsExactly(RiskFactorType.HARSH_BRAKING);
+        assertThat(assessment.getScore()).isEqualTo(1.0);
+
+        engine.reload(List.of());
+        engine.evaluate(sensors, assessment);
+
+        assertThat(engine.activeRules()).isEqualTo(RiskRuleEngine.DEFAULT_RULES);
+        assertThat(assessment.getRiskFactors()).extracting(RiskFactor::getType).containsExactly(RiskFactorType.SPEED_VIOLATION);
+    }
+
+    @Test
+    void shouldIgnoreInvalidRules() {
+        RiskRuleEngine engine = new RiskRuleEngine(riskRuleRepository, 0);
+        SensorSnapshot sensors = new SensorSnapshot();
+        sensors.set(Sensor.FUEL_RATE, 20.0, "L/h");
+
+        engine.reload(List.of(
+            new RiskRule("no-threshold", Sensor.FUEL_RATE, 0.0, 1.0, RiskFactorType.FUEL_EFFICIENCY, "L/h", "Zero threshold", true),
+            new RiskRule("fuel", Sensor.FUEL_RATE, 15.0, 0.5, RiskFactorType.FUEL_EFFICIENCY, "L/h", "High fuel consumption", true)));
+        RiskAssessment assessment = new RiskAssessment();
+        engine.evaluate(sensors, assessment);
+
+        assertThat(assessment.getRiskFactors()).hasSize(1);
+        assertThat(assessment.getRiskFactors().get(0).getDescription()).isEqualTo("High fuel consumption");
+    }
+
+    private static SensorSnapshot randomSnapshot(Random random) {
+        SensorSnapshot sensors = new SensorSnapshot();
+        sensors.set(Sensor.SPEED, random.nextDouble() * 160, "km/h");
+        sensors.set(Sensor.RPM, random.nextDouble() * 6000, "rpm");
+        if (random.nextBoolean()) {
+            sensors.set(Sensor.ENGINE_LOAD, random.nextDouble() * 100, "%");
+        }
+        if (random.nextBoolean()) {
+            sensors.set(Sensor.THROTTLE_POS, random.nextDouble() * 100, "%");
+        }
+        return sensors;
+    }
+
+    /** The factor evaluation of RiskAssessmentService before the rule table. */
+    private static List<RiskFactor> legacyFactors(SensorSnapshot data) {
+        List<RiskFactor> factors = new ArrayList<>();
+        double speed = data.valueOrDefault(Sensor.SPEED, 0.0);
+        if (speed > 90) {
+            factors.add(factor(RiskFactorType.SPEED_VIOLATION, speed, "km/h", 90.0, 1.5, "Excessive speed detected"));
+        }
+        double rpm = data.valueOrDefault(Sensor.RPM, 0.0);
+        if (rpm > 3000) {
+            factors.add(factor(RiskFactorType.HIGH_RPM, rpm, "rpm", 3000.0, 1.0, "High engine RPM"));
+        }
+        double load = data.valueOrDefault(Sensor.ENGINE_LOAD, 0.0);
+        if (load > 60) {
+            factors.add(factor(RiskFactorType.ENGINE_STRESS, load, "%", 60.0, 1, "High engine load"));
+        }
+        double throttle = data.valueOrDefault(Sensor.THROTTLE_POS, 0.0);
+        if (throttle > 80) {
+            factors.add(factor(RiskFactorType.AGGRESSIVE_ACCELERATION, throttle, "%", 80.0, 1, "Aggressive throttle usage"));
+        }
+        return factors;
+    }
+
+    private static double legacyScore(List<RiskFactor> factors) {
+        double totalScore = 0.0;
+        for (RiskFactor factor : factors) {
+            totalScore += (factor.getValue() - factor.getThreshold()) / factor.getThreshold() * factor.getWeight();
+        }
+        return totalScore;
+    }
+
+    private static RiskFactor factor(RiskFactorType type, double value, String unit, double threshold,
+                                     double weight, String description) {
+        RiskFactor factor = new RiskFactor();
+        factor.setType(type);
+        factor.setValue(value);
+        factor.setUnit(unit);
+        factor.setThreshold(threshold);
+        factor.setWeight(weight);
+        factor.setDescription(description);
+        return factor;
+    }
+}
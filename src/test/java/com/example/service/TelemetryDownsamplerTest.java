@@ -0,0 +1,101 @@
+package com.example.service;
+
+import com.example.model.Sensor;
+import com.example.model.SensorSnapshot;
+import com.example.model.VehicleData;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TelemetryDownsamplerTest {
+
+    private static final Instant START = Instant.parse("2025-02-23T00:00:00Z");
+
+    @Test
+    void shouldAverageEachInterval() {
+        TelemetryDownsampler.Spec spec = TelemetryDownsampler.Spec.of(
+            TelemetryDownsampler.Method.AVERAGE, null, Duration.ofMinutes(1), Sensor.SPEED, START, START.plusSeconds(3_600));
+
+        List<VehicleData> averaged = TelemetryDownsampler.downsample(readings(3_600, i -> i % 60), spec, START)
+            .collectList().block();
+
+        assertThat(averaged).hasSize(60);
+        assertThat(averaged.get(1).getTimestamp()).isEqualTo(START.plusSeconds(60));
+        assertThat(averaged.get(1).getSensors().value(Sensor.SPEED)).isEqualTo(29.5);
+        assertThat(averaged.get(1).getSensors().unit(Sensor.SPEED)).isEqualTo("km/h");
+        assertThat(averaged.get(1).getVehicleId()).isEqualTo("VEH-001");
+    }
+
+    @Test
+    void shouldTakeEachIntervalsUnitFromItsOwnReadings() {
+        TelemetryDownsampler.Spec spec = TelemetryDownsampler.Spec.of(
+            TelemetryDownsampler.Method.AVERAGE, null, Duration.ofMinutes(1), Sensor.SPEED, START, START.plusSeconds(120));
+        Flux<VehicleData> switchedUnit = readings(120, i -> 50).map(data -> {
+            if (data.getTimestamp().isAfter(START.plusSeconds(59))) {
+                data.getSensors().set(Sensor.SPEED, 31.0, "mph");
+            }
+            return data;
+        });
+
+        List<VehicleData> averaged = TelemetryDownsampler.downsample(switchedUnit, spec, START).collectList().block();
+
+        assertThat(averaged).hasSize(2);
+        assertThat(averaged.get(0).getSensors().unit(Sensor.SPEED)).isEqualTo("km/h");
+        assertThat(averaged.get(1).getSensors().unit(Sensor.SPEED)).isEqualTo("mph");
+    }
+
+    @Test
+    void shouldKeepEndpointsAndPeaksWithLttb() {
+        int count = 86_400;
+        Instant end = START.plusSeconds(count);
+        TelemetryDownsampler.Spec spec = TelemetryDownsampler.Spec.of(
+            TelemetryDownsampler.Method.LTTB, 500, null, Sensor.SPEED, START, end);
+
+        List<VehicleData> sampled = TelemetryDownsampler.downsample(
+                readings(count, i -> i == 40_000 ? 250 : 60 + 20 * Math.sin(i / 3_000.0)), spec, START)
+            .collectList().block();
+
+        assertThat(sampled).hasSizeLessThanOrEqualTo(500).hasSizeGreaterThan(400);
+        assertThat(sampled.get(0).getTimestamp()).isEqualTo(START);
+        assertThat(sampled.get(sampled.size() - 1).getTimestamp()).isEqualTo(START.plusSeconds(count - 1));
+        assertThat(sampled).anyMatch(data -> data.getSensors().value(Sensor.SPEED) == 250);
+        assertThat(sampled).isSortedAccordingTo((a, b) -> a.getTimestamp().compareTo(b.getTimestamp()));
+    }
+
+    @Test
+    void shouldStreamWithoutWaitingForTheEndOfTheRange() {
+        TelemetryDownsampler.Spec spec = TelemetryDownsampler.Spec.of(
+            TelemetryDownsampler.Method.AVERAGE, null, Duration.ofSeconds(10), Sensor.SPEED, START, START.plusSeconds(3_600));
+
+        // Unbounded source: only a single pass that emits as buckets close can produce the first items
+        List<VehicleData> first = TelemetryDownsampler.downsample(readings(Integer.MAX_VALUE, i -> 50), spec, START)
+            .take(5)
+            .collectList().block(Duration.ofSeconds(5));
+
+        assertThat(first).hasSize(5);
+    }
+
+    private interface Speed {
+        double at(int second);
+    }
+
+    /** One reading per second from {@link #START}, generated lazily. */
+    private static Flux<VehicleData> readings(int count, Speed speed) {
+        return Flux.range(0, count).map(i -> {
+            SensorSnapshot sensors = new SensorSnapshot();
+            sensors.set(Sensor.SPEED, speed.at(i), "km/h");
+            sensors.set(Sensor.RPM, 2_000 + i % 500, "rpm");
+            VehicleData data = new VehicleData();
+            data.setVehicleId("VEH-001");
+            data.setContractId("CONTRACT-001");
+            data.setTimestamp(START.plusSeconds(i));
+            data.setSensors(sensors);
+            return data;
+        });
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.service;
+
+import com.example.model.InsuranceContract;
+import com.example.model.VehicleData;
+import com.example.repository.VehicleDataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class VehicleDataBatchReaderTest {
+
+    private static final Instant NOW = Instant.parse("2025-02-23T10:00:00Z");
+
+    @Mock
+    private VehicleDataRepository vehicleDataRepository;
+
+    @Mock
+    private InsuranceContractCache contractCache;
+
+    private LatestVehicleDataCache latestCache;
+    private VehicleDataBatchReader batchReader;
+
+    @BeforeEach
+    void setUp() {
+        latestCache = new LatestVehicleDataCache(vehicleDataRepository, new SimpleMeterRegistry(), 100_000, 60_000, 5_000);
+        batchReader = new VehicleDataBatchReader(vehicleDataRepository, latestCache, contractCache, 100, 4, 10_000);
+    }
+
+    @Test
+    void shouldReadOnlyUncachedVehiclesOneShardPerQuery() {
+        List<String> vehicleIds = IntStream.range(0, 1_000).mapToObj(i -> "VEH-" + i).toList();
+        vehicleIds.subList(0, 750).forEach(vehicleId -> latestCache.record(reading(vehicleId)));
+        when(vehicleDataRepository.findLatestByVehicleIdIn(anyCollection()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.<Collection<String>>getArgument(0))
+                .map(VehicleDataBatchReaderTest::reading));
+
+        StepVerifier.create(batchReader.latest(vehicleIds))
+            .expectNextCount(1_000)
+            .verifyComplete();
+
+        verify(vehicleDataRepository, times(3)).findLatestByVehicleIdIn(anyCollection());
+        assertThat(latestCache.getIfPresent("VEH-999")).isNotNull();
+    }
+
+    @Test
+    void shouldResolveContractsToDistinctVehicles() {
+        when(contractCache.findById("CONTRACT-1")).thenReturn(Mono.just(contract("VEH-1")));
+        when(contractCache.findById("CONTRACT-2")).thenReturn(Mono.just(contract("VEH-2")));
+        when(contractCache.findById("CONTRACT-404")).thenReturn(Mono.empty());
+
+        StepVerifier.create(batchReader.resolve(new VehicleDataBatchReader.VehicleSelection(
+                List.of("VEH-1", "VEH-3"), List.of("CONTRACT-1", "CONTRACT-2", "CONTRACT-404"))))
+            .expectNext(List.of("VEH-1", "VEH-3", "VEH-2"))
+            .verifyComplete();
+    }
+
+    @Test
+    void shouldRejectEmptyAndOversizedSelections() {
+        List<String> tooMany = IntStream.range(0, 10_001).mapToObj(i -> "VEH-" + i).toList();
+
+        StepVerifier.create(batchReader.resolve(new VehicleDataBatchReader.VehicleSelection(tooMany, null)))
+            .verifyError(IllegalArgumentException.class);
+        StepVerifier.create(batchReader.resolve(new VehicleDataBatchReader.VehicleSelection(List.of(), null)))
+            .verifyError(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldGroupHistoriesByVehicle() {
+        when(vehicleDataRepository.findRecentByVehicleIdIn(anyCollection(), any(), anyInt()))
+            .thenReturn(Flux.just(reading("VEH-1"), reading("VEH-1"), reading("VEH-2")));
+
+        StepVerifier.create(batchReader.history(List.of("VEH-1", "VEH-2"), NOW.minusSeconds(3_600), 10))
+            .assertNext(history -> assertThat(history.readings()).hasSize(2))
+            .assertNext(history -> assertThat(history.vehicleId()).isEqualTo("VEH-2"))
+            .verifyComplete();
+    }
+
+    private static VehicleData reading(String vehicleId) {
+        VehicleData data = new VehicleData();
+        data.setVehicleId(vehicleId);
+        data.setContractId("CONTRACT-" + vehicleId);
+        data.setTimestamp(NOW);
+        return data;
+    }
+
+    private static InsuranceContract contract(String vehicleId) {
+        InsuranceContract contract = new InsuranceContract();
+        contract.setVehicleId(vehicleId);
+        return contract;
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.service;
+
+import com.example.model.Sensor;
+import com.example.model.SensorSnapshot;
+import com.example.model.VehicleData;
+import com.example.model.VehicleDataBucket;
+import com.mongodb.bulk.BulkWriteInsert;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import org.bson.BsonObjectId;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class VehicleDataBulkWriterTest {
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Mock
+    private ReactiveBulkOperations bulkOperations;
+
+    private VehicleDataBulkWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        lenient().when(mongoTemplate.bulkOps(eq(BulkMode.UNORDERED), eq(VehicleData.class)))
+            .thenReturn(bulkOperations);
+        writer = new VehicleDataBulkWriter(mongoTemplate, 10, 50, 1, "document", 3_600_000, 1_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.shutdown();
+    }
+
+    @Test
+    void shouldReportInsertedAndDuplicateOutcomesFromOneBulkWrite() {
+        ObjectId insertedId = new ObjectId();
+        BulkWriteResult result = mock(BulkWriteResult.class);
+        when(result.getUpserts()).thenReturn(List.of(new BulkWriteUpsert(0, new BsonObjectId(insertedId))));
+        when(bulkOperations.execute()).thenReturn(Mono.just(result));
+
+        Instant timestamp = Instant.parse("2025-02-23T10:00:00Z");
+        VehicleData fresh = createTestVehicleData("VEH-001", timestamp);
+        VehicleData redelivered = createTestVehicleData("VEH-002", timestamp);
+
+        StepVerifier.create(Mono.zip(writer.write(fresh), writer.write(redelivered))
+                .timeout(Duration.ofSeconds(5)))
+            .assertNext(results -> {
+                assertThat(results.getT1().outcome()).isEqualTo(VehicleDataBulkWriter.Outcome.INSERTED);
+                assertThat(results.getT1().data().getId()).isEqualTo(insertedId.toHexString());
+                assertThat(results.getT2().outcome()).isEqualTo(VehicleDataBulkWriter.Outcome.DUPLICATE);
+            })
+            .verifyComplete();
+
+        verify(bulkOperations, times(2)).upsert(any(Query.class), any(Update.class));
+        verify(bulkOperations, times(1)).execute();
+    }
+
+    @Test
+    void shouldFailOnlyTheReadingThatCouldNotBeQueuedAndKeepWriting() {
+        BulkWriteResult result = mock(BulkWriteResult.class);
+        when(result.getUpserts()).thenReturn(List.of(new BulkWriteUpsert(0, new BsonObjectId(new ObjectId()))));
+        when(bulkOperations.upsert(any(Query.class), any(Update.class)))
+            .thenThrow(new IllegalStateException("bulk closed"))
+            .thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(Mono.just(result));
+        Instant timestamp = Instant.parse("2025-02-23T10:00:00Z");
+
+        StepVerifier.create(writer.write(createTestVehicleData("VEH-001", timestamp)).timeout(Duration.ofSeconds(5)))
+            .expectError(IllegalStateException.class)
+            .verify();
+        StepVerifier.create(writer.write(createTestVehicleData("VEH-002", timestamp)).timeout(Duration.ofSeconds(5)))
+            .assertNext(written -> assertThat(written.inserted()).isTrue())
+            .verifyComplete();
+    }
+
+    @Test
+    void shouldWriteSensorSubDocumentFromSnapshot() {
+        ObjectId insertedId = new ObjectId();
+        BulkWriteResult result = mock(BulkWriteResult.class);
+        when(result.getInserts()).thenReturn(List.of(new BulkWriteInsert(0, new BsonObjectId(insertedId))));
+        when(bulkOperations.execute()).thenReturn(Mono.just(result));
+
+        VehicleData data = new VehicleData();
+        data.setVehicleId("VEH-001");
+        data.setContractId("CONTRACT-001");
+        data.setTimestamp(Instant.parse("2025-02-23T10:00:00Z"));
+        SensorSnapshot sensors = new SensorSnapshot();
+        sensors.set(Sensor.SPEED, 60.0, "km/h");
+        sensors.addExtra("HEADING", 90.0, "deg");
+        data.setSensors(sensors);
+
+        StepVerifier.create(writer.write(data, true).timeout(Duration.ofSeconds(5)))
+            .assertNext(written -> assertThat(written.inserted()).isTrue())
+            .verifyComplete();
+
+        ArgumentCaptor<Object> inserted = ArgumentCaptor.forClass(Object.class);
+        verify(bulkOperations).insert(inserted.capture());
+        Document sensorData = (Document) ((Document) inserted.getValue()).get("data");
+        assertThat(sensorData.get("speed", Document.class)).containsEntry("value", 60.0).containsEntry("unit", "km/h");
+        assertThat(sensorData.get("additionalProperties", Document.class).get("HEADING", Document.class))
+            .containsEntry("value", 90.0);
+    }
+
+    @Test
+    void shouldAppendReadingsToOneBucketPerVehicleAndSlot() {
+        when(mongoTemplate.bulkOps(eq(BulkMode.UNORDERED), eq(VehicleDataBucket.class))).thenReturn(bulkOperations);
+        when(mongoTemplate.find(any(Query.class), eq(VehicleDataBucket.class))).thenReturn(Flux.empty());
+        when(bulkOperations.execute()).thenReturn(Mono.just(BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of())));
+        VehicleDataBulkWriter bucketWriter = new VehicleDataBulkWriter(mongoTemplate, 10, 50, 1, "bucketed", 3_600_000, 2);
+        Instant slot = Instant.parse("2025-02-23T10:00:00Z");
+
+        try {
+            StepVerifier.create(Mono.zip(
+                    bucketWriter.write(createTestVehicleData("VEH-001", slot.plusSeconds(1))),
+                    bucketWriter.write(createTestVehicleData("VEH-001", slot.plusSeconds(2))),
+                    bucketWriter.write(createTestVehicleData("VEH-001", slot.plusSeconds(3))),
+                    bucketWriter.write(createTestVehicleData("VEH-001", slot.plusSeconds(3_600))),
+                    bucketWriter.write(createTestVehicleData("VEH-002", slot.plusSeconds(1))))
+                    .timeout(Duration.ofSeconds(5)))
+                .assertNext(results -> assertThat(results.toList())
+                    .allMatch(result -> ((VehicleDataBulkWriter.WriteResult) result).inserted()))
+                .verifyComplete();
+        } finally {
+            bucketWriter.shutdown();
+        }
+
+        ArgumentCaptor<Query> filters = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(4)).upsert(filters.capture(), updates.capture());
+        verify(bulkOperations, times(1)).execute();
+        Document first = filters.getAllValues().get(0).getQueryObject();
+        assertThat(first.get("vehicleId")).isEqualTo("VEH-001");
+        assertThat(first.get("bucketStart")).isEqualTo(slot);
+        assertThat(first.get("count", Document.class)).containsEntry("$lt", 2);
+        assertThat(first.get("readings", Document.class)).containsKey("$not");
+        Document append = updates.getAllValues().get(0).getUpdateObject();
+        assertThat(append.get("$inc", Document.class)).containsEntry("count", 2);
+        assertThat(append.get("$max", Document.class)).containsEntry("summary.speed.max", 60.0)
+            .containsEntry("maxTimestamp", slot.plusSeconds(2));
+        assertThat(updates.getAllValues().get(1).getUpdateObject().get("$inc", Document.class)).containsEntry("count", 1);
+    }
+
+    @Test
+    void shouldReportARedeliveredReadingAsDuplicateInBucketedMode() {
+        Instant slot = Instant.parse("2025-02-23T10:00:00Z");
+        VehicleDataBucket stored = new VehicleDataBucket();
+        stored.setVehicleId("VEH-001");
+        stored.setBucketStart(slot);
+        stored.setReadings(List.of(new Document("contractId", "CONTRACT-001")
+            .append("timestamp", Date.from(slot.plusSeconds(1)))));
+        when(mongoTemplate.bulkOps(eq(BulkMode.UNORDERED), eq(VehicleDataBucket.class))).thenReturn(bulkOperations);
+        when(mongoTemplate.find(any(Query.class), eq(VehicleDataBucket.class))).thenReturn(Flux.just(stored));
+        when(bulkOperations.execute()).thenReturn(Mono.just(BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of())));
+        VehicleDataBulkWriter bucketWriter = new VehicleDataBulkWriter(mongoTemplate, 10, 50, 1, "bucketed", 3_600_000, 100);
+
+        try {
+            StepVerifier.create(Mono.zip(
+                    bucketWriter.write(createTestVehicleData("VEH-001", slot.plusSeconds(1))),
+                    bucketWriter.write(createTestVehicleData("VEH-001", slot.plusSeconds(2))),
+                    bucketWriter.write(createTestVehicleData("VEH-001", slot.plusSeconds(2))))
+                    .timeout(Duration.ofSeconds(5)))
+                .assertNext(results -> {
+                    assertThat(results.getT1().outcome()).isEqualTo(VehicleDataBulkWriter.Outcome.DUPLICATE);
+                    assertThat(results.getT2().outcome()).isEqualTo(VehicleDataBulkWriter.Outcome.INSERTED);
+                    assertThat(results.getT3().outcome()).isEqualTo(VehicleDataBulkWriter.Outcome.DUPLICATE);
+                })
+                .verifyComplete();
+        } finally {
+            bucketWriter.shutdown();
+        }
+
+        ArgumentCaptor<Query> lookup = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(lookup.capture(), eq(VehicleDataBucket.class));
+        assertThat(lookup.getValue().getFieldsObject()).containsKeys("readings.contractId", "readings.timestamp");
+        ArgumentCaptor<Query> filters = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations).upsert(filters.capture(), updates.capture());
+        assertThat(updates.getValue().getUpdateObject().get("$inc", Document.class)).containsEntry("count", 1);
+        Document notYetStored = filters.getValue().getQueryObject().get("readings", Document.class).get("$not", Document.class);
+        assertThat(notYetStored).containsKey("$elemMatch");
+    }
+
+    private VehicleData createTestVehicleData(String vehicleId, Instant timestamp) {
+        VehicleData data = new VehicleData();
+        data.setVehicleId(vehicleId);
+        data.setContractId("CONTRACT-001");
+        data.setTimestamp(timestamp);
+        VehicleData.SensorData sensorData = new VehicleData.SensorData();
+        VehicleData.Measurement speed = new VehicleData.Measurement();
+        speed.setValue(60.0);
+        speed.setUnit("km/h");
+        sensorData.setSpeed(speed);
+        data.setData(sensorData);
+        return data;
+    }
+}
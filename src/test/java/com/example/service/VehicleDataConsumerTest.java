@@ -0,0 +1,106 @@
+package com.example.service;
+
+import com.example.model.VehicleData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.ReceiverOffset;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class VehicleDataConsumerTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("vehicle-data", 0);
+
+    @Mock
+    private VehicleDataService vehicleDataService;
+
+    @Mock
+    private VehicleStateStore vehicleStateStore;
+
+    private SimpleMeterRegistry meterRegistry;
+    private VehicleDataConsumer consumer;
+    private final List<String> processed = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        consumer = new VehicleDataConsumer(vehicleDataService, null, new LiveTelemetryHub(meterRegistry, 16),
+            vehicleStateStore, meterRegistry, 500, 200, 4, 2);
+    }
+
+    @Test
+    void shouldCommitPastARecordThatKeepsFailing() {
+        when(vehicleDataService.processVehicleData(any())).thenAnswer(invocation -> {
+            VehicleData data = invocation.getArgument(0);
+            if (data.getVehicleId().equals("POISON")) {
+                return Mono.error(new IllegalArgumentException("unknown contract"));
+            }
+            processed.add(data.getVehicleId());
+            return Mono.just(data);
+        });
+        List<ReceiverRecord<String, VehicleData>> batch = List.of(
+            record(41, reading("VEH-001")), record(42, reading("POISON")), record(43, reading("VEH-002")));
+
+        StepVerifier.create(consumer.processBatch(batch)).verifyComplete();
+
+        assertThat(processed).containsExactlyInAnyOrder("VEH-001", "VEH-002");
+        batch.forEach(record -> verify(record.receiverOffset()).acknowledge());
+        verify(batch.get(2).receiverOffset()).commit();
+        verify(vehicleStateStore).recordConsumed(Map.of(PARTITION, 44L));
+        assertThat(meterRegistry.get("ingestion.skipped").tag("channel", "kafka").tag("reason", "failed")
+            .counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldNotCommitWhileMongoDbIsUnreachable() {
+        when(vehicleDataService.processVehicleData(any()))
+            .thenReturn(Mono.error(new DataAccessResourceFailureException("Timed out waiting for a server")));
+        List<ReceiverRecord<String, VehicleData>> batch = List.of(record(41, reading("VEH-001")));
+
+        StepVerifier.create(consumer.processBatch(batch))
+            .expectError(DataAccessResourceFailureException.class)
+            .verify();
+
+        verify(batch.get(0).receiverOffset(), never()).commit();
+        assertThat(meterRegistry.get("ingestion.skipped").tag("reason", "failed").counter().count()).isZero();
+    }
+
+    private static ReceiverRecord<String, VehicleData> record(long offset, VehicleData value) {
+        ReceiverOffset receiverOffset = mock(ReceiverOffset.class);
+        lenient().when(receiverOffset.topicPartition()).thenReturn(PARTITION);
+        lenient().when(receiverOffset.offset()).thenReturn(offset);
+        lenient().when(receiverOffset.commit()).thenReturn(Mono.empty());
+        return new ReceiverRecord<>(new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), offset,
+            value.getVehicleId(), value), receiverOffset);
+    }
+
+    private static VehicleData reading(String vehicleId) {
+        VehicleData data = new VehicleData();
+        data.setVehicleId(vehicleId);
+        data.setContractId("CONTRACT-001");
+        data.setTimestamp(Instant.parse("2025-02-23T10:00:00Z"));
+        return data;
+    }
+}
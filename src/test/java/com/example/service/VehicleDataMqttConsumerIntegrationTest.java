@@ -0,0 +1,175 @@
+package com.example.service;
+
+import com.example.config.JacksonConfig;
+import com.example.model.VehicleData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.hivemq.HiveMQContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+@Import(JacksonConfig.class)
+class VehicleDataMqttConsumerIntegrationTest {
+
+    @Container
+    static MongoDBContainer mongodb = new MongoDBContainer(DockerImageName.parse("mongo:5.0"))
+            .withExposedPorts(27017);
+
+    @Container
+    static HiveMQContainer hivemq = new HiveMQContainer(
+            DockerImageName.parse("hivemq/hivemq-ce").withTag("2023.5"));
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private VehicleDataService vehicleDataService;
+
+    /** Kafka ingestion is not under test here. */
+    @MockBean
+    private VehicleDataConsumer vehicleDataConsumer;
+
+    private final Set<String> processed = ConcurrentHashMap.newKeySet();
+    private volatile CountDownLatch processedLatch = new CountDownLatch(0);
+    private MqttAsyncClient publisher;
+
+    @DynamicPropertySource
+    static void registerContainersProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", () -> mongodb.getConnectionString() + "/vehicledb");
+        registry.add("mqtt.enabled", () -> "true");
+        registry.add("mqtt.broker-url", () -> "tcp://" + hivemq.getHost() + ":" + hivemq.getMqttPort());
+        registry.add("mqtt.client-id", () -> "vehicle-data-mqtt-consumer-test");
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(vehicleDataService.processVehicleData(any()))
+            .thenAnswer(invocation -> {
+                VehicleData data = invocation.getArgument(0);
+                if (data.getVehicleId().equals("POISON")) {
+                    return Mono.error(new IllegalArgumentException("unknown contract"));
+                }
+                processed.add(data.getVehicleId() + "@" + data.getTimestamp());
+                processedLatch.countDown();
+                return Mono.just(data);
+            });
+
+        publisher = new MqttAsyncClient("tcp://" + hivemq.getHost() + ":" + hivemq.getMqttPort(),
+            "vehicle-data-publisher", new MemoryPersistence());
+        MqttConnectOptions options = new MqttConnectOptions();
+        options.setMaxInflight(1_000);
+        publisher.connect(options).waitForCompletion();
+        // Let the consumer subscribe before publishing
+        Thread.sleep(2000);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        publisher.disconnect().waitForCompletion();
+        publisher.close();
+    }
+
+    @Test
+    void shouldConsumeQos1MessagesAndTakeVehicleIdFromTopic() throws Exception {
+        int messages = 500;
+        processedLatch = new CountDownLatch(messages);
+        Instant start = Instant.parse("2025-02-23T10:00:00Z");
+
+        for (int i = 0; i < messages; i++) {
+            String vehicleId = "MQTT-" + (i % 10);
+            publish(vehicleId, payload(null, start.plusSeconds(i)));
+        }
+
+        boolean allProcessed = processedLatch.await(30, TimeUnit.SECONDS);
+        assertThat(allProcessed).as("all messages processed").isTrue();
+        assertThat(processed).hasSize(messages);
+        assertThat(processed).allMatch(key -> key.startsWith("MQTT-"));
+    }
+
+    @Test
+    void shouldAcknowledgeAPoisonMessageAndKeepConsuming() throws Exception {
+        int messages = 50;
+        processedLatch = new CountDownLatch(messages);
+        Instant start = Instant.parse("2025-02-23T11:00:00Z");
+
+        publish("POISON", payload(null, start));
+        for (int i = 1; i <= messages; i++) {
+            publish("MQTT-AFTER", payload(null, start.plusSeconds(i)));
+        }
+
+        boolean allProcessed = processedLatch.await(30, TimeUnit.SECONDS);
+        assertThat(allProcessed).as("messages after the poison message processed").isTrue();
+        assertThat(meterRegistry.get("ingestion.skipped").tag("channel", "mqtt").tag("reason", "failed")
+            .counter().count()).isEqualTo(1.0);
+    }
+
+    /** QoS 1 publish; waits for the broker ack when the publisher's in-flight window is full. */
+    private void publish(String vehicleId, byte[] payload) throws Exception {
+        while (true) {
+            try {
+                publisher.publish("vehicles/" + vehicleId + "/telemetry", payload, 1, false);
+                return;
+            } catch (MqttException e) {
+                if (e.getReasonCode() != MqttException.REASON_CODE_MAX_INFLIGHT) {
+                    throw e;
+                }
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    private byte[] payload(String vehicleId, Instant timestamp) throws Exception {
+        VehicleData data = new VehicleData();
+        data.setVehicleId(vehicleId);
+        data.setContractId("CONTRACT-001");
+        data.setTimestamp(timestamp);
+
+        VehicleData.SensorData sensorData = new VehicleData.SensorData();
+        sensorData.setSpeed(createMeasurement(60.0, "km/h"));
+        sensorData.setRpm(createMeasurement(2500.0, "rpm"));
+        sensorData.setTimestamp(timestamp);
+
+        data.setData(sensorData);
+        return objectMapper.writeValueAsBytes(data);
+    }
+
+    private VehicleData.Measurement createMeasurement(double value, String unit) {
+        VehicleData.Measurement measurement = new VehicleData.Measurement();
+        measurement.setValue(value);
+        measurement.setUnit(unit);
+        return measurement;
+    }
+}
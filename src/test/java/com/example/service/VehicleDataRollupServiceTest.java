@@ -0,0 +1,175 @@
+package com.example.service;
+
+import com.example.model.RiskAssessment;
+import com.example.model.RiskLevel;
+import com.example.model.RollupResolution;
+import com.example.model.VehicleData;
+import com.example.model.VehicleDataRollup;
+import com.example.repository.VehicleDataRollupRepository;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class VehicleDataRollupServiceTest {
+
+    private static final Instant START = Instant.parse("2025-02-23T10:00:00Z");
+
+    @Mock
+    private VehicleDataRollupRepository rollupRepository;
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Mock
+    private ReactiveBulkOperations bulkOperations;
+
+    private SimpleMeterRegistry meterRegistry;
+    private VehicleDataRollupService rollupService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        rollupService = new VehicleDataRollupService(rollupRepository, mongoTemplate, meterRegistry, 0, 500);
+        lenient().when(mongoTemplate.bulkOps(BulkMode.UNORDERED, VehicleDataRollup.class)).thenReturn(bulkOperations);
+        lenient().when(bulkOperations.upsert(any(Query.class), any(Update.class))).thenReturn(bulkOperations);
+    }
+
+    @Test
+    void shouldWriteOneUpsertPerRollupInsteadOfOnePerReading() {
+        when(bulkOperations.execute()).thenReturn(Mono.just(result()));
+        for (int i = 0; i < 600; i++) {
+            rollupService.record(reading(START.plusSeconds(i), 40 + i % 61, i % 2 == 0 ? RiskLevel.LOW : RiskLevel.HIGH));
+        }
+
+        rollupService.flush().block();
+
+        ArgumentCaptor<Query> filters = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(12)).upsert(filters.capture(), updates.capture());
+        verify(bulkOperations, times(1)).execute();
+        Document hour = update(filters.getAllValues(), updates.getAllValues(),
+            VehicleDataRollup.id("VEH-001", RollupResolution.HOUR, START));
+        assertThat(hour.get("$inc", Document.class))
+            .containsEntry("count", 600L)
+            .containsEntry("sensors.speed.count", 600L)
+            .containsEntry("riskLevels.HIGH", 300L);
+        assertThat(hour.get("$min", Document.class)).containsEntry("sensors.speed.min", 40.0);
+        assertThat(hour.get("$max", Document.class)).containsEntry("sensors.speed.max", 100.0);
+        assertThat(meterRegistry.get("rollups.written").counter().count()).isEqualTo(12.0);
+        assertThat(meterRegistry.get("rollups.pending").gauge().value()).isZero();
+    }
+
+    @Test
+    void shouldKeepFailedDeltasForTheNextFlush() {
+        when(bulkOperations.execute())
+            .thenReturn(Mono.error(new IllegalStateException("primary stepped down")))
+            .thenReturn(Mono.just(result()));
+        rollupService.record(reading(START, 50, RiskLevel.LOW));
+
+        StepVerifier.create(rollupService.flush()).verifyError(IllegalStateException.class);
+        rollupService.record(reading(START.plusSeconds(1), 70, RiskLevel.LOW));
+        rollupService.flush().block();
+
+        ArgumentCaptor<Query> filters = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(6)).upsert(filters.capture(), updates.capture());
+        Document day = update(filters.getAllValues().subList(3, 6), updates.getAllValues().subList(3, 6),
+            VehicleDataRollup.id("VEH-001", RollupResolution.DAY, RollupResolution.DAY.start(START)));
+        assertThat(day.get("$inc", Document.class)).containsEntry("count", 2L).containsEntry("sensors.speed.sum", 120.0);
+        assertThat(meterRegistry.get("rollups.flush.failures").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldCombineIntervalsIntoTotal() {
+        Instant end = START.plusSeconds(7_200);
+        when(rollupRepository.findRange(eq("VEH-001"), eq(RollupResolution.HOUR), eq(START), eq(end), any(Sort.class)))
+            .thenReturn(Flux.just(rollup(START, 10, 50.0, 40.0, 60.0), rollup(START.plusSeconds(3_600), 30, 2_100.0, 30.0, 90.0)));
+
+        StepVerifier.create(rollupService.aggregates("VEH-001", RollupResolution.HOUR, START.plusSeconds(60), end))
+            .assertNext(aggregates -> {
+                assertThat(aggregates.intervals()).hasSize(2);
+                assertThat(aggregates.intervals().get(0).sensors().get("speed").mean()).isEqualTo(5.0);
+                VehicleDataRollupService.SensorAggregate speed = aggregates.total().sensors().get("speed");
+                assertThat(speed.count()).isEqualTo(40);
+                assertThat(speed.mean()).isEqualTo(53.75);
+                assertThat(speed.min()).isEqualTo(30.0);
+                assertThat(speed.max()).isEqualTo(90.0);
+                assertThat(aggregates.total().riskLevels()).containsEntry("LOW", 40L);
+            })
+            .verifyComplete();
+    }
+
+    private static Document update(List<Query> filters, List<Update> updates, String id) {
+        for (int i = 0; i < filters.size(); i++) {
+            if (id.equals(filters.get(i).getQueryObject().get("_id"))) {
+                return updates.get(i).getUpdateObject();
+            }
+        }
+        throw new AssertionError("No upsert for " + id);
+    }
+
+    private static VehicleDataRollup rollup(Instant start, long count, double sum, double min, double max) {
+        VehicleDataRollup.SensorStats speed = new VehicleDataRollup.SensorStats();
+        speed.setCount(count);
+        speed.setSum(sum);
+        speed.setMin(min);
+        speed.setMax(max);
+        VehicleDataRollup rollup = new VehicleDataRollup();
+        rollup.setVehicleId("VEH-001");
+        rollup.setResolution(RollupResolution.HOUR);
+        rollup.setStart(start);
+        rollup.setCount(count);
+        rollup.setSensors(Map.of("speed", speed));
+        rollup.setRiskLevels(Map.of("LOW", count));
+        return rollup;
+    }
+
+    private static VehicleData reading(Instant timestamp, double speed, RiskLevel level) {
+        VehicleData data = new VehicleData();
+        data.setVehicleId("VEH-001");
+        data.setContractId("CONTRACT-001");
+        data.setTimestamp(timestamp);
+        VehicleData.SensorData sensorData = new VehicleData.SensorData();
+        VehicleData.Measurement measurement = new VehicleData.Measurement();
+        measurement.setValue(speed);
+        measurement.setUnit("km/h");
+        sensorData.setSpeed(measurement);
+        data.setData(sensorData);
+        RiskAssessment assessment = new RiskAssessment();
+        assessment.setLevel(level);
+        data.setRiskAssessment(assessment);
+        return data;
+    }
+
+    private static BulkWriteResult result() {
+        return BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of());
+    }
+}
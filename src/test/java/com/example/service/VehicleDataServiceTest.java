@@ -4,11 +4,13 @@ import com.example.model.RiskLevel;
 import com.example.model.VehicleData;
 import com.example.model.RiskAssessment;
 import com.example.repository.VehicleDataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
@@ -16,6 +18,10 @@ import java.time.Instant;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,15 +33,31 @@ class VehicleDataServiceTest {
     @Mock
     private RiskAssessmentService riskAssessmentService;
 
+    @Mock
+    private VehicleDataBulkWriter bulkWriter;
+
+    @Mock
+    private ContractRepricer contractRepricer;
+
+    @Mock
+    private VehicleDataRollupService rollupService;
+
+    @Mock
+    private LatestVehicleDataCache latestCache;
+
+    @Mock
+    private VehicleDataSummaryService summaryService;
+
     private VehicleDataService vehicleDataService;
 
     @BeforeEach
     void setUp() {
-        vehicleDataService = new VehicleDataService(vehicleDataRepository, riskAssessmentService);
-        when(riskAssessmentService.assessRisk(any()))
-            .thenReturn(Mono.just(createVehicleDataWithRiskAssessment()));
-        when(vehicleDataRepository.save(any()))
-            .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        vehicleDataService = new VehicleDataService(vehicleDataRepository, riskAssessmentService, bulkWriter,
+            new IdempotencyFilters(new SimpleMeterRegistry(), 1 << 20, 600_000, 4, 0.01), contractRepricer, rollupService, latestCache,
+            new ReadCoalescer(new SimpleMeterRegistry(), 10_000, 100_000, 60_000, 300_000), summaryService);
+        lenient().when(bulkWriter.write(any(), anyBoolean()))
+            .thenAnswer(invocation -> Mono.just(new VehicleDataBulkWriter.WriteResult(
+                invocation.getArgument(0), VehicleDataBulkWriter.Outcome.INSERTED)));
     }
 
     private VehicleData createTestVehicleData() {
@@ -71,6 +93,8 @@ class VehicleDataServiceTest {
     @Test
     void shouldProcessVehicleData() {
         VehicleData testData = createTestVehicleData();
+        when(riskAssessmentService.assessRisk(any()))
+            .thenReturn(Mono.just(createVehicleDataWithRiskAssessment()));
 
         StepVerifier.create(vehicleDataService.processVehicleData(testData))
             .expectNextMatches(data -> {
@@ -81,4 +105,36 @@ class VehicleDataServiceTest {
             })
             .verifyComplete();
     }
-} 
\ No newline at end of file
+
+    @Test
+    void shouldFeedLatestCacheWithInsertedReadingsOnly() {
+        VehicleData inserted = createTestVehicleData();
+        inserted.setTimestamp(Instant.parse("2025-02-23T10:00:00Z"));
+        StepVerifier.create(vehicleDataService.saveVehicleData(inserted)).expectNextCount(1).verifyComplete();
+
+        VehicleData duplicate = createTestVehicleData();
+        duplicate.setTimestamp(Instant.parse("2025-02-23T10:00:01Z"));
+        when(bulkWriter.write(any(), anyBoolean()))
+            .thenReturn(Mono.just(new VehicleDataBulkWriter.WriteResult(duplicate, VehicleDataBulkWriter.Outcome.DUPLICATE)));
+        StepVerifier.create(vehicleDataService.saveVehicleData(duplicate)).expectNextCount(1).verifyComplete();
+
+        verify(latestCache).record(inserted);
+        verify(latestCache, never()).record(duplicate);
+        verify(summaryService).record(inserted);
+        verify(summaryService, never()).record(duplicate);
+    }
+
+    @Test
+    void shouldShareTimeRangeReadingsMaterialized() {
+        VehicleData stored = createTestVehicleData();
+        Instant end = Instant.parse("2025-02-23T11:00:00Z");
+        when(vehicleDataRepository.findByVehicleIdAndTimestampBetween("TEST-001", end.minusSeconds(3_600), end, null))
+            .thenReturn(Flux.just(stored));
+
+        StepVerifier.create(vehicleDataService.getVehicleDataByTimeRange("TEST-001", end.minusSeconds(3_600), end))
+            .expectNext(stored)
+            .verifyComplete();
+
+        assertThat(stored).extracting("data", "sensors").doesNotContainNull();
+    }
+}
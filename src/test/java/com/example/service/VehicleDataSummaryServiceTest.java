@@ -0,0 +1,152 @@
+package com.example.service;
+
+import com.example.model.VehicleData;
+import com.example.model.VehicleDataSummary;
+import com.example.repository.VehicleDataRepository;
+import com.example.repository.VehicleDataSummaryRepository;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class VehicleDataSummaryServiceTest {
+
+    private static final Instant FIRST = Instant.parse("2025-01-01T00:00:00Z");
+    private static final Instant LAST = Instant.parse("2025-02-23T10:00:00Z");
+
+    @Mock
+    private VehicleDataSummaryRepository summaryRepository;
+
+    @Mock
+    private VehicleDataRepository vehicleDataRepository;
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    private VehicleDataSummaryService summaryService;
+
+    @BeforeEach
+    void setUp() {
+        // No flush or reconciliation timers: the tests drive both
+        summaryService = new VehicleDataSummaryService(summaryRepository, vehicleDataRepository, mongoTemplate,
+            new SimpleMeterRegistry(), 0, 500, 0, 0, 4);
+    }
+
+    @Test
+    void shouldCountFromStoredSummaryPlusPendingReadings() {
+        when(summaryRepository.findById("VEH-1")).thenReturn(Mono.just(new VehicleDataSummary("VEH-1", 1_000_000, FIRST, LAST)));
+        summaryService.record(reading("VEH-1", LAST.plusSeconds(1)));
+        summaryService.record(reading("VEH-1", LAST.plusSeconds(2)));
+
+        StepVerifier.create(summaryService.summary("VEH-1"))
+            .expectNext(new VehicleDataSummary("VEH-1", 1_000_002, FIRST, LAST.plusSeconds(2)))
+            .verifyComplete();
+        verify(vehicleDataRepository, never()).countByVehicleId(anyString());
+    }
+
+    @Test
+    void shouldSummarizeReadingsOfVehiclesWithoutSummary() {
+        when(summaryRepository.findById(anyString())).thenReturn(Mono.empty());
+        stubReadings("VEH-2", 3);
+        when(vehicleDataRepository.countByVehicleId("VEH-404")).thenReturn(Mono.just(0L));
+
+        StepVerifier.create(summaryService.count("VEH-2")).expectNext(3L).verifyComplete();
+        StepVerifier.create(summaryService.count("VEH-404")).expectNext(0L).verifyComplete();
+    }
+
+    @Test
+    void shouldRewriteOnlyDriftedSummaries() {
+        when(vehicleDataRepository.findDistinctVehicleIds()).thenReturn(Flux.just("VEH-1", "VEH-2", "VEH-3"));
+        stubReadings("VEH-1", 10);
+        stubReadings("VEH-2", 20);
+        stubReadings("VEH-3", 30);
+        when(summaryRepository.findById("VEH-1")).thenReturn(Mono.just(new VehicleDataSummary("VEH-1", 10, FIRST, LAST)));
+        when(summaryRepository.findById("VEH-2")).thenReturn(Mono.just(new VehicleDataSummary("VEH-2", 19, FIRST, LAST)));
+        when(summaryRepository.findById("VEH-3")).thenReturn(Mono.empty());
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(VehicleDataSummary.class)))
+            .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+        when(mongoTemplate.insert(any(VehicleDataSummary.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(summaryService.reconcile()).expectNext(2L).verifyComplete();
+
+        ArgumentCaptor<Query> filter = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> correction = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(filter.capture(), correction.capture(), eq(VehicleDataSummary.class));
+        assertThat(filter.getValue().getQueryObject()).containsEntry("_id", "VEH-2").containsEntry("count", 19L);
+        assertThat(correction.getValue().getUpdateObject().get("$inc", Document.class)).containsEntry("count", 1L);
+        verify(mongoTemplate).insert(new VehicleDataSummary("VEH-3", 30, FIRST, LAST));
+    }
+
+    @Test
+    void shouldLeaveSummaryChangedByAFlushForTheNextPass() {
+        when(vehicleDataRepository.findDistinctVehicleIds()).thenReturn(Flux.just("VEH-2"));
+        stubReadings("VEH-2", 20);
+        when(summaryRepository.findById("VEH-2")).thenReturn(Mono.just(new VehicleDataSummary("VEH-2", 19, FIRST, LAST)));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(VehicleDataSummary.class)))
+            .thenReturn(Mono.just(UpdateResult.acknowledged(0, 0L, null)));
+
+        StepVerifier.create(summaryService.reconcile()).expectNext(0L).verifyComplete();
+    }
+
+    @Test
+    void shouldSeedSummaryFromReadingsBeforeTheFirstDelta() {
+        when(summaryRepository.findAllById(anyIterable())).thenReturn(Flux.empty());
+        stubReadings("VEH-5", 3);
+        when(mongoTemplate.insert(any(VehicleDataSummary.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        summaryService.record(reading("VEH-5", LAST));
+
+        StepVerifier.create(summaryService.flush()).verifyComplete();
+
+        verify(mongoTemplate).insert(new VehicleDataSummary("VEH-5", 3, FIRST, LAST));
+        verify(mongoTemplate, never()).bulkOps(any(), any(Class.class));
+    }
+
+    @Test
+    void shouldSkipReconciliationWhileAnotherInstanceHoldsTheLease() {
+        VehicleDataSummaryService scheduled = new VehicleDataSummaryService(summaryRepository, vehicleDataRepository, mongoTemplate,
+            new SimpleMeterRegistry(), 0, 500, 86_400_000, 0, 4);
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(VehicleDataSummaryService.LEASE_COLLECTION)))
+            .thenReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key error")));
+
+        StepVerifier.create(scheduled.reconcileIfLeaseHeld()).verifyComplete();
+
+        verify(vehicleDataRepository, never()).findDistinctVehicleIds();
+    }
+
+    private void stubReadings(String vehicleId, long count) {
+        when(vehicleDataRepository.countByVehicleId(vehicleId)).thenReturn(Mono.just(count));
+        when(vehicleDataRepository.streamByVehicleId(vehicleId, null, null, null, 1)).thenReturn(Flux.just(reading(vehicleId, FIRST)));
+        when(vehicleDataRepository.findFirstByVehicleIdOrderByTimestampDesc(vehicleId)).thenReturn(Mono.just(reading(vehicleId, LAST)));
+    }
+
+    private static VehicleData reading(String vehicleId, Instant timestamp) {
+        VehicleData data = new VehicleData();
+        data.setVehicleId(vehicleId);
+        data.setTimestamp(timestamp);
+        return data;
+    }
+}
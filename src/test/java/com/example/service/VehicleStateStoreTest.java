@@ -0,0 +1,88 @@
+package com.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VehicleStateStoreTest {
+
+    private static final long NOW = 1_740_304_800_000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldKeepRecordsAndCheckpointedOffsetsAcrossRestarts() {
+        VehicleStateStore store = store(directory.toString(), 4, 1_000, 0);
+        for (int i = 0; i < 100; i++) {
+            write(store, "VEH-" + i, i);
+        }
+        TopicPartition partition = new TopicPartition("vehicle-data", 3);
+        store.recordConsumed(Map.of(partition, 42L));
+        store.recordConsumed(Map.of(partition, 40L));
+        store.stop();
+
+        VehicleStateStore reopened = store(directory.toString(), 4, 1_000, 0);
+
+        assertThat(reopened.size()).isEqualTo(100);
+        assertThat(reopened.checkpointedOffsets()).containsExactly(Map.entry(partition, 42L));
+        for (int i = 0; i < 100; i++) {
+            assertThat(read(reopened, "VEH-" + i)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    void shouldDiscardFilesWhenTheLayoutChanges() {
+        VehicleStateStore store = store(directory.toString(), 4, 1_000, 0);
+        write(store, "VEH-001", 7);
+        store.stop();
+
+        VehicleStateStore resized = store(directory.toString(), 4, 100_000, 0);
+
+        assertThat(resized.size()).isZero();
+        assertThat(read(resized, "VEH-001")).isZero();
+    }
+
+    @Test
+    void shouldReuseExpiredRecordsAndStopTrackingWhenFull() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        VehicleStateStore store = new VehicleStateStore(registry, "", 1, 4, 60_000, 0);
+        for (int i = 0; i < 4; i++) {
+            write(store, "VEH-" + i, i + 1);
+        }
+        VehicleStateStore.Segment segment = store.segment("VEH-4");
+
+        assertThat(segment.find("VEH-4", NOW)).isEqualTo(-1);
+        assertThat(segment.find("VEH-" + "X".repeat(VehicleStateStore.MAX_KEY_BYTES), NOW)).isEqualTo(-1);
+        assertThat(registry.get("state.store.untracked").counter().count()).isEqualTo(2.0);
+
+        int base = segment.find("VEH-4", NOW + 120_000);
+        assertThat(base).isPositive();
+        assertThat(segment.buffer().getLong(base)).isZero();
+        assertThat(store.size()).isEqualTo(4);
+    }
+
+    private static VehicleStateStore store(String path, int shards, int maxVehicles, long ttlMillis) {
+        return new VehicleStateStore(new SimpleMeterRegistry(), path, shards, maxVehicles, ttlMillis, 0);
+    }
+
+    private static void write(VehicleStateStore store, String vehicleId, long value) {
+        VehicleStateStore.Segment segment = store.segment(vehicleId);
+        synchronized (segment) {
+            segment.buffer().putLong(segment.find(vehicleId, NOW), value);
+        }
+    }
+
+    private static long read(VehicleStateStore store, String vehicleId) {
+        VehicleStateStore.Segment segment = store.segment(vehicleId);
+        synchronized (segment) {
+            return segment.buffer().getLong(segment.find(vehicleId, NOW));
+        }
+    }
+}